@@ -0,0 +1,108 @@
+package ru.bjcreslin.aop.jfr;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.StringJoiner;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.util.ReflectionUtils;
+import ru.bjcreslin.jfr.CriteriaQueryEvent;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Aspect emitting a {@link CriteriaQueryEvent} for each call of {@code findByCriteria} on a query service.
+ * <p>
+ * Nothing is done besides the call while no flight recording is enabling the event.
+ */
+@Aspect
+public class CriteriaQueryEventAspect {
+
+    private static final String QUERY_SERVICE_SUFFIX = "QueryService";
+
+    @Around("execution(* ru.bjcreslin.service.*QueryService.findByCriteria(..))")
+    public Object recordQuery(ProceedingJoinPoint joinPoint) throws Throwable {
+        CriteriaQueryEvent event = new CriteriaQueryEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        try {
+            Object result = joinPoint.proceed();
+            event.rows = rows(result);
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.entity = entity(joinPoint.getSignature().getDeclaringType());
+                Object criteria = joinPoint.getArgs().length > 0 ? joinPoint.getArgs()[0] : null;
+                event.criteria = criteria instanceof Criteria ? shape(criteria) : null;
+                event.commit();
+            }
+        }
+    }
+
+    private static String entity(Class<?> service) {
+        String name = service.getSimpleName();
+        return name.endsWith(QUERY_SERVICE_SUFFIX) ? name.substring(0, name.length() - QUERY_SERVICE_SUFFIX.length()) : name;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return -1;
+    }
+
+    /**
+     * @return the filters of the criteria with the operators they use, such as {@code name.contains,projectId.equals}.
+     */
+    static String shape(Object criteria) {
+        StringJoiner shape = new StringJoiner(",");
+        for (PropertyDescriptor property : BeanUtils.getPropertyDescriptors(criteria.getClass())) {
+            Method getter = property.getReadMethod();
+            if (getter != null && Filter.class.isAssignableFrom(getter.getReturnType())) {
+                Filter<?> filter = (Filter<?>) ReflectionUtils.invokeMethod(getter, criteria);
+                if (filter != null) {
+                    addOperators(property.getName(), filter, shape);
+                }
+            }
+        }
+        return shape.toString();
+    }
+
+    private static void addOperators(String name, Filter<?> filter, StringJoiner shape) {
+        addOperator(name, "equals", filter.getEquals(), shape);
+        addOperator(name, "notEquals", filter.getNotEquals(), shape);
+        addOperator(name, "specified", filter.getSpecified(), shape);
+        addOperator(name, "in", filter.getIn(), shape);
+        addOperator(name, "notIn", filter.getNotIn(), shape);
+        if (filter instanceof RangeFilter) {
+            RangeFilter<?> range = (RangeFilter<?>) filter;
+            addOperator(name, "greaterThan", range.getGreaterThan(), shape);
+            addOperator(name, "greaterThanOrEqual", range.getGreaterThanOrEqual(), shape);
+            addOperator(name, "lessThan", range.getLessThan(), shape);
+            addOperator(name, "lessThanOrEqual", range.getLessThanOrEqual(), shape);
+        }
+        if (filter instanceof StringFilter) {
+            StringFilter string = (StringFilter) filter;
+            addOperator(name, "contains", string.getContains(), shape);
+            addOperator(name, "doesNotContain", string.getDoesNotContain(), shape);
+        }
+    }
+
+    private static void addOperator(String name, String operator, Object value, StringJoiner shape) {
+        if (value != null) {
+            shape.add(name + '.' + operator);
+        }
+    }
+}
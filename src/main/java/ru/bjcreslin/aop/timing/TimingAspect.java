@@ -0,0 +1,276 @@
+package ru.bjcreslin.aop.timing;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RestController;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.web.timing.RequestTiming;
+import tech.jhipster.config.JHipsterConstants;
+
+/**
+ * Aspect for timing the execution of service, repository and Web REST Spring components.
+ * <p>
+ * Each method gets a {@value #METRIC_NAME} function timer, tagged with its class, its name and its outcome, which is
+ * created on its first call and kept with its logger. The overloads of a method, and the methods of classes with the
+ * same simple name, share their timer. The calls only add up their number and their time, without the
+ * maximum and the histogram of a timer, which would cost more than the rest of the advice.
+ * <p>
+ * The time of the REST controllers and of the services is also added to the {@link RequestTiming} of the request.
+ * <p>
+ * The arguments of a sample of the calls are logged at debug level, with a limit per second, so that enabling the debug
+ * level doesn't slow down every call.
+ * <p>
+ * The exceptions thrown by the methods are logged at error level with the {@code dev} profile only, as the logging
+ * aspect did, and at debug level otherwise: most of them, such as a missing entity or a failed precondition, are part of
+ * the normal answers of the API.
+ * <p>
+ * The advice is slower than the logging aspect it replaces: it reads the clock before and after every call, which costs
+ * about as much as the rest of the advice. The {@code MethodTimingBenchmark} of the {@code perf} profile measures it.
+ */
+@Aspect
+public class TimingAspect {
+
+    static final String METRIC_NAME = "method.timed";
+
+    private final boolean developmentProfile;
+
+    private final MeterRegistry meterRegistry;
+
+    private final double argumentSampleRate;
+
+    private final int maxArgumentLogsPerSecond;
+
+    /**
+     * Timed methods by class of the target and by method, the targets of the same method may have different classes.
+     */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Method, TimedMethod>> timedMethods = new ConcurrentHashMap<>();
+
+    /**
+     * Calls by tags of their timer, as the registry keeps the first timer registered with given tags.
+     */
+    private final ConcurrentMap<List<String>, Calls> calls = new ConcurrentHashMap<>();
+
+    private final AtomicLong argumentLogSecond = new AtomicLong();
+
+    private final AtomicInteger argumentLogs = new AtomicInteger();
+
+    public TimingAspect(Environment env, MeterRegistry meterRegistry, ApplicationProperties.MethodTiming properties) {
+        this.developmentProfile = env.acceptsProfiles(Profiles.of(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT));
+        this.meterRegistry = meterRegistry;
+        this.argumentSampleRate = properties.getArgumentSampleRate();
+        this.maxArgumentLogsPerSecond = properties.getMaxArgumentLogsPerSecond();
+    }
+
+    /**
+     * Pointcut that matches all repositories, services and Web REST endpoints.
+     */
+    @Pointcut(
+        "within(@org.springframework.stereotype.Repository *)" +
+        " || within(@org.springframework.stereotype.Service *)" +
+        " || within(@org.springframework.web.bind.annotation.RestController *)"
+    )
+    public void springBeanPointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Pointcut that matches all Spring beans in the application's main packages.
+     */
+    @Pointcut("within(ru.bjcreslin.repository..*)" + " || within(ru.bjcreslin.service..*)" + " || within(ru.bjcreslin.web.rest..*)")
+    public void applicationPackagePointcut() {
+        // Method is empty as this is just a Pointcut, the implementations are in the advices.
+    }
+
+    /**
+     * Advice that times a method, logs the arguments of a sample of its calls and logs the exceptions it throws.
+     * <p>
+     * The exceptions are logged here rather than in an after throwing advice, which would add an interceptor to every call.
+     *
+     * @param joinPoint join point for advice.
+     * @return result.
+     * @throws Throwable throws {@link IllegalArgumentException}.
+     */
+    @Around("applicationPackagePointcut() && springBeanPointcut()")
+    public Object timeAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        TimedMethod method = timedMethod(joinPoint);
+        boolean logArguments = method.log.isDebugEnabled() && sampleArguments();
+        RequestTiming timing = method.phase != null ? RequestTiming.current() : null;
+        if (timing != null) {
+            timing.enter(method.phase);
+        }
+        Calls calls = method.failure;
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            calls = method.success;
+            return result;
+        } catch (Throwable e) {
+            logException(method, joinPoint, e);
+            throw e;
+        } finally {
+            long duration = System.nanoTime() - start;
+            calls.record(duration);
+            if (timing != null) {
+                timing.exit(method.phase, duration);
+            }
+            if (logArguments) {
+                method.log.debug(
+                    "{}() with argument[s] = {} took {} microseconds",
+                    method.name,
+                    Arrays.toString(joinPoint.getArgs()),
+                    TimeUnit.NANOSECONDS.toMicros(duration)
+                );
+            }
+        }
+    }
+
+    private void logException(TimedMethod method, ProceedingJoinPoint joinPoint, Throwable e) {
+        if (developmentProfile) {
+            if (e instanceof IllegalArgumentException) {
+                method.log.error("Illegal argument: {} in {}()", Arrays.toString(joinPoint.getArgs()), method.name);
+            }
+            method.log.error(
+                "Exception in {}() with cause = \'{}\' and exception = \'{}\'",
+                method.name,
+                e.getCause() != null ? e.getCause() : "NULL",
+                e.getMessage(),
+                e
+            );
+        } else {
+            method.log.debug("Exception in {}() with cause = {}", method.name, e.getCause() != null ? e.getCause() : "NULL");
+        }
+    }
+
+    private TimedMethod timedMethod(ProceedingJoinPoint joinPoint) {
+        Object target = joinPoint.getTarget();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        ConcurrentMap<Method, TimedMethod> methods = timedMethods.get(target.getClass());
+        if (methods == null) {
+            methods = timedMethods.computeIfAbsent(target.getClass(), type -> new ConcurrentHashMap<>());
+        }
+        TimedMethod timedMethod = methods.get(method);
+        if (timedMethod == null) {
+            timedMethod = methods.computeIfAbsent(method, key -> timedMethod(targetType(target), key.getName()));
+        }
+        return timedMethod;
+    }
+
+    private TimedMethod timedMethod(Class<?> type, String name) {
+        return new TimedMethod(type, name, calls(type, name, "success"), calls(type, name, "error"));
+    }
+
+    private Calls calls(Class<?> type, String name, String outcome) {
+        return calls.computeIfAbsent(List.of(type.getSimpleName(), name, outcome), tags -> new Calls(tags, meterRegistry));
+    }
+
+    /**
+     * @return the class of the target, or the interface of a Spring Data repository rather than its proxy.
+     */
+    private static Class<?> targetType(Object target) {
+        if (Proxy.isProxyClass(target.getClass())) {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(target);
+            if (interfaces.length > 0) {
+                return interfaces[0];
+            }
+        }
+        return ClassUtils.getUserClass(target);
+    }
+
+    private boolean sampleArguments() {
+        if (ThreadLocalRandom.current().nextDouble() >= argumentSampleRate) {
+            return false;
+        }
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long current = argumentLogSecond.get();
+        if (second != current && argumentLogSecond.compareAndSet(current, second)) {
+            argumentLogs.set(0);
+        }
+        return argumentLogs.incrementAndGet() <= maxArgumentLogsPerSecond;
+    }
+
+    private static final class TimedMethod {
+
+        private final String name;
+
+        private final Logger log;
+
+        /**
+         * Phase of the requests the method is part of, {@code null} for the repositories whose time is the one of JDBC.
+         */
+        private final RequestTiming.Phase phase;
+
+        private final Calls success;
+
+        private final Calls failure;
+
+        private TimedMethod(Class<?> type, String name, Calls success, Calls failure) {
+            this.name = name;
+            this.log = LoggerFactory.getLogger(type);
+            this.phase = phase(type);
+            this.success = success;
+            this.failure = failure;
+        }
+
+        private static RequestTiming.Phase phase(Class<?> type) {
+            if (AnnotatedElementUtils.hasAnnotation(type, RestController.class)) {
+                return RequestTiming.Phase.CONTROLLER;
+            }
+            if (AnnotatedElementUtils.hasAnnotation(type, Service.class)) {
+                return RequestTiming.Phase.SERVICE;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Number and total time of the calls of a method, read by a function timer when the metrics are published.
+     */
+    private static final class Calls {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        /**
+         * @param tags the class, the method and the outcome of the calls.
+         */
+        private Calls(List<String> tags, MeterRegistry meterRegistry) {
+            FunctionTimer
+                .builder(METRIC_NAME, this, calls -> calls.count.sum(), calls -> calls.totalNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent in the methods of the services, repositories and REST controllers")
+                .tag("class", tags.get(0))
+                .tag("method", tags.get(1))
+                .tag("outcome", tags.get(2))
+                .register(meterRegistry);
+        }
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package ru.bjcreslin.config;
 
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +11,683 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final QueryCache queryCache = new QueryCache();
+
+    private final Cache cache = new Cache();
+
+    private final Search search = new Search();
+
+    private final Export export = new Export();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final BulkUpdate bulkUpdate = new BulkUpdate();
+
+    private final RememberMe rememberMe = new RememberMe();
+
+    private final Cleanup cleanup = new Cleanup();
+
+    private final UserDetailsCache userDetailsCache = new UserDetailsCache();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final MailDelivery mailDelivery = new MailDelivery();
+
+    private final MethodTiming methodTiming = new MethodTiming();
+
+    private final SqlStatistics sqlStatistics = new SqlStatistics();
+
+    private final SlowQuery slowQuery = new SlowQuery();
+
+    private final ServerTiming serverTiming = new ServerTiming();
+
+    private final FlightRecorder flightRecorder = new FlightRecorder();
+
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public BulkUpdate getBulkUpdate() {
+        return bulkUpdate;
+    }
+
+    public RememberMe getRememberMe() {
+        return rememberMe;
+    }
+
+    public Cleanup getCleanup() {
+        return cleanup;
+    }
+
+    public UserDetailsCache getUserDetailsCache() {
+        return userDetailsCache;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public MailDelivery getMailDelivery() {
+        return mailDelivery;
+    }
+
+    public MethodTiming getMethodTiming() {
+        return methodTiming;
+    }
+
+    public SqlStatistics getSqlStatistics() {
+        return sqlStatistics;
+    }
+
+    public SlowQuery getSlowQuery() {
+        return slowQuery;
+    }
+
+    public ServerTiming getServerTiming() {
+        return serverTiming;
+    }
+
+    public FlightRecorder getFlightRecorder() {
+        return flightRecorder;
+    }
+
+    public static class QueryCache {
+
+        private boolean enabled = true;
+
+        private int maxShapes = 256;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxShapes() {
+            return maxShapes;
+        }
+
+        public void setMaxShapes(int maxShapes) {
+            this.maxShapes = maxShapes;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Settings of the second-level cache regions, by region name, overriding {@code jhipster.cache.caffeine}.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public static class Region {
+
+            private Integer timeToLiveSeconds;
+
+            private Long maxEntries;
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+        }
+    }
+
+    public static class Search {
+
+        /**
+         * Number of entities read from the database at a time when the search index is rebuilt.
+         */
+        private int batchSize = 500;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    public static class Export {
+
+        /**
+         * Number of rows fetched from the database at a time by an export.
+         */
+        private int fetchSize = 500;
+
+        /**
+         * Number of exports streamed at the same time, the others wait for a thread.
+         */
+        private int threads = 4;
+
+        /**
+         * Number of exports waiting for a thread, the others are rejected.
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * Time after which an unfinished export is aborted.
+         */
+        private long timeoutSeconds = 1800;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
+
+    public static class BulkImport {
+
+        /**
+         * Number of rows inserted in each transaction of a bulk import.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Maximum number of rows of a bulk import.
+         */
+        private int maxRows = 100_000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+        }
+    }
+
+    public static class BulkUpdate {
+
+        /**
+         * Maximum number of rows of a bulk update, which are all updated in one transaction.
+         */
+        private int maxRows = 1000;
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+        }
+    }
+
+    public static class RememberMe {
+
+        /**
+         * Minimum time between two rotations of the value of a remember-me token, 0 to rotate it on every auto-login.
+         */
+        private long rotationIntervalSeconds = 300;
+
+        /**
+         * Delay between two writes of the buffered token dates, IP addresses and user agents to the database.
+         */
+        private long writeBehindDelayMillis = 5000;
+
+        public long getRotationIntervalSeconds() {
+            return rotationIntervalSeconds;
+        }
+
+        public void setRotationIntervalSeconds(long rotationIntervalSeconds) {
+            this.rotationIntervalSeconds = rotationIntervalSeconds;
+        }
+
+        public long getWriteBehindDelayMillis() {
+            return writeBehindDelayMillis;
+        }
+
+        public void setWriteBehindDelayMillis(long writeBehindDelayMillis) {
+            this.writeBehindDelayMillis = writeBehindDelayMillis;
+        }
+    }
+
+    public static class Cleanup {
+
+        /**
+         * Number of rows deleted per transaction by the cleanup jobs.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Pause between two chunks of a cleanup job, letting the other transactions take the locks.
+         */
+        private long pauseMillis = 100;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public long getPauseMillis() {
+            return pauseMillis;
+        }
+
+        public void setPauseMillis(long pauseMillis) {
+            this.pauseMillis = pauseMillis;
+        }
+    }
+
+    public static class UserDetailsCache {
+
+        /**
+         * Maximum number of cached users, each one may be cached by login and by email.
+         */
+        private long maxEntries = 10000;
+
+        /**
+         * Time after which a cached user is read again from the database.
+         */
+        private long timeToLiveSeconds = 600;
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * BCrypt cost of the new password hashes, the passwords hashed with a lower cost are hashed again on login.
+         */
+        private int cost = 10;
+
+        /**
+         * Number of passwords hashed at the same time, 0 for the number of processors.
+         */
+        private int threads = 0;
+
+        /**
+         * Number of passwords waiting for a thread, beyond which they are rejected.
+         */
+        private int queueCapacity = 100;
+
+        public int getCost() {
+            return cost;
+        }
+
+        public void setCost(int cost) {
+            this.cost = cost;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class MailDelivery {
+
+        /**
+         * Number of emails waiting to be sent, beyond which they are rejected.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Number of SMTP connections, each one kept open and used by its own thread.
+         */
+        private int connections = 2;
+
+        /**
+         * Maximum number of emails taken from the queue and sent over a connection at a time.
+         */
+        private int batchSize = 50;
+
+        /**
+         * Number of attempts to send an email, reconnecting between two of them.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Pause before the second attempt, doubled before each following one.
+         */
+        private long initialBackoffMillis = 1000;
+
+        /**
+         * Maximum pause between two attempts.
+         */
+        private long maxBackoffMillis = 30000;
+
+        /**
+         * Time after which an unused connection is closed.
+         */
+        private long idleTimeoutSeconds = 30;
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public void setConnections(int connections) {
+            this.connections = connections;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getInitialBackoffMillis() {
+            return initialBackoffMillis;
+        }
+
+        public void setInitialBackoffMillis(long initialBackoffMillis) {
+            this.initialBackoffMillis = initialBackoffMillis;
+        }
+
+        public long getMaxBackoffMillis() {
+            return maxBackoffMillis;
+        }
+
+        public void setMaxBackoffMillis(long maxBackoffMillis) {
+            this.maxBackoffMillis = maxBackoffMillis;
+        }
+
+        public long getIdleTimeoutSeconds() {
+            return idleTimeoutSeconds;
+        }
+
+        public void setIdleTimeoutSeconds(long idleTimeoutSeconds) {
+            this.idleTimeoutSeconds = idleTimeoutSeconds;
+        }
+    }
+
+    public static class MethodTiming {
+
+        /**
+         * Share of the calls whose arguments are logged, when the debug level is enabled for their class.
+         */
+        private double argumentSampleRate = 0.01;
+
+        /**
+         * Maximum number of calls whose arguments are logged per second, all classes included.
+         */
+        private int maxArgumentLogsPerSecond = 10;
+
+        public double getArgumentSampleRate() {
+            return argumentSampleRate;
+        }
+
+        public void setArgumentSampleRate(double argumentSampleRate) {
+            this.argumentSampleRate = argumentSampleRate;
+        }
+
+        public int getMaxArgumentLogsPerSecond() {
+            return maxArgumentLogsPerSecond;
+        }
+
+        public void setMaxArgumentLogsPerSecond(int maxArgumentLogsPerSecond) {
+            this.maxArgumentLogsPerSecond = maxArgumentLogsPerSecond;
+        }
+    }
+
+    public static class SqlStatistics {
+
+        /**
+         * Number of executions of the same statement by a request from which it is reported as a possible N+1 select.
+         */
+        private int repeatedStatementThreshold = 10;
+
+        /**
+         * Maximum number of repeated statements kept per endpoint.
+         */
+        private int maxRepeatedStatements = 20;
+
+        public int getRepeatedStatementThreshold() {
+            return repeatedStatementThreshold;
+        }
+
+        public void setRepeatedStatementThreshold(int repeatedStatementThreshold) {
+            this.repeatedStatementThreshold = repeatedStatementThreshold;
+        }
+
+        public int getMaxRepeatedStatements() {
+            return maxRepeatedStatements;
+        }
+
+        public void setMaxRepeatedStatements(int maxRepeatedStatements) {
+            this.maxRepeatedStatements = maxRepeatedStatements;
+        }
+    }
+
+    public static class SlowQuery {
+
+        /**
+         * Execution time from which a statement is logged as slow.
+         */
+        private long thresholdMillis = 500;
+
+        /**
+         * Number of the slowest statements kept.
+         */
+        private int maxEntries = 50;
+
+        /**
+         * Share of the slow selects whose execution plan is captured, from 0 for none to 1 for all.
+         */
+        private double explainSampleRate = 0;
+
+        /**
+         * Time after which the capture of an execution plan is cancelled.
+         */
+        private int explainTimeoutSeconds = 10;
+
+        public long getThresholdMillis() {
+            return thresholdMillis;
+        }
+
+        public void setThresholdMillis(long thresholdMillis) {
+            this.thresholdMillis = thresholdMillis;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public double getExplainSampleRate() {
+            return explainSampleRate;
+        }
+
+        public void setExplainSampleRate(double explainSampleRate) {
+            this.explainSampleRate = explainSampleRate;
+        }
+
+        public int getExplainTimeoutSeconds() {
+            return explainTimeoutSeconds;
+        }
+
+        public void setExplainTimeoutSeconds(int explainTimeoutSeconds) {
+            this.explainTimeoutSeconds = explainTimeoutSeconds;
+        }
+    }
+
+    public static class ServerTiming {
+
+        /**
+         * Share of the requests whose phases are sent back in a Server-Timing header, besides the ones of the
+         * administrators, from 0 for none to 1 for all.
+         */
+        private double sampleRate = 0;
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+    }
+
+    public static class FlightRecorder {
+
+        /**
+         * Duration of the recordings started without one.
+         */
+        private long defaultDurationSeconds = 60;
+
+        /**
+         * Longest duration of a recording.
+         */
+        private long maxDurationSeconds = 600;
+
+        /**
+         * Settings of the JDK for the recordings started without any, {@code default} or {@code profile}.
+         */
+        private String defaultSettings = "default";
+
+        /**
+         * Number of recordings kept, running or stopped.
+         */
+        private int maxRecordings = 3;
+
+        public long getDefaultDurationSeconds() {
+            return defaultDurationSeconds;
+        }
+
+        public void setDefaultDurationSeconds(long defaultDurationSeconds) {
+            this.defaultDurationSeconds = defaultDurationSeconds;
+        }
+
+        public long getMaxDurationSeconds() {
+            return maxDurationSeconds;
+        }
+
+        public void setMaxDurationSeconds(long maxDurationSeconds) {
+            this.maxDurationSeconds = maxDurationSeconds;
+        }
+
+        public String getDefaultSettings() {
+            return defaultSettings;
+        }
+
+        public void setDefaultSettings(String defaultSettings) {
+            this.defaultSettings = defaultSettings;
+        }
+
+        public int getMaxRecordings() {
+            return maxRecordings;
+        }
+
+        public void setMaxRecordings(int maxRecordings) {
+            this.maxRecordings = maxRecordings;
+        }
+    }
+}
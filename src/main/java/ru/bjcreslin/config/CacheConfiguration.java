@@ -0,0 +1,127 @@
+package ru.bjcreslin.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.lang.management.ManagementFactory;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tech.jhipster.config.JHipsterProperties;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    private static final String DEFAULT_UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private static final String DEFAULT_QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final JHipsterProperties.Cache.Caffeine caffeine;
+
+    private final ApplicationProperties.Cache cacheProperties;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.caffeine = jHipsterProperties.getCache().getCaffeine();
+        this.cacheProperties = applicationProperties.getCache();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> {
+            createCache(cm, ru.bjcreslin.domain.Authority.class.getName());
+            createCache(cm, ru.bjcreslin.domain.User.class.getName() + ".authorities");
+            createCache(cm, ru.bjcreslin.domain.Project.class.getName());
+            createCache(cm, ru.bjcreslin.domain.Project.class.getName() + ".tasks");
+            createCache(cm, ru.bjcreslin.domain.Task.class.getName());
+            createCache(cm, ru.bjcreslin.domain.Task.class.getName() + ".comments");
+            createCache(cm, ru.bjcreslin.domain.UserInfo.class.getName());
+            createCache(cm, DEFAULT_UPDATE_TIMESTAMPS_REGION);
+            createCache(cm, DEFAULT_QUERY_RESULTS_REGION);
+            // jhipster-needle-caffeine-add-entry
+        };
+    }
+
+    /**
+     * Publish the hit ratio of every cache, as read from its JCache statistics.
+     */
+    @Bean
+    public MeterBinder cacheHitRatioMeterBinder(javax.cache.CacheManager cacheManager) {
+        return registry -> {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            for (String cacheName : cacheManager.getCacheNames()) {
+                ObjectName objectName = statisticsObjectName(cacheManager, cacheName);
+                if (objectName == null || !mBeanServer.isRegistered(objectName)) {
+                    log.warn("No statistics available for cache {}", cacheName);
+                    continue;
+                }
+                CacheStatisticsMXBean statistics = JMX.newMXBeanProxy(mBeanServer, objectName, CacheStatisticsMXBean.class);
+                Gauge
+                    .builder("cache.hit.ratio", statistics, s -> s.getCacheHitPercentage() / 100.0)
+                    .description("Ratio of cache requests which were hits")
+                    .tag("cache", cacheName)
+                    .register(registry);
+            }
+        };
+    }
+
+    private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        } else {
+            cm.createCache(cacheName, jcacheConfiguration(cacheName));
+        }
+    }
+
+    private javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration(String cacheName) {
+        ApplicationProperties.Cache.Region region = cacheProperties.getRegions().getOrDefault(
+            cacheName,
+            new ApplicationProperties.Cache.Region()
+        );
+        long maxEntries = region.getMaxEntries() != null ? region.getMaxEntries() : caffeine.getMaxEntries();
+        int timeToLiveSeconds = region.getTimeToLiveSeconds() != null ? region.getTimeToLiveSeconds() : caffeine.getTimeToLiveSeconds();
+
+        CaffeineConfiguration<Object, Object> caffeineConfiguration = new CaffeineConfiguration<>();
+        caffeineConfiguration.setMaximumSize(OptionalLong.of(maxEntries));
+        caffeineConfiguration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(timeToLiveSeconds)));
+        caffeineConfiguration.setStatisticsEnabled(true);
+        return caffeineConfiguration;
+    }
+
+    /**
+     * The statistics MBean name, as registered by the JCache provider.
+     */
+    private static ObjectName statisticsObjectName(javax.cache.CacheManager cacheManager, String cacheName) {
+        try {
+            return new ObjectName(
+                "javax.cache:type=CacheStatistics,CacheManager=" + sanitize(cacheManager.getURI().toString()) + ",Cache=" + sanitize(cacheName)
+            );
+        } catch (MalformedObjectNameException e) {
+            return null;
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[,:=\n]", ".");
+    }
+}
@@ -0,0 +1,41 @@
+package ru.bjcreslin.config;
+
+import java.util.concurrent.TimeUnit;
+import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.bjcreslin.web.rest.util.ExportExecutor;
+
+/**
+ * Runs the exports on threads of their own rather than on the {@code taskExecutor} of the {@code @Async} methods, so
+ * that long exports can't hold back the mails, with a bounded queue and a timeout which only apply to the exports.
+ */
+@Configuration
+public class ExportConfiguration {
+
+    private final ApplicationProperties.Export export;
+
+    private final TaskExecutionProperties taskExecutionProperties;
+
+    public ExportConfiguration(ApplicationProperties applicationProperties, TaskExecutionProperties taskExecutionProperties) {
+        this.export = applicationProperties.getExport();
+        this.taskExecutionProperties = taskExecutionProperties;
+    }
+
+    @Bean(name = "exportTaskExecutor")
+    public ThreadPoolTaskExecutor exportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(export.getThreads());
+        executor.setMaxPoolSize(export.getThreads());
+        // the exports beyond the queue are rejected, rather than holding their request open
+        executor.setQueueCapacity(export.getQueueCapacity());
+        executor.setThreadNamePrefix(taskExecutionProperties.getThreadNamePrefix() + "export-");
+        return executor;
+    }
+
+    @Bean
+    public ExportExecutor exportExecutor() {
+        return new ExportExecutor(exportTaskExecutor(), TimeUnit.SECONDS.toMillis(export.getTimeoutSeconds()));
+    }
+}
@@ -0,0 +1,19 @@
+package ru.bjcreslin.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import ru.bjcreslin.aop.jfr.CriteriaQueryEventAspect;
+
+/**
+ * Flight recorder events of the application, see {@link ru.bjcreslin.jfr.FlightRecorderEndpoint} to record them.
+ */
+@Configuration
+@EnableAspectJAutoProxy
+public class FlightRecorderConfiguration {
+
+    @Bean
+    public CriteriaQueryEventAspect criteriaQueryEventAspect() {
+        return new CriteriaQueryEventAspect();
+    }
+}
@@ -26,11 +26,11 @@ public class JacksonConfiguration {
     }
 
     /*
-     * Support for Hibernate types in Jackson.
+     * Support for Hibernate types in Jackson: an association which is not loaded is serialized as its ID.
      */
     @Bean
     public Hibernate5Module hibernate5Module() {
-        return new Hibernate5Module();
+        return new Hibernate5Module().enable(Hibernate5Module.Feature.SERIALIZE_IDENTIFIER_FOR_LAZY_NOT_LOADED_OBJECTS);
     }
 
     /*
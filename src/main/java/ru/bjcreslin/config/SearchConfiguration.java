@@ -0,0 +1,44 @@
+package ru.bjcreslin.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.bjcreslin.domain.Comment;
+import ru.bjcreslin.domain.Message;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.repository.search.SearchMapping;
+
+/**
+ * The entity fields indexed by the {@link ru.bjcreslin.repository.search.SearchIndex}.
+ */
+@Configuration
+public class SearchConfiguration {
+
+    @Bean
+    public SearchMapping<Task> taskSearchMapping() {
+        return SearchMapping
+            .of(Task.class, Task::getId)
+            .field("name", Task::getName, 2.0f)
+            .field("text", Task::getText)
+            .field("comment", Task::getComment);
+    }
+
+    @Bean
+    public SearchMapping<Project> projectSearchMapping() {
+        return SearchMapping
+            .of(Project.class, Project::getId)
+            .field("projectName", Project::getProjectName, 2.0f)
+            .field("description", Project::getDescription)
+            .field("comment", Project::getComment);
+    }
+
+    @Bean
+    public SearchMapping<Comment> commentSearchMapping() {
+        return SearchMapping.of(Comment.class, Comment::getId).field("text", Comment::getText);
+    }
+
+    @Bean
+    public SearchMapping<Message> messageSearchMapping() {
+        return SearchMapping.of(Message.class, Message::getId).field("text", Message::getText);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.bjcreslin.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
@@ -51,7 +52,7 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Bean
     public AjaxAuthenticationFailureHandler ajaxAuthenticationFailureHandler() {
-        return new AjaxAuthenticationFailureHandler();
+        return new PasswordHashingAwareFailureHandler();
     }
 
     @Bean
@@ -60,8 +61,15 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.PasswordHashing passwordHashing = applicationProperties.getPasswordHashing();
+        int threads = passwordHashing.getThreads() > 0 ? passwordHashing.getThreads() : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(
+            new BCryptPasswordEncoder(passwordHashing.getCost()),
+            threads,
+            passwordHashing.getQueueCapacity(),
+            meterRegistry
+        );
     }
 
     @Override
@@ -0,0 +1,53 @@
+package ru.bjcreslin.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import ru.bjcreslin.web.timing.ServerTimingFilter;
+import ru.bjcreslin.web.timing.TimedJacksonHttpMessageConverter;
+
+/**
+ * Timing of the phases of each request, see {@link ServerTimingFilter}.
+ */
+@Configuration
+public class ServerTimingConfiguration {
+
+    /**
+     * Replaces the Jackson converter of Spring Boot, so that the serialization of the responses is timed.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJacksonHttpMessageConverter(objectMapper);
+    }
+
+    /**
+     * Registers the filter before the one counting the SQL statements, so that the timing includes them.
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+        MeterRegistry meterRegistry,
+        ApplicationProperties applicationProperties
+    ) {
+        FilterRegistrationBean<ServerTimingFilter> registration = new FilterRegistrationBean<>(
+            new ServerTimingFilter(meterRegistry, applicationProperties.getServerTiming().getSampleRate())
+        );
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 2);
+        return registration;
+    }
+
+    /**
+     * Registers the filter right after the security filters, to mark their end.
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter.SecurityPassedFilter> serverTimingSecurityPassedFilter() {
+        FilterRegistrationBean<ServerTimingFilter.SecurityPassedFilter> registration = new FilterRegistrationBean<>(
+            new ServerTimingFilter.SecurityPassedFilter()
+        );
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
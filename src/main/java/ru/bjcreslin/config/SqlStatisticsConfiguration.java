@@ -0,0 +1,73 @@
+package ru.bjcreslin.config;
+
+import java.util.List;
+import javax.sql.DataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.bjcreslin.sql.SlowQueryLog;
+import ru.bjcreslin.sql.SqlStatisticsDataSource;
+import ru.bjcreslin.sql.SqlStatisticsFilter;
+import ru.bjcreslin.sql.SqlStatisticsInterceptor;
+import ru.bjcreslin.sql.SqlStatisticsRegistry;
+
+/**
+ * Counting of the SQL statements of each request, see {@link SqlStatisticsRegistry}, and log of the slow ones, see
+ * {@link SlowQueryLog}.
+ * <p>
+ * {@code hibernate.generate_statistics} stays off, its statistics are global rather than per request.
+ */
+@Configuration
+public class SqlStatisticsConfiguration {
+
+    /**
+     * Wraps the data sources once they are configured, so that their connections are counted.
+     */
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof SqlStatisticsDataSource)) {
+                    return new SqlStatisticsDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Reports the slow statements of the data sources once the application is initialized, so that the ones executed by
+     * Liquibase on startup are not.
+     */
+    @Bean
+    public SmartInitializingSingleton slowQueryLogRegistration(List<DataSource> dataSources, SlowQueryLog slowQueryLog) {
+        return () ->
+            dataSources
+                .stream()
+                .filter(SqlStatisticsDataSource.class::isInstance)
+                .forEach(dataSource -> ((SqlStatisticsDataSource) dataSource).setSlowQueryLog(slowQueryLog));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsHibernatePropertiesCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.INTERCEPTOR, new SqlStatisticsInterceptor());
+    }
+
+    /**
+     * Registers the filter before the security filters, so that the statements they execute are counted too.
+     */
+    @Bean
+    public FilterRegistrationBean<SqlStatisticsFilter> sqlStatisticsFilter(SqlStatisticsRegistry sqlStatisticsRegistry) {
+        FilterRegistrationBean<SqlStatisticsFilter> registration = new FilterRegistrationBean<>(
+            new SqlStatisticsFilter(sqlStatisticsRegistry)
+        );
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
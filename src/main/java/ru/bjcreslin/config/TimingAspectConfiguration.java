@@ -0,0 +1,16 @@
+package ru.bjcreslin.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.*;
+import org.springframework.core.env.Environment;
+import ru.bjcreslin.aop.timing.TimingAspect;
+
+@Configuration
+@EnableAspectJAutoProxy
+public class TimingAspectConfiguration {
+
+    @Bean
+    public TimingAspect timingAspect(Environment env, MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        return new TimingAspect(env, meterRegistry, applicationProperties.getMethodTiming());
+    }
+}
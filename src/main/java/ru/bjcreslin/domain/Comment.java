@@ -20,6 +20,10 @@ public class Comment implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "author")
     private String author;
 
@@ -54,6 +58,19 @@ public class Comment implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Comment version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getAuthor() {
         return this.author;
     }
@@ -156,6 +173,7 @@ public class Comment implements Serializable {
     public String toString() {
         return "Comment{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", author='" + getAuthor() + "'" +
             ", text='" + getText() + "'" +
             ", status='" + getStatus() + "'" +
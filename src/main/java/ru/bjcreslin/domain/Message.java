@@ -19,6 +19,10 @@ public class Message implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "author")
     private String author;
 
@@ -52,6 +56,19 @@ public class Message implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Message version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getAuthor() {
         return this.author;
     }
@@ -154,6 +171,7 @@ public class Message implements Serializable {
     public String toString() {
         return "Message{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", author='" + getAuthor() + "'" +
             ", recepient='" + getRecepient() + "'" +
             ", text='" + getText() + "'" +
@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.bjcreslin.domain.enumeration.ProjectStatus;
 
 /**
@@ -14,6 +16,7 @@ import ru.bjcreslin.domain.enumeration.ProjectStatus;
  */
 @Entity
 @Table(name = "project")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Project implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -23,6 +26,10 @@ public class Project implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "project_url")
     private String projectUrl;
 
@@ -47,6 +54,7 @@ public class Project implements Serializable {
     private ZonedDateTime edited;
 
     @OneToMany(mappedBy = "project")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(value = { "comments", "project" }, allowSetters = true)
     private Set<Task> tasks = new HashSet<>();
 
@@ -64,6 +72,19 @@ public class Project implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Project version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getProjectUrl() {
         return this.projectUrl;
     }
@@ -210,6 +231,7 @@ public class Project implements Serializable {
     public String toString() {
         return "Project{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", projectUrl='" + getProjectUrl() + "'" +
             ", description='" + getDescription() + "'" +
             ", projectName='" + getProjectName() + "'" +
@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.Set;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
 
 /**
@@ -14,6 +16,7 @@ import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
  */
 @Entity
 @Table(name = "task")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Task implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -23,6 +26,10 @@ public class Task implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "author")
     private String author;
 
@@ -50,6 +57,7 @@ public class Task implements Serializable {
     private ZonedDateTime edited;
 
     @OneToMany(mappedBy = "task")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonIgnoreProperties(value = { "task" }, allowSetters = true)
     private Set<Comment> comments = new HashSet<>();
 
@@ -71,6 +79,19 @@ public class Task implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Task version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getAuthor() {
         return this.author;
     }
@@ -243,6 +264,7 @@ public class Task implements Serializable {
     public String toString() {
         return "Task{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", author='" + getAuthor() + "'" +
             ", implementer='" + getImplementer() + "'" +
             ", name='" + getName() + "'" +
@@ -5,6 +5,8 @@ import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.bjcreslin.domain.enumeration.UserStatus;
 
 /**
@@ -12,6 +14,7 @@ import ru.bjcreslin.domain.enumeration.UserStatus;
  */
 @Entity
 @Table(name = "user_info")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class UserInfo implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -21,6 +24,10 @@ public class UserInfo implements Serializable {
     @SequenceGenerator(name = "sequenceGenerator")
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @Column(name = "email", nullable = false, unique = true)
     private String email;
@@ -67,6 +74,19 @@ public class UserInfo implements Serializable {
         return this;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public UserInfo version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getEmail() {
         return this.email;
     }
@@ -208,6 +228,7 @@ public class UserInfo implements Serializable {
     public String toString() {
         return "UserInfo{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", email='" + getEmail() + "'" +
             ", gitHubId='" + getGitHubId() + "'" +
             ", name='" + getName() + "'" +
@@ -0,0 +1,31 @@
+package ru.bjcreslin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a call of {@code findByCriteria} on a query service, emitted by the
+ * {@link ru.bjcreslin.aop.jfr.CriteriaQueryEventAspect}.
+ */
+@Name("ru.bjcreslin.CriteriaQuery")
+@Label("Criteria Query")
+@Category({ "Home for your projects", "Database" })
+@Description("Entities found by the criteria of a request")
+@StackTrace(false)
+public class CriteriaQueryEvent extends Event {
+
+    @Label("Entity")
+    public String entity;
+
+    @Label("Criteria")
+    @Description("Filters and operators of the criteria, without their values")
+    public String criteria;
+
+    @Label("Rows")
+    @Description("Entities returned, -1 if the query failed")
+    public long rows = -1;
+}
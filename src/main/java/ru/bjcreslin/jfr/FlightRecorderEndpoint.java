@@ -0,0 +1,259 @@
+package ru.bjcreslin.jfr;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.bjcreslin.config.ApplicationProperties;
+
+/**
+ * Management endpoint of the flight recordings, mapped to {@code /management/jfr}.
+ * <ul>
+ * <li>{@code GET /management/jfr} lists the recordings of the JVM.</li>
+ * <li>{@code POST /management/jfr} starts a recording, for {@code durationSeconds} with the {@code settings} of the JDK,
+ * {@code default} or {@code profile}.</li>
+ * <li>{@code POST /management/jfr/{id}} stops a recording.</li>
+ * <li>{@code GET /management/jfr/{id}} downloads a recording, the events so far if it is running.</li>
+ * <li>{@code DELETE /management/jfr/{id}} closes a recording, discarding its events.</li>
+ * </ul>
+ * At most {@code application.flight-recorder.max-recordings} recordings are kept, the oldest stopped one is closed to
+ * start another.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+public class FlightRecorderEndpoint {
+
+    private static final String RECORDING_NAME = "home-for-your-projects";
+
+    private final Logger log = LoggerFactory.getLogger(FlightRecorderEndpoint.class);
+
+    private final ApplicationProperties.FlightRecorder properties;
+
+    public FlightRecorderEndpoint(ApplicationProperties applicationProperties) {
+        this.properties = applicationProperties.getFlightRecorder();
+    }
+
+    @ReadOperation
+    public List<RecordingDescriptor> recordings() {
+        return FlightRecorder
+            .getFlightRecorder()
+            .getRecordings()
+            .stream()
+            .sorted(Comparator.comparingLong(Recording::getId))
+            .map(RecordingDescriptor::new)
+            .collect(Collectors.toList());
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<RecordingDescriptor> start(@Nullable Long durationSeconds, @Nullable String settings) {
+        long seconds = durationSeconds != null ? durationSeconds : properties.getDefaultDurationSeconds();
+        if (seconds <= 0 || seconds > properties.getMaxDurationSeconds()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings != null ? settings : properties.getDefaultSettings());
+        } catch (IOException | ParseException e) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        if (!makeRoom()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+        }
+        Recording recording = new Recording(configuration);
+        recording.setName(RECORDING_NAME);
+        recording.setDuration(Duration.ofSeconds(seconds));
+        recording.setToDisk(true);
+        recording.start();
+        log.info("Started flight recording {} for {} seconds with the {} settings", recording.getId(), seconds, configuration.getName());
+        return new WebEndpointResponse<>(new RecordingDescriptor(recording));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<RecordingDescriptor> stop(@Selector long id) {
+        return recording(id)
+            .map(recording -> {
+                if (recording.getState() == RecordingState.RUNNING) {
+                    recording.stop();
+                    log.info("Stopped flight recording {}", id);
+                }
+                return new WebEndpointResponse<>(new RecordingDescriptor(recording));
+            })
+            .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Resource> download(@Selector long id) throws IOException {
+        Optional<Recording> found = recording(id);
+        if (found.isEmpty()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Path file = Files.createTempFile("recording-" + id + "-", ".jfr");
+        Recording recording = found.get();
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                // a stopped copy holds the events recorded so far
+                try (Recording copy = recording.copy(true)) {
+                    copy.dump(file);
+                }
+            } else {
+                recording.dump(file);
+            }
+        } catch (IOException | IllegalStateException e) {
+            Files.deleteIfExists(file);
+            log.warn("Could not dump flight recording {}: {}", id, e.toString());
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+
+    @DeleteOperation
+    public synchronized WebEndpointResponse<Void> close(@Selector long id) {
+        return recording(id)
+            .map(recording -> {
+                recording.close();
+                log.info("Closed flight recording {}", id);
+                return new WebEndpointResponse<Void>(WebEndpointResponse.STATUS_NO_CONTENT);
+            })
+            .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    private static Optional<Recording> recording(long id) {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream().filter(recording -> recording.getId() == id).findFirst();
+    }
+
+    /**
+     * Close the oldest stopped recordings started here while there are too many of them.
+     *
+     * @return {@code false} if there are too many recordings still running.
+     */
+    private boolean makeRoom() {
+        List<Recording> recordings = FlightRecorder
+            .getFlightRecorder()
+            .getRecordings()
+            .stream()
+            .filter(recording -> RECORDING_NAME.equals(recording.getName()) && recording.getState() != RecordingState.CLOSED)
+            .sorted(Comparator.comparingLong(Recording::getId))
+            .collect(Collectors.toList());
+        int excess = recordings.size() - properties.getMaxRecordings() + 1;
+        for (Recording recording : recordings) {
+            if (excess <= 0) {
+                break;
+            }
+            if (recording.getState() == RecordingState.STOPPED) {
+                recording.close();
+                excess--;
+            }
+        }
+        return excess <= 0;
+    }
+
+    /**
+     * A flight recording.
+     */
+    public static final class RecordingDescriptor {
+
+        private final long id;
+
+        private final String name;
+
+        private final RecordingState state;
+
+        private final Instant startTime;
+
+        private final Duration duration;
+
+        private final long size;
+
+        private RecordingDescriptor(Recording recording) {
+            this.id = recording.getId();
+            this.name = recording.getName();
+            this.state = recording.getState();
+            this.startTime = recording.getStartTime();
+            this.duration = recording.getDuration();
+            this.size = recording.getSize();
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RecordingState getState() {
+            return state;
+        }
+
+        public Instant getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * @return the duration after which the recording stops, or {@code null} if it runs until stopped.
+         */
+        public Duration getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return the size of the recording so far, in bytes.
+         */
+        public long getSize() {
+            return size;
+        }
+    }
+
+    /**
+     * Dump of a recording, deleted once it is downloaded.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
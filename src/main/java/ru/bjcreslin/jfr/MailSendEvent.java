@@ -0,0 +1,32 @@
+package ru.bjcreslin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of an attempt to send an email, emitted by the {@link ru.bjcreslin.service.MailDeliveryService}.
+ */
+@Name("ru.bjcreslin.MailSend")
+@Label("Mail Send")
+@Category({ "Home for your projects", "Mail" })
+@Description("Attempt to send an email over SMTP")
+@StackTrace(false)
+public class MailSendEvent extends Event {
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Recipients")
+    public int recipients;
+
+    @Label("Connected")
+    @Description("Whether an SMTP connection was opened for the attempt")
+    public boolean connected;
+
+    @Label("Sent")
+    public boolean sent;
+}
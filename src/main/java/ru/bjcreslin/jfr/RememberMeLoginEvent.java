@@ -0,0 +1,30 @@
+package ru.bjcreslin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of an automatic login with a remember-me cookie, emitted by the
+ * {@link ru.bjcreslin.security.PersistentTokenRememberMeServices}.
+ */
+@Name("ru.bjcreslin.RememberMeLogin")
+@Label("Remember-Me Login")
+@Category({ "Home for your projects", "Security" })
+@Description("Automatic login with a remember-me cookie")
+@StackTrace(false)
+public class RememberMeLoginEvent extends Event {
+
+    @Label("Login")
+    public String login;
+
+    @Label("Token Rotated")
+    @Description("Whether the value of the token was renewed and saved")
+    public boolean tokenRotated;
+
+    @Label("Successful")
+    public boolean successful;
+}
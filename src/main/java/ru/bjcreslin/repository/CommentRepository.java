@@ -1,5 +1,7 @@
 package ru.bjcreslin.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.stereotype.Repository;
 import ru.bjcreslin.domain.Comment;
@@ -9,4 +11,9 @@ import ru.bjcreslin.domain.Comment;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Long> {}
+public interface CommentRepository extends JpaRepository<Comment, Long> {
+    /**
+     * Get a slice of comments, without counting them.
+     */
+    Slice<Comment> findAllBy(Pageable pageable);
+}
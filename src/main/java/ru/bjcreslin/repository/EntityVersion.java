@@ -0,0 +1,8 @@
+package ru.bjcreslin.repository;
+
+/**
+ * Version of an entity, read without loading the entity.
+ */
+public interface EntityVersion {
+    Long getVersion();
+}
@@ -1,8 +1,13 @@
 package ru.bjcreslin.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.bjcreslin.domain.PersistentToken;
 import ru.bjcreslin.domain.User;
 
@@ -13,4 +18,15 @@ public interface PersistentTokenRepository extends JpaRepository<PersistentToken
     List<PersistentToken> findByUser(User user);
 
     List<PersistentToken> findByTokenDateBefore(LocalDate localDate);
+
+    @Query("select t.series from PersistentToken t where t.tokenDate < :tokenDate order by t.series")
+    List<String> findSeriesByTokenDateBefore(@Param("tokenDate") LocalDate tokenDate, Pageable pageable);
+
+    @Modifying
+    @Query("delete from PersistentToken t where t.series in :series")
+    int deleteBySeriesIn(@Param("series") Collection<String> series);
+
+    @Modifying
+    @Query("delete from PersistentToken t where t.user.id in :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
 }
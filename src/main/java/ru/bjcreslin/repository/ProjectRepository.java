@@ -1,6 +1,8 @@
 package ru.bjcreslin.repository;
 
+import java.util.Optional;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bjcreslin.domain.Project;
 
@@ -9,4 +11,7 @@ import ru.bjcreslin.domain.Project;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProjectRepository extends JpaRepository<Project, Long>, JpaSpecificationExecutor<Project> {}
+public interface ProjectRepository extends JpaRepository<Project, Long>, JpaSpecificationExecutor<Project> {
+    @Query("select p.version as version from Project p where p.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
+}
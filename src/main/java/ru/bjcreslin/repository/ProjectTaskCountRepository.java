@@ -0,0 +1,132 @@
+package ru.bjcreslin.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+
+/**
+ * Repository of the number of tasks of every project by status, in the {@code project_task_count} table.
+ * <p>
+ * The counts are not an entity: they are only changed by increments, which don't conflict with the concurrent
+ * increments of other transactions.
+ */
+@Repository
+public class ProjectTaskCountRepository {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private static final String UPSERT_POSTGRESQL =
+        "INSERT INTO project_task_count (project_id, status, task_count) VALUES (:projectId, :status, :delta) " +
+        "ON CONFLICT (project_id, status) DO UPDATE SET task_count = project_task_count.task_count + EXCLUDED.task_count";
+
+    private static final String UPSERT_MERGE =
+        "MERGE INTO project_task_count c " +
+        "USING (SELECT CAST(:projectId AS BIGINT) AS project_id, CAST(:status AS VARCHAR(255)) AS status, " +
+        "CAST(:delta AS BIGINT) AS delta) d " +
+        "ON c.project_id = d.project_id AND c.status = d.status " +
+        "WHEN MATCHED THEN UPDATE SET task_count = c.task_count + d.delta " +
+        "WHEN NOT MATCHED THEN INSERT (project_id, status, task_count) VALUES (d.project_id, d.status, d.delta)";
+
+    private static final String FIND_BY_PROJECT_IDS =
+        "SELECT project_id, status, task_count FROM project_task_count WHERE project_id IN (:projectIds)";
+
+    /**
+     * The difference between the counted tasks and the maintained counts, read at once so that both are consistent.
+     */
+    private static final String FIND_DRIFT =
+        "SELECT project_id, status, SUM(delta) AS delta FROM (" +
+        "SELECT project_id, status, COUNT(*) AS delta FROM task WHERE project_id IS NOT NULL AND status IS NOT NULL " +
+        "GROUP BY project_id, status " +
+        "UNION ALL SELECT project_id, status, -task_count AS delta FROM project_task_count" +
+        ") counts GROUP BY project_id, status HAVING SUM(delta) <> 0";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgresql;
+
+    public ProjectTaskCountRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add to the counts of tasks.
+     *
+     * @param deltas the number of tasks to add, negative to remove, by status by project id.
+     */
+    public void increment(Map<Long, Map<TaskAndProjectStatus, Long>> deltas) {
+        List<MapSqlParameterSource> batch = new ArrayList<>();
+        deltas.forEach(
+            (projectId, statuses) ->
+                statuses.forEach(
+                    (status, delta) -> {
+                        if (delta != 0) {
+                            batch.add(
+                                new MapSqlParameterSource()
+                                    .addValue("projectId", projectId)
+                                    .addValue("status", status.name())
+                                    .addValue("delta", delta)
+                            );
+                        }
+                    }
+                )
+        );
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(isPostgresql() ? UPSERT_POSTGRESQL : UPSERT_MERGE, batch.toArray(new MapSqlParameterSource[0]));
+        }
+    }
+
+    /**
+     * @param projectIds the ids of the projects.
+     * @return the counts of tasks by status by project id, for the projects which have any.
+     */
+    public Map<Long, Map<TaskAndProjectStatus, Long>> findByProjectIds(Collection<Long> projectIds) {
+        Map<Long, Map<TaskAndProjectStatus, Long>> counts = new HashMap<>();
+        if (projectIds.isEmpty()) {
+            return counts;
+        }
+        jdbcTemplate.query(
+            FIND_BY_PROJECT_IDS,
+            new MapSqlParameterSource("projectIds", projectIds),
+            rs -> {
+                counts
+                    .computeIfAbsent(rs.getLong("project_id"), id -> new EnumMap<>(TaskAndProjectStatus.class))
+                    .put(TaskAndProjectStatus.valueOf(rs.getString("status")), rs.getLong("task_count"));
+            }
+        );
+        return counts;
+    }
+
+    /**
+     * @return the number of tasks missing from the counts, negative when too many are counted, by status by project id.
+     */
+    public Map<Long, Map<TaskAndProjectStatus, Long>> findDrift() {
+        Map<Long, Map<TaskAndProjectStatus, Long>> drift = new HashMap<>();
+        jdbcTemplate.query(
+            FIND_DRIFT,
+            rs -> {
+                drift
+                    .computeIfAbsent(rs.getLong("project_id"), id -> new EnumMap<>(TaskAndProjectStatus.class))
+                    .put(TaskAndProjectStatus.valueOf(rs.getString("status")), rs.getLong("delta"));
+            }
+        );
+        return drift;
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            postgresql =
+                jdbcTemplate
+                    .getJdbcTemplate()
+                    .execute((ConnectionCallback<Boolean>) con -> POSTGRESQL.equals(con.getMetaData().getDatabaseProductName()));
+        }
+        return postgresql;
+    }
+}
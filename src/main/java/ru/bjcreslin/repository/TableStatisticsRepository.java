@@ -0,0 +1,62 @@
+package ru.bjcreslin.repository;
+
+import java.util.List;
+import java.util.OptionalLong;
+import javax.persistence.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository reading the database planner statistics.
+ * <p>
+ * Only PostgreSQL is supported; on other databases no estimate is available.
+ */
+@Repository
+public class TableStatisticsRepository {
+
+    private static final String POSTGRESQL = "PostgreSQL";
+
+    private static final String ESTIMATE_ROW_COUNT_QUERY =
+        "SELECT reltuples::bigint FROM pg_class WHERE relname = ? AND relkind = 'r' AND pg_table_is_visible(oid)";
+
+    private final Logger log = LoggerFactory.getLogger(TableStatisticsRepository.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgresql;
+
+    public TableStatisticsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Estimate the number of rows of the table an entity is mapped to.
+     *
+     * @param entityClass the entity class, annotated with {@link Table}.
+     * @return the estimated number of rows, or empty if the statistics are not available.
+     */
+    public OptionalLong estimateRowCount(Class<?> entityClass) {
+        Table table = entityClass.getAnnotation(Table.class);
+        if (table == null || !isPostgresql()) {
+            return OptionalLong.empty();
+        }
+        List<Long> estimates = jdbcTemplate.queryForList(ESTIMATE_ROW_COUNT_QUERY, Long.class, table.name());
+        // reltuples is negative (or zero on older versions) until the table has been analyzed
+        if (estimates.isEmpty() || estimates.get(0) == null || estimates.get(0) <= 0) {
+            log.debug("No planner statistics for table {}", table.name());
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(estimates.get(0));
+    }
+
+    private boolean isPostgresql() {
+        if (postgresql == null) {
+            postgresql =
+                jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> POSTGRESQL.equals(con.getMetaData().getDatabaseProductName()));
+        }
+        return postgresql;
+    }
+}
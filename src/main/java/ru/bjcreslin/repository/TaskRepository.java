@@ -1,6 +1,8 @@
 package ru.bjcreslin.repository;
 
+import java.util.Optional;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bjcreslin.domain.Task;
 
@@ -9,4 +11,9 @@ import ru.bjcreslin.domain.Task;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {}
+public interface TaskRepository extends JpaRepository<Task, Long>, JpaSpecificationExecutor<Task> {
+    @Query(
+        "select t.version as version, p.id as projectId, p.version as projectVersion from Task t left join t.project p where t.id = :id"
+    )
+    Optional<TaskVersion> findVersionById(@Param("id") Long id);
+}
@@ -0,0 +1,10 @@
+package ru.bjcreslin.repository;
+
+/**
+ * Version of a task and of the project embedded in it, read without loading them.
+ */
+public interface TaskVersion extends EntityVersion {
+    Long getProjectId();
+
+    Long getProjectVersion();
+}
@@ -1,6 +1,8 @@
 package ru.bjcreslin.repository;
 
+import java.util.Optional;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bjcreslin.domain.UserInfo;
 
@@ -9,4 +11,7 @@ import ru.bjcreslin.domain.UserInfo;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface UserInfoRepository extends JpaRepository<UserInfo, Long>, JpaSpecificationExecutor<UserInfo> {}
+public interface UserInfoRepository extends JpaRepository<UserInfo, Long>, JpaSpecificationExecutor<UserInfo> {
+    @Query("select u.version as version from UserInfo u where u.id = :id")
+    Optional<EntityVersion> findVersionById(@Param("id") Long id);
+}
@@ -1,12 +1,18 @@
 package ru.bjcreslin.repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import javax.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bjcreslin.domain.User;
 
@@ -19,6 +25,27 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
 
+    @Query(
+        "select u.id from User u where u.activated = false and u.activationKey is not null and u.createdDate < :dateTime order by u.id"
+    )
+    List<Long> findIdsByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(
+        @Param("dateTime") Instant dateTime,
+        Pageable pageable
+    );
+
+    /**
+     * Delete the authorities of users, which isn't possible with JPQL. The query space tells Hibernate to only
+     * invalidate the cached authorities of the users, rather than the whole second-level cache.
+     */
+    @Modifying
+    @Query(value = "delete from jhi_user_authority where user_id in (:userIds)", nativeQuery = true)
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES, value = "jhi_user_authority"))
+    int deleteAuthoritiesByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
     Optional<User> findOneByResetKey(String resetKey);
 
     Optional<User> findOneByEmailIgnoreCase(String email);
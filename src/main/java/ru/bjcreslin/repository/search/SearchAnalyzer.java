@@ -0,0 +1,47 @@
+package ru.bjcreslin.repository.search;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.CharArraySet;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.StopFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.snowball.SnowballFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.tartarus.snowball.ext.EnglishStemmer;
+import org.tartarus.snowball.ext.RussianStemmer;
+
+/**
+ * Analyzer of the indexed text and of the search queries: tokenises the text, folds its case, drops the Russian and
+ * English stop words and stems the remaining words.
+ * <p>
+ * Both Snowball stemmers are applied to every token: each of them only matches the suffixes of its own alphabet, so
+ * the other language's words go through unchanged.
+ */
+public class SearchAnalyzer extends Analyzer {
+
+    private static final CharArraySet STOP_WORDS = stopWords();
+
+    @Override
+    protected TokenStreamComponents createComponents(String fieldName) {
+        Tokenizer source = new StandardTokenizer();
+        TokenStream result = new LowerCaseFilter(source);
+        result = new StopFilter(result, STOP_WORDS);
+        result = new SnowballFilter(result, new EnglishStemmer());
+        result = new SnowballFilter(result, new RussianStemmer());
+        return new TokenStreamComponents(source, result);
+    }
+
+    @Override
+    protected TokenStream normalize(String fieldName, TokenStream in) {
+        return new LowerCaseFilter(in);
+    }
+
+    private static CharArraySet stopWords() {
+        CharArraySet stopWords = new CharArraySet(EnglishAnalyzer.ENGLISH_STOP_WORDS_SET, false);
+        stopWords.addAll(RussianAnalyzer.getDefaultStopSet());
+        return CharArraySet.unmodifiableSet(stopWords);
+    }
+}
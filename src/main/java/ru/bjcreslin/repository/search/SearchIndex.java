@@ -0,0 +1,254 @@
+package ru.bjcreslin.repository.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index of the text fields of the entities of every {@link SearchMapping}, one Lucene index per
+ * entity type.
+ * <p>
+ * The index is kept up to date by the {@link SearchIndexer}. Changes only become visible to the searches on
+ * {@link #refresh()}.
+ */
+@Component
+public class SearchIndex {
+
+    private static final String ID_FIELD = "_id";
+
+    /**
+     * Terms of a query after the first ones are ignored.
+     */
+    private static final int MAX_QUERY_TERMS = 64;
+
+    private static final float TIE_BREAKER = 0.1f;
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndex.class);
+
+    private final Analyzer analyzer = new SearchAnalyzer();
+
+    private final Map<Class<?>, TypeIndex> indexes = new LinkedHashMap<>();
+
+    public SearchIndex(List<SearchMapping<?>> mappings) throws IOException {
+        for (SearchMapping<?> mapping : mappings) {
+            indexes.put(mapping.getEntityClass(), new TypeIndex(mapping, analyzer));
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (TypeIndex index : indexes.values()) {
+            index.searcherManager.close();
+            index.writer.close();
+        }
+        analyzer.close();
+    }
+
+    public Collection<SearchMapping<?>> getMappings() {
+        return indexes.values().stream().map(index -> index.mapping).collect(Collectors.toList());
+    }
+
+    /**
+     * @param entityClass the type of an entity.
+     * @return the mapping of the type, if it is indexed.
+     */
+    public Optional<SearchMapping<?>> getMapping(Class<?> entityClass) {
+        return Optional.ofNullable(indexes.get(entityClass)).map(index -> index.mapping);
+    }
+
+    /**
+     * Add an entity to the index, or replace it.
+     * @param entityClass the type of the entity.
+     * @param id the id of the entity.
+     * @param values the text of the indexed fields, by field name.
+     */
+    public void update(Class<?> entityClass, Long id, Map<String, String> values) throws IOException {
+        Document document = new Document();
+        document.add(new StringField(ID_FIELD, id.toString(), Field.Store.YES));
+        values.forEach((name, value) -> document.add(new TextField(name, value, Field.Store.NO)));
+        index(entityClass).writer.updateDocument(new Term(ID_FIELD, id.toString()), document);
+    }
+
+    /**
+     * Remove an entity from the index.
+     * @param entityClass the type of the entity.
+     * @param id the id of the entity.
+     */
+    public void delete(Class<?> entityClass, Long id) throws IOException {
+        index(entityClass).writer.deleteDocuments(new Term(ID_FIELD, id.toString()));
+    }
+
+    /**
+     * Remove all the entities of a type from the index.
+     * @param entityClass the type of the entities.
+     */
+    public void clear(Class<?> entityClass) throws IOException {
+        index(entityClass).writer.deleteAll();
+    }
+
+    /**
+     * Make the changes to the index visible to the searches.
+     */
+    public void refresh() throws IOException {
+        for (TypeIndex index : indexes.values()) {
+            index.searcherManager.maybeRefreshBlocking();
+        }
+    }
+
+    /**
+     * Search for the entities whose indexed fields contain all the words of the query, ranked by relevance.
+     * <p>
+     * The sort of the {@code pageable} is ignored.
+     *
+     * @param entityClass the type of the entities.
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @param loader the loader of the entities by id, in any order.
+     * @param <T> the type of the entities.
+     * @return the page of entities, in rank order.
+     */
+    public <T> Page<T> search(Class<T> entityClass, String query, Pageable pageable, Function<List<Long>, List<T>> loader) {
+        TypeIndex index = index(entityClass);
+        Page<Long> ids = searchIds(index, query, pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+        }
+        Map<Long, T> entities = new LinkedHashMap<>();
+        ids.forEach(id -> entities.put(id, null));
+        for (T entity : loader.apply(ids.getContent())) {
+            entities.put(index.mapping.getId(entity), entity);
+        }
+        // entities deleted since they were found are skipped
+        List<T> content = entities.values().stream().filter(Objects::nonNull).collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.getTotalElements());
+    }
+
+    private Page<Long> searchIds(TypeIndex index, String text, Pageable pageable) {
+        Query query = parse(index.mapping, text);
+        if (query == null) {
+            return Page.empty(pageable);
+        }
+        try {
+            IndexSearcher searcher = index.searcherManager.acquire();
+            try {
+                int numHits = (int) Math.min(pageable.getOffset() + pageable.getPageSize(), searcher.getIndexReader().maxDoc());
+                TopScoreDocCollector collector = TopScoreDocCollector.create(Math.max(numHits, 1), Integer.MAX_VALUE);
+                searcher.search(query, collector);
+                TopDocs topDocs = collector.topDocs((int) Math.min(pageable.getOffset(), numHits), pageable.getPageSize());
+                List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    ids.add(Long.valueOf(searcher.doc(scoreDoc.doc).get(ID_FIELD)));
+                }
+                return new PageImpl<>(ids, pageable, collector.getTotalHits());
+            } finally {
+                index.searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Every term of the text must match one of the fields, the best matching field counting the most in the rank.
+     */
+    private Query parse(SearchMapping<?> mapping, String text) {
+        Set<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            List<Query> fieldQueries = new ArrayList<>();
+            for (SearchMapping.Field<?> field : mapping.getFields()) {
+                Query fieldQuery = new TermQuery(new Term(field.getName(), term));
+                fieldQueries.add(field.getBoost() == 1.0f ? fieldQuery : new BoostQuery(fieldQuery, field.getBoost()));
+            }
+            query.add(new DisjunctionMaxQuery(fieldQueries, TIE_BREAKER), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private Set<String> analyze(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        try (TokenStream tokens = analyzer.tokenStream(ID_FIELD, text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                if (terms.size() == MAX_QUERY_TERMS) {
+                    log.debug("Search query truncated to its first {} terms", MAX_QUERY_TERMS);
+                    break;
+                }
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private TypeIndex index(Class<?> entityClass) {
+        TypeIndex index = indexes.get(entityClass);
+        if (index == null) {
+            throw new IllegalArgumentException("Entity " + entityClass.getName() + " is not indexed");
+        }
+        return index;
+    }
+
+    private static final class TypeIndex {
+
+        private final SearchMapping<?> mapping;
+
+        private final IndexWriter writer;
+
+        private final SearcherManager searcherManager;
+
+        private TypeIndex(SearchMapping<?> mapping, Analyzer analyzer) throws IOException {
+            this.mapping = mapping;
+            this.writer = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+            this.searcherManager = new SearcherManager(writer, null);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package ru.bjcreslin.repository.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.bjcreslin.config.ApplicationProperties;
+
+/**
+ * Keeps the {@link SearchIndex} up to date with the database.
+ * <p>
+ * The index is rebuilt from the database on startup, then the changes to the indexed entities are queued by
+ * Hibernate after every commit, and applied to the index in batches by a single background thread. Changes made with
+ * bulk JPQL or native queries bypass Hibernate's events and are not indexed.
+ * <p>
+ * The age of the oldest change which is not visible to the searches yet is published as the
+ * {@code search.index.lag} metric.
+ */
+@Component
+public class SearchIndexer implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private static final int MAX_BATCH_OPERATIONS = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final SearchIndex searchIndex;
+
+    private final int batchSize;
+
+    private final BlockingQueue<Operation> pending = new LinkedBlockingQueue<>();
+
+    private final Thread worker = new Thread(this::run, "search-indexer");
+
+    private volatile Operation oldestInFlight;
+
+    private volatile boolean running = true;
+
+    public SearchIndexer(
+        EntityManagerFactory entityManagerFactory,
+        SearchIndex searchIndex,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.searchIndex = searchIndex;
+        this.batchSize = applicationProperties.getSearch().getBatchSize();
+        this.worker.setDaemon(true);
+        TimeGauge
+            .builder("search.index.lag", this, TimeUnit.NANOSECONDS, SearchIndexer::getLagNanos)
+            .description("Age of the oldest entity change not visible to the searches yet")
+            .register(meterRegistry);
+        Gauge
+            .builder("search.index.pending", pending, BlockingQueue::size)
+            .description("Number of entity changes waiting to be indexed")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Start listening to the entity changes, and rebuild the index from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        EventListenerRegistry registry = entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+        rebuild();
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Rebuild the whole index from the database, after the changes queued so far.
+     *
+     * @return a future completed once the rebuilt index is visible to the searches.
+     */
+    public CompletableFuture<Void> rebuild() {
+        for (SearchMapping<?> mapping : searchIndex.getMappings()) {
+            pending.add(new Operation(() -> rebuild(mapping)));
+        }
+        return flush();
+    }
+
+    /**
+     * @return a future completed once all the changes queued so far are visible to the searches.
+     */
+    public CompletableFuture<Void> flush() {
+        Operation operation = new Operation(() -> {});
+        pending.add(operation);
+        return operation.done;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        queueUpdate(event.getPersister(), event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        queueUpdate(event.getPersister(), event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        searchIndex
+            .getMapping(event.getPersister().getMappedClass())
+            .ifPresent(
+                mapping -> {
+                    Class<?> entityClass = mapping.getEntityClass();
+                    Long id = (Long) event.getId();
+                    pending.add(new Operation(() -> searchIndex.delete(entityClass, id)));
+                }
+            );
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // nothing was indexed before the commit
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // nothing was indexed before the commit
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // nothing was indexed before the commit
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return searchIndex.getMapping(persister.getMappedClass()).isPresent();
+    }
+
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+
+    private void queueUpdate(EntityPersister persister, Object entity) {
+        searchIndex
+            .getMapping(persister.getMappedClass())
+            .ifPresent(
+                mapping -> {
+                    // the fields are read right away, the entity may still change once the commit returns
+                    Class<?> entityClass = mapping.getEntityClass();
+                    Long id = mapping.getId(entity);
+                    Map<String, String> values = mapping.getValues(entity);
+                    pending.add(new Operation(() -> searchIndex.update(entityClass, id, values)));
+                }
+            );
+    }
+
+    private void run() {
+        List<Operation> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(pending.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            pending.drainTo(batch, MAX_BATCH_OPERATIONS - 1);
+            oldestInFlight = batch.get(0);
+            for (Operation operation : batch) {
+                try {
+                    operation.action.apply();
+                } catch (Exception e) {
+                    log.error("Could not update the search index", e);
+                }
+            }
+            try {
+                searchIndex.refresh();
+            } catch (Exception e) {
+                log.error("Could not refresh the search index", e);
+            }
+            oldestInFlight = null;
+            batch.forEach(operation -> operation.done.complete(null));
+            batch.clear();
+        }
+    }
+
+    private void rebuild(SearchMapping<?> mapping) throws Exception {
+        long start = System.currentTimeMillis();
+        Class<?> entityClass = mapping.getEntityClass();
+        searchIndex.clear(entityClass);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            int count = 0;
+            Long lastId = null;
+            List<?> entities;
+            do {
+                entities = findBatch(entityManager, entityClass, lastId);
+                for (Object entity : entities) {
+                    lastId = mapping.getId(entity);
+                    searchIndex.update(entityClass, lastId, mapping.getValues(entity));
+                }
+                count += entities.size();
+                entityManager.clear();
+            } while (entities.size() == batchSize);
+            log.info("Rebuilt the search index of {} {} in {} ms", count, entityClass.getSimpleName(), System.currentTimeMillis() - start);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private <T> List<T> findBatch(EntityManager entityManager, Class<T> entityClass, Long afterId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(entityClass);
+        Root<T> root = query.from(entityClass);
+        if (afterId != null) {
+            query.where(cb.greaterThan(root.get("id"), afterId));
+        }
+        query.orderBy(cb.asc(root.get("id")));
+        return entityManager
+            .createQuery(query)
+            .setHint(QueryHints.READ_ONLY, true)
+            .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS)
+            .setMaxResults(batchSize)
+            .getResultList();
+    }
+
+    private double getLagNanos() {
+        Operation oldest = oldestInFlight;
+        if (oldest == null) {
+            oldest = pending.peek();
+        }
+        return oldest == null ? 0 : System.nanoTime() - oldest.queuedAt;
+    }
+
+    @FunctionalInterface
+    private interface IndexAction {
+        void apply() throws Exception;
+    }
+
+    private static final class Operation {
+
+        private final long queuedAt = System.nanoTime();
+
+        private final IndexAction action;
+
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Operation(IndexAction action) {
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.bjcreslin.repository.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The text fields of an entity which are indexed by the {@link SearchIndex}.
+ *
+ * @param <T> the type of the entity.
+ */
+public final class SearchMapping<T> {
+
+    private final Class<T> entityClass;
+
+    private final Function<T, Long> id;
+
+    private final List<Field<T>> fields = new ArrayList<>();
+
+    private SearchMapping(Class<T> entityClass, Function<T, Long> id) {
+        this.entityClass = entityClass;
+        this.id = id;
+    }
+
+    /**
+     * @param entityClass the type of the entity.
+     * @param id the getter of the id of the entity.
+     * @param <T> the type of the entity.
+     * @return a mapping without any field.
+     */
+    public static <T> SearchMapping<T> of(Class<T> entityClass, Function<T, Long> id) {
+        return new SearchMapping<>(entityClass, id);
+    }
+
+    /**
+     * Index a text field of the entity.
+     * @param name the name of the field.
+     * @param value the getter of the text.
+     * @return this mapping, for chaining.
+     */
+    public SearchMapping<T> field(String name, Function<T, String> value) {
+        return field(name, value, 1.0f);
+    }
+
+    /**
+     * Index a text field of the entity, with matches in this field ranked {@code boost} times higher.
+     * @param name the name of the field.
+     * @param value the getter of the text.
+     * @param boost the weight of the field in the ranking.
+     * @return this mapping, for chaining.
+     */
+    public SearchMapping<T> field(String name, Function<T, String> value, float boost) {
+        fields.add(new Field<>(name, value, boost));
+        return this;
+    }
+
+    public Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    public List<Field<T>> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * @param entity an entity of this mapping's type.
+     * @return the id of the entity.
+     */
+    public Long getId(Object entity) {
+        return id.apply(entityClass.cast(entity));
+    }
+
+    /**
+     * @param entity an entity of this mapping's type.
+     * @return the text of every non-null field, by field name.
+     */
+    public Map<String, String> getValues(Object entity) {
+        T typed = entityClass.cast(entity);
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Field<T> field : fields) {
+            String value = field.value.apply(typed);
+            if (value != null) {
+                values.put(field.name, value);
+            }
+        }
+        return values;
+    }
+
+    public static final class Field<T> {
+
+        private final String name;
+
+        private final Function<T, String> value;
+
+        private final float boost;
+
+        private Field(String name, Function<T, String> value, float boost) {
+            this.name = name;
+            this.value = value;
+            this.boost = boost;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public float getBoost() {
+            return boost;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-process full-text search index of the entities.
+ */
+package ru.bjcreslin.repository.search;
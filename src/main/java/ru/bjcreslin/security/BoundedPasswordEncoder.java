@@ -0,0 +1,143 @@
+package ru.bjcreslin.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Hashes and checks the passwords on a bounded pool of threads, rather than on the threads of the requests, so that a
+ * burst of logins can't take all the CPUs and the request threads.
+ * <p>
+ * When all the threads are busy and the queue is full, a password is rejected right away with a
+ * {@link PasswordHashingRejectedException}, answered with a 503 status. The time spent hashing is published as the
+ * {@code security.password.hashing} metric, tagged with the operation, the time spent in the queue as the
+ * {@code security.password.hashing.queue} metric, and the rejections as the
+ * {@code security.password.hashing.rejected} metric.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+
+    /**
+     * Value of the {@code Retry-After} header of the rejected requests, hashing a password takes a fraction of it.
+     */
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+
+    private final Timer matchesTimer;
+
+    private final Timer queueTimer;
+
+    private final Counter rejections;
+
+    /**
+     * @param delegate the encoder which hashes the passwords.
+     * @param threads the number of passwords hashed at the same time.
+     * @param queueCapacity the number of passwords waiting for a thread, beyond which they are rejected.
+     * @param meterRegistry the registry of the metrics.
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+        threadFactory.setDaemon(true);
+        this.executor =
+            new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                threadFactory,
+                new ThreadPoolExecutor.AbortPolicy()
+            );
+        this.encodeTimer = hashingTimer(meterRegistry, "encode");
+        this.matchesTimer = hashingTimer(meterRegistry, "matches");
+        this.queueTimer =
+            Timer
+                .builder("security.password.hashing.queue")
+                .description("Time passwords waited for a hashing thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejections =
+            Counter
+                .builder("security.password.hashing.rejected")
+                .description("Passwords rejected because all the hashing threads were busy")
+                .register(meterRegistry);
+        Gauge
+            .builder("security.password.hashing.queued", executor, pool -> pool.getQueue().size())
+            .description("Passwords waiting for a hashing thread")
+            .register(meterRegistry);
+    }
+
+    private static Timer hashingTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer
+            .builder("security.password.hashing")
+            .description("Time spent hashing passwords")
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> T hash(Timer timer, Supplier<T> hashing) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future =
+                executor.submit(
+                    () -> {
+                        queueTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                        return timer.record(hashing);
+                    }
+                );
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            throw new PasswordHashingRejectedException("Too many passwords are being checked, please retry later");
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingRejectedException("Interrupted while waiting for the password to be checked");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -17,16 +18,21 @@ import ru.bjcreslin.repository.UserRepository;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * The password of a user is hashed again on login when it was hashed with a lower cost than the configured one.
  */
 @Component("userDetailsService")
-public class DomainUserDetailsService implements UserDetailsService {
+public class DomainUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final UserDetailsCache userDetailsCache;
+
+    public DomainUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
@@ -35,17 +41,40 @@ public class DomainUserDetailsService implements UserDetailsService {
         log.debug("Authenticating {}", login);
 
         if (new EmailValidator().isValid(login, null)) {
-            return userRepository
-                .findOneWithAuthoritiesByEmailIgnoreCase(login)
-                .map(user -> createSpringSecurityUser(login, user))
-                .orElseThrow(() -> new UsernameNotFoundException("User with email " + login + " was not found in the database"));
+            return userDetailsCache.getByEmail(
+                login,
+                () ->
+                    userRepository
+                        .findOneWithAuthoritiesByEmailIgnoreCase(login)
+                        .map(user -> createSpringSecurityUser(login, user))
+                        .orElseThrow(() -> new UsernameNotFoundException("User with email " + login + " was not found in the database"))
+            );
         }
 
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        return userRepository
-            .findOneWithAuthoritiesByLogin(lowercaseLogin)
-            .map(user -> createSpringSecurityUser(lowercaseLogin, user))
-            .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database"));
+        return userDetailsCache.getByLogin(
+            lowercaseLogin,
+            () ->
+                userRepository
+                    .findOneWithAuthoritiesByLogin(lowercaseLogin)
+                    .map(user -> createSpringSecurityUser(lowercaseLogin, user))
+                    .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database"))
+        );
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        log.debug("Rehashing the password of {}", userDetails.getUsername());
+        userRepository
+            .findOneByLogin(userDetails.getUsername())
+            .ifPresent(
+                user -> {
+                    userDetailsCache.evict(user);
+                    user.setPassword(newPassword);
+                }
+            );
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).password(newPassword).build();
     }
 
     private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
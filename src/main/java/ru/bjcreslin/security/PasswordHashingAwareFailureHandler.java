@@ -0,0 +1,27 @@
+package ru.bjcreslin.security;
+
+import java.io.IOException;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.AuthenticationException;
+import tech.jhipster.security.AjaxAuthenticationFailureHandler;
+
+/**
+ * Answers the logins rejected by the {@link BoundedPasswordEncoder} with a 503 status, and the other failed logins
+ * with a 401 status.
+ */
+public class PasswordHashingAwareFailureHandler extends AjaxAuthenticationFailureHandler {
+
+    @Override
+    public void onAuthenticationFailure(HttpServletRequest request, HttpServletResponse response, AuthenticationException exception)
+        throws IOException, ServletException {
+        if (exception instanceof PasswordHashingRejectedException) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, BoundedPasswordEncoder.RETRY_AFTER_SECONDS);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, exception.getMessage());
+        } else {
+            super.onAuthenticationFailure(request, response, exception);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ru.bjcreslin.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * This exception is thrown when too many passwords are being hashed to accept another one.
+ * <p>
+ * It is an authentication exception so that it reaches the authentication failure handler when it is thrown by a
+ * login, rather than failing the request with an internal error.
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,18 @@
 package ru.bjcreslin.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.io.Serializable;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -13,7 +23,9 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.rememberme.*;
 import org.springframework.stereotype.Service;
+import ru.bjcreslin.config.ApplicationProperties;
 import ru.bjcreslin.domain.PersistentToken;
+import ru.bjcreslin.jfr.RememberMeLoginEvent;
 import ru.bjcreslin.repository.PersistentTokenRepository;
 import ru.bjcreslin.repository.UserRepository;
 import tech.jhipster.config.JHipsterProperties;
@@ -37,6 +49,16 @@ import tech.jhipster.security.RandomUtil;
  * cache during that period. This is to allow concurrent requests from the same user: otherwise, two
  * requests being sent at the same time could invalidate each other's token.
  * <p>
+ * Requests presenting the same series are processed one at a time, so that only one of them refreshes the token,
+ * while requests presenting other series proceed in parallel. The series are spread over a fixed number of locks,
+ * and the time spent waiting for a lock held by another request is published as the
+ * {@code security.remember-me.lock.wait} metric.
+ * <p>
+ * The value of a token is rotated at most once per {@code application.remember-me.rotation-interval-seconds}: the
+ * other auto-logins keep it, and their date, IP address and user agent are written behind by the
+ * {@link PersistentTokenWriteBehind}, so that most auto-logins don't write to the database. The series rotated
+ * recently are only tracked in memory, a series is rotated again on its first auto-login after a restart.
+ * <p>
  * This is inspired by:
  * <ul>
  * <li><a href="http://jaspan.com/improved_persistent_login_cookie_best_practice">Improved Persistent Login Cookie
@@ -59,8 +81,21 @@ public class PersistentTokenRememberMeServices extends AbstractRememberMeService
 
     private static final long UPGRADED_TOKEN_VALIDITY_MILLIS = 5000l;
 
+    // Number of locks the series are spread over, unrelated series rarely share one
+    private static final int LOCK_STRIPES = 256;
+
+    private final Lock[] seriesLocks = new Lock[LOCK_STRIPES];
+
+    private final Counter uncontendedLocks;
+
+    private final Timer contendedLocks;
+
     private final PersistentTokenCache<UpgradedRememberMeToken> upgradedTokenCache;
 
+    private final Cache<String, Instant> recentlyRotatedSeries;
+
+    private final PersistentTokenWriteBehind persistentTokenWriteBehind;
+
     private final PersistentTokenRepository persistentTokenRepository;
 
     private final UserRepository userRepository;
@@ -69,19 +104,44 @@ public class PersistentTokenRememberMeServices extends AbstractRememberMeService
         JHipsterProperties jHipsterProperties,
         org.springframework.security.core.userdetails.UserDetailsService userDetailsService,
         PersistentTokenRepository persistentTokenRepository,
-        UserRepository userRepository
+        UserRepository userRepository,
+        PersistentTokenWriteBehind persistentTokenWriteBehind,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
     ) {
         super(jHipsterProperties.getSecurity().getRememberMe().getKey(), userDetailsService);
         this.persistentTokenRepository = persistentTokenRepository;
         this.userRepository = userRepository;
+        this.persistentTokenWriteBehind = persistentTokenWriteBehind;
         upgradedTokenCache = new PersistentTokenCache<>(UPGRADED_TOKEN_VALIDITY_MILLIS);
+        recentlyRotatedSeries =
+            Caffeine
+                .newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(applicationProperties.getRememberMe().getRotationIntervalSeconds()))
+                .build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            seriesLocks[i] = new ReentrantLock();
+        }
+        uncontendedLocks =
+            Counter
+                .builder("security.remember-me.lock.uncontended")
+                .description("Remember-me auto-logins which didn't wait for another one with the same lock")
+                .register(meterRegistry);
+        contendedLocks =
+            Timer
+                .builder("security.remember-me.lock.wait")
+                .description("Time remember-me auto-logins waited for another one with the same lock")
+                .register(meterRegistry);
     }
 
     @Override
     protected UserDetails processAutoLoginCookie(String[] cookieTokens, HttpServletRequest request, HttpServletResponse response) {
-        synchronized (this) { // prevent 2 authentication requests from the same user in parallel
+        RememberMeLoginEvent event = new RememberMeLoginEvent();
+        event.begin();
+        Lock lock = lockSeries(cookieTokens[0]); // prevent 2 authentication requests from the same user in parallel
+        try {
             String login = null;
-            UpgradedRememberMeToken upgradedToken = upgradedTokenCache.get(cookieTokens[0]);
+            UpgradedRememberMeToken upgradedToken = getUpgradedToken(cookieTokens[0]);
             if (upgradedToken != null) {
                 login = upgradedToken.getUserLoginIfValid(cookieTokens);
                 log.debug("Detected previously upgraded login token for user '{}'", login);
@@ -91,22 +151,84 @@ public class PersistentTokenRememberMeServices extends AbstractRememberMeService
                 PersistentToken token = getPersistentToken(cookieTokens);
                 login = token.getUser().getLogin();
 
-                // Token also matches, so login is valid. Update the token value, keeping the *same* series number.
-                log.debug("Refreshing persistent login token for user '{}', series '{}'", login, token.getSeries());
-                token.setTokenDate(LocalDate.now());
-                token.setTokenValue(RandomUtil.generateRandomAlphanumericString());
-                token.setIpAddress(request.getRemoteAddr());
-                token.setUserAgent(request.getHeader("User-Agent"));
-                try {
-                    persistentTokenRepository.saveAndFlush(token);
-                } catch (DataAccessException e) {
-                    log.error("Failed to update token: ", e);
-                    throw new RememberMeAuthenticationException("Autologin failed due to data access problem", e);
+                if (recentlyRotatedSeries.getIfPresent(token.getSeries()) != null) {
+                    // Token was rotated recently, keep its value and only record this use of it.
+                    log.debug("Reusing persistent login token for user '{}', series '{}'", login, token.getSeries());
+                    recordUse(token, request);
+                } else {
+                    // Token also matches, so login is valid. Update the token value, keeping the *same* series number.
+                    log.debug("Refreshing persistent login token for user '{}', series '{}'", login, token.getSeries());
+                    token.setTokenDate(LocalDate.now());
+                    token.setTokenValue(RandomUtil.generateRandomAlphanumericString());
+                    token.setIpAddress(request.getRemoteAddr());
+                    token.setUserAgent(request.getHeader("User-Agent"));
+                    persistentTokenWriteBehind.discard(token.getSeries());
+                    try {
+                        persistentTokenRepository.saveAndFlush(token);
+                    } catch (DataAccessException e) {
+                        log.error("Failed to update token: ", e);
+                        throw new RememberMeAuthenticationException("Autologin failed due to data access problem", e);
+                    }
+                    recentlyRotatedSeries.put(token.getSeries(), Instant.now());
+                    event.tokenRotated = true;
+                    addCookie(token, request, response);
+                    putUpgradedToken(cookieTokens[0], new UpgradedRememberMeToken(cookieTokens, login));
                 }
-                addCookie(token, request, response);
-                upgradedTokenCache.put(cookieTokens[0], new UpgradedRememberMeToken(cookieTokens, login));
             }
-            return getUserDetailsService().loadUserByUsername(login);
+            event.login = login;
+            UserDetails userDetails = getUserDetailsService().loadUserByUsername(login);
+            event.successful = true;
+            return userDetails;
+        } finally {
+            lock.unlock();
+            event.commit();
+        }
+    }
+
+    /**
+     * Buffer the date, IP address and user agent of a token which is not rotated, unless they didn't change.
+     */
+    private void recordUse(PersistentToken token, HttpServletRequest request) {
+        LocalDate tokenDate = token.getTokenDate();
+        String ipAddress = token.getIpAddress();
+        String userAgent = token.getUserAgent();
+        token.setTokenDate(LocalDate.now());
+        token.setIpAddress(request.getRemoteAddr());
+        token.setUserAgent(request.getHeader("User-Agent"));
+        if (
+            !token.getTokenDate().equals(tokenDate) ||
+            !Objects.equals(token.getIpAddress(), ipAddress) ||
+            !Objects.equals(token.getUserAgent(), userAgent)
+        ) {
+            persistentTokenWriteBehind.record(token);
+        }
+    }
+
+    /**
+     * Acquire the lock of a series, recording whether another request held it.
+     */
+    private Lock lockSeries(String series) {
+        Lock lock = seriesLocks[Math.floorMod(series.hashCode(), LOCK_STRIPES)];
+        if (lock.tryLock()) {
+            uncontendedLocks.increment();
+        } else {
+            long start = System.nanoTime();
+            lock.lock();
+            contendedLocks.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return lock;
+    }
+
+    // The cache is shared by all the series, and is not thread-safe
+    private UpgradedRememberMeToken getUpgradedToken(String series) {
+        synchronized (upgradedTokenCache) {
+            return upgradedTokenCache.get(series);
+        }
+    }
+
+    private void putUpgradedToken(String series, UpgradedRememberMeToken upgradedToken) {
+        synchronized (upgradedTokenCache) {
+            upgradedTokenCache.put(series, upgradedToken);
         }
     }
 
@@ -132,6 +254,7 @@ public class PersistentTokenRememberMeServices extends AbstractRememberMeService
             .orElseThrow(() -> new UsernameNotFoundException("User " + login + " was not found in the database"));
         try {
             persistentTokenRepository.saveAndFlush(token);
+            recentlyRotatedSeries.put(token.getSeries(), Instant.now());
             addCookie(token, request, response);
         } catch (DataAccessException e) {
             log.error("Failed to save persistent token ", e);
@@ -0,0 +1,100 @@
+package ru.bjcreslin.security;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.domain.PersistentToken;
+
+/**
+ * Buffers the date, IP address and user agent of the remember-me tokens used for an auto-login without being
+ * rotated, and writes them to the database periodically.
+ * <p>
+ * Only the latest values of each series are kept, and they are written in one JDBC batch. They are audit
+ * information only: the token values are always written right away. A buffered update only applies to the token value
+ * it was recorded with, so that it updates nothing if the series was rotated or deleted in the meantime, even while
+ * the batch is being written: the values written with a rotation are newer and always win.
+ */
+@Component
+public class PersistentTokenWriteBehind {
+
+    private static final String UPDATE_SQL =
+        "update jhi_persistent_token set token_date = ?, ip_address = ?, user_agent = ? where series = ? and token_value = ?";
+
+    private final Logger log = LoggerFactory.getLogger(PersistentTokenWriteBehind.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, Object[]> pending = new ConcurrentHashMap<>();
+
+    public PersistentTokenWriteBehind(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Buffer the date, IP address and user agent of a token, replacing its previous buffered values.
+     *
+     * @param token the token.
+     */
+    public void record(PersistentToken token) {
+        Date tokenDate = token.getTokenDate() == null ? null : Date.valueOf(token.getTokenDate());
+        pending.put(
+            token.getSeries(),
+            new Object[] { tokenDate, token.getIpAddress(), token.getUserAgent(), token.getSeries(), token.getTokenValue() }
+        );
+    }
+
+    /**
+     * Drop the buffered values of a token, which is about to be written with newer ones.
+     *
+     * @param series the series of the token.
+     */
+    public void discard(String series) {
+        pending.remove(series);
+    }
+
+    /**
+     * Write the buffered values to the database.
+     *
+     * @return the number of tokens written.
+     */
+    @Scheduled(fixedDelayString = "${application.remember-me.write-behind-delay-millis:5000}")
+    public int flush() {
+        List<Object[]> batch = new ArrayList<>();
+        for (String series : pending.keySet()) {
+            Object[] values = pending.remove(series);
+            if (values != null) {
+                batch.add(values);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+        } catch (DataAccessException e) {
+            log.error("Failed to update {} persistent tokens: ", batch.size(), e);
+            return 0;
+        }
+        log.debug("Updated {} persistent tokens", batch.size());
+        return batch.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+}
@@ -0,0 +1,147 @@
+package ru.bjcreslin.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.domain.User;
+
+/**
+ * Caches the {@link UserDetails} built by the {@link DomainUserDetailsService}, by lowercase login and by lowercase
+ * email.
+ * <p>
+ * A loaded {@link UserDetails} is only cached once the transaction which read it commits, and only if no user was
+ * evicted in the meantime, so that the cache never holds uncommitted or outdated users. The users must be evicted
+ * with {@link #evict(User)} whenever their login, email, password, activation or authorities change, or when they are
+ * deleted. The hits and misses are published as the {@code cache.gets} metric, tagged with {@code cache=userDetails}.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    /**
+     * Incremented by every eviction, a user loaded before an eviction may be outdated.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    public UserDetailsCache(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.UserDetailsCache properties = applicationProperties.getUserDetailsCache();
+        cache =
+            Caffeine
+                .newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .expireAfterWrite(Duration.ofSeconds(properties.getTimeToLiveSeconds()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    /**
+     * Get the user with a login, from the cache or from the loader.
+     *
+     * @param login the login, in any case.
+     * @param loader loads the user from the database.
+     * @return a copy of the user, which may be modified.
+     */
+    public UserDetails getByLogin(String login, Supplier<UserDetails> loader) {
+        return get(loginKey(login), loader);
+    }
+
+    /**
+     * Get the user with an email, from the cache or from the loader.
+     *
+     * @param email the email, in any case.
+     * @param loader loads the user from the database.
+     * @return a copy of the user, which may be modified.
+     */
+    public UserDetails getByEmail(String email, Supplier<UserDetails> loader) {
+        return get(emailKey(email), loader);
+    }
+
+    /**
+     * Evict a user, with its current login and email, right away and again once the current transaction completes.
+     *
+     * @param user the user, before it is changed.
+     */
+    public void evict(User user) {
+        List<String> keys = new ArrayList<>();
+        if (user.getLogin() != null) {
+            keys.add(loginKey(user.getLogin()));
+        }
+        if (user.getEmail() != null) {
+            keys.add(emailKey(user.getEmail()));
+        }
+        invalidate(keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        invalidate(keys);
+                    }
+                }
+            );
+        }
+    }
+
+    private UserDetails get(String key, Supplier<UserDetails> loader) {
+        UserDetails cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return copy(cached);
+        }
+        long evictionsBefore = evictions.get();
+        UserDetails loaded = loader.get();
+        // copied right away, the caller may erase the password before the transaction commits
+        UserDetails toCache = copy(loaded);
+        Runnable put = () -> {
+            if (evictions.get() == evictionsBefore) {
+                cache.put(key, toCache);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        put.run();
+                    }
+                }
+            );
+        } else {
+            put.run();
+        }
+        return loaded;
+    }
+
+    private void invalidate(List<String> keys) {
+        evictions.incrementAndGet();
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * The authentication erases the password of the {@link UserDetails} it gets, the cached ones are never handed out.
+     */
+    private static UserDetails copy(UserDetails userDetails) {
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails).build();
+    }
+
+    private static String loginKey(String login) {
+        return "login:" + login.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String emailKey(String email) {
+        return "email:" + email.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.bjcreslin.service;
+
+import java.lang.reflect.Field;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.SingularAttribute;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Replaces the associated entities of an entity read from a request, such as {@code "project": {"id": 1}}, by
+ * references to the stored entities.
+ * <p>
+ * Such an associated entity has an ID but no version, so Hibernate would take it for a new entity, which can't be
+ * referenced before it is saved. Its other attributes were ignored anyway, as the associations don't cascade. The
+ * references are not loaded, and are serialized as their ID.
+ */
+@Component
+public class AssociationResolver {
+
+    private final EntityManager entityManager;
+
+    public AssociationResolver(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Resolve the single-valued associations of an entity, in the current transaction.
+     *
+     * @param entity the entity, which is modified.
+     * @param <T> the type of the entity.
+     * @return the entity.
+     */
+    public <T> T resolve(T entity) {
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (SingularAttribute<?, ?> attribute : entityManager.getMetamodel().entity(entity.getClass()).getSingularAttributes()) {
+            if (!attribute.isAssociation()) {
+                continue;
+            }
+            Field field = (Field) attribute.getJavaMember();
+            ReflectionUtils.makeAccessible(field);
+            Object associated = ReflectionUtils.getField(field, entity);
+            if (associated == null || entityManager.contains(associated)) {
+                continue;
+            }
+            Object id = persistenceUnitUtil.getIdentifier(associated);
+            if (id != null) {
+                ReflectionUtils.setField(field, entity, entityManager.getReference(attribute.getJavaType(), id));
+            }
+        }
+        return entity;
+    }
+}
@@ -0,0 +1,39 @@
+package ru.bjcreslin.service;
+
+/**
+ * Thrown when a row of a bulk import can't be read, validated or inserted. The chunks of rows before it are kept.
+ */
+public class BulkImportException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long row;
+
+    private final long created;
+
+    public BulkImportException(String message, long row, long created) {
+        super(message);
+        this.row = row;
+        this.created = created;
+    }
+
+    public BulkImportException(String message, long row, long created, Throwable cause) {
+        super(message, cause);
+        this.row = row;
+        this.created = created;
+    }
+
+    /**
+     * @return the number of the failed row, starting at 1.
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * @return the number of entities created before the failure.
+     */
+    public long getCreated() {
+        return created;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.bjcreslin.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.config.ApplicationProperties;
+
+/**
+ * Service inserting new entities in bulk, as they are read from a stream.
+ * <p>
+ * Every entity is validated as soon as it is read, then the entities are inserted in chunks, each in a transaction of
+ * its own, so that neither the entities nor the transactions grow with the number of rows. Within a chunk, the
+ * inserts are sent in JDBC batches of {@code hibernate.jdbc.batch_size}.
+ */
+@Service
+public class BulkInsertService {
+
+    private final Logger log = LoggerFactory.getLogger(BulkInsertService.class);
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Validator validator;
+
+    private final AssociationResolver associationResolver;
+
+    private final int chunkSize;
+
+    private final int maxRows;
+
+    public BulkInsertService(
+        EntityManager entityManager,
+        PlatformTransactionManager transactionManager,
+        Validator validator,
+        AssociationResolver associationResolver,
+        ApplicationProperties applicationProperties
+    ) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.associationResolver = associationResolver;
+        this.chunkSize = applicationProperties.getBulkImport().getChunkSize();
+        this.maxRows = applicationProperties.getBulkImport().getMaxRows();
+    }
+
+    /**
+     * Insert all the entities of a stream, which must not be in a transaction already.
+     *
+     * @param entities the new entities, read as they are iterated.
+     * @param <T> the type of the entities.
+     * @return the number of entities created.
+     * @throws BulkImportException if an entity can't be read, is not valid, already has an ID, or can't be inserted,
+     * or if there are too many entities. The chunks before the failed one are kept.
+     */
+    public <T> long insertAll(Iterator<T> entities) {
+        return insertAll(entities, chunk -> {});
+    }
+
+    /**
+     * Insert all the entities of a stream, which must not be in a transaction already.
+     *
+     * @param entities the new entities, read as they are iterated.
+     * @param onInsert called in the transaction of every chunk, once its entities are inserted.
+     * @param <T> the type of the entities.
+     * @return the number of entities created.
+     * @throws BulkImportException if an entity can't be read, is not valid, already has an ID, or can't be inserted,
+     * or if there are too many entities. The chunks before the failed one are kept.
+     */
+    public <T> long insertAll(Iterator<T> entities, Consumer<List<T>> onInsert) {
+        List<T> chunk = new ArrayList<>(chunkSize);
+        long created = 0;
+        long row = 0;
+        while (hasNext(entities, row + 1, created)) {
+            row++;
+            if (row > maxRows) {
+                throw new BulkImportException("A bulk import can't hold more than " + maxRows + " rows", row, created);
+            }
+            T entity = next(entities, row, created);
+            check(entity, row, created);
+            chunk.add(entity);
+            if (chunk.size() == chunkSize) {
+                created += insert(chunk, onInsert, row - chunk.size() + 1, created);
+                chunk.clear();
+            }
+        }
+        created += insert(chunk, onInsert, row - chunk.size() + 1, created);
+        log.debug("Bulk inserted {} entities", created);
+        return created;
+    }
+
+    private boolean hasNext(Iterator<?> entities, long row, long created) {
+        try {
+            return entities.hasNext();
+        } catch (RuntimeException e) {
+            throw new BulkImportException("Row " + row + " can't be read: " + e.getMessage(), row, created, e);
+        }
+    }
+
+    private <T> T next(Iterator<T> entities, long row, long created) {
+        try {
+            return entities.next();
+        } catch (RuntimeException e) {
+            throw new BulkImportException("Row " + row + " can't be read: " + e.getMessage(), row, created, e);
+        }
+    }
+
+    private void check(Object entity, long row, long created) {
+        if (entity == null) {
+            throw new BulkImportException("Row " + row + " is empty", row, created);
+        }
+        if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity) != null) {
+            throw new BulkImportException("Row " + row + " already has an ID", row, created);
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (!violations.isEmpty()) {
+            String message = violations
+                .stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+            throw new BulkImportException("Row " + row + " is not valid: " + message, row, created);
+        }
+    }
+
+    private <T> int insert(List<T> chunk, Consumer<List<T>> onInsert, long firstRow, long created) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    chunk.forEach(entity -> entityManager.persist(associationResolver.resolve(entity)));
+                    entityManager.flush();
+                    onInsert.accept(chunk);
+                    entityManager.clear();
+                }
+            );
+        } catch (RuntimeException e) {
+            String rows = "Rows " + firstRow + " to " + (firstRow + chunk.size() - 1);
+            throw new BulkImportException(rows + " can't be inserted: " + e.getMessage(), firstRow, created, e);
+        }
+        return chunk.size();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.bjcreslin.service;
+
+/**
+ * Thrown when a bulk update can't be applied at all, such as when it has too many rows. No row is updated.
+ */
+public class BulkUpdateException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkUpdateException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,10 @@
 package ru.bjcreslin.service;
 
+import java.util.Iterator;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import ru.bjcreslin.domain.Comment;
 
 /**
@@ -17,11 +19,31 @@ public interface CommentService {
      */
     Comment save(Comment comment);
 
+    /**
+     * Update an existing comment, if its version, when set, is still the current one.
+     *
+     * @param comment the entity to update, replacing the stored one.
+     * @return the persisted entity, or empty if there is no comment with this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the comment was updated since this version.
+     */
+    Optional<Comment> update(Comment comment);
+
+    /**
+     * Save new comments in bulk, in chunks of a transaction each.
+     *
+     * @param comments the new entities, validated as they are read.
+     * @return the number of entities created.
+     * @throws BulkImportException if a comment can't be read, validated or created, the chunks before it being kept.
+     */
+    long saveAll(Iterator<Comment> comments);
+
     /**
      * Partially updates a comment.
      *
      * @param comment the entity to update partially.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the comment was updated since the version of
+     * the entity, when set.
      */
     Optional<Comment> partialUpdate(Comment comment);
 
@@ -33,6 +55,15 @@ public interface CommentService {
      */
     Page<Comment> findAll(Pageable pageable);
 
+    /**
+     * Get all the comments, counting them as requested.
+     *
+     * @param pageable the pagination information.
+     * @param countMode how to count the entities.
+     * @return the list of entities, as a {@link Page} unless the count was skipped.
+     */
+    Slice<Comment> findAll(Pageable pageable, CountMode countMode);
+
     /**
      * Get the "id" comment.
      *
@@ -47,4 +78,13 @@ public interface CommentService {
      * @param id the id of the entity.
      */
     void delete(Long id);
+
+    /**
+     * Search for the comments matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Comment> search(String query, Pageable pageable);
 }
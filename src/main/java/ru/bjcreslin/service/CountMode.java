@@ -0,0 +1,39 @@
+package ru.bjcreslin.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * How the total number of rows is computed for a paginated listing.
+ */
+public enum CountMode {
+    /**
+     * No count at all, only whether a next page exists.
+     */
+    NONE,
+
+    /**
+     * An estimate from the database planner statistics, for unfiltered listings.
+     * Filtered listings fall back to an exact count.
+     */
+    ESTIMATE,
+
+    /**
+     * A {@code count(*)} query with the same filters as the page query.
+     */
+    EXACT;
+
+    /**
+     * Resolve a count mode from a request parameter, case-insensitively.
+     *
+     * @param parameter the parameter value, {@code null} for the default {@link #EXACT} mode.
+     * @return the count mode, or empty if the parameter is not a valid mode.
+     */
+    public static Optional<CountMode> fromParameter(String parameter) {
+        if (parameter == null) {
+            return Optional.of(EXACT);
+        }
+        return Arrays.stream(values()).filter(mode -> mode.name().equals(parameter.trim().toUpperCase(Locale.ENGLISH))).findFirst();
+    }
+}
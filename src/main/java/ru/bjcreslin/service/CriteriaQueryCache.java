@@ -0,0 +1,439 @@
+package ru.bjcreslin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.sql.SqlStatistics;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.RangeFilter;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * Cache of the JPQL queries compiled from a {@link Criteria}, keyed by the shape of the query: which filters and
+ * which of their operators are present, and the sort order.
+ * <p>
+ * Only the filter values are bound per request, so the {@link Specification} and the JPA criteria tree are not
+ * rebuilt, and Hibernate finds the query plan of every shape in its own plan cache. The filters are applied with the
+ * same semantics as {@link tech.jhipster.service.QueryService}. Queries which can't be compiled, because they are
+ * sorted on an association, case-insensitively or with explicit {@code null} handling, fall back to the
+ * {@link Specification}.
+ * <p>
+ * A filter on a to-many association joins it, so the queries with a join select distinct entities: an entity with
+ * several matching associated rows is returned, and counted, once.
+ *
+ * @param <ENTITY> the type of the entity which is queried.
+ * @param <CRITERIA> the type of the criteria holding the filters.
+ */
+public class CriteriaQueryCache<ENTITY, CRITERIA extends Criteria> {
+
+    private static final String METRIC_NAME = "query.shape.cache";
+
+    private static final String ALIAS = "e";
+
+    private final Logger log = LoggerFactory.getLogger(CriteriaQueryCache.class);
+
+    private final Class<ENTITY> entityClass;
+
+    private final EntityManager entityManager;
+
+    private final Function<CRITERIA, Specification<ENTITY>> specificationFactory;
+
+    private final boolean enabled;
+
+    private final int maxShapes;
+
+    private final List<FilterField<CRITERIA>> fields = new ArrayList<>();
+
+    private final Map<String, CompiledQuery> shapes = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Counter bypasses;
+
+    private volatile String entityName;
+
+    private volatile Set<String> sortableProperties;
+
+    /**
+     * @param entityClass the type of the entity which is queried.
+     * @param entityManager the entity manager creating the queries.
+     * @param specificationFactory the conversion of the criteria to a {@link Specification}, used when a query can't be compiled.
+     * @param properties the cache configuration.
+     * @param meterRegistry the registry of the hit and miss metrics.
+     */
+    public CriteriaQueryCache(
+        Class<ENTITY> entityClass,
+        EntityManager entityManager,
+        Function<CRITERIA, Specification<ENTITY>> specificationFactory,
+        ApplicationProperties.QueryCache properties,
+        MeterRegistry meterRegistry
+    ) {
+        this.entityClass = entityClass;
+        this.entityManager = entityManager;
+        this.specificationFactory = specificationFactory;
+        this.enabled = properties.isEnabled();
+        this.maxShapes = properties.getMaxShapes();
+        String entity = entityClass.getSimpleName();
+        this.hits = requestCounter(meterRegistry, entity, "hit");
+        this.misses = requestCounter(meterRegistry, entity, "miss");
+        this.bypasses = requestCounter(meterRegistry, entity, "bypass");
+        Gauge
+            .builder(METRIC_NAME + ".size", shapes, Map::size)
+            .description("Number of compiled query shapes")
+            .tag("entity", entity)
+            .register(meterRegistry);
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String entity, String result) {
+        return Counter
+            .builder(METRIC_NAME + ".requests")
+            .description("Criteria queries served by the compiled query shape cache")
+            .tag("entity", entity)
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Register a filter of the criteria, in the order {@link tech.jhipster.service.QueryService} would apply it.
+     * @param path the attribute the filter applies to, or {@code association.attribute} for an attribute of an
+     * entity joined with a left join.
+     * @param filter the getter of the filter in the criteria.
+     * @return this cache, for chaining.
+     */
+    public CriteriaQueryCache<ENTITY, CRITERIA> field(String path, Function<CRITERIA, ? extends Filter<?>> filter) {
+        fields.add(new FilterField<>(path, filter));
+        return this;
+    }
+
+    /**
+     * Prepare the query for the entities matching the criteria, in the given sort order.
+     * @param criteria the object which holds all the filters, which the entities should match.
+     * @param sort the sort order of the query.
+     * @return the query, compiled from the cache when possible.
+     */
+    public PreparedQuery<ENTITY> prepare(CRITERIA criteria, Sort sort) {
+        SqlStatistics.criteria(criteria);
+        if (!enabled || !isCompilable(sort)) {
+            bypasses.increment();
+            return new SpecificationQuery(specificationFactory.apply(criteria), sort);
+        }
+        List<Term> terms = terms(criteria);
+        String shape = shape(terms, sort);
+        CompiledQuery compiled = shapes.get(shape);
+        if (compiled != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            compiled = compile(terms, sort);
+            log.debug("Compiled query shape {}: {}", shape, compiled.select);
+            if (shapes.size() < maxShapes) {
+                shapes.putIfAbsent(shape, compiled);
+            }
+        }
+        return new BoundQuery(compiled, terms);
+    }
+
+    private boolean isCompilable(Sort sort) {
+        Set<String> sortable = sortableProperties();
+        return sort
+            .stream()
+            .allMatch(o -> !o.isIgnoreCase() && o.getNullHandling() == Sort.NullHandling.NATIVE && sortable.contains(o.getProperty()));
+    }
+
+    /**
+     * The metamodel is not available yet while the repositories are bootstrapped, so it is only read on first use.
+     */
+    private Set<String> sortableProperties() {
+        if (sortableProperties == null) {
+            EntityType<ENTITY> entityType = entityManager.getMetamodel().entity(entityClass);
+            entityName = entityType.getName();
+            sortableProperties =
+                entityType
+                    .getSingularAttributes()
+                    .stream()
+                    .filter(a -> a.getPersistentAttributeType() == Attribute.PersistentAttributeType.BASIC)
+                    .map(Attribute::getName)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        return sortableProperties;
+    }
+
+    private List<Term> terms(CRITERIA criteria) {
+        List<Term> terms = new ArrayList<>();
+        if (criteria != null) {
+            for (FilterField<CRITERIA> field : fields) {
+                Filter<?> filter = field.filter.apply(criteria);
+                if (filter != null) {
+                    addTerms(field, filter, terms);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Resolve the operators of a filter in the same order, and with the same precedence, as
+     * {@link tech.jhipster.service.QueryService#buildSpecification}.
+     */
+    private void addTerms(FilterField<CRITERIA> field, Filter<?> filter, List<Term> terms) {
+        if (filter.getEquals() != null) {
+            terms.add(new Term(field, Operator.EQUALS, filter));
+        } else if (filter.getIn() != null) {
+            terms.add(new Term(field, filter.getIn().isEmpty() ? Operator.IN_NONE : Operator.IN, filter));
+        } else if (filter instanceof RangeFilter) {
+            RangeFilter<?> range = (RangeFilter<?>) filter;
+            if (range.getSpecified() != null) {
+                terms.add(new Term(field, range.getSpecified() ? Operator.SPECIFIED : Operator.NOT_SPECIFIED, filter));
+            }
+            if (range.getNotEquals() != null) {
+                terms.add(new Term(field, Operator.NOT_EQUALS, filter));
+            }
+            if (range.getNotIn() != null) {
+                terms.add(new Term(field, range.getNotIn().isEmpty() ? Operator.NOT_IN_NONE : Operator.NOT_IN, filter));
+            }
+            if (range.getGreaterThan() != null) {
+                terms.add(new Term(field, Operator.GREATER_THAN, filter));
+            }
+            if (range.getGreaterThanOrEqual() != null) {
+                terms.add(new Term(field, Operator.GREATER_THAN_OR_EQUAL, filter));
+            }
+            if (range.getLessThan() != null) {
+                terms.add(new Term(field, Operator.LESS_THAN, filter));
+            }
+            if (range.getLessThanOrEqual() != null) {
+                terms.add(new Term(field, Operator.LESS_THAN_OR_EQUAL, filter));
+            }
+        } else if (filter.getNotIn() != null) {
+            terms.add(new Term(field, filter.getNotIn().isEmpty() ? Operator.NOT_IN_NONE : Operator.NOT_IN, filter));
+        } else if (filter instanceof StringFilter && ((StringFilter) filter).getContains() != null) {
+            terms.add(new Term(field, Operator.CONTAINS, filter));
+        } else if (filter instanceof StringFilter && ((StringFilter) filter).getDoesNotContain() != null) {
+            terms.add(new Term(field, Operator.DOES_NOT_CONTAIN, filter));
+        } else if (filter.getNotEquals() != null) {
+            terms.add(new Term(field, Operator.NOT_EQUALS, filter));
+        } else if (filter.getSpecified() != null) {
+            terms.add(new Term(field, filter.getSpecified() ? Operator.SPECIFIED : Operator.NOT_SPECIFIED, filter));
+        }
+    }
+
+    private String shape(List<Term> terms, Sort sort) {
+        StringBuilder shape = new StringBuilder();
+        for (Term term : terms) {
+            shape.append(term.field.path).append('.').append(term.operator).append(';');
+        }
+        return shape.append(sort).toString();
+    }
+
+    private CompiledQuery compile(List<Term> terms, Sort sort) {
+        StringBuilder from = new StringBuilder(" from ").append(entityName).append(' ').append(ALIAS);
+        StringBuilder where = new StringBuilder();
+        boolean joined = false;
+        for (int i = 0; i < terms.size(); i++) {
+            FilterField<CRITERIA> field = terms.get(i).field;
+            String path;
+            if (field.association != null) {
+                // like the Specification, every operator on an association gets its own join
+                String join = "j" + i;
+                from.append(" left join ").append(ALIAS).append('.').append(field.association).append(' ').append(join);
+                path = join + '.' + field.attribute;
+                joined = true;
+            } else {
+                path = ALIAS + '.' + field.attribute;
+            }
+            where.append(i == 0 ? " where " : " and ").append(terms.get(i).operator.render(path, parameter(i)));
+        }
+        String orderBy = sort
+            .stream()
+            .map(o -> ALIAS + '.' + o.getProperty() + (o.isAscending() ? " asc" : " desc"))
+            .collect(Collectors.joining(", ", " order by ", ""));
+        String distinct = joined ? "distinct " : "";
+        return new CompiledQuery(
+            "select " + distinct + ALIAS + from + where + (sort.isSorted() ? orderBy : ""),
+            "select count(" + distinct + ALIAS + ")" + from + where
+        );
+    }
+
+    private static String parameter(int index) {
+        return "p" + index;
+    }
+
+    private enum Operator {
+        EQUALS("%s = :%s", Filter::getEquals),
+        NOT_EQUALS("%s <> :%s", Filter::getNotEquals),
+        IN("%s in :%s", Filter::getIn),
+        IN_NONE("1 = 0", null),
+        NOT_IN("%s not in :%s", Filter::getNotIn),
+        NOT_IN_NONE("1 = 1", null),
+        SPECIFIED("%s is not null", null),
+        NOT_SPECIFIED("%s is null", null),
+        CONTAINS("upper(%s) like :%s", f -> wrapLikeQuery(((StringFilter) f).getContains())),
+        DOES_NOT_CONTAIN("upper(%s) not like :%s", f -> wrapLikeQuery(((StringFilter) f).getDoesNotContain())),
+        GREATER_THAN("%s > :%s", f -> ((RangeFilter<?>) f).getGreaterThan()),
+        GREATER_THAN_OR_EQUAL("%s >= :%s", f -> ((RangeFilter<?>) f).getGreaterThanOrEqual()),
+        LESS_THAN("%s < :%s", f -> ((RangeFilter<?>) f).getLessThan()),
+        LESS_THAN_OR_EQUAL("%s <= :%s", f -> ((RangeFilter<?>) f).getLessThanOrEqual());
+
+        private final String template;
+
+        private final Function<Filter<?>, Object> value;
+
+        Operator(String template, Function<Filter<?>, Object> value) {
+            this.template = template;
+            this.value = value;
+        }
+
+        String render(String path, String parameter) {
+            return String.format(template, path, parameter);
+        }
+
+        private static String wrapLikeQuery(String txt) {
+            return "%" + txt.toUpperCase() + '%';
+        }
+    }
+
+    private static final class FilterField<CRITERIA> {
+
+        private final String path;
+
+        private final String association;
+
+        private final String attribute;
+
+        private final Function<CRITERIA, ? extends Filter<?>> filter;
+
+        private FilterField(String path, Function<CRITERIA, ? extends Filter<?>> filter) {
+            int dot = path.indexOf('.');
+            this.path = path;
+            this.association = dot < 0 ? null : path.substring(0, dot);
+            this.attribute = path.substring(dot + 1);
+            this.filter = filter;
+        }
+    }
+
+    private final class Term {
+
+        private final FilterField<CRITERIA> field;
+
+        private final Operator operator;
+
+        private final Filter<?> filter;
+
+        private Term(FilterField<CRITERIA> field, Operator operator, Filter<?> filter) {
+            this.field = field;
+            this.operator = operator;
+            this.filter = filter;
+        }
+    }
+
+    private static final class CompiledQuery {
+
+        private final String select;
+
+        private final String count;
+
+        private CompiledQuery(String select, String count) {
+            this.select = select;
+            this.count = count;
+        }
+    }
+
+    private final class BoundQuery implements PreparedQuery<ENTITY> {
+
+        private final CompiledQuery compiled;
+
+        private final List<Term> terms;
+
+        private BoundQuery(CompiledQuery compiled, List<Term> terms) {
+            this.compiled = compiled;
+            this.terms = terms;
+        }
+
+        @Override
+        public TypedQuery<ENTITY> createQuery() {
+            return bind(entityManager.createQuery(compiled.select, entityClass));
+        }
+
+        @Override
+        public TypedQuery<Long> createCountQuery() {
+            return bind(entityManager.createQuery(compiled.count, Long.class));
+        }
+
+        private <T> TypedQuery<T> bind(TypedQuery<T> query) {
+            for (int i = 0; i < terms.size(); i++) {
+                Term term = terms.get(i);
+                if (term.operator.value != null) {
+                    query.setParameter(parameter(i), term.operator.value.apply(term.filter));
+                }
+            }
+            return query;
+        }
+    }
+
+    private final class SpecificationQuery implements PreparedQuery<ENTITY> {
+
+        private final Specification<ENTITY> specification;
+
+        private final Sort sort;
+
+        private SpecificationQuery(Specification<ENTITY> specification, Sort sort) {
+            this.specification = specification;
+            this.sort = sort;
+        }
+
+        @Override
+        public TypedQuery<ENTITY> createQuery() {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<ENTITY> query = cb.createQuery(entityClass);
+            Root<ENTITY> root = where(query, cb);
+            query.select(root).distinct(!root.getJoins().isEmpty());
+            if (sort.isSorted()) {
+                query.orderBy(QueryUtils.toOrders(sort, root, cb));
+            }
+            return entityManager.createQuery(query);
+        }
+
+        @Override
+        public TypedQuery<Long> createCountQuery() {
+            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = cb.createQuery(Long.class);
+            Root<ENTITY> root = where(query, cb);
+            query.select(root.getJoins().isEmpty() ? cb.count(root) : cb.countDistinct(root));
+            return entityManager.createQuery(query);
+        }
+
+        private Root<ENTITY> where(CriteriaQuery<?> query, CriteriaBuilder cb) {
+            Root<ENTITY> root = query.from(entityClass);
+            if (specification != null) {
+                Predicate predicate = specification.toPredicate(root, query, cb);
+                if (predicate != null) {
+                    query.where(predicate);
+                }
+            }
+            return root;
+        }
+    }
+}
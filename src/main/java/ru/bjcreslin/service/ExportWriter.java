@@ -0,0 +1,17 @@
+package ru.bjcreslin.service;
+
+import java.io.IOException;
+
+/**
+ * Writes the entities of an export to its output, one at a time, as they are read from the database.
+ *
+ * @param <T> the type of the exported entities.
+ */
+@FunctionalInterface
+public interface ExportWriter<T> {
+    /**
+     * @param entity the entity to write, which is detached once this method returns.
+     * @throws IOException if the entity could not be written.
+     */
+    void write(T entity) throws IOException;
+}
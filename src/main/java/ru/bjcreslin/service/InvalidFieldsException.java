@@ -0,0 +1,10 @@
+package ru.bjcreslin.service;
+
+public class InvalidFieldsException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,249 @@
+package ru.bjcreslin.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.repository.TableStatisticsRepository;
+import ru.bjcreslin.service.dto.KeysetCursor;
+
+/**
+ * Base service for executing keyset ("seek") paginated queries, on top of the {@link Specification}
+ * built by a {@link tech.jhipster.service.QueryService}.
+ * <p>
+ * Instead of skipping {@code OFFSET} rows, every page starts right after the position held by a
+ * {@link KeysetCursor}, so the cost of fetching a page does not depend on how deep it is.
+ * Rows are ordered by a single sort property, {@code null} values last, then by {@code id}.
+ * <p>
+ * A page is read with a range scan of an index on the sort property and {@code id}, which every keyset property must
+ * have: the seek predicate holds a plain bound on the property, and the rows with a value and the {@code null} rows of a
+ * nullable property are read by two queries, the second one, ordered by {@code id} alone, only once the values are
+ * exhausted. The pages of a property without such an index get slower with their depth.
+ *
+ * @param <ENTITY> the type of the entity which is queried.
+ */
+@Transactional(readOnly = true)
+public abstract class KeysetQueryService<ENTITY> extends SliceQueryService<ENTITY> {
+
+    private static final String ID = "id";
+
+    private final Set<String> keysetProperties;
+
+    protected KeysetQueryService(
+        TableStatisticsRepository tableStatisticsRepository,
+        EntityManager entityManager,
+        Class<ENTITY> entityClass,
+        String... keysetProperties
+    ) {
+        super(tableStatisticsRepository, entityManager, entityClass);
+        this.keysetProperties = new LinkedHashSet<>(Arrays.asList(keysetProperties));
+        this.keysetProperties.add(ID);
+    }
+
+    /**
+     * Return a {@link Slice} of entities which match the specification, starting right after the given cursor.
+     * @param specification the filters, which the entities should match.
+     * @param sort the sort order, at most one property besides {@code id}.
+     * @param size the maximum number of entities to return.
+     * @param after the position to start after, or {@code null} for the first slice.
+     * @return the matching entities.
+     * @throws InvalidCursorException if the sort or the cursor can't be used for a keyset query.
+     */
+    protected Slice<ENTITY> findAfter(Specification<ENTITY> specification, Sort sort, int size, KeysetCursor after) {
+        Sort.Order order = resolveOrder(sort);
+        if (after != null && (!after.getProperty().equals(order.getProperty()) || after.getDirection() != order.getDirection())) {
+            throw new InvalidCursorException("Cursor does not match the requested sort order");
+        }
+        List<ENTITY> content = new ArrayList<>(size + 1);
+        if (ID.equals(order.getProperty())) {
+            content.addAll(find(specification, order, size + 1, (cb, root) -> after != null ? afterId(cb, root, order, after) : null));
+        } else {
+            boolean nullable = isNullable(order.getProperty());
+            if (after == null || after.getValue() != null) {
+                content.addAll(find(specification, order, size + 1, (cb, root) -> afterValue(cb, root, order, after, nullable)));
+            }
+            if (nullable && content.size() <= size) {
+                // nulls sort last, the null rows follow the values by id
+                Sort.Order byId = new Sort.Order(order.getDirection(), ID);
+                content.addAll(
+                    find(
+                        specification,
+                        byId,
+                        size + 1 - content.size(),
+                        (cb, root) -> {
+                            Predicate isNull = cb.isNull(root.get(order.getProperty()));
+                            return after != null && after.getValue() == null ? cb.and(isNull, afterId(cb, root, order, after)) : isNull;
+                        }
+                    )
+                );
+            }
+        }
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, size));
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size, Sort.by(order)), hasNext);
+    }
+
+    /**
+     * Find the first entities matching the specification and the seek predicate, ordered by the given property then by
+     * {@code id}.
+     */
+    private List<ENTITY> find(
+        Specification<ENTITY> specification,
+        Sort.Order order,
+        int limit,
+        BiFunction<CriteriaBuilder, Root<ENTITY>, Predicate> seek
+    ) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ENTITY> query = cb.createQuery(entityClass);
+        Root<ENTITY> root = query.from(entityClass);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        Predicate seekPredicate = seek.apply(cb, root);
+        if (seekPredicate != null) {
+            predicates.add(seekPredicate);
+        }
+        List<Order> orders = new ArrayList<>();
+        if (!ID.equals(order.getProperty())) {
+            Path<?> path = root.get(order.getProperty());
+            orders.add(order.isAscending() ? cb.asc(path) : cb.desc(path));
+        }
+        Path<Long> id = root.get(ID);
+        orders.add(order.isAscending() ? cb.asc(id) : cb.desc(id));
+        query.select(root).distinct(!root.getJoins().isEmpty()).where(predicates.toArray(new Predicate[0])).orderBy(orders);
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Return the cursor positioned on the last entity of the given slice.
+     * @param slice a slice returned by a keyset query.
+     * @return the cursor of the next slice, or empty if this is the last one.
+     */
+    public Optional<KeysetCursor> nextCursor(Slice<ENTITY> slice) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return Optional.empty();
+        }
+        Sort.Order order = slice.getSort().iterator().next();
+        BeanWrapper last = PropertyAccessorFactory.forBeanPropertyAccess(slice.getContent().get(slice.getNumberOfElements() - 1));
+        Object value = last.getPropertyValue(order.getProperty());
+        return Optional.of(
+            new KeysetCursor(
+                order.getProperty(),
+                order.getDirection(),
+                (Long) last.getPropertyValue(ID),
+                value instanceof Enum ? ((Enum<?>) value).name() : value != null ? value.toString() : null
+            )
+        );
+    }
+
+    private Sort.Order resolveOrder(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        sort.stream().filter(o -> !ID.equals(o.getProperty())).forEach(orders::add);
+        if (orders.size() > 1) {
+            throw new InvalidCursorException("Keyset pagination supports a single sort property");
+        }
+        if (orders.isEmpty()) {
+            Sort.Order byId = sort.getOrderFor(ID);
+            return byId != null ? byId : Sort.Order.asc(ID);
+        }
+        Sort.Order order = orders.get(0);
+        if (!keysetProperties.contains(order.getProperty())) {
+            throw new InvalidCursorException("Keyset pagination is not supported on property " + order.getProperty());
+        }
+        return order;
+    }
+
+    private boolean isNullable(String property) {
+        Attribute<? super ENTITY, ?> attribute = entityManager.getMetamodel().entity(entityClass).getAttribute(property);
+        return !(attribute instanceof SingularAttribute) || ((SingularAttribute<?, ?>) attribute).isOptional();
+    }
+
+    private Predicate afterId(CriteriaBuilder cb, Root<ENTITY> root, Sort.Order order, KeysetCursor after) {
+        Path<Long> id = root.get(ID);
+        return order.isAscending() ? cb.greaterThan(id, after.getId()) : cb.lessThan(id, after.getId());
+    }
+
+    /**
+     * The rows with a value after the cursor: the bound on the value alone starts the range scan of the index, the rows
+     * with the value of the cursor are then only read from the id of the cursor.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate afterValue(CriteriaBuilder cb, Root<ENTITY> root, Sort.Order order, KeysetCursor after, boolean nullable) {
+        Expression path = root.get(order.getProperty());
+        if (after == null) {
+            return nullable ? cb.isNotNull(path) : null;
+        }
+        Comparable value = toComparable(path.getJavaType(), after.getValue());
+        if (order.isAscending()) {
+            return cb.and(
+                cb.greaterThanOrEqualTo(path, value),
+                cb.or(cb.greaterThan(path, value), cb.and(cb.equal(path, value), afterId(cb, root, order, after)))
+            );
+        }
+        return cb.and(
+            cb.lessThanOrEqualTo(path, value),
+            cb.or(cb.lessThan(path, value), cb.and(cb.equal(path, value), afterId(cb, root, order, after)))
+        );
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparable toComparable(Class<?> type, String value) {
+        try {
+            if (String.class.equals(type)) {
+                return value;
+            }
+            if (Long.class.equals(type)) {
+                return Long.valueOf(value);
+            }
+            if (Integer.class.equals(type)) {
+                return Integer.valueOf(value);
+            }
+            if (ZonedDateTime.class.equals(type)) {
+                return ZonedDateTime.parse(value);
+            }
+            if (Instant.class.equals(type)) {
+                return Instant.parse(value);
+            }
+            if (LocalDate.class.equals(type)) {
+                return LocalDate.parse(value);
+            }
+            if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>) type, value);
+            }
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Cursor value '" + value + "' is not valid");
+        }
+        throw new InvalidCursorException("Keyset pagination is not supported on type " + type.getSimpleName());
+    }
+}
@@ -0,0 +1,367 @@
+package ru.bjcreslin.service;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import com.sun.mail.smtp.SMTPSenderFailedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.Address;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.AddressException;
+import javax.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.jfr.MailSendEvent;
+
+/**
+ * Service for delivering the emails prepared by the {@link MailService}.
+ * <p>
+ * The emails are queued in a bounded queue, and sent by a few threads, each one keeping its own SMTP connection open
+ * between the emails and sending the queued emails in batches. An email which can't be sent for a temporary reason is
+ * queued again after a pause doubled at each attempt, and retried over a new connection, the threads sending the other
+ * emails meanwhile. An email refused for good by the server, or to invalid addresses, is given up at once. When the
+ * queue is full, the emails are rejected right away.
+ * <p>
+ * The emails sent are published as the {@code mail.delivery.sent} metric, the emails given up as
+ * {@code mail.delivery.failed}, the rejected ones as {@code mail.delivery.rejected}, the retries as
+ * {@code mail.delivery.retries}, the connections opened as {@code mail.delivery.connections} and the emails waiting
+ * as {@code mail.delivery.queued}.
+ */
+@Service
+public class MailDeliveryService {
+
+    /**
+     * How long a thread waits for an email before checking whether the service is stopping or its connection is idle.
+     */
+    private static final long POLL_MILLIS = 500;
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final Logger log = LoggerFactory.getLogger(MailDeliveryService.class);
+
+    private final JavaMailSenderImpl javaMailSender;
+
+    private final ApplicationProperties.MailDelivery properties;
+
+    private final BlockingQueue<Delivery> queue;
+
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService retryScheduler;
+
+    private final Timer sendTimer;
+
+    private final Counter failures;
+
+    private final Counter rejections;
+
+    private final Counter retries;
+
+    private final Counter connections;
+
+    private volatile boolean running;
+
+    public MailDeliveryService(
+        JavaMailSenderImpl javaMailSender,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        this.javaMailSender = javaMailSender;
+        this.properties = applicationProperties.getMailDelivery();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mail-delivery-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(properties.getConnections(), threadFactory);
+        CustomizableThreadFactory retryThreadFactory = new CustomizableThreadFactory("mail-retry-");
+        retryThreadFactory.setDaemon(true);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(retryThreadFactory);
+        this.sendTimer = Timer.builder("mail.delivery.sent").description("Time spent sending each email").register(meterRegistry);
+        this.failures =
+            Counter.builder("mail.delivery.failed").description("Emails given up after all their attempts").register(meterRegistry);
+        this.rejections =
+            Counter.builder("mail.delivery.rejected").description("Emails rejected because the queue was full").register(meterRegistry);
+        this.retries = Counter.builder("mail.delivery.retries").description("Attempts to send an email again").register(meterRegistry);
+        this.connections = Counter.builder("mail.delivery.connections").description("SMTP connections opened").register(meterRegistry);
+        Gauge.builder("mail.delivery.queued", queue, BlockingQueue::size).description("Emails waiting to be sent").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < properties.getConnections(); i++) {
+            executor.execute(this::deliver);
+        }
+    }
+
+    /**
+     * Stop taking emails, and send the queued ones before stopping the threads. The emails waiting to be retried are
+     * not sent.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        int waitingRetries = retryScheduler.shutdownNow().size();
+        if (waitingRetries > 0) {
+            log.warn("{} emails waiting to be retried were not sent before the shutdown", waitingRetries);
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("{} emails were not sent before the shutdown", queue.size());
+        }
+    }
+
+    /**
+     * Queue an email to be sent.
+     *
+     * @param message the email.
+     * @return {@code false} if the email was rejected, because the queue is full or the service is stopped.
+     */
+    public boolean enqueue(MimeMessage message) {
+        if (running && queue.offer(new Delivery(message, 1, properties.getInitialBackoffMillis()))) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+
+    /**
+     * Loop of the delivery threads, the connection is opened on the first email and closed when it stays unused.
+     */
+    private void deliver() {
+        Transport transport = null;
+        long lastUsed = System.nanoTime();
+        List<Delivery> batch = new ArrayList<>(properties.getBatchSize());
+        try {
+            while (running || !queue.isEmpty()) {
+                Delivery first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (transport != null && System.nanoTime() - lastUsed > TimeUnit.SECONDS.toNanos(properties.getIdleTimeoutSeconds())) {
+                        transport = close(transport);
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                transport = checkConnected(transport);
+                for (Delivery delivery : batch) {
+                    transport = send(transport, delivery);
+                }
+                log.debug("Processed a batch of {} emails", batch.size());
+                batch.clear();
+                lastUsed = System.nanoTime();
+            }
+        } catch (InterruptedException e) {
+            log.warn("{} emails were not sent before the shutdown", batch.size());
+            Thread.currentThread().interrupt();
+        } finally {
+            close(transport);
+        }
+    }
+
+    /**
+     * Make an attempt to send an email over the connection, and schedule the next one if it failed for a temporary reason.
+     * <p>
+     * Any failure of the attempt is caught, so that the thread goes on with the next emails.
+     *
+     * @return the connection to use for the next email, {@code null} if it was closed.
+     */
+    private Transport send(Transport transport, Delivery delivery) {
+        MimeMessage message = delivery.message;
+        long start = System.nanoTime();
+        MailSendEvent event = new MailSendEvent();
+        event.begin();
+        event.attempt = delivery.attempt;
+        try {
+            if (transport == null) {
+                transport = connect();
+                event.connected = true;
+            }
+            prepare(message);
+            Address[] recipients = message.getAllRecipients();
+            event.recipients = recipients == null ? 0 : recipients.length;
+            transport.sendMessage(message, recipients);
+            sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            event.sent = true;
+            return transport;
+        } catch (MessagingException e) {
+            if (!isPermanent(e) && delivery.attempt < properties.getMaxAttempts()) {
+                log.debug("Email could not be sent to '{}', attempt {}: {}", recipients(message), delivery.attempt, e.getMessage());
+                retry(delivery.next(properties.getMaxBackoffMillis()), delivery.backoffMillis);
+            } else {
+                failures.increment();
+                log.warn("Email could not be sent to '{}' after {} attempts", recipients(message), delivery.attempt, e);
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.error("Email could not be sent to '{}'", recipients(message), e);
+        } finally {
+            event.commit();
+        }
+        // the state of the connection is unknown after a failure
+        return close(transport);
+    }
+
+    /**
+     * Queue an email again once the pause before its next attempt is over.
+     */
+    private void retry(Delivery delivery, long delayMillis) {
+        retries.increment();
+        try {
+            retryScheduler.schedule(
+                () -> {
+                    if (!queue.offer(delivery)) {
+                        failures.increment();
+                        log.warn("Email could not be retried to '{}', the queue is full", recipients(delivery.message));
+                    }
+                },
+                delayMillis,
+                TimeUnit.MILLISECONDS
+            );
+        } catch (RejectedExecutionException e) {
+            failures.increment();
+            log.warn("Email could not be retried to '{}', the service is stopped", recipients(delivery.message));
+        }
+    }
+
+    /**
+     * Whether another attempt would fail the same way: the server refused the email with a permanent {@code 5xx} reply,
+     * or its addresses are invalid. A temporary {@code 4xx} reply for any of the recipients makes it worth retrying.
+     */
+    static boolean isPermanent(MessagingException e) {
+        boolean permanentReply = false;
+        for (Exception cause = e; cause != null; cause = nextException(cause)) {
+            int reply = replyCode(cause);
+            if (reply >= 400 && reply < 500) {
+                return false;
+            }
+            permanentReply |= reply >= 500;
+        }
+        return permanentReply || e instanceof SendFailedException || e instanceof AddressException;
+    }
+
+    private static Exception nextException(Exception e) {
+        return e instanceof MessagingException ? ((MessagingException) e).getNextException() : null;
+    }
+
+    private static int replyCode(Exception e) {
+        if (e instanceof SMTPSendFailedException) {
+            return ((SMTPSendFailedException) e).getReturnCode();
+        }
+        if (e instanceof SMTPAddressFailedException) {
+            return ((SMTPAddressFailedException) e).getReturnCode();
+        }
+        if (e instanceof SMTPSenderFailedException) {
+            return ((SMTPSenderFailedException) e).getReturnCode();
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the sent date and the headers of an email, as {@link JavaMailSenderImpl} does.
+     */
+    private static void prepare(MimeMessage message) throws MessagingException {
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+    }
+
+    private Transport connect() throws MessagingException {
+        Session session = javaMailSender.getSession();
+        // resolved as JavaMailSenderImpl does
+        String protocol = javaMailSender.getProtocol();
+        if (protocol == null) {
+            protocol = session.getProperty("mail.transport.protocol");
+        }
+        Transport transport = session.getTransport(protocol == null ? JavaMailSenderImpl.DEFAULT_PROTOCOL : protocol);
+        transport.connect(javaMailSender.getHost(), javaMailSender.getPort(), javaMailSender.getUsername(), javaMailSender.getPassword());
+        connections.increment();
+        return transport;
+    }
+
+    /**
+     * Checks once per batch that the connection was not closed by the server while unused.
+     */
+    private Transport checkConnected(Transport transport) {
+        if (transport != null && !transport.isConnected()) {
+            return close(transport);
+        }
+        return transport;
+    }
+
+    private Transport close(Transport transport) {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("SMTP connection could not be closed: {}", e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static String recipients(MimeMessage message) {
+        try {
+            Address[] recipients = message.getAllRecipients();
+            return recipients == null ? "" : Arrays.toString(recipients);
+        } catch (MessagingException e) {
+            return "";
+        }
+    }
+
+    /**
+     * An email, with its attempt to come and the pause before the attempt after it.
+     */
+    private static final class Delivery {
+
+        private final MimeMessage message;
+
+        private final int attempt;
+
+        private final long backoffMillis;
+
+        private Delivery(MimeMessage message, int attempt, long backoffMillis) {
+            this.message = message;
+            this.attempt = attempt;
+            this.backoffMillis = backoffMillis;
+        }
+
+        private Delivery next(long maxBackoffMillis) {
+            return new Delivery(message, attempt + 1, Math.min(backoffMillis * 2, maxBackoffMillis));
+        }
+    }
+}
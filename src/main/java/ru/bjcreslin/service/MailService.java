@@ -7,7 +7,6 @@ import javax.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.MessageSource;
-import org.springframework.mail.MailException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -20,7 +19,8 @@ import tech.jhipster.config.JHipsterProperties;
 /**
  * Service for sending emails.
  * <p>
- * We use the {@link Async} annotation to send emails asynchronously.
+ * We use the {@link Async} annotation to render the templates asynchronously, the emails are then sent by the
+ * {@link MailDeliveryService}.
  */
 @Service
 public class MailService {
@@ -39,19 +39,22 @@ public class MailService {
 
     private final SpringTemplateEngine templateEngine;
 
+    private final MailDeliveryService mailDeliveryService;
+
     public MailService(
         JHipsterProperties jHipsterProperties,
         JavaMailSender javaMailSender,
         MessageSource messageSource,
-        SpringTemplateEngine templateEngine
+        SpringTemplateEngine templateEngine,
+        MailDeliveryService mailDeliveryService
     ) {
         this.jHipsterProperties = jHipsterProperties;
         this.javaMailSender = javaMailSender;
         this.messageSource = messageSource;
         this.templateEngine = templateEngine;
+        this.mailDeliveryService = mailDeliveryService;
     }
 
-    @Async
     public void sendEmail(String to, String subject, String content, boolean isMultipart, boolean isHtml) {
         log.debug(
             "Send email[multipart '{}' and html '{}'] to '{}' with subject '{}' and content={}",
@@ -70,10 +73,14 @@ public class MailService {
             message.setFrom(jHipsterProperties.getMail().getFrom());
             message.setSubject(subject);
             message.setText(content, isHtml);
-            javaMailSender.send(mimeMessage);
-            log.debug("Sent email to User '{}'", to);
-        } catch (MailException | MessagingException e) {
-            log.warn("Email could not be sent to user '{}'", to, e);
+        } catch (MessagingException e) {
+            log.warn("Email could not be prepared for user '{}'", to, e);
+            return;
+        }
+        if (mailDeliveryService.enqueue(mimeMessage)) {
+            log.debug("Queued email to User '{}'", to);
+        } else {
+            log.warn("Email could not be queued for user '{}'", to);
         }
     }
 
@@ -1,36 +1,62 @@
 package ru.bjcreslin.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.config.ApplicationProperties;
 import ru.bjcreslin.domain.*; // for static metamodels
 import ru.bjcreslin.domain.Message;
-import ru.bjcreslin.repository.MessageRepository;
+import ru.bjcreslin.repository.TableStatisticsRepository;
 import ru.bjcreslin.service.criteria.MessageCriteria;
-import tech.jhipster.service.QueryService;
+import ru.bjcreslin.service.dto.Fieldset;
 
 /**
  * Service for executing complex queries for {@link Message} entities in the database.
  * The main input is a {@link MessageCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link Message} or a {@link Page} of {@link Message} which fulfills the criteria.
+ * It returns a {@link List} of {@link Message}, a {@link Page} or a {@link Slice} of {@link Message} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
-public class MessageQueryService extends QueryService<Message> {
+public class MessageQueryService extends SliceQueryService<Message> {
 
     private final Logger log = LoggerFactory.getLogger(MessageQueryService.class);
 
-    private final MessageRepository messageRepository;
+    private final CriteriaQueryCache<Message, MessageCriteria> queryCache;
 
-    public MessageQueryService(MessageRepository messageRepository) {
-        this.messageRepository = messageRepository;
+    public MessageQueryService(
+        TableStatisticsRepository tableStatisticsRepository,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        super(tableStatisticsRepository, entityManager, Message.class);
+        this.queryCache =
+            new CriteriaQueryCache<Message, MessageCriteria>(
+                Message.class,
+                entityManager,
+                this::createSpecification,
+                applicationProperties.getQueryCache(),
+                meterRegistry
+            )
+                .field("id", MessageCriteria::getId)
+                .field("author", MessageCriteria::getAuthor)
+                .field("recepient", MessageCriteria::getRecepient)
+                .field("text", MessageCriteria::getText)
+                .field("status", MessageCriteria::getStatus)
+                .field("created", MessageCriteria::getCreated)
+                .field("edited", MessageCriteria::getEdited);
     }
 
     /**
@@ -41,8 +67,7 @@ public class MessageQueryService extends QueryService<Message> {
     @Transactional(readOnly = true)
     public List<Message> findByCriteria(MessageCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<Message> specification = createSpecification(criteria);
-        return messageRepository.findAll(specification);
+        return prepareQuery(criteria, Sort.unsorted()).getResultList();
     }
 
     /**
@@ -54,8 +79,39 @@ public class MessageQueryService extends QueryService<Message> {
     @Transactional(readOnly = true)
     public Page<Message> findByCriteria(MessageCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
-        final Specification<Message> specification = createSpecification(criteria);
-        return messageRepository.findAll(specification, page);
+        return prepareQuery(criteria, page.getSort()).getPage(page);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link Message} which matches the criteria from the database,
+     * counting the matching entities as requested by the {@link CountMode}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param countMode How to count the matching entities.
+     * @return the matching entities, as a {@link Page} unless the count was skipped.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Message> findByCriteria(MessageCriteria criteria, Pageable page, CountMode countMode) {
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, countMode);
+        final PreparedQuery<Message> query = prepareQuery(criteria, page.getSort());
+        return findSlice(query, criteria != null && !criteria.equals(new MessageCriteria()), page, countMode);
+    }
+
+    /**
+     * Return a {@link Slice} of the requested fields of the {@link Message} which match the criteria from the database,
+     * counting the matching entities as requested by the {@link CountMode}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param fieldset The fields to return.
+     * @param page The page, which should be returned.
+     * @param countMode How to count the matching entities.
+     * @return the requested fields of the matching entities, by name, as a {@link Page} unless the count was skipped.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findByCriteria(MessageCriteria criteria, Fieldset fieldset, Pageable page, CountMode countMode) {
+        log.debug("find by criteria : {}, fields: {}, page: {}, count: {}", criteria, fieldset, page, countMode);
+        final PreparedQuery<Message> query = prepareQuery(criteria, Sort.unsorted());
+        boolean filtered = criteria != null && !criteria.equals(new MessageCriteria());
+        return findProjectedSlice(createSpecification(criteria), query, fieldset, filtered, page, countMode);
     }
 
     /**
@@ -66,8 +122,17 @@ public class MessageQueryService extends QueryService<Message> {
     @Transactional(readOnly = true)
     public long countByCriteria(MessageCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Message> specification = createSpecification(criteria);
-        return messageRepository.count(specification);
+        return prepareQuery(criteria, Sort.unsorted()).count();
+    }
+
+    /**
+     * Prepare the query for the {@link Message} which match the criteria, compiled from the cache of query shapes when possible.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order of the query.
+     * @return the prepared query.
+     */
+    protected PreparedQuery<Message> prepareQuery(MessageCriteria criteria, Sort sort) {
+        return queryCache.prepare(criteria, sort);
     }
 
     /**
@@ -17,11 +17,22 @@ public interface MessageService {
      */
     Message save(Message message);
 
+    /**
+     * Update an existing message, if its version, when set, is still the current one.
+     *
+     * @param message the entity to update, replacing the stored one.
+     * @return the persisted entity, or empty if there is no message with this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the message was updated since this version.
+     */
+    Optional<Message> update(Message message);
+
     /**
      * Partially updates a message.
      *
      * @param message the entity to update partially.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the message was updated since the version of
+     * the entity, when set.
      */
     Optional<Message> partialUpdate(Message message);
 
@@ -47,4 +58,13 @@ public interface MessageService {
      * @param id the id of the entity.
      */
     void delete(Long id);
+
+    /**
+     * Search for the messages matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Message> search(String query, Pageable pageable);
 }
@@ -0,0 +1,75 @@
+package ru.bjcreslin.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * A query for entities matching a {@link tech.jhipster.service.Criteria}, with its sort order and filter values
+ * already applied, as returned by {@link CriteriaQueryCache#prepare}.
+ *
+ * @param <ENTITY> the type of the entity which is queried.
+ */
+public interface PreparedQuery<ENTITY> {
+    /**
+     * @return a new query selecting the matching entities, in the prepared sort order.
+     */
+    TypedQuery<ENTITY> createQuery();
+
+    /**
+     * @return a new query counting the matching entities.
+     */
+    TypedQuery<Long> createCountQuery();
+
+    /**
+     * @return all the matching entities.
+     */
+    default List<ENTITY> getResultList() {
+        return createQuery().getResultList();
+    }
+
+    /**
+     * @return the number of matching entities.
+     */
+    default long count() {
+        return createCountQuery().getSingleResult();
+    }
+
+    /**
+     * Return a {@link Page} of the matching entities, counting them only when the page content is not enough to know the total.
+     * @param page the page, which should be returned. Its sort order is ignored, the prepared one applies.
+     * @return the matching entities.
+     */
+    default Page<ENTITY> getPage(Pageable page) {
+        TypedQuery<ENTITY> query = createQuery();
+        if (page.isPaged()) {
+            query.setFirstResult((int) page.getOffset()).setMaxResults(page.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), page, this::count);
+    }
+
+    /**
+     * Return a {@link Slice} of the matching entities, without counting them.
+     * @param page the page, which should be returned. Its sort order is ignored, the prepared one applies.
+     * @return the matching entities.
+     */
+    default Slice<ENTITY> getSlice(Pageable page) {
+        TypedQuery<ENTITY> query = createQuery();
+        if (page.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList(), page, false);
+        }
+        // fetch one more row than requested, to know whether there is a next slice without counting
+        query.setFirstResult((int) page.getOffset()).setMaxResults(page.getPageSize() + 1);
+        List<ENTITY> content = query.getResultList();
+        boolean hasNext = content.size() > page.getPageSize();
+        if (hasNext) {
+            content = new ArrayList<>(content.subList(0, page.getPageSize()));
+        }
+        return new SliceImpl<>(content, page, hasNext);
+    }
+}
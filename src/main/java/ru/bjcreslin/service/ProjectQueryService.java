@@ -1,36 +1,70 @@
 package ru.bjcreslin.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.config.ApplicationProperties;
 import ru.bjcreslin.domain.*; // for static metamodels
 import ru.bjcreslin.domain.Project;
-import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.repository.TableStatisticsRepository;
 import ru.bjcreslin.service.criteria.ProjectCriteria;
-import tech.jhipster.service.QueryService;
+import ru.bjcreslin.service.dto.Fieldset;
+import ru.bjcreslin.service.dto.KeysetCursor;
+import ru.bjcreslin.sql.SqlStatistics;
 
 /**
  * Service for executing complex queries for {@link Project} entities in the database.
  * The main input is a {@link ProjectCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link Project} or a {@link Page} of {@link Project} which fulfills the criteria.
+ * It returns a {@link List} of {@link Project}, a {@link Page} or a keyset {@link Slice} of {@link Project} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
-public class ProjectQueryService extends QueryService<Project> {
+public class ProjectQueryService extends KeysetQueryService<Project> {
 
     private final Logger log = LoggerFactory.getLogger(ProjectQueryService.class);
 
-    private final ProjectRepository projectRepository;
+    private final CriteriaQueryCache<Project, ProjectCriteria> queryCache;
 
-    public ProjectQueryService(ProjectRepository projectRepository) {
-        this.projectRepository = projectRepository;
+    private final int exportFetchSize;
+
+    public ProjectQueryService(
+        TableStatisticsRepository tableStatisticsRepository,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        super(tableStatisticsRepository, entityManager, Project.class, "projectName", "status", "created", "edited");
+        this.queryCache =
+            new CriteriaQueryCache<Project, ProjectCriteria>(
+                Project.class,
+                entityManager,
+                this::createSpecification,
+                applicationProperties.getQueryCache(),
+                meterRegistry
+            )
+                .field("id", ProjectCriteria::getId)
+                .field("projectUrl", ProjectCriteria::getProjectUrl)
+                .field("description", ProjectCriteria::getDescription)
+                .field("projectName", ProjectCriteria::getProjectName)
+                .field("comment", ProjectCriteria::getComment)
+                .field("status", ProjectCriteria::getStatus)
+                .field("created", ProjectCriteria::getCreated)
+                .field("edited", ProjectCriteria::getEdited)
+                .field("tasks.id", ProjectCriteria::getTaskId);
+        this.exportFetchSize = applicationProperties.getExport().getFetchSize();
     }
 
     /**
@@ -41,8 +75,7 @@ public class ProjectQueryService extends QueryService<Project> {
     @Transactional(readOnly = true)
     public List<Project> findByCriteria(ProjectCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<Project> specification = createSpecification(criteria);
-        return projectRepository.findAll(specification);
+        return prepareQuery(criteria, Sort.unsorted()).getResultList();
     }
 
     /**
@@ -54,8 +87,70 @@ public class ProjectQueryService extends QueryService<Project> {
     @Transactional(readOnly = true)
     public Page<Project> findByCriteria(ProjectCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        return prepareQuery(criteria, page.getSort()).getPage(page);
+    }
+
+    /**
+     * Return a keyset {@link Slice} of {@link Project} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order, at most one property besides {@code id}.
+     * @param size The maximum number of entities to return.
+     * @param after The cursor to start after, or {@code null} for the first slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Project> findByCriteria(ProjectCriteria criteria, Sort sort, int size, KeysetCursor after) {
+        log.debug("find by criteria : {}, sort: {}, size: {}, after: {}", criteria, sort, size, after);
+        SqlStatistics.criteria(criteria);
         final Specification<Project> specification = createSpecification(criteria);
-        return projectRepository.findAll(specification, page);
+        return findAfter(specification, sort, size, after);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link Project} which matches the criteria from the database,
+     * counting the matching entities as requested by the {@link CountMode}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param countMode How to count the matching entities.
+     * @return the matching entities, as a {@link Page} unless the count was skipped.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Project> findByCriteria(ProjectCriteria criteria, Pageable page, CountMode countMode) {
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, countMode);
+        final PreparedQuery<Project> query = prepareQuery(criteria, page.getSort());
+        return findSlice(query, criteria != null && !criteria.equals(new ProjectCriteria()), page, countMode);
+    }
+
+    /**
+     * Return a {@link Slice} of the requested fields of the {@link Project} which match the criteria from the database,
+     * counting the matching entities as requested by the {@link CountMode}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param fieldset The fields to return.
+     * @param page The page, which should be returned.
+     * @param countMode How to count the matching entities.
+     * @return the requested fields of the matching entities, by name, as a {@link Page} unless the count was skipped.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findByCriteria(ProjectCriteria criteria, Fieldset fieldset, Pageable page, CountMode countMode) {
+        log.debug("find by criteria : {}, fields: {}, page: {}, count: {}", criteria, fieldset, page, countMode);
+        final PreparedQuery<Project> query = prepareQuery(criteria, Sort.unsorted());
+        boolean filtered = criteria != null && !criteria.equals(new ProjectCriteria());
+        return findProjectedSlice(createSpecification(criteria), query, fieldset, filtered, page, countMode);
+    }
+
+    /**
+     * Write all the {@link Project} which match the criteria from the database, without holding them all in memory.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order, by id when unsorted.
+     * @param writer The writer of every matching entity.
+     * @return the number of entities written.
+     * @throws IOException if an entity could not be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportByCriteria(ProjectCriteria criteria, Sort sort, ExportWriter<? super Project> writer) throws IOException {
+        log.debug("export by criteria : {}, sort: {}", criteria, sort);
+        final PreparedQuery<Project> query = prepareQuery(criteria, sort.isSorted() ? sort : Sort.by(Project_.ID));
+        return export(query, exportFetchSize, writer);
     }
 
     /**
@@ -66,8 +161,17 @@ public class ProjectQueryService extends QueryService<Project> {
     @Transactional(readOnly = true)
     public long countByCriteria(ProjectCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Project> specification = createSpecification(criteria);
-        return projectRepository.count(specification);
+        return prepareQuery(criteria, Sort.unsorted()).count();
+    }
+
+    /**
+     * Prepare the query for the {@link Project} which match the criteria, compiled from the cache of query shapes when possible.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order of the query.
+     * @return the prepared query.
+     */
+    protected PreparedQuery<Project> prepareQuery(ProjectCriteria criteria, Sort sort) {
+        return queryCache.prepare(criteria, sort);
     }
 
     /**
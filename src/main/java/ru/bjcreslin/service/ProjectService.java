@@ -1,9 +1,11 @@
 package ru.bjcreslin.service;
 
+import java.util.Iterator;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.repository.EntityVersion;
 
 /**
  * Service Interface for managing {@link Project}.
@@ -17,11 +19,31 @@ public interface ProjectService {
      */
     Project save(Project project);
 
+    /**
+     * Update an existing project, if its version, when set, is still the current one.
+     *
+     * @param project the entity to update, replacing the stored one.
+     * @return the persisted entity, or empty if there is no project with this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the project was updated since this version.
+     */
+    Optional<Project> update(Project project);
+
+    /**
+     * Save new projects in bulk, in chunks of a transaction each.
+     *
+     * @param projects the new entities, validated as they are read.
+     * @return the number of entities created.
+     * @throws BulkImportException if a project can't be read, validated or created, the chunks before it being kept.
+     */
+    long saveAll(Iterator<Project> projects);
+
     /**
      * Partially updates a project.
      *
      * @param project the entity to update partially.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the project was updated since the version of
+     * the entity, when set.
      */
     Optional<Project> partialUpdate(Project project);
 
@@ -41,10 +63,27 @@ public interface ProjectService {
      */
     Optional<Project> findOne(Long id);
 
+    /**
+     * Get the version of the "id" project, without loading it.
+     *
+     * @param id the id of the entity.
+     * @return the version of the entity.
+     */
+    Optional<EntityVersion> findVersion(Long id);
+
     /**
      * Delete the "id" project.
      *
      * @param id the id of the entity.
      */
     void delete(Long id);
+
+    /**
+     * Search for the projects matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Project> search(String query, Pageable pageable);
 }
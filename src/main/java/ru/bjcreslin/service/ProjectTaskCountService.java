@@ -0,0 +1,131 @@
+package ru.bjcreslin.service;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.repository.ProjectTaskCountRepository;
+import ru.bjcreslin.service.dto.ProjectStatsDTO;
+
+/**
+ * Service maintaining the number of tasks of every project by status, so that they are read without counting them.
+ * <p>
+ * The counts are changed in the transaction which changes the tasks, by the {@link TaskService}. Tasks changed in any
+ * other way are only counted once the counts are repaired.
+ */
+@Service
+@Transactional
+public class ProjectTaskCountService {
+
+    private final Logger log = LoggerFactory.getLogger(ProjectTaskCountService.class);
+
+    private final ProjectTaskCountRepository projectTaskCountRepository;
+
+    private final ProjectRepository projectRepository;
+
+    public ProjectTaskCountService(ProjectTaskCountRepository projectTaskCountRepository, ProjectRepository projectRepository) {
+        this.projectTaskCountRepository = projectTaskCountRepository;
+        this.projectRepository = projectRepository;
+    }
+
+    /**
+     * Count a change of the project or the status of a task, in the transaction which changes it.
+     *
+     * @param oldProject the project of the task before the change, {@code null} for a new task or none.
+     * @param oldStatus the status of the task before the change, {@code null} for a new task or none.
+     * @param newProject the project of the task after the change, {@code null} for a deleted task or none.
+     * @param newStatus the status of the task after the change, {@code null} for a deleted task or none.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void taskChanged(Project oldProject, TaskAndProjectStatus oldStatus, Project newProject, TaskAndProjectStatus newStatus) {
+        Map<Long, Map<TaskAndProjectStatus, Long>> deltas = new HashMap<>();
+        add(deltas, oldProject, oldStatus, -1);
+        add(deltas, newProject, newStatus, 1);
+        projectTaskCountRepository.increment(deltas);
+    }
+
+    /**
+     * Count the changes of status of tasks, in the transaction which changes them.
+     *
+     * @param tasks the changed tasks, with their new status.
+     * @param oldStatus the status of a task before the change.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusesChanged(Collection<Task> tasks, Function<Task, TaskAndProjectStatus> oldStatus) {
+        Map<Long, Map<TaskAndProjectStatus, Long>> deltas = new HashMap<>();
+        for (Task task : tasks) {
+            add(deltas, task.getProject(), oldStatus.apply(task), -1);
+            add(deltas, task.getProject(), task.getStatus(), 1);
+        }
+        projectTaskCountRepository.increment(deltas);
+    }
+
+    /**
+     * Count new tasks, in the transaction which creates them.
+     *
+     * @param tasks the new tasks.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void tasksCreated(Collection<Task> tasks) {
+        Map<Long, Map<TaskAndProjectStatus, Long>> deltas = new HashMap<>();
+        tasks.forEach(task -> add(deltas, task.getProject(), task.getStatus(), 1));
+        projectTaskCountRepository.increment(deltas);
+    }
+
+    /**
+     * Get the number of tasks by status of projects.
+     *
+     * @param projectIds the ids of the projects.
+     * @return the counts of the existing projects, in the order of their ids.
+     */
+    @Transactional(readOnly = true)
+    public List<ProjectStatsDTO> findStats(Collection<Long> projectIds) {
+        log.debug("Request to get the task counts of Projects : {}", projectIds);
+        Map<Long, Map<TaskAndProjectStatus, Long>> counts = projectTaskCountRepository.findByProjectIds(projectIds);
+        return projectRepository
+            .findAllById(projectIds)
+            .stream()
+            .map(Project::getId)
+            .sorted()
+            .map(id -> new ProjectStatsDTO(id, counts.getOrDefault(id, Map.of())))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Repair the counts which drifted from the tasks, such as after tasks were changed without the {@link TaskService}.
+     * <p>
+     * This is scheduled to get fired everyday, at 02:00 (am).
+     *
+     * @return the number of repaired counts.
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public int repair() {
+        Map<Long, Map<TaskAndProjectStatus, Long>> drift = projectTaskCountRepository.findDrift();
+        int repaired = drift.values().stream().mapToInt(Map::size).sum();
+        if (repaired > 0) {
+            log.warn("Repairing {} project task counts which drifted: {}", repaired, drift);
+            projectTaskCountRepository.increment(drift);
+        }
+        return repaired;
+    }
+
+    private static void add(Map<Long, Map<TaskAndProjectStatus, Long>> deltas, Project project, TaskAndProjectStatus status, long delta) {
+        if (project == null || project.getId() == null || status == null) {
+            return;
+        }
+        deltas.computeIfAbsent(project.getId(), id -> new EnumMap<>(TaskAndProjectStatus.class)).merge(status, delta, Long::sum);
+    }
+}
@@ -0,0 +1,264 @@
+package ru.bjcreslin.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.bjcreslin.service.dto.Fieldset;
+
+/**
+ * A query selecting only the columns of a {@link Fieldset} of the entities matching a {@link Specification}, as a
+ * {@link Tuple} per entity rather than the whole entity.
+ * <p>
+ * Attributes of an association are read with a left join, except its id, which is read from the foreign key.
+ * <p>
+ * When the filters join a collection, an entity matching through several of its elements would be returned once per
+ * element: the query then selects the entities whose id is in a subquery of the filters instead, so that every entity is
+ * returned once, sorted on any of its attributes.
+ *
+ * @param <ENTITY> the type of the entity which is queried.
+ */
+public class ProjectedQuery<ENTITY> implements PreparedQuery<Tuple> {
+
+    private final EntityManager entityManager;
+
+    private final Class<ENTITY> entityClass;
+
+    private final Specification<ENTITY> specification;
+
+    private final Sort sort;
+
+    private final PreparedQuery<ENTITY> countQuery;
+
+    private final String idName;
+
+    private final List<Field> fields = new ArrayList<>();
+
+    /**
+     * Index of the selected id of every association, telling whether the association is set.
+     */
+    private final Map<String, Integer> associationIds = new LinkedHashMap<>();
+
+    private final List<Field> selections = new ArrayList<>();
+
+    /**
+     * @param entityManager the entity manager creating the queries.
+     * @param entityClass the type of the entity which is queried.
+     * @param specification the filters, which the entities should match.
+     * @param sort the sort order of the query.
+     * @param fieldset the fields to select.
+     * @param countQuery the query counting the matching entities.
+     * @throws InvalidFieldsException if a field is not a basic attribute of the entity or of one of its single-valued
+     * associations, or is not serialized.
+     */
+    public ProjectedQuery(
+        EntityManager entityManager,
+        Class<ENTITY> entityClass,
+        Specification<ENTITY> specification,
+        Sort sort,
+        Fieldset fieldset,
+        PreparedQuery<ENTITY> countQuery
+    ) {
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+        this.specification = specification;
+        this.sort = sort;
+        this.countQuery = countQuery;
+        EntityType<ENTITY> entity = entityManager.getMetamodel().entity(entityClass);
+        this.idName = entity.getId(entity.getIdType().getJavaType()).getName();
+        for (String name : fieldset.getFields()) {
+            fields.add(resolve(entity, name));
+        }
+        selections.addAll(fields);
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (field.association != null && field.attribute.isId()) {
+                associationIds.putIfAbsent(field.association.getName(), i);
+            }
+        }
+        for (Field field : fields) {
+            if (field.association != null && !associationIds.containsKey(field.association.getName())) {
+                selections.add(new Field(field.association, idAttribute(field.association)));
+                associationIds.put(field.association.getName(), selections.size() - 1);
+            }
+        }
+    }
+
+    @Override
+    public TypedQuery<Tuple> createQuery() {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<ENTITY> root = query.from(entityClass);
+        Map<String, From<ENTITY, ?>> joins = new HashMap<>();
+        List<Selection<?>> paths = new ArrayList<>();
+        for (Field field : selections) {
+            if (field.association == null) {
+                paths.add(root.get(field.attribute.getName()));
+            } else if (field.attribute.isId()) {
+                paths.add(root.get(field.association.getName()).get(field.attribute.getName()));
+            } else {
+                From<ENTITY, ?> join = joins.computeIfAbsent(
+                    field.association.getName(),
+                    association -> root.join(association, JoinType.LEFT)
+                );
+                paths.add(join.get(field.attribute.getName()));
+            }
+        }
+        query.multiselect(paths);
+        Predicate predicate = specification == null ? null : restrict(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    /**
+     * @return the predicate of the filters on the root, or on the id of the root if they join a collection.
+     */
+    private Predicate restrict(Root<ENTITY> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Subquery<Object> ids = query.subquery(Object.class);
+        Root<ENTITY> matching = ids.from(entityClass);
+        Predicate predicate = specification.toPredicate(matching, query, cb);
+        if (!joinsCollection(matching)) {
+            return specification.toPredicate(root, query, cb);
+        }
+        ids.select(matching.get(idName));
+        if (predicate != null) {
+            ids.where(predicate);
+        }
+        return root.get(idName).in(ids);
+    }
+
+    private static boolean joinsCollection(From<?, ?> from) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().isCollection() || joinsCollection(join)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public TypedQuery<Long> createCountQuery() {
+        return countQuery.createCountQuery();
+    }
+
+    /**
+     * Convert a row of this query to the JSON structure of the entity, restricted to the requested fields: the
+     * attributes of an association are nested in an object, which is {@code null} when the association is not set.
+     * @param tuple a row returned by this query.
+     * @return the requested fields, by name.
+     */
+    public Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (field.association == null) {
+                result.put(field.attribute.getName(), tuple.get(i));
+            } else if (tuple.get(associationIds.get(field.association.getName())) == null) {
+                result.put(field.association.getName(), null);
+            } else {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> association = (Map<String, Object>) result.computeIfAbsent(
+                    field.association.getName(),
+                    name -> new LinkedHashMap<>()
+                );
+                association.put(field.attribute.getName(), tuple.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static Field resolve(EntityType<?> entity, String name) {
+        String[] path = name.split("\\.", -1);
+        if (path.length == 1) {
+            return new Field(null, basicAttribute(entity, path[0], name));
+        }
+        if (path.length == 2) {
+            Attribute<?, ?> association = attribute(entity, path[0], name);
+            if (
+                !(association instanceof SingularAttribute) ||
+                !association.isAssociation() ||
+                isIgnoredProperty(association.getJavaMember(), path[1])
+            ) {
+                throw new InvalidFieldsException("Field " + name + " is not an attribute of a single-valued association");
+            }
+            ManagedType<?> target = (ManagedType<?>) ((SingularAttribute<?, ?>) association).getType();
+            return new Field((SingularAttribute<?, ?>) association, basicAttribute(target, path[1], name));
+        }
+        throw new InvalidFieldsException("Field " + name + " is nested too deeply");
+    }
+
+    private static SingularAttribute<?, ?> basicAttribute(ManagedType<?> type, String attributeName, String name) {
+        Attribute<?, ?> attribute = attribute(type, attributeName, name);
+        if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new InvalidFieldsException("Field " + name + " is not a basic attribute");
+        }
+        return (SingularAttribute<?, ?>) attribute;
+    }
+
+    private static Attribute<?, ?> attribute(ManagedType<?> type, String attributeName, String name) {
+        Attribute<?, ?> attribute;
+        try {
+            attribute = type.getAttribute(attributeName);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidFieldsException("Unknown field " + name);
+        }
+        Member member = attribute.getJavaMember();
+        if (member instanceof AnnotatedElement && ((AnnotatedElement) member).isAnnotationPresent(JsonIgnore.class)) {
+            throw new InvalidFieldsException("Unknown field " + name);
+        }
+        return attribute;
+    }
+
+    private static boolean isIgnoredProperty(Member member, String property) {
+        if (!(member instanceof AnnotatedElement)) {
+            return false;
+        }
+        JsonIgnoreProperties ignored = ((AnnotatedElement) member).getAnnotation(JsonIgnoreProperties.class);
+        return ignored != null && Arrays.asList(ignored.value()).contains(property);
+    }
+
+    private static SingularAttribute<?, ?> idAttribute(SingularAttribute<?, ?> association) {
+        ManagedType<?> target = (ManagedType<?>) association.getType();
+        return ((EntityType<?>) target).getId(((EntityType<?>) target).getIdType().getJavaType());
+    }
+
+    private static final class Field {
+
+        private final SingularAttribute<?, ?> association;
+
+        private final SingularAttribute<?, ?> attribute;
+
+        private Field(SingularAttribute<?, ?> association, SingularAttribute<?, ?> attribute) {
+            this.association = association;
+            this.attribute = attribute;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.bjcreslin.service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.stream.Stream;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.repository.TableStatisticsRepository;
+import ru.bjcreslin.service.dto.Fieldset;
+import tech.jhipster.service.QueryService;
+
+/**
+ * Base service for executing paginated queries, on top of the {@link PreparedQuery} built from the criteria of a
+ * {@link QueryService}, where the cost of counting the matching rows is chosen with a {@link CountMode}.
+ *
+ * @param <ENTITY> the type of the entity which is queried.
+ */
+@Transactional(readOnly = true)
+public abstract class SliceQueryService<ENTITY> extends QueryService<ENTITY> {
+
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    protected final EntityManager entityManager;
+
+    protected final Class<ENTITY> entityClass;
+
+    protected SliceQueryService(
+        TableStatisticsRepository tableStatisticsRepository,
+        EntityManager entityManager,
+        Class<ENTITY> entityClass
+    ) {
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.entityManager = entityManager;
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Return a {@link Slice} of entities which match the query.
+     * <p>
+     * With {@link CountMode#EXACT} the result is a {@link org.springframework.data.domain.Page} backed by a count query,
+     * with {@link CountMode#ESTIMATE} it is a {@link org.springframework.data.domain.Page} with an estimated total
+     * when the listing is unfiltered, and with {@link CountMode#NONE} no count is done at all.
+     *
+     * @param query the query, prepared with the filters and the sort order of the page.
+     * @param filtered whether the query holds any filter.
+     * @param page the page, which should be returned.
+     * @param countMode how to count the matching entities.
+     * @param <T> the type of the query results.
+     * @return the matching entities.
+     */
+    protected <T> Slice<T> findSlice(PreparedQuery<T> query, boolean filtered, Pageable page, CountMode countMode) {
+        if (countMode == CountMode.EXACT || (countMode == CountMode.ESTIMATE && filtered)) {
+            return query.getPage(page);
+        }
+        if (countMode == CountMode.ESTIMATE) {
+            OptionalLong estimate = tableStatisticsRepository.estimateRowCount(entityClass);
+            if (estimate.isEmpty()) {
+                return query.getPage(page);
+            }
+            return new PageImpl<>(query.getSlice(page).getContent(), page, estimate.getAsLong());
+        }
+        return query.getSlice(page);
+    }
+
+    /**
+     * Return a {@link Slice} of the requested fields of the entities which match the specification, selecting only
+     * their columns, as {@link #findSlice} would return the entities.
+     *
+     * @param specification the filters, which the entities should match.
+     * @param query the query of the entities, counting them.
+     * @param fieldset the fields to return.
+     * @param filtered whether the query holds any filter.
+     * @param page the page, which should be returned.
+     * @param countMode how to count the matching entities.
+     * @return the requested fields of the matching entities, by name.
+     * @throws InvalidFieldsException if a field can't be selected.
+     */
+    protected Slice<Map<String, Object>> findProjectedSlice(
+        Specification<ENTITY> specification,
+        PreparedQuery<ENTITY> query,
+        Fieldset fieldset,
+        boolean filtered,
+        Pageable page,
+        CountMode countMode
+    ) {
+        ProjectedQuery<ENTITY> projection = new ProjectedQuery<>(
+            entityManager,
+            entityClass,
+            specification,
+            page.getSort(),
+            fieldset,
+            query
+        );
+        return findSlice(projection, filtered, page, countMode).map(projection::toMap);
+    }
+
+    /**
+     * Write all the entities which match the query, read from a database cursor {@code fetchSize} rows at a time
+     * rather than all at once, so that the memory used does not grow with the number of entities.
+     * <p>
+     * The entities are read-only and bypass the second-level cache. Every entity is detached once written, and the
+     * persistence context is cleared every {@code fetchSize} entities to drop the associations fetched along, so this
+     * must not run in a transaction holding changes to flush.
+     *
+     * @param query the query, prepared with the filters and the sort order of the export.
+     * @param fetchSize the number of rows fetched from the database at a time.
+     * @param writer the writer of every matching entity.
+     * @param fetchedAttributes the associations to fetch in the same query as the entities.
+     * @return the number of entities written.
+     * @throws IOException if an entity could not be written.
+     */
+    protected long export(PreparedQuery<ENTITY> query, int fetchSize, ExportWriter<? super ENTITY> writer, String... fetchedAttributes)
+        throws IOException {
+        TypedQuery<ENTITY> typedQuery = query
+            .createQuery()
+            .setHint(QueryHints.FETCH_SIZE, fetchSize)
+            .setHint(QueryHints.READ_ONLY, true)
+            .setHint("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        if (fetchedAttributes.length > 0) {
+            EntityGraph<ENTITY> graph = entityManager.createEntityGraph(entityClass);
+            graph.addAttributeNodes(fetchedAttributes);
+            typedQuery.setHint("javax.persistence.loadgraph", graph);
+        }
+        long count = 0;
+        try (Stream<ENTITY> entities = typedQuery.getResultStream()) {
+            Iterator<ENTITY> iterator = entities.iterator();
+            while (iterator.hasNext()) {
+                ENTITY entity = iterator.next();
+                writer.write(entity);
+                entityManager.detach(entity);
+                if (++count % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -1,36 +1,72 @@
 package ru.bjcreslin.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.config.ApplicationProperties;
 import ru.bjcreslin.domain.*; // for static metamodels
 import ru.bjcreslin.domain.Task;
-import ru.bjcreslin.repository.TaskRepository;
+import ru.bjcreslin.repository.TableStatisticsRepository;
 import ru.bjcreslin.service.criteria.TaskCriteria;
-import tech.jhipster.service.QueryService;
+import ru.bjcreslin.service.dto.Fieldset;
+import ru.bjcreslin.service.dto.KeysetCursor;
+import ru.bjcreslin.sql.SqlStatistics;
 
 /**
  * Service for executing complex queries for {@link Task} entities in the database.
  * The main input is a {@link TaskCriteria} which gets converted to {@link Specification},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link Task} or a {@link Page} of {@link Task} which fulfills the criteria.
+ * It returns a {@link List} of {@link Task}, a {@link Page} or a keyset {@link Slice} of {@link Task} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
-public class TaskQueryService extends QueryService<Task> {
+public class TaskQueryService extends KeysetQueryService<Task> {
 
     private final Logger log = LoggerFactory.getLogger(TaskQueryService.class);
 
-    private final TaskRepository taskRepository;
+    private final CriteriaQueryCache<Task, TaskCriteria> queryCache;
 
-    public TaskQueryService(TaskRepository taskRepository) {
-        this.taskRepository = taskRepository;
+    private final int exportFetchSize;
+
+    public TaskQueryService(
+        TableStatisticsRepository tableStatisticsRepository,
+        EntityManager entityManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry
+    ) {
+        super(tableStatisticsRepository, entityManager, Task.class, "name", "status", "created", "edited");
+        this.queryCache =
+            new CriteriaQueryCache<Task, TaskCriteria>(
+                Task.class,
+                entityManager,
+                this::createSpecification,
+                applicationProperties.getQueryCache(),
+                meterRegistry
+            )
+                .field("id", TaskCriteria::getId)
+                .field("author", TaskCriteria::getAuthor)
+                .field("implementer", TaskCriteria::getImplementer)
+                .field("name", TaskCriteria::getName)
+                .field("text", TaskCriteria::getText)
+                .field("comment", TaskCriteria::getComment)
+                .field("status", TaskCriteria::getStatus)
+                .field("created", TaskCriteria::getCreated)
+                .field("edited", TaskCriteria::getEdited)
+                .field("comments.id", TaskCriteria::getCommentId)
+                .field("project.id", TaskCriteria::getProjectId);
+        this.exportFetchSize = applicationProperties.getExport().getFetchSize();
     }
 
     /**
@@ -41,8 +77,19 @@ public class TaskQueryService extends QueryService<Task> {
     @Transactional(readOnly = true)
     public List<Task> findByCriteria(TaskCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<Task> specification = createSpecification(criteria);
-        return taskRepository.findAll(specification);
+        return prepareQuery(criteria, Sort.unsorted()).getResultList();
+    }
+
+    /**
+     * Return the first {@link Task} by id which match the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param limit The maximum number of entities to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public List<Task> findByCriteria(TaskCriteria criteria, int limit) {
+        log.debug("find by criteria : {}, limit: {}", criteria, limit);
+        return prepareQuery(criteria, Sort.by(Task_.ID)).createQuery().setMaxResults(limit).getResultList();
     }
 
     /**
@@ -54,8 +101,71 @@ public class TaskQueryService extends QueryService<Task> {
     @Transactional(readOnly = true)
     public Page<Task> findByCriteria(TaskCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        return prepareQuery(criteria, page.getSort()).getPage(page);
+    }
+
+    /**
+     * Return a keyset {@link Slice} of {@link Task} which matches the criteria from the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order, at most one property besides {@code id}.
+     * @param size The maximum number of entities to return.
+     * @param after The cursor to start after, or {@code null} for the first slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Task> findByCriteria(TaskCriteria criteria, Sort sort, int size, KeysetCursor after) {
+        log.debug("find by criteria : {}, sort: {}, size: {}, after: {}", criteria, sort, size, after);
+        SqlStatistics.criteria(criteria);
         final Specification<Task> specification = createSpecification(criteria);
-        return taskRepository.findAll(specification, page);
+        return findAfter(specification, sort, size, after);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link Task} which matches the criteria from the database,
+     * counting the matching entities as requested by the {@link CountMode}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @param countMode How to count the matching entities.
+     * @return the matching entities, as a {@link Page} unless the count was skipped.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Task> findByCriteria(TaskCriteria criteria, Pageable page, CountMode countMode) {
+        log.debug("find by criteria : {}, page: {}, count: {}", criteria, page, countMode);
+        final PreparedQuery<Task> query = prepareQuery(criteria, page.getSort());
+        return findSlice(query, criteria != null && !criteria.equals(new TaskCriteria()), page, countMode);
+    }
+
+    /**
+     * Return a {@link Slice} of the requested fields of the {@link Task} which match the criteria from the database,
+     * counting the matching entities as requested by the {@link CountMode}.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param fieldset The fields to return.
+     * @param page The page, which should be returned.
+     * @param countMode How to count the matching entities.
+     * @return the requested fields of the matching entities, by name, as a {@link Page} unless the count was skipped.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findByCriteria(TaskCriteria criteria, Fieldset fieldset, Pageable page, CountMode countMode) {
+        log.debug("find by criteria : {}, fields: {}, page: {}, count: {}", criteria, fieldset, page, countMode);
+        final PreparedQuery<Task> query = prepareQuery(criteria, Sort.unsorted());
+        boolean filtered = criteria != null && !criteria.equals(new TaskCriteria());
+        return findProjectedSlice(createSpecification(criteria), query, fieldset, filtered, page, countMode);
+    }
+
+    /**
+     * Write all the {@link Task} which match the criteria from the database, without holding them all in memory.
+     * Their project is fetched along.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order, by id when unsorted.
+     * @param writer The writer of every matching entity.
+     * @return the number of entities written.
+     * @throws IOException if an entity could not be written.
+     */
+    @Transactional(readOnly = true)
+    public long exportByCriteria(TaskCriteria criteria, Sort sort, ExportWriter<? super Task> writer) throws IOException {
+        log.debug("export by criteria : {}, sort: {}", criteria, sort);
+        final PreparedQuery<Task> query = prepareQuery(criteria, sort.isSorted() ? sort : Sort.by(Task_.ID));
+        return export(query, exportFetchSize, writer, Task_.PROJECT);
     }
 
     /**
@@ -66,8 +176,17 @@ public class TaskQueryService extends QueryService<Task> {
     @Transactional(readOnly = true)
     public long countByCriteria(TaskCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<Task> specification = createSpecification(criteria);
-        return taskRepository.count(specification);
+        return prepareQuery(criteria, Sort.unsorted()).count();
+    }
+
+    /**
+     * Prepare the query for the {@link Task} which match the criteria, compiled from the cache of query shapes when possible.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order of the query.
+     * @return the prepared query.
+     */
+    protected PreparedQuery<Task> prepareQuery(TaskCriteria criteria, Sort sort) {
+        return queryCache.prepare(criteria, sort);
     }
 
     /**
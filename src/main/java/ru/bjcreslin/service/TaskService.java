@@ -1,9 +1,14 @@
 package ru.bjcreslin.service;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.repository.TaskVersion;
+import ru.bjcreslin.service.criteria.TaskCriteria;
+import ru.bjcreslin.service.dto.BulkUpdateResultDTO;
 
 /**
  * Service Interface for managing {@link Task}.
@@ -17,14 +22,54 @@ public interface TaskService {
      */
     Task save(Task task);
 
+    /**
+     * Update an existing task, if its version, when set, is still the current one.
+     *
+     * @param task the entity to update, replacing the stored one.
+     * @return the persisted entity, or empty if there is no task with this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the task was updated since this version.
+     */
+    Optional<Task> update(Task task);
+
+    /**
+     * Save new tasks in bulk, in chunks of a transaction each.
+     *
+     * @param tasks the new entities, validated as they are read.
+     * @return the number of entities created.
+     * @throws BulkImportException if a task can't be read, validated or created, the chunks before it being kept.
+     */
+    long saveAll(Iterator<Task> tasks);
+
     /**
      * Partially updates a task.
      *
      * @param task the entity to update partially.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the task was updated since the version of
+     * the entity, when set.
      */
     Optional<Task> partialUpdate(Task task);
 
+    /**
+     * Partially update tasks in one transaction, their updates being sent in JDBC batches.
+     *
+     * @param tasks the entities to update partially, with their id, and their version if it must still be the current one.
+     * @return the outcome of every entity, in order.
+     * @throws BulkUpdateException if there are more entities than allowed in a bulk update.
+     */
+    List<BulkUpdateResultDTO> partialUpdateAll(List<Task> tasks);
+
+    /**
+     * Partially update all the tasks which match the criteria in one transaction, their updates being sent in JDBC
+     * batches.
+     *
+     * @param criteria the filters, which the entities to update should match.
+     * @param task the fields to update, the other ones being {@code null}.
+     * @return the outcome of every matching entity, by id.
+     * @throws BulkUpdateException if more entities match than allowed in a bulk update.
+     */
+    List<BulkUpdateResultDTO> partialUpdateAll(TaskCriteria criteria, Task task);
+
     /**
      * Get all the tasks.
      *
@@ -41,10 +86,27 @@ public interface TaskService {
      */
     Optional<Task> findOne(Long id);
 
+    /**
+     * Get the version of the "id" task and of its project, without loading them.
+     *
+     * @param id the id of the entity.
+     * @return the version of the entity and of its project.
+     */
+    Optional<TaskVersion> findVersion(Long id);
+
     /**
      * Delete the "id" task.
      *
      * @param id the id of the entity.
      */
     void delete(Long id);
+
+    /**
+     * Search for the tasks matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the list of entities.
+     */
+    Page<Task> search(String query, Pageable pageable);
 }
@@ -1,18 +1,24 @@
 package ru.bjcreslin.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
 import javax.persistence.criteria.JoinType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.config.ApplicationProperties;
 import ru.bjcreslin.domain.*; // for static metamodels
 import ru.bjcreslin.domain.UserInfo;
-import ru.bjcreslin.repository.UserInfoRepository;
 import ru.bjcreslin.service.criteria.UserInfoCriteria;
+import ru.bjcreslin.service.dto.Fieldset;
 import tech.jhipster.service.QueryService;
 
 /**
@@ -27,10 +33,30 @@ public class UserInfoQueryService extends QueryService<UserInfo> {
 
     private final Logger log = LoggerFactory.getLogger(UserInfoQueryService.class);
 
-    private final UserInfoRepository userInfoRepository;
+    private final EntityManager entityManager;
 
-    public UserInfoQueryService(UserInfoRepository userInfoRepository) {
-        this.userInfoRepository = userInfoRepository;
+    private final CriteriaQueryCache<UserInfo, UserInfoCriteria> queryCache;
+
+    public UserInfoQueryService(EntityManager entityManager, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.entityManager = entityManager;
+        this.queryCache =
+            new CriteriaQueryCache<UserInfo, UserInfoCriteria>(
+                UserInfo.class,
+                entityManager,
+                this::createSpecification,
+                applicationProperties.getQueryCache(),
+                meterRegistry
+            )
+                .field("id", UserInfoCriteria::getId)
+                .field("email", UserInfoCriteria::getEmail)
+                .field("gitHubId", UserInfoCriteria::getGitHubId)
+                .field("name", UserInfoCriteria::getName)
+                .field("hours", UserInfoCriteria::getHours)
+                .field("status", UserInfoCriteria::getStatus)
+                .field("birthday", UserInfoCriteria::getBirthday)
+                .field("comment", UserInfoCriteria::getComment)
+                .field("created", UserInfoCriteria::getCreated)
+                .field("edited", UserInfoCriteria::getEdited);
     }
 
     /**
@@ -41,8 +67,27 @@ public class UserInfoQueryService extends QueryService<UserInfo> {
     @Transactional(readOnly = true)
     public List<UserInfo> findByCriteria(UserInfoCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specification<UserInfo> specification = createSpecification(criteria);
-        return userInfoRepository.findAll(specification);
+        return prepareQuery(criteria, Sort.unsorted()).getResultList();
+    }
+
+    /**
+     * Return the requested fields of the {@link UserInfo} which match the criteria from the database, selecting only their columns.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param fieldset The fields to return.
+     * @return the requested fields of the matching entities, by name.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findByCriteria(UserInfoCriteria criteria, Fieldset fieldset) {
+        log.debug("find by criteria : {}, fields: {}", criteria, fieldset);
+        ProjectedQuery<UserInfo> query = new ProjectedQuery<>(
+            entityManager,
+            UserInfo.class,
+            createSpecification(criteria),
+            Sort.unsorted(),
+            fieldset,
+            prepareQuery(criteria, Sort.unsorted())
+        );
+        return query.getResultList().stream().map(query::toMap).collect(Collectors.toList());
     }
 
     /**
@@ -54,8 +99,7 @@ public class UserInfoQueryService extends QueryService<UserInfo> {
     @Transactional(readOnly = true)
     public Page<UserInfo> findByCriteria(UserInfoCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
-        final Specification<UserInfo> specification = createSpecification(criteria);
-        return userInfoRepository.findAll(specification, page);
+        return prepareQuery(criteria, page.getSort()).getPage(page);
     }
 
     /**
@@ -66,8 +110,17 @@ public class UserInfoQueryService extends QueryService<UserInfo> {
     @Transactional(readOnly = true)
     public long countByCriteria(UserInfoCriteria criteria) {
         log.debug("count by criteria : {}", criteria);
-        final Specification<UserInfo> specification = createSpecification(criteria);
-        return userInfoRepository.count(specification);
+        return prepareQuery(criteria, Sort.unsorted()).count();
+    }
+
+    /**
+     * Prepare the query for the {@link UserInfo} which match the criteria, compiled from the cache of query shapes when possible.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param sort The sort order of the query.
+     * @return the prepared query.
+     */
+    protected PreparedQuery<UserInfo> prepareQuery(UserInfoCriteria criteria, Sort sort) {
+        return queryCache.prepare(criteria, sort);
     }
 
     /**
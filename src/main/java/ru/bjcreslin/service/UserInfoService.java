@@ -3,6 +3,7 @@ package ru.bjcreslin.service;
 import java.util.List;
 import java.util.Optional;
 import ru.bjcreslin.domain.UserInfo;
+import ru.bjcreslin.repository.EntityVersion;
 
 /**
  * Service Interface for managing {@link UserInfo}.
@@ -16,11 +17,22 @@ public interface UserInfoService {
      */
     UserInfo save(UserInfo userInfo);
 
+    /**
+     * Update an existing user info, if its version, when set, is still the current one.
+     *
+     * @param userInfo the entity to update, replacing the stored one.
+     * @return the persisted entity, or empty if there is no user info with this id.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the user info was updated since this version.
+     */
+    Optional<UserInfo> update(UserInfo userInfo);
+
     /**
      * Partially updates a userInfo.
      *
      * @param userInfo the entity to update partially.
      * @return the persisted entity.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the user info was updated since the version of
+     * the entity, when set.
      */
     Optional<UserInfo> partialUpdate(UserInfo userInfo);
 
@@ -39,6 +51,14 @@ public interface UserInfoService {
      */
     Optional<UserInfo> findOne(Long id);
 
+    /**
+     * Get the version of the "id" user info, without loading it.
+     *
+     * @param id the id of the entity.
+     * @return the version of the entity.
+     */
+    Optional<EntityVersion> findVersion(Long id);
+
     /**
      * Delete the "id" userInfo.
      *
@@ -1,18 +1,28 @@
 package ru.bjcreslin.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.config.ApplicationProperties;
 import ru.bjcreslin.config.Constants;
 import ru.bjcreslin.domain.Authority;
 import ru.bjcreslin.domain.User;
@@ -21,6 +31,7 @@ import ru.bjcreslin.repository.PersistentTokenRepository;
 import ru.bjcreslin.repository.UserRepository;
 import ru.bjcreslin.security.AuthoritiesConstants;
 import ru.bjcreslin.security.SecurityUtils;
+import ru.bjcreslin.security.UserDetailsCache;
 import ru.bjcreslin.service.dto.AdminUserDTO;
 import ru.bjcreslin.service.dto.UserDTO;
 import tech.jhipster.security.RandomUtil;
@@ -42,16 +53,35 @@ public class UserService {
 
     private final AuthorityRepository authorityRepository;
 
+    private final TransactionTemplate transactionTemplate;
+
+    private final Pageable cleanupChunk;
+
+    private final long cleanupPauseMillis;
+
+    private final MeterRegistry meterRegistry;
+
+    private final UserDetailsCache userDetailsCache;
+
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
         PersistentTokenRepository persistentTokenRepository,
-        AuthorityRepository authorityRepository
+        AuthorityRepository authorityRepository,
+        PlatformTransactionManager transactionManager,
+        ApplicationProperties applicationProperties,
+        MeterRegistry meterRegistry,
+        UserDetailsCache userDetailsCache
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.persistentTokenRepository = persistentTokenRepository;
         this.authorityRepository = authorityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cleanupChunk = PageRequest.of(0, applicationProperties.getCleanup().getChunkSize());
+        this.cleanupPauseMillis = applicationProperties.getCleanup().getPauseMillis();
+        this.meterRegistry = meterRegistry;
+        this.userDetailsCache = userDetailsCache;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -61,6 +91,7 @@ public class UserService {
             .map(
                 user -> {
                     // activate given user for the registration key.
+                    userDetailsCache.evict(user);
                     user.setActivated(true);
                     user.setActivationKey(null);
                     log.debug("Activated user: {}", user);
@@ -76,6 +107,7 @@ public class UserService {
             .filter(user -> user.getResetDate().isAfter(Instant.now().minusSeconds(86400)))
             .map(
                 user -> {
+                    userDetailsCache.evict(user);
                     user.setPassword(passwordEncoder.encode(newPassword));
                     user.setResetKey(null);
                     user.setResetDate(null);
@@ -198,6 +230,7 @@ public class UserService {
             .map(Optional::get)
             .map(
                 user -> {
+                    userDetailsCache.evict(user);
                     user.setLogin(userDTO.getLogin().toLowerCase());
                     user.setFirstName(userDTO.getFirstName());
                     user.setLastName(userDTO.getLastName());
@@ -228,6 +261,7 @@ public class UserService {
             .findOneByLogin(login)
             .ifPresent(
                 user -> {
+                    userDetailsCache.evict(user);
                     userRepository.delete(user);
                     log.debug("Deleted User: {}", user);
                 }
@@ -249,6 +283,7 @@ public class UserService {
             .flatMap(userRepository::findOneByLogin)
             .ifPresent(
                 user -> {
+                    userDetailsCache.evict(user);
                     user.setFirstName(firstName);
                     user.setLastName(lastName);
                     if (email != null) {
@@ -273,6 +308,7 @@ public class UserService {
                         throw new InvalidPasswordException();
                     }
                     String encryptedPassword = passwordEncoder.encode(newPassword);
+                    userDetailsCache.evict(user);
                     user.setPassword(encryptedPassword);
                     log.debug("Changed password for User: {}", user);
                 }
@@ -304,37 +340,92 @@ public class UserService {
      * 30 days.
      * <p>
      * This is scheduled to get fired everyday, at midnight.
+     *
+     * @return the number of deleted tokens.
      */
     @Scheduled(cron = "0 0 0 * * ?")
-    public void removeOldPersistentTokens() {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long removeOldPersistentTokens() {
         LocalDate now = LocalDate.now();
-        persistentTokenRepository
-            .findByTokenDateBefore(now.minusMonths(1))
-            .forEach(
-                token -> {
-                    log.debug("Deleting token {}", token.getSeries());
-                    User user = token.getUser();
-                    user.getPersistentTokens().remove(token);
-                    persistentTokenRepository.delete(token);
-                }
-            );
+        return deleteInChunks(
+            "persistent-tokens",
+            () -> persistentTokenRepository.findSeriesByTokenDateBefore(now.minusMonths(1), cleanupChunk),
+            persistentTokenRepository::deleteBySeriesIn
+        );
     }
 
     /**
      * Not activated users should be automatically deleted after 3 days.
      * <p>
      * This is scheduled to get fired everyday, at 01:00 (am).
+     *
+     * @return the number of deleted users.
      */
     @Scheduled(cron = "0 0 1 * * ?")
-    public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(
-                user -> {
-                    log.debug("Deleting not activated user {}", user.getLogin());
-                    userRepository.delete(user);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long removeNotActivatedUsers() {
+        Instant createdBefore = Instant.now().minus(3, ChronoUnit.DAYS);
+        return deleteInChunks(
+            "not-activated-users",
+            () -> userRepository.findIdsByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(createdBefore, cleanupChunk),
+            ids -> {
+                userRepository.deleteAuthoritiesByUserIdIn(ids);
+                persistentTokenRepository.deleteByUserIdIn(ids);
+                return userRepository.deleteByIdIn(ids);
+            }
+        );
+    }
+
+    /**
+     * Delete rows a chunk at a time, each chunk in its own transaction unless a transaction is already running,
+     * pausing between two chunks so that a large backlog doesn't hold the locks for long.
+     * <p>
+     * The duration of the runs is published as the {@code cleanup.run} metric, and the number of deleted rows as the
+     * {@code cleanup.deleted} metric, both tagged with the name of the job.
+     *
+     * @param job the name of the job.
+     * @param nextChunk selects the ids of the next chunk of rows to delete.
+     * @param delete deletes the rows of a chunk, returning how many were deleted.
+     * @param <ID> the type of the ids.
+     * @return the number of deleted rows.
+     */
+    private <ID> long deleteInChunks(String job, Supplier<List<ID>> nextChunk, Function<List<ID>, Integer> delete) {
+        Counter deleted = Counter
+            .builder("cleanup.deleted")
+            .description("Rows deleted by the scheduled cleanup jobs")
+            .tag("job", job)
+            .register(meterRegistry);
+        Timer duration = Timer
+            .builder("cleanup.run")
+            .description("Duration of the scheduled cleanup jobs")
+            .tag("job", job)
+            .register(meterRegistry);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long total = 0;
+        try {
+            int selected = 0;
+            do {
+                if (selected > 0 && cleanupPauseMillis > 0) {
+                    Thread.sleep(cleanupPauseMillis);
                 }
-            );
+                int[] chunk = transactionTemplate.execute(
+                    status -> {
+                        List<ID> ids = nextChunk.get();
+                        return new int[] { ids.size(), ids.isEmpty() ? 0 : delete.apply(ids) };
+                    }
+                );
+                selected = chunk[0];
+                deleted.increment(chunk[1]);
+                total += chunk[1];
+            } while (selected == cleanupChunk.getPageSize());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Cleanup {} interrupted after deleting {} rows", job, total);
+        } finally {
+            sample.stop(duration);
+        }
+        log.debug("Cleanup {} deleted {} rows", job, total);
+        return total;
     }
 
     /**
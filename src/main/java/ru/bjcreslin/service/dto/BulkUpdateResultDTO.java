@@ -0,0 +1,78 @@
+package ru.bjcreslin.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO for the outcome of the update of one row of a bulk update.
+ */
+public class BulkUpdateResultDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum Outcome {
+        /**
+         * The row was updated.
+         */
+        UPDATED,
+        /**
+         * There is no entity with the id of the row.
+         */
+        NOT_FOUND,
+        /**
+         * The entity was updated since the version of the row, the row was skipped.
+         */
+        CONFLICT,
+    }
+
+    private final Long id;
+
+    private final Outcome outcome;
+
+    private final Long version;
+
+    /**
+     * @param id the id of the row.
+     * @param outcome the outcome of the update.
+     * @param version the current version of the entity, {@code null} if it was not found.
+     */
+    public BulkUpdateResultDTO(Long id, Outcome outcome, Long version) {
+        this.id = id;
+        this.outcome = outcome;
+        this.version = version;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BulkUpdateResultDTO)) {
+            return false;
+        }
+        BulkUpdateResultDTO that = (BulkUpdateResultDTO) o;
+        return Objects.equals(id, that.id) && outcome == that.outcome && Objects.equals(version, that.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, outcome, version);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkUpdateResultDTO{id=" + id + ", outcome=" + outcome + ", version=" + version + "}";
+    }
+}
@@ -0,0 +1,74 @@
+package ru.bjcreslin.service.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import ru.bjcreslin.service.InvalidFieldsException;
+
+/**
+ * The fields requested from a listing, for a sparse fieldset such as {@code id,name,project.id}.
+ * <p>
+ * A field is either an attribute of the listed entity, or {@code association.attribute} for an attribute of the entity
+ * it refers to.
+ */
+public class Fieldset implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String SEPARATOR = ",";
+
+    private final List<String> fields;
+
+    public Fieldset(List<String> fields) {
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+    }
+
+    /**
+     * Parse a comma-separated list of fields. Blank entries and duplicates are ignored.
+     *
+     * @param fields the list of fields.
+     * @return the fieldset.
+     * @throws InvalidFieldsException if no field is given.
+     */
+    public static Fieldset parse(String fields) {
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(SEPARATOR)) {
+            if (!field.isBlank()) {
+                parsed.add(field.trim());
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new InvalidFieldsException("No field requested");
+        }
+        return new Fieldset(new ArrayList<>(parsed));
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Fieldset)) {
+            return false;
+        }
+        return fields.equals(((Fieldset) o).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fields);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(SEPARATOR, fields);
+    }
+}
@@ -0,0 +1,121 @@
+package ru.bjcreslin.service.dto;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import org.springframework.data.domain.Sort;
+import ru.bjcreslin.service.InvalidCursorException;
+
+/**
+ * An opaque position in a keyset ("seek") paginated listing.
+ * <p>
+ * It holds the sort property and direction the listing was produced with, the value of that property
+ * for the last returned row and the id of that row, which is used as a tie-breaker.
+ * The external form is a URL-safe Base64 string, so it can be passed as-is in a query parameter.
+ */
+public class KeysetCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String SEPARATOR = ",";
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final Long id;
+
+    private final String value;
+
+    public KeysetCursor(String property, Sort.Direction direction, Long id, String value) {
+        this.property = Objects.requireNonNull(property);
+        this.direction = Objects.requireNonNull(direction);
+        this.id = Objects.requireNonNull(id);
+        this.value = value;
+    }
+
+    /**
+     * Decode a cursor from its external form.
+     *
+     * @param cursor the encoded cursor.
+     * @return the decoded cursor.
+     * @throws InvalidCursorException if the cursor is not a valid encoded cursor.
+     */
+    public static KeysetCursor decode(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor is not valid Base64");
+        }
+        String[] parts = decoded.split(SEPARATOR, 4);
+        if (parts.length < 3) {
+            throw new InvalidCursorException("Cursor is malformed");
+        }
+        try {
+            return new KeysetCursor(
+                parts[0],
+                Sort.Direction.fromString(parts[1]),
+                Long.valueOf(parts[2]),
+                parts.length == 4 ? parts[3] : null
+            );
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor is malformed");
+        }
+    }
+
+    /**
+     * @return the external form of this cursor.
+     */
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + id + (value != null ? SEPARATOR + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetCursor)) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return (
+            property.equals(that.property) && direction == that.direction && id.equals(that.id) && Objects.equals(value, that.value)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, direction, id, value);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "property='" + property + "'" +
+            ", direction=" + direction +
+            ", id=" + id +
+            ", value='" + value + "'" +
+            "}";
+    }
+}
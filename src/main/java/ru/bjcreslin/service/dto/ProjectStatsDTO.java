@@ -0,0 +1,72 @@
+package ru.bjcreslin.service.dto;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+
+/**
+ * A DTO for the number of tasks of a {@link ru.bjcreslin.domain.Project} by status. Tasks without a status are not
+ * counted.
+ */
+public class ProjectStatsDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long projectId;
+
+    private final Map<TaskAndProjectStatus, Long> tasks = new EnumMap<>(TaskAndProjectStatus.class);
+
+    /**
+     * @param projectId the id of the project.
+     * @param counts the number of tasks by status, the missing statuses having none.
+     */
+    public ProjectStatsDTO(Long projectId, Map<TaskAndProjectStatus, Long> counts) {
+        this.projectId = projectId;
+        for (TaskAndProjectStatus status : TaskAndProjectStatus.values()) {
+            tasks.put(status, counts.getOrDefault(status, 0L));
+        }
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * @return the number of tasks of every status.
+     */
+    public Map<TaskAndProjectStatus, Long> getTasks() {
+        return Collections.unmodifiableMap(tasks);
+    }
+
+    /**
+     * @return the number of tasks with a status.
+     */
+    public long getTotal() {
+        return tasks.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProjectStatsDTO)) {
+            return false;
+        }
+        ProjectStatsDTO that = (ProjectStatsDTO) o;
+        return Objects.equals(projectId, that.projectId) && tasks.equals(that.tasks);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(projectId, tasks);
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectStatsDTO{projectId=" + projectId + ", tasks=" + tasks + "}";
+    }
+}
@@ -1,15 +1,26 @@
 package ru.bjcreslin.service.impl;
 
+import java.util.Iterator;
 import java.util.Optional;
+import java.util.OptionalLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bjcreslin.domain.Comment;
 import ru.bjcreslin.repository.CommentRepository;
+import ru.bjcreslin.repository.TableStatisticsRepository;
+import ru.bjcreslin.repository.search.SearchIndex;
+import ru.bjcreslin.service.AssociationResolver;
+import ru.bjcreslin.service.BulkInsertService;
 import ru.bjcreslin.service.CommentService;
+import ru.bjcreslin.service.CountMode;
 
 /**
  * Service Implementation for managing {@link Comment}.
@@ -22,14 +33,54 @@ public class CommentServiceImpl implements CommentService {
 
     private final CommentRepository commentRepository;
 
-    public CommentServiceImpl(CommentRepository commentRepository) {
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    private final SearchIndex searchIndex;
+
+    private final BulkInsertService bulkInsertService;
+
+    private final AssociationResolver associationResolver;
+
+    public CommentServiceImpl(
+        CommentRepository commentRepository,
+        TableStatisticsRepository tableStatisticsRepository,
+        SearchIndex searchIndex,
+        BulkInsertService bulkInsertService,
+        AssociationResolver associationResolver
+    ) {
         this.commentRepository = commentRepository;
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.searchIndex = searchIndex;
+        this.bulkInsertService = bulkInsertService;
+        this.associationResolver = associationResolver;
     }
 
     @Override
     public Comment save(Comment comment) {
         log.debug("Request to save Comment : {}", comment);
-        return commentRepository.save(comment);
+        return commentRepository.save(associationResolver.resolve(comment));
+    }
+
+    @Override
+    public Optional<Comment> update(Comment comment) {
+        log.debug("Request to update Comment : {}", comment);
+        return commentRepository
+            .findById(comment.getId())
+            .map(
+                existingComment -> {
+                    if (comment.getVersion() == null) {
+                        comment.setVersion(existingComment.getVersion());
+                    }
+                    return commentRepository.saveAndFlush(associationResolver.resolve(comment));
+                }
+            );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long saveAll(Iterator<Comment> comments) {
+        log.debug("Request to save Comments in bulk");
+        return bulkInsertService.insertAll(comments);
     }
 
     @Override
@@ -40,6 +91,9 @@ public class CommentServiceImpl implements CommentService {
             .findById(comment.getId())
             .map(
                 existingComment -> {
+                    if (comment.getVersion() != null && !comment.getVersion().equals(existingComment.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(Comment.class, comment.getId());
+                    }
                     if (comment.getAuthor() != null) {
                         existingComment.setAuthor(comment.getAuthor());
                     }
@@ -59,7 +113,7 @@ public class CommentServiceImpl implements CommentService {
                     return existingComment;
                 }
             )
-            .map(commentRepository::save);
+            .map(commentRepository::saveAndFlush);
     }
 
     @Override
@@ -69,6 +123,22 @@ public class CommentServiceImpl implements CommentService {
         return commentRepository.findAll(pageable);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Comment> findAll(Pageable pageable, CountMode countMode) {
+        log.debug("Request to get all Comments, count: {}", countMode);
+        if (countMode == CountMode.NONE) {
+            return commentRepository.findAllBy(pageable);
+        }
+        if (countMode == CountMode.ESTIMATE) {
+            OptionalLong estimate = tableStatisticsRepository.estimateRowCount(Comment.class);
+            if (estimate.isPresent()) {
+                return new PageImpl<>(commentRepository.findAllBy(pageable).getContent(), pageable, estimate.getAsLong());
+            }
+        }
+        return commentRepository.findAll(pageable);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<Comment> findOne(Long id) {
@@ -81,4 +151,11 @@ public class CommentServiceImpl implements CommentService {
         log.debug("Request to delete Comment : {}", id);
         commentRepository.deleteById(id);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Comment> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Comments for query {}", query);
+        return searchIndex.search(Comment.class, query, pageable, commentRepository::findAllById);
+    }
 }
@@ -5,10 +5,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bjcreslin.domain.Message;
 import ru.bjcreslin.repository.MessageRepository;
+import ru.bjcreslin.repository.search.SearchIndex;
 import ru.bjcreslin.service.MessageService;
 
 /**
@@ -22,8 +24,11 @@ public class MessageServiceImpl implements MessageService {
 
     private final MessageRepository messageRepository;
 
-    public MessageServiceImpl(MessageRepository messageRepository) {
+    private final SearchIndex searchIndex;
+
+    public MessageServiceImpl(MessageRepository messageRepository, SearchIndex searchIndex) {
         this.messageRepository = messageRepository;
+        this.searchIndex = searchIndex;
     }
 
     @Override
@@ -32,6 +37,21 @@ public class MessageServiceImpl implements MessageService {
         return messageRepository.save(message);
     }
 
+    @Override
+    public Optional<Message> update(Message message) {
+        log.debug("Request to update Message : {}", message);
+        return messageRepository
+            .findById(message.getId())
+            .map(
+                existingMessage -> {
+                    if (message.getVersion() == null) {
+                        message.setVersion(existingMessage.getVersion());
+                    }
+                    return messageRepository.saveAndFlush(message);
+                }
+            );
+    }
+
     @Override
     public Optional<Message> partialUpdate(Message message) {
         log.debug("Request to partially update Message : {}", message);
@@ -40,6 +60,9 @@ public class MessageServiceImpl implements MessageService {
             .findById(message.getId())
             .map(
                 existingMessage -> {
+                    if (message.getVersion() != null && !message.getVersion().equals(existingMessage.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(Message.class, message.getId());
+                    }
                     if (message.getAuthor() != null) {
                         existingMessage.setAuthor(message.getAuthor());
                     }
@@ -62,7 +85,7 @@ public class MessageServiceImpl implements MessageService {
                     return existingMessage;
                 }
             )
-            .map(messageRepository::save);
+            .map(messageRepository::saveAndFlush);
     }
 
     @Override
@@ -84,4 +107,11 @@ public class MessageServiceImpl implements MessageService {
         log.debug("Request to delete Message : {}", id);
         messageRepository.deleteById(id);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Message> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Messages for query {}", query);
+        return searchIndex.search(Message.class, query, pageable, messageRepository::findAllById);
+    }
 }
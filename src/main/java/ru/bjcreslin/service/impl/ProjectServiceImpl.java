@@ -1,14 +1,20 @@
 package ru.bjcreslin.service.impl;
 
+import java.util.Iterator;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.repository.EntityVersion;
 import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.repository.search.SearchIndex;
+import ru.bjcreslin.service.BulkInsertService;
 import ru.bjcreslin.service.ProjectService;
 
 /**
@@ -22,8 +28,14 @@ public class ProjectServiceImpl implements ProjectService {
 
     private final ProjectRepository projectRepository;
 
-    public ProjectServiceImpl(ProjectRepository projectRepository) {
+    private final SearchIndex searchIndex;
+
+    private final BulkInsertService bulkInsertService;
+
+    public ProjectServiceImpl(ProjectRepository projectRepository, SearchIndex searchIndex, BulkInsertService bulkInsertService) {
         this.projectRepository = projectRepository;
+        this.searchIndex = searchIndex;
+        this.bulkInsertService = bulkInsertService;
     }
 
     @Override
@@ -32,6 +44,28 @@ public class ProjectServiceImpl implements ProjectService {
         return projectRepository.save(project);
     }
 
+    @Override
+    public Optional<Project> update(Project project) {
+        log.debug("Request to update Project : {}", project);
+        return projectRepository
+            .findById(project.getId())
+            .map(
+                existingProject -> {
+                    if (project.getVersion() == null) {
+                        project.setVersion(existingProject.getVersion());
+                    }
+                    return projectRepository.saveAndFlush(project);
+                }
+            );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long saveAll(Iterator<Project> projects) {
+        log.debug("Request to save Projects in bulk");
+        return bulkInsertService.insertAll(projects);
+    }
+
     @Override
     public Optional<Project> partialUpdate(Project project) {
         log.debug("Request to partially update Project : {}", project);
@@ -40,6 +74,9 @@ public class ProjectServiceImpl implements ProjectService {
             .findById(project.getId())
             .map(
                 existingProject -> {
+                    if (project.getVersion() != null && !project.getVersion().equals(existingProject.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(Project.class, project.getId());
+                    }
                     if (project.getProjectUrl() != null) {
                         existingProject.setProjectUrl(project.getProjectUrl());
                     }
@@ -65,7 +102,7 @@ public class ProjectServiceImpl implements ProjectService {
                     return existingProject;
                 }
             )
-            .map(projectRepository::save);
+            .map(projectRepository::saveAndFlush);
     }
 
     @Override
@@ -82,9 +119,23 @@ public class ProjectServiceImpl implements ProjectService {
         return projectRepository.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> findVersion(Long id) {
+        log.debug("Request to get the version of Project : {}", id);
+        return projectRepository.findVersionById(id);
+    }
+
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Project : {}", id);
         projectRepository.deleteById(id);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Project> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Projects for query {}", query);
+        return searchIndex.search(Project.class, query, pageable, projectRepository::findAllById);
+    }
 }
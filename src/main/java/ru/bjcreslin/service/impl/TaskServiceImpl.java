@@ -1,15 +1,38 @@
 package ru.bjcreslin.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.domain.Project;
 import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
 import ru.bjcreslin.repository.TaskRepository;
+import ru.bjcreslin.repository.TaskVersion;
+import ru.bjcreslin.repository.search.SearchIndex;
+import ru.bjcreslin.service.AssociationResolver;
+import ru.bjcreslin.service.BulkInsertService;
+import ru.bjcreslin.service.BulkUpdateException;
+import ru.bjcreslin.service.ProjectTaskCountService;
+import ru.bjcreslin.service.TaskQueryService;
 import ru.bjcreslin.service.TaskService;
+import ru.bjcreslin.service.criteria.TaskCriteria;
+import ru.bjcreslin.service.dto.BulkUpdateResultDTO;
+import ru.bjcreslin.service.dto.BulkUpdateResultDTO.Outcome;
 
 /**
  * Service Implementation for managing {@link Task}.
@@ -22,14 +45,71 @@ public class TaskServiceImpl implements TaskService {
 
     private final TaskRepository taskRepository;
 
-    public TaskServiceImpl(TaskRepository taskRepository) {
+    private final SearchIndex searchIndex;
+
+    private final BulkInsertService bulkInsertService;
+
+    private final ProjectTaskCountService projectTaskCountService;
+
+    private final AssociationResolver associationResolver;
+
+    private final TaskQueryService taskQueryService;
+
+    private final int maxBulkUpdateRows;
+
+    public TaskServiceImpl(
+        TaskRepository taskRepository,
+        SearchIndex searchIndex,
+        BulkInsertService bulkInsertService,
+        ProjectTaskCountService projectTaskCountService,
+        AssociationResolver associationResolver,
+        TaskQueryService taskQueryService,
+        ApplicationProperties applicationProperties
+    ) {
         this.taskRepository = taskRepository;
+        this.searchIndex = searchIndex;
+        this.bulkInsertService = bulkInsertService;
+        this.projectTaskCountService = projectTaskCountService;
+        this.associationResolver = associationResolver;
+        this.taskQueryService = taskQueryService;
+        this.maxBulkUpdateRows = applicationProperties.getBulkUpdate().getMaxRows();
     }
 
     @Override
     public Task save(Task task) {
         log.debug("Request to save Task : {}", task);
-        return taskRepository.save(task);
+        Optional<Task> existingTask = task.getId() == null ? Optional.empty() : taskRepository.findById(task.getId());
+        Project oldProject = existingTask.map(Task::getProject).orElse(null);
+        TaskAndProjectStatus oldStatus = existingTask.map(Task::getStatus).orElse(null);
+        Task result = taskRepository.save(associationResolver.resolve(task));
+        projectTaskCountService.taskChanged(oldProject, oldStatus, result.getProject(), result.getStatus());
+        return result;
+    }
+
+    @Override
+    public Optional<Task> update(Task task) {
+        log.debug("Request to update Task : {}", task);
+        return taskRepository
+            .findById(task.getId())
+            .map(
+                existingTask -> {
+                    Project oldProject = existingTask.getProject();
+                    TaskAndProjectStatus oldStatus = existingTask.getStatus();
+                    if (task.getVersion() == null) {
+                        task.setVersion(existingTask.getVersion());
+                    }
+                    Task result = taskRepository.saveAndFlush(associationResolver.resolve(task));
+                    projectTaskCountService.taskChanged(oldProject, oldStatus, result.getProject(), result.getStatus());
+                    return result;
+                }
+            );
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long saveAll(Iterator<Task> tasks) {
+        log.debug("Request to save Tasks in bulk");
+        return bulkInsertService.insertAll(tasks, projectTaskCountService::tasksCreated);
     }
 
     @Override
@@ -40,35 +120,105 @@ public class TaskServiceImpl implements TaskService {
             .findById(task.getId())
             .map(
                 existingTask -> {
-                    if (task.getAuthor() != null) {
-                        existingTask.setAuthor(task.getAuthor());
-                    }
-                    if (task.getImplementer() != null) {
-                        existingTask.setImplementer(task.getImplementer());
-                    }
-                    if (task.getName() != null) {
-                        existingTask.setName(task.getName());
-                    }
-                    if (task.getText() != null) {
-                        existingTask.setText(task.getText());
-                    }
-                    if (task.getComment() != null) {
-                        existingTask.setComment(task.getComment());
+                    if (task.getVersion() != null && !task.getVersion().equals(existingTask.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(Task.class, task.getId());
                     }
-                    if (task.getStatus() != null) {
-                        existingTask.setStatus(task.getStatus());
-                    }
-                    if (task.getCreated() != null) {
-                        existingTask.setCreated(task.getCreated());
-                    }
-                    if (task.getEdited() != null) {
-                        existingTask.setEdited(task.getEdited());
-                    }
-
+                    TaskAndProjectStatus oldStatus = existingTask.getStatus();
+                    copyNonNullFields(task, existingTask);
+                    projectTaskCountService.taskChanged(
+                        existingTask.getProject(),
+                        oldStatus,
+                        existingTask.getProject(),
+                        existingTask.getStatus()
+                    );
                     return existingTask;
                 }
             )
-            .map(taskRepository::save);
+            .map(taskRepository::saveAndFlush);
+    }
+
+    @Override
+    public List<BulkUpdateResultDTO> partialUpdateAll(List<Task> tasks) {
+        log.debug("Request to partially update {} Tasks", tasks.size());
+        if (tasks.size() > maxBulkUpdateRows) {
+            throw new BulkUpdateException("A bulk update can't hold more than " + maxBulkUpdateRows + " rows");
+        }
+        List<Long> ids = tasks.stream().map(Task::getId).collect(Collectors.toList());
+        return partialUpdateAll(taskRepository.findAllById(ids), ids, tasks);
+    }
+
+    @Override
+    public List<BulkUpdateResultDTO> partialUpdateAll(TaskCriteria criteria, Task task) {
+        log.debug("Request to partially update Tasks by criteria : {}, {}", criteria, task);
+        List<Task> existingTasks = taskQueryService.findByCriteria(criteria, maxBulkUpdateRows + 1);
+        if (existingTasks.size() > maxBulkUpdateRows) {
+            throw new BulkUpdateException("More than " + maxBulkUpdateRows + " tasks match the criteria of the bulk update");
+        }
+        List<Long> ids = existingTasks.stream().map(Task::getId).collect(Collectors.toList());
+        return partialUpdateAll(existingTasks, ids, Collections.nCopies(ids.size(), task));
+    }
+
+    /**
+     * Copy the fields of the updates to the loaded tasks, then flush them all at once, so that Hibernate sends the
+     * UPDATE statements in JDBC batches, still checking the versions and publishing the changes to the search index.
+     */
+    private List<BulkUpdateResultDTO> partialUpdateAll(List<Task> existingTasks, List<Long> ids, List<Task> tasks) {
+        Map<Long, Task> existingTasksById = existingTasks.stream().collect(Collectors.toMap(Task::getId, Function.identity()));
+        Map<Task, TaskAndProjectStatus> oldStatuses = new IdentityHashMap<>();
+        List<Task> updatedTasks = new ArrayList<>(ids.size());
+        List<BulkUpdateResultDTO> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Task task = tasks.get(i);
+            Task existingTask = existingTasksById.get(ids.get(i));
+            if (existingTask == null) {
+                results.add(new BulkUpdateResultDTO(ids.get(i), Outcome.NOT_FOUND, null));
+                updatedTasks.add(null);
+            } else if (task.getVersion() != null && !task.getVersion().equals(existingTask.getVersion())) {
+                results.add(new BulkUpdateResultDTO(ids.get(i), Outcome.CONFLICT, existingTask.getVersion()));
+                updatedTasks.add(null);
+            } else {
+                oldStatuses.putIfAbsent(existingTask, existingTask.getStatus());
+                copyNonNullFields(task, existingTask);
+                results.add(null);
+                updatedTasks.add(existingTask);
+            }
+        }
+        taskRepository.flush();
+        projectTaskCountService.statusesChanged(oldStatuses.keySet(), oldStatuses::get);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                // the version was incremented by the flush
+                results.set(i, new BulkUpdateResultDTO(ids.get(i), Outcome.UPDATED, updatedTasks.get(i).getVersion()));
+            }
+        }
+        return results;
+    }
+
+    private static void copyNonNullFields(Task task, Task existingTask) {
+        if (task.getAuthor() != null) {
+            existingTask.setAuthor(task.getAuthor());
+        }
+        if (task.getImplementer() != null) {
+            existingTask.setImplementer(task.getImplementer());
+        }
+        if (task.getName() != null) {
+            existingTask.setName(task.getName());
+        }
+        if (task.getText() != null) {
+            existingTask.setText(task.getText());
+        }
+        if (task.getComment() != null) {
+            existingTask.setComment(task.getComment());
+        }
+        if (task.getStatus() != null) {
+            existingTask.setStatus(task.getStatus());
+        }
+        if (task.getCreated() != null) {
+            existingTask.setCreated(task.getCreated());
+        }
+        if (task.getEdited() != null) {
+            existingTask.setEdited(task.getEdited());
+        }
     }
 
     @Override
@@ -85,9 +235,26 @@ public class TaskServiceImpl implements TaskService {
         return taskRepository.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<TaskVersion> findVersion(Long id) {
+        log.debug("Request to get the version of Task : {}", id);
+        return taskRepository.findVersionById(id);
+    }
+
     @Override
     public void delete(Long id) {
         log.debug("Request to delete Task : {}", id);
+        taskRepository
+            .findById(id)
+            .ifPresent(task -> projectTaskCountService.taskChanged(task.getProject(), task.getStatus(), null, null));
         taskRepository.deleteById(id);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Task> search(String query, Pageable pageable) {
+        log.debug("Request to search for a page of Tasks for query {}", query);
+        return searchIndex.search(Task.class, query, pageable, taskRepository::findAllById);
+    }
 }
@@ -4,9 +4,11 @@ import java.util.List;
 import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bjcreslin.domain.UserInfo;
+import ru.bjcreslin.repository.EntityVersion;
 import ru.bjcreslin.repository.UserInfoRepository;
 import ru.bjcreslin.service.UserInfoService;
 
@@ -31,6 +33,21 @@ public class UserInfoServiceImpl implements UserInfoService {
         return userInfoRepository.save(userInfo);
     }
 
+    @Override
+    public Optional<UserInfo> update(UserInfo userInfo) {
+        log.debug("Request to update UserInfo : {}", userInfo);
+        return userInfoRepository
+            .findById(userInfo.getId())
+            .map(
+                existingUserInfo -> {
+                    if (userInfo.getVersion() == null) {
+                        userInfo.setVersion(existingUserInfo.getVersion());
+                    }
+                    return userInfoRepository.saveAndFlush(userInfo);
+                }
+            );
+    }
+
     @Override
     public Optional<UserInfo> partialUpdate(UserInfo userInfo) {
         log.debug("Request to partially update UserInfo : {}", userInfo);
@@ -39,6 +56,9 @@ public class UserInfoServiceImpl implements UserInfoService {
             .findById(userInfo.getId())
             .map(
                 existingUserInfo -> {
+                    if (userInfo.getVersion() != null && !userInfo.getVersion().equals(existingUserInfo.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(UserInfo.class, userInfo.getId());
+                    }
                     if (userInfo.getEmail() != null) {
                         existingUserInfo.setEmail(userInfo.getEmail());
                     }
@@ -70,7 +90,7 @@ public class UserInfoServiceImpl implements UserInfoService {
                     return existingUserInfo;
                 }
             )
-            .map(userInfoRepository::save);
+            .map(userInfoRepository::saveAndFlush);
     }
 
     @Override
@@ -87,6 +107,13 @@ public class UserInfoServiceImpl implements UserInfoService {
         return userInfoRepository.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> findVersion(Long id) {
+        log.debug("Request to get the version of UserInfo : {}", id);
+        return userInfoRepository.findVersionById(id);
+    }
+
     @Override
     public void delete(Long id) {
         log.debug("Request to delete UserInfo : {}", id);
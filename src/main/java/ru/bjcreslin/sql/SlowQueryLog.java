@@ -0,0 +1,364 @@
+package ru.bjcreslin.sql;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.bjcreslin.config.ApplicationProperties;
+
+/**
+ * Log of the SQL statements executed in more than {@code application.slow-query.threshold-millis}, reported by the
+ * {@link SqlStatisticsDataSource}.
+ * <p>
+ * A slow statement is logged with the endpoint and the criteria of the request executing it, and the types of its bound
+ * parameters, not their values. The slowest {@code application.slow-query.max-entries} statements are kept.
+ * <p>
+ * The execution plan of a sample of the slow selects kept is captured in the background, by executing them again on a
+ * connection of their own with {@code EXPLAIN (ANALYZE, BUFFERS)} on PostgreSQL, or {@code EXPLAIN ANALYZE} on H2,
+ * cancelled after {@code application.slow-query.explain-timeout-seconds}. The selects which lock rows, or call a
+ * function which may have side effects such as {@code nextval}, are only planned with {@code EXPLAIN}, without being
+ * executed again.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final int EXPLAIN_QUEUE_CAPACITY = 10;
+
+    private static final Pattern LOCKING_CLAUSE = Pattern.compile(
+        "\\bfor\\s+(no\\s+key\\s+update|update|key\\s+share|share)\\b",
+        Pattern.CASE_INSENSITIVE
+    );
+
+    /**
+     * A name followed by an opening parenthesis, a function call or a keyword.
+     */
+    private static final Pattern CALL = Pattern.compile("([a-z_][a-z0-9_$]*)\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Keywords preceding a parenthesis and functions without side effects, in the selects generated by Hibernate.
+     */
+    private static final Set<String> SAFE_CALLS = Set.of(
+        "all",
+        "and",
+        "any",
+        "as",
+        "exists",
+        "from",
+        "in",
+        "not",
+        "on",
+        "or",
+        "over",
+        "select",
+        "when",
+        "where",
+        "abs",
+        "avg",
+        "cast",
+        "coalesce",
+        "count",
+        "length",
+        "lower",
+        "max",
+        "min",
+        "nullif",
+        "substring",
+        "sum",
+        "trim",
+        "upper"
+    );
+
+    private final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private final long thresholdNanos;
+
+    private final int maxEntries;
+
+    private final double explainSampleRate;
+
+    private final int explainTimeoutSeconds;
+
+    private final Counter slowQueries;
+
+    /**
+     * Slowest statements, the fastest of them first.
+     */
+    private final PriorityQueue<SlowQuery> slowest = new PriorityQueue<>(Comparator.comparingLong(slowQuery -> slowQuery.nanos));
+
+    private final ThreadPoolExecutor explainExecutor;
+
+    public SlowQueryLog(ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        ApplicationProperties.SlowQuery properties = applicationProperties.getSlowQuery();
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(properties.getThresholdMillis());
+        this.maxEntries = properties.getMaxEntries();
+        this.explainSampleRate = properties.getExplainSampleRate();
+        this.explainTimeoutSeconds = properties.getExplainTimeoutSeconds();
+        this.slowQueries =
+            Counter
+                .builder("sql.slow.queries")
+                .description("SQL statements executed in more than the slow query threshold")
+                .register(meterRegistry);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("slow-query-explain-");
+        threadFactory.setDaemon(true);
+        // the plans of the statements arriving while the queue is full are not captured
+        this.explainExecutor =
+            new ThreadPoolExecutor(
+                1,
+                1,
+                0,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY),
+                threadFactory,
+                new ThreadPoolExecutor.DiscardPolicy()
+            );
+    }
+
+    @PreDestroy
+    public void stop() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * @return the execution time from which a statement is slow, in nanoseconds.
+     */
+    public long getThresholdNanos() {
+        return thresholdNanos;
+    }
+
+    /**
+     * Log a slow statement, and keep it if it is one of the slowest.
+     *
+     * @param sql the SQL of the statement.
+     * @param parameters the values bound to the parameters of the statement, by index from 0.
+     * @param nanos the execution time of the statement.
+     * @param dataSource the data source to explain the statement with.
+     */
+    public void statementExecuted(String sql, Object[] parameters, long nanos, DataSource dataSource) {
+        slowQueries.increment();
+        SqlStatistics statistics = SqlStatistics.current();
+        Object criteria = statistics != null ? statistics.getCriteria() : null;
+        SlowQuery slowQuery = new SlowQuery(sql, shape(parameters), nanos, endpoint(), criteria != null ? criteria.toString() : null);
+        log.warn(
+            "Slow SQL statement of {} ms in {}, criteria: {}, parameters: [{}]: {}",
+            slowQuery.getMillis(),
+            slowQuery.endpoint,
+            slowQuery.criteria,
+            slowQuery.parameters,
+            sql
+        );
+        if (keep(slowQuery) && isSelect(sql) && ThreadLocalRandom.current().nextDouble() < explainSampleRate) {
+            explainExecutor.execute(() -> explain(slowQuery, parameters, dataSource));
+        }
+    }
+
+    /**
+     * @return the slowest statements, the slowest first.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> result;
+        synchronized (slowest) {
+            result = new ArrayList<>(slowest);
+        }
+        result.sort(Comparator.comparingLong((SlowQuery slowQuery) -> slowQuery.nanos).reversed());
+        return result;
+    }
+
+    /**
+     * Forget the slowest statements.
+     */
+    public void clear() {
+        synchronized (slowest) {
+            slowest.clear();
+        }
+    }
+
+    private boolean keep(SlowQuery slowQuery) {
+        synchronized (slowest) {
+            if (slowest.size() >= maxEntries) {
+                if (maxEntries == 0 || slowest.peek().nanos >= slowQuery.nanos) {
+                    return false;
+                }
+                slowest.poll();
+            }
+            return slowest.add(slowQuery);
+        }
+    }
+
+    private void explain(SlowQuery slowQuery, Object[] parameters, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            String explain = explainPrefix(connection.getMetaData().getDatabaseProductName(), isAnalyzable(slowQuery.sql));
+            if (explain == null) {
+                return;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(explain + slowQuery.sql)) {
+                statement.setQueryTimeout(explainTimeoutSeconds);
+                for (int i = 0; i < parameters.length; i++) {
+                    statement.setObject(i + 1, parameters[i]);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append(resultSet.getString(1)).append('\n');
+                    }
+                }
+                slowQuery.plan = plan.toString();
+            } finally {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Could not explain the slow SQL statement {}: {}", slowQuery.sql, e.toString());
+        }
+    }
+
+    /**
+     * @param analyze whether the statement is executed to measure its plan, rather than only planned.
+     */
+    private static String explainPrefix(String databaseProductName, boolean analyze) {
+        switch (databaseProductName) {
+            case "PostgreSQL":
+                return analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ";
+            case "H2":
+                return analyze ? "EXPLAIN ANALYZE " : "EXPLAIN ";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return whether a select can be executed again to explain it: it doesn't lock rows, which would wait for the
+     * transaction executing it, and only calls functions without side effects.
+     */
+    static boolean isAnalyzable(String sql) {
+        if (LOCKING_CLAUSE.matcher(sql).find()) {
+            return false;
+        }
+        Matcher call = CALL.matcher(sql);
+        while (call.find()) {
+            if (!SAFE_CALLS.contains(call.group(1).toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql != null && sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+    }
+
+    private static String shape(Object[] parameters) {
+        StringBuilder shape = new StringBuilder();
+        for (Object parameter : parameters) {
+            if (shape.length() > 0) {
+                shape.append(", ");
+            }
+            shape.append(parameter != null ? parameter.getClass().getSimpleName() : "null");
+        }
+        return shape.toString();
+    }
+
+    /**
+     * @return the HTTP method and the URI pattern of the request handled by the current thread, or {@code null} if there is none.
+     */
+    private static String endpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    /**
+     * A slow SQL statement.
+     */
+    public static final class SlowQuery {
+
+        private final String sql;
+
+        private final String parameters;
+
+        private final long nanos;
+
+        private final Instant executedAt = Instant.now();
+
+        private final String endpoint;
+
+        private final String criteria;
+
+        private volatile String plan;
+
+        private SlowQuery(String sql, String parameters, long nanos, String endpoint, String criteria) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.nanos = nanos;
+            this.endpoint = endpoint;
+            this.criteria = criteria;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return the types of the bound parameters, {@code null} for a parameter set to null.
+         */
+        public String getParameters() {
+            return parameters;
+        }
+
+        public double getMillis() {
+            return nanos / 1_000_000.0;
+        }
+
+        public Instant getExecutedAt() {
+            return executedAt;
+        }
+
+        /**
+         * @return the HTTP method and the URI pattern of the request which executed the statement, or {@code null} if none did.
+         */
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public String getCriteria() {
+            return criteria;
+        }
+
+        /**
+         * @return the execution plan of the statement, or {@code null} if it was not captured.
+         */
+        public String getPlan() {
+            return plan;
+        }
+    }
+}
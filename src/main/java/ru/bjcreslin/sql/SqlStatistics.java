@@ -0,0 +1,117 @@
+package ru.bjcreslin.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * SQL statements executed by a request, counted on the thread handling it.
+ * <p>
+ * The statistics of the current request are bound to the thread by the {@link SqlStatisticsFilter}, and filled by the
+ * {@link SqlStatisticsDataSource} and the {@link SqlStatisticsInterceptor}. They are not thread-safe.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long rows;
+
+    private long jdbcNanos;
+
+    private int flushes;
+
+    private int entityLoads;
+
+    /**
+     * Executions of each SQL statement, to find the ones repeated by lazy loading.
+     */
+    private final Map<String, Integer> executions = new HashMap<>();
+
+    /**
+     * Criteria of the last query built by the request.
+     */
+    private Object criteria;
+
+    SqlStatistics() {}
+
+    /**
+     * @return the statistics of the request handled by the current thread, or {@code null} if there is none.
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Keep the criteria of a query in the statistics of the current request, to report them with its slow statements.
+     *
+     * @param criteria the criteria, usually holding the filters of the request.
+     */
+    public static void criteria(Object criteria) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.criteria = criteria;
+        }
+    }
+
+    static SqlStatistics start() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    void statementExecuted(String sql, long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+        if (sql != null) {
+            executions.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    void rowFetched() {
+        rows++;
+    }
+
+    void flushed() {
+        flushes++;
+    }
+
+    void entityLoaded() {
+        entityLoads++;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public int getFlushes() {
+        return flushes;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+
+    public Object getCriteria() {
+        return criteria;
+    }
+
+    /**
+     * @return the statement executed the most times, with its number of executions, or {@code null} if none was.
+     */
+    public Map.Entry<String, Integer> getMostRepeatedStatement() {
+        return executions.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+    }
+}
@@ -0,0 +1,201 @@
+package ru.bjcreslin.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Data source counting the statements executed, their time and the rows they fetch into the {@link SqlStatistics} of
+ * the current request, and reporting the slow statements to the {@link SlowQueryLog}.
+ * <p>
+ * Its connections, statements and result sets are proxies of the ones of the target data source. Outside of a request,
+ * the statements are only timed for the slow query log and their result sets are not proxied.
+ */
+public class SqlStatisticsDataSource extends DelegatingDataSource {
+
+    private static final Object[] NO_PARAMETERS = {};
+
+    private volatile SlowQueryLog slowQueryLog;
+
+    public SqlStatisticsDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Report the slow statements to the given log from now on, and keep the values bound to the parameters for it.
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SqlStatisticsDataSource.class.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private Statement statement(Statement statement, String sql) {
+        if (statement instanceof CallableStatement) {
+            return proxy(CallableStatement.class, new StatementHandler(statement, sql));
+        }
+        if (statement instanceof PreparedStatement) {
+            return proxy(PreparedStatement.class, new StatementHandler(statement, sql));
+        }
+        return proxy(Statement.class, new StatementHandler(statement, sql));
+    }
+
+    private static ResultSet resultSet(ResultSet resultSet, SqlStatistics statistics) {
+        return proxy(ResultSet.class, new ResultSetHandler(resultSet, statistics));
+    }
+
+    /**
+     * Handler calling the target of a proxy, with the identity of the proxy for {@code equals} and {@code hashCode}.
+     */
+    private abstract static class JdbcHandler implements InvocationHandler {
+
+        protected final Object target;
+
+        JdbcHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return handle(method, args);
+            }
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        protected Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private final class ConnectionHandler extends JdbcHandler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            if (result instanceof Statement) {
+                // prepareStatement and prepareCall take the SQL first, createStatement gets it on execution
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return statement((Statement) result, sql);
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler extends JdbcHandler {
+
+        private final String sql;
+
+        /**
+         * Values bound to the parameters, by index from 0, kept while there is a slow query log.
+         */
+        private Object[] parameters = NO_PARAMETERS;
+
+        StatementHandler(Statement target, String sql) {
+            super(target);
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            SlowQueryLog log = slowQueryLog;
+            SqlStatistics statistics = SqlStatistics.current();
+            if (!name.startsWith("execute")) {
+                if (log != null) {
+                    bind(name, args);
+                }
+                Object result = call(method, args);
+                return statistics != null && result instanceof ResultSet ? resultSet((ResultSet) result, statistics) : result;
+            }
+            if (log == null && statistics == null) {
+                return call(method, args);
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = call(method, args);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                String executed = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+                if (statistics != null) {
+                    statistics.statementExecuted(executed, nanos);
+                }
+                if (log != null && nanos >= log.getThresholdNanos()) {
+                    log.statementExecuted(executed, parameters.clone(), nanos, getTargetDataSource());
+                }
+            }
+            return statistics != null && result instanceof ResultSet ? resultSet((ResultSet) result, statistics) : result;
+        }
+
+        /**
+         * Keep the value of the parameters bound by index, {@code setNull} binds {@code null}.
+         */
+        private void bind(String name, Object[] args) {
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer && (Integer) args[0] > 0) {
+                int index = (Integer) args[0] - 1;
+                if (index >= parameters.length) {
+                    parameters = Arrays.copyOf(parameters, index + 1);
+                }
+                parameters[index] = "setNull".equals(name) ? null : args[1];
+            } else if ("clearParameters".equals(name)) {
+                parameters = NO_PARAMETERS;
+            }
+        }
+    }
+
+    private static final class ResultSetHandler extends JdbcHandler {
+
+        private final SqlStatistics statistics;
+
+        ResultSetHandler(ResultSet target, SqlStatistics statistics) {
+            super(target);
+            this.statistics = statistics;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = call(method, args);
+            if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                statistics.rowFetched();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.bjcreslin.sql;
+
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Management endpoint of the SQL statistics of the endpoints, mapped to {@code /management/sql-stats}.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatisticsEndpoint {
+
+    private final SqlStatisticsRegistry sqlStatisticsRegistry;
+
+    public SqlStatisticsEndpoint(SqlStatisticsRegistry sqlStatisticsRegistry) {
+        this.sqlStatisticsRegistry = sqlStatisticsRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, SqlStatisticsRegistry.EndpointSqlStatistics> sqlStatistics() {
+        return sqlStatisticsRegistry.getEndpoints();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatisticsRegistry.reset();
+    }
+}
@@ -0,0 +1,42 @@
+package ru.bjcreslin.sql;
+
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Filter counting the SQL statements of each request, recorded for the endpoint which handled it.
+ * <p>
+ * The statistics of a request are also kept in its {@value #ATTRIBUTE} attribute. The requests not handled by a
+ * controller, such as the static resources, are not recorded.
+ */
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String ATTRIBUTE = SqlStatisticsFilter.class.getName() + ".statistics";
+
+    private final SqlStatisticsRegistry sqlStatisticsRegistry;
+
+    public SqlStatisticsFilter(SqlStatisticsRegistry sqlStatisticsRegistry) {
+        this.sqlStatisticsRegistry = sqlStatisticsRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.start();
+        request.setAttribute(ATTRIBUTE, statistics);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.end();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (uri != null) {
+                sqlStatisticsRegistry.record(request.getMethod(), uri.toString(), statistics);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.bjcreslin.sql;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Hibernate interceptor counting the entities loaded, from the database or the second-level cache, and the flushes
+ * into the {@link SqlStatistics} of the current request.
+ */
+public class SqlStatisticsInterceptor extends EmptyInterceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.entityLoaded();
+        }
+        return false;
+    }
+
+    @Override
+    public void postFlush(Iterator entities) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics != null) {
+            statistics.flushed();
+        }
+    }
+}
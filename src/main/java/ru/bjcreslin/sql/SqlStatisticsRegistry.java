@@ -0,0 +1,204 @@
+package ru.bjcreslin.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import ru.bjcreslin.config.ApplicationProperties;
+
+/**
+ * SQL statistics of the requests, added up per endpoint and published as distributions per request.
+ * <p>
+ * A statement executed at least {@code application.sql-statistics.repeated-statement-threshold} times by a request is
+ * a repeated statement, most likely an N+1 select of lazily loaded associations. It is logged the first time it is
+ * seen for an endpoint, and kept with the statistics of the endpoint.
+ */
+@Component
+public class SqlStatisticsRegistry {
+
+    private final Logger log = LoggerFactory.getLogger(SqlStatisticsRegistry.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final int repeatedStatementThreshold;
+
+    private final int maxRepeatedStatements;
+
+    private final ConcurrentMap<String, EndpointSqlStatistics> endpoints = new ConcurrentHashMap<>();
+
+    public SqlStatisticsRegistry(MeterRegistry meterRegistry, ApplicationProperties applicationProperties) {
+        this.meterRegistry = meterRegistry;
+        this.repeatedStatementThreshold = applicationProperties.getSqlStatistics().getRepeatedStatementThreshold();
+        this.maxRepeatedStatements = applicationProperties.getSqlStatistics().getMaxRepeatedStatements();
+    }
+
+    /**
+     * Add the statistics of a request to the ones of its endpoint.
+     *
+     * @param method the HTTP method of the request.
+     * @param uri the URI pattern of the handler of the request.
+     * @param statistics the statistics of the request.
+     */
+    public void record(String method, String uri, SqlStatistics statistics) {
+        EndpointSqlStatistics endpoint = endpoints.get(method + " " + uri);
+        if (endpoint == null) {
+            endpoint = endpoints.computeIfAbsent(method + " " + uri, key -> new EndpointSqlStatistics(method, uri, meterRegistry));
+        }
+        endpoint.record(statistics);
+        Map.Entry<String, Integer> repeated = statistics.getMostRepeatedStatement();
+        if (repeated != null && repeated.getValue() >= repeatedStatementThreshold) {
+            LongAccumulator executions = endpoint.repeatedStatements.get(repeated.getKey());
+            if (executions == null && endpoint.repeatedStatements.size() < maxRepeatedStatements) {
+                LongAccumulator added = new LongAccumulator(Math::max, 0);
+                executions = endpoint.repeatedStatements.putIfAbsent(repeated.getKey(), added);
+                if (executions == null) {
+                    executions = added;
+                    log.warn("Possible N+1 select in {} {}, executed {} times: {}", method, uri, repeated.getValue(), repeated.getKey());
+                }
+            }
+            if (executions != null) {
+                executions.accumulate(repeated.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the statistics of each endpoint, by HTTP method and URI pattern.
+     */
+    public Map<String, EndpointSqlStatistics> getEndpoints() {
+        return new TreeMap<>(endpoints);
+    }
+
+    /**
+     * Forget the statistics of the endpoints, their distributions are kept.
+     */
+    public void reset() {
+        endpoints.values().forEach(EndpointSqlStatistics::reset);
+    }
+
+    /**
+     * SQL statistics of the requests of an endpoint.
+     */
+    public static final class EndpointSqlStatistics {
+
+        private final DistributionSummary statementsSummary;
+
+        private final DistributionSummary rowsSummary;
+
+        private final DistributionSummary flushesSummary;
+
+        private final DistributionSummary entityLoadsSummary;
+
+        private final Timer jdbcTimer;
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder statements = new LongAdder();
+
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder jdbcNanos = new LongAdder();
+
+        private final LongAdder flushes = new LongAdder();
+
+        private final LongAdder entityLoads = new LongAdder();
+
+        /**
+         * Most executions per request of the repeated statements.
+         */
+        private final ConcurrentMap<String, LongAccumulator> repeatedStatements = new ConcurrentHashMap<>();
+
+        private EndpointSqlStatistics(String method, String uri, MeterRegistry meterRegistry) {
+            Tags tags = Tags.of("method", method, "uri", uri);
+            this.statementsSummary = summary("sql.request.statements", "SQL statements executed per request", tags, meterRegistry);
+            this.rowsSummary = summary("sql.request.rows", "Rows fetched per request", tags, meterRegistry);
+            this.flushesSummary = summary("sql.request.flushes", "Hibernate flushes per request", tags, meterRegistry);
+            this.entityLoadsSummary = summary("sql.request.entity.loads", "Entities loaded per request", tags, meterRegistry);
+            this.jdbcTimer =
+                Timer
+                    .builder("sql.request.jdbc")
+                    .description("Time spent executing SQL statements per request")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+
+        private static DistributionSummary summary(String name, String description, Tags tags, MeterRegistry meterRegistry) {
+            return DistributionSummary.builder(name).description(description).tags(tags).register(meterRegistry);
+        }
+
+        private void record(SqlStatistics statistics) {
+            statementsSummary.record(statistics.getStatements());
+            rowsSummary.record(statistics.getRows());
+            flushesSummary.record(statistics.getFlushes());
+            entityLoadsSummary.record(statistics.getEntityLoads());
+            jdbcTimer.record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+            requests.increment();
+            statements.add(statistics.getStatements());
+            maxStatements.accumulate(statistics.getStatements());
+            rows.add(statistics.getRows());
+            jdbcNanos.add(statistics.getJdbcNanos());
+            flushes.add(statistics.getFlushes());
+            entityLoads.add(statistics.getEntityLoads());
+        }
+
+        private void reset() {
+            requests.reset();
+            statements.reset();
+            maxStatements.reset();
+            rows.reset();
+            jdbcNanos.reset();
+            flushes.reset();
+            entityLoads.reset();
+            repeatedStatements.clear();
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getStatements() {
+            return statements.sum();
+        }
+
+        public long getMaxStatements() {
+            return maxStatements.get();
+        }
+
+        public long getRows() {
+            return rows.sum();
+        }
+
+        public double getJdbcMillis() {
+            return jdbcNanos.sum() / 1_000_000.0;
+        }
+
+        public long getFlushes() {
+            return flushes.sum();
+        }
+
+        public long getEntityLoads() {
+            return entityLoads.sum();
+        }
+
+        /**
+         * @return the repeated statements, with their most executions by a request.
+         */
+        public Map<String, Long> getRepeatedStatements() {
+            Map<String, Long> result = new TreeMap<>();
+            repeatedStatements.forEach((sql, executions) -> result.put(sql, executions.get()));
+            return result;
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package ru.bjcreslin.web.rest;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -10,18 +14,24 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ru.bjcreslin.domain.Comment;
-import ru.bjcreslin.repository.CommentRepository;
+import ru.bjcreslin.domain.Task;
 import ru.bjcreslin.service.CommentService;
+import ru.bjcreslin.service.CountMode;
 import ru.bjcreslin.web.rest.errors.BadRequestAlertException;
+import ru.bjcreslin.web.rest.util.ETagUtil;
+import ru.bjcreslin.web.rest.util.ExportUtil;
+import ru.bjcreslin.web.rest.util.SlicePaginationUtil;
+import ru.bjcreslin.web.rest.vm.BulkImportVM;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link ru.bjcreslin.domain.Comment}.
@@ -39,11 +49,11 @@ public class CommentResource {
 
     private final CommentService commentService;
 
-    private final CommentRepository commentRepository;
+    private final ObjectMapper objectMapper;
 
-    public CommentResource(CommentService commentService, CommentRepository commentRepository) {
+    public CommentResource(CommentService commentService, ObjectMapper objectMapper) {
         this.commentService = commentService;
-        this.commentRepository = commentRepository;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -66,19 +76,45 @@ public class CommentResource {
             .body(result);
     }
 
+    /**
+     * {@code POST  /comments/bulk} : Create new comments in bulk.
+     *
+     * <p>
+     * The comments are read from a JSON array, or from newline-delimited JSON, and validated as they are read. They are
+     * created in chunks of a transaction each: when a row fails, the chunks before it are kept.
+     *
+     * @param body the comments to create, without IDs.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the number of created comments, or with status {@code 400 (Bad Request)} if a row is not valid.
+     * @throws IOException if the request body can't be read.
+     */
+    @PostMapping(value = "/comments/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, ExportUtil.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkImportVM> createComments(InputStream body) throws IOException {
+        log.debug("REST request to save Comments in bulk");
+        try (MappingIterator<Comment> comments = objectMapper.readerFor(Comment.class).readValues(body)) {
+            long created = commentService.saveAll(comments);
+            return ResponseEntity.status(HttpStatus.CREATED).body(new BulkImportVM(created));
+        }
+    }
+
     /**
      * {@code PUT  /comments/:id} : Updates an existing comment.
      *
      * @param id the id of the comment to save.
+     * @param ifMatch the {@code ETag} of the version of the comment to update, if any.
      * @param comment the comment to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated comment,
      * or with status {@code 400 (Bad Request)} if the comment is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the comment is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the comment,
      * or with status {@code 500 (Internal Server Error)} if the comment couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/comments/{id}")
-    public ResponseEntity<Comment> updateComment(@PathVariable(value = "id", required = false) final Long id, @RequestBody Comment comment)
-        throws URISyntaxException {
+    public ResponseEntity<Comment> updateComment(
+        @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @RequestBody Comment comment
+    ) throws URISyntaxException {
         log.debug("REST request to update Comment : {}, {}", id, comment);
         if (comment.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -87,14 +123,14 @@ public class CommentResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!commentRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Comment result = commentService.save(comment);
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(comment::setVersion);
+        Comment result = commentService
+            .update(comment)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, comment.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
             .body(result);
     }
 
@@ -102,16 +138,19 @@ public class CommentResource {
      * {@code PATCH  /comments/:id} : Partial updates given fields of an existing comment, field will ignore if it is null
      *
      * @param id the id of the comment to save.
+     * @param ifMatch the {@code ETag} of the version of the comment to update, if any.
      * @param comment the comment to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated comment,
      * or with status {@code 400 (Bad Request)} if the comment is not valid,
-     * or with status {@code 404 (Not Found)} if the comment is not found,
+     * or with status {@code 409 (Conflict)} if the version of the comment is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the comment,
      * or with status {@code 500 (Internal Server Error)} if the comment couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/comments/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<Comment> partialUpdateComment(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody Comment comment
     ) throws URISyntaxException {
         log.debug("REST request to partial update Comment partially : {}, {}", id, comment);
@@ -122,35 +161,44 @@ public class CommentResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!commentRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<Comment> result = commentService.partialUpdate(comment);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, comment.getId().toString())
-        );
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(comment::setVersion);
+        Comment result = commentService
+            .partialUpdate(comment)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, comment.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
+            .body(result);
     }
 
     /**
      * {@code GET  /comments} : get all the comments.
      *
      * @param pageable the pagination information.
+     * @param count how to count the comments: {@code none}, {@code estimate} or {@code exact} (the default).
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of comments in body.
      */
     @GetMapping("/comments")
-    public ResponseEntity<List<Comment>> getAllComments(Pageable pageable) {
+    public ResponseEntity<List<Comment>> getAllComments(
+        Pageable pageable,
+        @RequestParam(value = SlicePaginationUtil.COUNT_PARAM, required = false) String count
+    ) {
         log.debug("REST request to get a page of Comments");
-        Page<Comment> page = commentService.findAll(pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        CountMode countMode = CountMode
+            .fromParameter(count)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid count mode", ENTITY_NAME, "countinvalid"));
+        Slice<Comment> page = commentService.findAll(pageable, countMode);
+        HttpHeaders headers = SlicePaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
     /**
      * {@code GET  /comments/:id} : get the "id" comment.
      *
+     * <p>
+     * The {@code ETag} of the comment holds its version and the version of its task, which is embedded in the comment.
+     *
      * @param id the id of the comment to retrieve.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the comment, or with status {@code 404 (Not Found)}.
      */
@@ -158,7 +206,7 @@ public class CommentResource {
     public ResponseEntity<Comment> getComment(@PathVariable Long id) {
         log.debug("REST request to get Comment : {}", id);
         Optional<Comment> comment = commentService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(comment);
+        return ETagUtil.wrapOrNotFoundWithETag(comment, CommentResource::toETag, new HttpHeaders());
     }
 
     /**
@@ -176,4 +224,30 @@ public class CommentResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    /**
+     * {@code GET  /_search/comments?q=:query} : search for the comments matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of comments in body.
+     */
+    @GetMapping("/_search/comments")
+    public ResponseEntity<List<Comment>> searchComments(@RequestParam("q") String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Comments for query {}", query);
+        Page<Comment> page = commentService.search(query, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * @return the entity tag of the comment, with the version of the task embedded in its body.
+     */
+    private static String toETag(Comment comment) {
+        Task task = comment.getTask();
+        if (task == null) {
+            return ETagUtil.toETag(comment.getVersion());
+        }
+        return ETagUtil.toETag(comment.getVersion(), task.getId(), task.getVersion());
+    }
 }
@@ -3,6 +3,7 @@ package ru.bjcreslin.web.rest;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -10,20 +11,23 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ru.bjcreslin.domain.Message;
-import ru.bjcreslin.repository.MessageRepository;
+import ru.bjcreslin.service.CountMode;
 import ru.bjcreslin.service.MessageQueryService;
 import ru.bjcreslin.service.MessageService;
 import ru.bjcreslin.service.criteria.MessageCriteria;
+import ru.bjcreslin.service.dto.Fieldset;
 import ru.bjcreslin.web.rest.errors.BadRequestAlertException;
+import ru.bjcreslin.web.rest.util.ETagUtil;
+import ru.bjcreslin.web.rest.util.SlicePaginationUtil;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link ru.bjcreslin.domain.Message}.
@@ -41,13 +45,10 @@ public class MessageResource {
 
     private final MessageService messageService;
 
-    private final MessageRepository messageRepository;
-
     private final MessageQueryService messageQueryService;
 
-    public MessageResource(MessageService messageService, MessageRepository messageRepository, MessageQueryService messageQueryService) {
+    public MessageResource(MessageService messageService, MessageQueryService messageQueryService) {
         this.messageService = messageService;
-        this.messageRepository = messageRepository;
         this.messageQueryService = messageQueryService;
     }
 
@@ -75,15 +76,21 @@ public class MessageResource {
      * {@code PUT  /messages/:id} : Updates an existing message.
      *
      * @param id the id of the message to save.
+     * @param ifMatch the {@code ETag} of the version of the message to update, if any.
      * @param message the message to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated message,
      * or with status {@code 400 (Bad Request)} if the message is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the message is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the message,
      * or with status {@code 500 (Internal Server Error)} if the message couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/messages/{id}")
-    public ResponseEntity<Message> updateMessage(@PathVariable(value = "id", required = false) final Long id, @RequestBody Message message)
-        throws URISyntaxException {
+    public ResponseEntity<Message> updateMessage(
+        @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @RequestBody Message message
+    ) throws URISyntaxException {
         log.debug("REST request to update Message : {}, {}", id, message);
         if (message.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -92,14 +99,14 @@ public class MessageResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!messageRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Message result = messageService.save(message);
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(message::setVersion);
+        Message result = messageService
+            .update(message)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, message.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
             .body(result);
     }
 
@@ -107,16 +114,19 @@ public class MessageResource {
      * {@code PATCH  /messages/:id} : Partial updates given fields of an existing message, field will ignore if it is null
      *
      * @param id the id of the message to save.
+     * @param ifMatch the {@code ETag} of the version of the message to update, if any.
      * @param message the message to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated message,
      * or with status {@code 400 (Bad Request)} if the message is not valid,
-     * or with status {@code 404 (Not Found)} if the message is not found,
+     * or with status {@code 409 (Conflict)} if the version of the message is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the message,
      * or with status {@code 500 (Internal Server Error)} if the message couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/messages/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<Message> partialUpdateMessage(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @RequestBody Message message
     ) throws URISyntaxException {
         log.debug("REST request to partial update Message partially : {}, {}", id, message);
@@ -127,16 +137,15 @@ public class MessageResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!messageRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<Message> result = messageService.partialUpdate(message);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, message.getId().toString())
-        );
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(message::setVersion);
+        Message result = messageService
+            .partialUpdate(message)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, message.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
+            .body(result);
     }
 
     /**
@@ -144,13 +153,49 @@ public class MessageResource {
      *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param count how to count the messages: {@code none}, {@code estimate} or {@code exact} (the default).
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of messages in body.
      */
     @GetMapping("/messages")
-    public ResponseEntity<List<Message>> getAllMessages(MessageCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Message>> getAllMessages(
+        MessageCriteria criteria,
+        Pageable pageable,
+        @RequestParam(value = SlicePaginationUtil.COUNT_PARAM, required = false) String count
+    ) {
         log.debug("REST request to get Messages by criteria: {}", criteria);
-        Page<Message> page = messageQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        CountMode countMode = CountMode
+            .fromParameter(count)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid count mode", ENTITY_NAME, "countinvalid"));
+        Slice<Message> page = messageQueryService.findByCriteria(criteria, pageable, countMode);
+        HttpHeaders headers = SlicePaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /messages?fields=:fields} : get the requested fields of all the messages.
+     *
+     * <p>
+     * Only the columns of the requested fields are read from the database and written to the response.
+     *
+     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
+     * @param fields the comma-separated fields to return, an attribute of a single-valued association being {@code association.attribute}.
+     * @param count how to count the messages: {@code none}, {@code estimate} or {@code exact} (the default).
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of messages, restricted to the requested fields, in body.
+     */
+    @GetMapping(value = "/messages", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllMessageFields(
+        MessageCriteria criteria,
+        Pageable pageable,
+        @RequestParam("fields") String fields,
+        @RequestParam(value = SlicePaginationUtil.COUNT_PARAM, required = false) String count
+    ) {
+        log.debug("REST request to get fields {} of Messages by criteria: {}", fields, criteria);
+        CountMode countMode = CountMode
+            .fromParameter(count)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid count mode", ENTITY_NAME, "countinvalid"));
+        Slice<Map<String, Object>> page = messageQueryService.findByCriteria(criteria, Fieldset.parse(fields), pageable, countMode);
+        HttpHeaders headers = SlicePaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -176,7 +221,7 @@ public class MessageResource {
     public ResponseEntity<Message> getMessage(@PathVariable Long id) {
         log.debug("REST request to get Message : {}", id);
         Optional<Message> message = messageService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(message);
+        return ETagUtil.wrapOrNotFound(message, Message::getVersion, new HttpHeaders());
     }
 
     /**
@@ -194,4 +239,19 @@ public class MessageResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    /**
+     * {@code GET  /_search/messages?q=:query} : search for the messages matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of messages in body.
+     */
+    @GetMapping("/_search/messages")
+    public ResponseEntity<List<Message>> searchMessages(@RequestParam("q") String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Messages for query {}", query);
+        Page<Message> page = messageService.search(query, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
 }
@@ -1,10 +1,15 @@
 package ru.bjcreslin.web.rest;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -12,17 +17,31 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import ru.bjcreslin.domain.Project;
-import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.service.CountMode;
 import ru.bjcreslin.service.ProjectQueryService;
 import ru.bjcreslin.service.ProjectService;
+import ru.bjcreslin.service.ProjectTaskCountService;
 import ru.bjcreslin.service.criteria.ProjectCriteria;
+import ru.bjcreslin.service.dto.Fieldset;
+import ru.bjcreslin.service.dto.KeysetCursor;
+import ru.bjcreslin.service.dto.ProjectStatsDTO;
 import ru.bjcreslin.web.rest.errors.BadRequestAlertException;
+import ru.bjcreslin.web.rest.util.ETagUtil;
+import ru.bjcreslin.web.rest.util.ExportExecutor;
+import ru.bjcreslin.web.rest.util.ExportUtil;
+import ru.bjcreslin.web.rest.util.KeysetPaginationUtil;
+import ru.bjcreslin.web.rest.util.SlicePaginationUtil;
+import ru.bjcreslin.web.rest.vm.BulkImportVM;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
 import tech.jhipster.web.util.ResponseUtil;
@@ -38,19 +57,44 @@ public class ProjectResource {
 
     private static final String ENTITY_NAME = "project";
 
+    private static final int MAX_STATS_IDS = 1000;
+
+    private static final List<ExportUtil.Column<Project>> EXPORT_COLUMNS = List.of(
+        ExportUtil.column("id", Project::getId),
+        ExportUtil.column("projectUrl", Project::getProjectUrl),
+        ExportUtil.column("description", Project::getDescription),
+        ExportUtil.column("projectName", Project::getProjectName),
+        ExportUtil.column("comment", Project::getComment),
+        ExportUtil.column("status", Project::getStatus),
+        ExportUtil.column("created", Project::getCreated),
+        ExportUtil.column("edited", Project::getEdited)
+    );
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final ProjectService projectService;
 
-    private final ProjectRepository projectRepository;
-
     private final ProjectQueryService projectQueryService;
 
-    public ProjectResource(ProjectService projectService, ProjectRepository projectRepository, ProjectQueryService projectQueryService) {
+    private final ProjectTaskCountService projectTaskCountService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ExportExecutor exportExecutor;
+
+    public ProjectResource(
+        ProjectService projectService,
+        ProjectQueryService projectQueryService,
+        ProjectTaskCountService projectTaskCountService,
+        ObjectMapper objectMapper,
+        ExportExecutor exportExecutor
+    ) {
         this.projectService = projectService;
-        this.projectRepository = projectRepository;
         this.projectQueryService = projectQueryService;
+        this.projectTaskCountService = projectTaskCountService;
+        this.objectMapper = objectMapper;
+        this.exportExecutor = exportExecutor;
     }
 
     /**
@@ -73,19 +117,43 @@ public class ProjectResource {
             .body(result);
     }
 
+    /**
+     * {@code POST  /projects/bulk} : Create new projects in bulk.
+     *
+     * <p>
+     * The projects are read from a JSON array, or from newline-delimited JSON, and validated as they are read. They are
+     * created in chunks of a transaction each: when a row fails, the chunks before it are kept.
+     *
+     * @param body the projects to create, without IDs.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the number of created projects, or with status {@code 400 (Bad Request)} if a row is not valid.
+     * @throws IOException if the request body can't be read.
+     */
+    @PostMapping(value = "/projects/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, ExportUtil.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkImportVM> createProjects(InputStream body) throws IOException {
+        log.debug("REST request to save Projects in bulk");
+        try (MappingIterator<Project> projects = objectMapper.readerFor(Project.class).readValues(body)) {
+            long created = projectService.saveAll(projects);
+            return ResponseEntity.status(HttpStatus.CREATED).body(new BulkImportVM(created));
+        }
+    }
+
     /**
      * {@code PUT  /projects/:id} : Updates an existing project.
      *
      * @param id the id of the project to save.
+     * @param ifMatch the {@code ETag} of the version of the project to update, if any.
      * @param project the project to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated project,
      * or with status {@code 400 (Bad Request)} if the project is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the project is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the project,
      * or with status {@code 500 (Internal Server Error)} if the project couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/projects/{id}")
     public ResponseEntity<Project> updateProject(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody Project project
     ) throws URISyntaxException {
         log.debug("REST request to update Project : {}, {}", id, project);
@@ -96,14 +164,14 @@ public class ProjectResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!projectRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Project result = projectService.save(project);
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(project::setVersion);
+        Project result = projectService
+            .update(project)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, project.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
             .body(result);
     }
 
@@ -111,16 +179,19 @@ public class ProjectResource {
      * {@code PATCH  /projects/:id} : Partial updates given fields of an existing project, field will ignore if it is null
      *
      * @param id the id of the project to save.
+     * @param ifMatch the {@code ETag} of the version of the project to update, if any.
      * @param project the project to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated project,
      * or with status {@code 400 (Bad Request)} if the project is not valid,
-     * or with status {@code 404 (Not Found)} if the project is not found,
+     * or with status {@code 409 (Conflict)} if the version of the project is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the project,
      * or with status {@code 500 (Internal Server Error)} if the project couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/projects/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<Project> partialUpdateProject(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Project project
     ) throws URISyntaxException {
         log.debug("REST request to partial update Project partially : {}, {}", id, project);
@@ -131,30 +202,97 @@ public class ProjectResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!projectRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<Project> result = projectService.partialUpdate(project);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, project.getId().toString())
-        );
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(project::setVersion);
+        Project result = projectService
+            .partialUpdate(project)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, project.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
+            .body(result);
     }
 
     /**
      * {@code GET  /projects} : get all the projects.
      *
+     * <p>
+     * When the {@code after} parameter is present, even empty, keyset pagination is used instead of page numbers:
+     * the slice starts right after the given cursor and the {@code Link} header holds the cursor of the next slice.
+     *
+     * <p>
+     * The list has a weak {@code ETag}: a request with a matching {@code If-None-Match} header gets a
+     * {@code 304 (Not Modified)}, without the list in body.
+     *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset cursor to start after, empty for the first slice.
+     * @param count how to count the projects: {@code none}, {@code estimate} or {@code exact} (the default).
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of projects in body.
      */
     @GetMapping("/projects")
-    public ResponseEntity<List<Project>> getAllProjects(ProjectCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Project>> getAllProjects(
+        ProjectCriteria criteria,
+        Pageable pageable,
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAM, required = false) String after,
+        @RequestParam(value = SlicePaginationUtil.COUNT_PARAM, required = false) String count
+    ) {
         log.debug("REST request to get Projects by criteria: {}", criteria);
-        Page<Project> page = projectQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        if (after != null) {
+            KeysetCursor cursor = after.isEmpty() ? null : KeysetCursor.decode(after);
+            Slice<Project> slice = projectQueryService.findByCriteria(criteria, pageable.getSort(), pageable.getPageSize(), cursor);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                projectQueryService.nextCursor(slice)
+            );
+            return ResponseEntity
+                .ok()
+                .headers(headers)
+                .eTag(ETagUtil.toWeakETag(slice.getContent(), Project::getId, Project::getVersion, Project::getEdited))
+                .body(slice.getContent());
+        }
+        CountMode countMode = CountMode
+            .fromParameter(count)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid count mode", ENTITY_NAME, "countinvalid"));
+        Slice<Project> page = projectQueryService.findByCriteria(criteria, pageable, countMode);
+        HttpHeaders headers = SlicePaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity
+            .ok()
+            .headers(headers)
+            .eTag(ETagUtil.toWeakETag(page.getContent(), Project::getId, Project::getVersion, Project::getEdited))
+            .body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /projects?fields=:fields} : get the requested fields of all the projects.
+     *
+     * <p>
+     * Only the columns of the requested fields are read from the database and written to the response.
+     *
+     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
+     * @param fields the comma-separated fields to return, an attribute of a single-valued association being {@code association.attribute}.
+     * @param after not supported with sparse fieldsets.
+     * @param count how to count the projects: {@code none}, {@code estimate} or {@code exact} (the default).
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of projects, restricted to the requested fields, in body.
+     */
+    @GetMapping(value = "/projects", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllProjectFields(
+        ProjectCriteria criteria,
+        Pageable pageable,
+        @RequestParam("fields") String fields,
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAM, required = false) String after,
+        @RequestParam(value = SlicePaginationUtil.COUNT_PARAM, required = false) String count
+    ) {
+        log.debug("REST request to get fields {} of Projects by criteria: {}", fields, criteria);
+        if (after != null) {
+            throw new BadRequestAlertException("Sparse fieldsets can't be used with keyset pagination", ENTITY_NAME, "fieldsinvalid");
+        }
+        CountMode countMode = CountMode
+            .fromParameter(count)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid count mode", ENTITY_NAME, "countinvalid"));
+        Slice<Map<String, Object>> page = projectQueryService.findByCriteria(criteria, Fieldset.parse(fields), pageable, countMode);
+        HttpHeaders headers = SlicePaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -170,17 +308,85 @@ public class ProjectResource {
         return ResponseEntity.ok().body(projectQueryService.countByCriteria(criteria));
     }
 
+    /**
+     * {@code GET  /projects/export} : export all the projects, streamed as they are read from the database.
+     *
+     * <p>
+     * The projects are written as newline-delimited JSON, or as CSV with {@code format=csv} or an {@code Accept: text/csv} header.
+     *
+     * @param criteria the criteria which the exported entities should match.
+     * @param sort the sort order, by id by default.
+     * @param format the format of the export: {@code ndjson} (the default) or {@code csv}.
+     * @param accept the accepted media types, used when no format is given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the projects in body, as an attachment, or with status
+     * {@code 503 (Service Unavailable)} if too many exports are running.
+     */
+    @GetMapping("/projects/export")
+    public ResponseEntity<ResponseBodyEmitter> exportProjects(
+        ProjectCriteria criteria,
+        Sort sort,
+        @RequestParam(value = ExportUtil.FORMAT_PARAM, required = false) String format,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        log.debug("REST request to export Projects by criteria: {}", criteria);
+        ExportUtil.Format exportFormat = ExportUtil
+            .resolveFormat(format, accept)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid export format", ENTITY_NAME, "formatinvalid"));
+        return ExportUtil.generateExportResponse(
+            exportExecutor,
+            "projects",
+            exportFormat,
+            objectMapper,
+            EXPORT_COLUMNS,
+            writer -> projectQueryService.exportByCriteria(criteria, sort, writer)
+        );
+    }
+
     /**
      * {@code GET  /projects/:id} : get the "id" project.
      *
+     * <p>
+     * A request with an {@code If-None-Match} header is answered from the version of the project when it didn't change,
+     * without loading it. The edition date is set by the clients, so it is not a {@code Last-Modified} date.
+     *
      * @param id the id of the project to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the project, or with status {@code 404 (Not Found)}.
+     * @param requestHeaders the headers of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the project, or with status {@code 304 (Not Modified)},
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/projects/{id}")
-    public ResponseEntity<Project> getProject(@PathVariable Long id) {
+    public ResponseEntity<Project> getProject(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
         log.debug("REST request to get Project : {}", id);
-        Optional<Project> project = projectService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(project);
+        return ETagUtil
+            .<Project>notModified(requestHeaders, () -> projectService.findVersion(id))
+            .orElseGet(() -> ETagUtil.wrapOrNotFound(projectService.findOne(id), Project::getVersion, new HttpHeaders()));
+    }
+
+    /**
+     * {@code GET  /projects/:id/stats} : get the number of tasks of the "id" project by status.
+     *
+     * @param id the id of the project.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the task counts, or with status {@code 404 (Not Found)}.
+     */
+    @GetMapping("/projects/{id}/stats")
+    public ResponseEntity<ProjectStatsDTO> getProjectStats(@PathVariable Long id) {
+        log.debug("REST request to get the stats of Project : {}", id);
+        return ResponseUtil.wrapOrNotFound(projectTaskCountService.findStats(List.of(id)).stream().findFirst());
+    }
+
+    /**
+     * {@code GET  /projects/stats?ids=:ids} : get the number of tasks by status of several projects at once.
+     *
+     * @param ids the ids of the projects, at most 1000.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the task counts of the existing projects in body.
+     */
+    @GetMapping("/projects/stats")
+    public ResponseEntity<List<ProjectStatsDTO>> getProjectsStats(@RequestParam("ids") Set<Long> ids) {
+        log.debug("REST request to get the stats of Projects : {}", ids);
+        if (ids.size() > MAX_STATS_IDS) {
+            throw new BadRequestAlertException("At most " + MAX_STATS_IDS + " projects can be requested", ENTITY_NAME, "idsinvalid");
+        }
+        return ResponseEntity.ok().body(projectTaskCountService.findStats(ids));
     }
 
     /**
@@ -198,4 +404,19 @@ public class ProjectResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    /**
+     * {@code GET  /_search/projects?q=:query} : search for the projects matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of projects in body.
+     */
+    @GetMapping("/_search/projects")
+    public ResponseEntity<List<Project>> searchProjects(@RequestParam("q") String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Projects for query {}", query);
+        Page<Project> page = projectService.search(query, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
 }
@@ -1,10 +1,14 @@
 package ru.bjcreslin.web.rest;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
@@ -12,20 +16,34 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import ru.bjcreslin.domain.Project;
 import ru.bjcreslin.domain.Task;
-import ru.bjcreslin.repository.TaskRepository;
+import ru.bjcreslin.service.CountMode;
 import ru.bjcreslin.service.TaskQueryService;
 import ru.bjcreslin.service.TaskService;
 import ru.bjcreslin.service.criteria.TaskCriteria;
+import ru.bjcreslin.service.dto.BulkUpdateResultDTO;
+import ru.bjcreslin.service.dto.Fieldset;
+import ru.bjcreslin.service.dto.KeysetCursor;
 import ru.bjcreslin.web.rest.errors.BadRequestAlertException;
+import ru.bjcreslin.web.rest.util.ETagUtil;
+import ru.bjcreslin.web.rest.util.ExportExecutor;
+import ru.bjcreslin.web.rest.util.ExportUtil;
+import ru.bjcreslin.web.rest.util.KeysetPaginationUtil;
+import ru.bjcreslin.web.rest.util.SlicePaginationUtil;
+import ru.bjcreslin.web.rest.vm.BulkImportVM;
+import ru.bjcreslin.web.rest.vm.BulkPatchVM;
 import tech.jhipster.web.util.HeaderUtil;
 import tech.jhipster.web.util.PaginationUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link ru.bjcreslin.domain.Task}.
@@ -38,19 +56,40 @@ public class TaskResource {
 
     private static final String ENTITY_NAME = "task";
 
+    private static final List<ExportUtil.Column<Task>> EXPORT_COLUMNS = List.of(
+        ExportUtil.column("id", Task::getId),
+        ExportUtil.column("author", Task::getAuthor),
+        ExportUtil.column("implementer", Task::getImplementer),
+        ExportUtil.column("name", Task::getName),
+        ExportUtil.column("text", Task::getText),
+        ExportUtil.column("comment", Task::getComment),
+        ExportUtil.column("status", Task::getStatus),
+        ExportUtil.column("created", Task::getCreated),
+        ExportUtil.column("edited", Task::getEdited),
+        ExportUtil.column("project.id", task -> task.getProject() == null ? null : task.getProject().getId())
+    );
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final TaskService taskService;
 
-    private final TaskRepository taskRepository;
-
     private final TaskQueryService taskQueryService;
 
-    public TaskResource(TaskService taskService, TaskRepository taskRepository, TaskQueryService taskQueryService) {
+    private final ObjectMapper objectMapper;
+
+    private final ExportExecutor exportExecutor;
+
+    public TaskResource(
+        TaskService taskService,
+        TaskQueryService taskQueryService,
+        ObjectMapper objectMapper,
+        ExportExecutor exportExecutor
+    ) {
         this.taskService = taskService;
-        this.taskRepository = taskRepository;
         this.taskQueryService = taskQueryService;
+        this.objectMapper = objectMapper;
+        this.exportExecutor = exportExecutor;
     }
 
     /**
@@ -73,19 +112,45 @@ public class TaskResource {
             .body(result);
     }
 
+    /**
+     * {@code POST  /tasks/bulk} : Create new tasks in bulk.
+     *
+     * <p>
+     * The tasks are read from a JSON array, or from newline-delimited JSON, and validated as they are read. They are
+     * created in chunks of a transaction each: when a row fails, the chunks before it are kept.
+     *
+     * @param body the tasks to create, without IDs.
+     * @return the {@link ResponseEntity} with status {@code 201 (Created)} and with body the number of created tasks, or with status {@code 400 (Bad Request)} if a row is not valid.
+     * @throws IOException if the request body can't be read.
+     */
+    @PostMapping(value = "/tasks/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, ExportUtil.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<BulkImportVM> createTasks(InputStream body) throws IOException {
+        log.debug("REST request to save Tasks in bulk");
+        try (MappingIterator<Task> tasks = objectMapper.readerFor(Task.class).readValues(body)) {
+            long created = taskService.saveAll(tasks);
+            return ResponseEntity.status(HttpStatus.CREATED).body(new BulkImportVM(created));
+        }
+    }
+
     /**
      * {@code PUT  /tasks/:id} : Updates an existing task.
      *
      * @param id the id of the task to save.
+     * @param ifMatch the {@code ETag} of the version of the task to update, if any.
      * @param task the task to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated task,
      * or with status {@code 400 (Bad Request)} if the task is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the task is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the task,
      * or with status {@code 500 (Internal Server Error)} if the task couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/tasks/{id}")
-    public ResponseEntity<Task> updateTask(@PathVariable(value = "id", required = false) final Long id, @Valid @RequestBody Task task)
-        throws URISyntaxException {
+    public ResponseEntity<Task> updateTask(
+        @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @Valid @RequestBody Task task
+    ) throws URISyntaxException {
         log.debug("REST request to update Task : {}, {}", id, task);
         if (task.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -94,14 +159,14 @@ public class TaskResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!taskRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Task result = taskService.save(task);
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(task::setVersion);
+        Task result = taskService
+            .update(task)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, task.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
             .body(result);
     }
 
@@ -109,16 +174,19 @@ public class TaskResource {
      * {@code PATCH  /tasks/:id} : Partial updates given fields of an existing task, field will ignore if it is null
      *
      * @param id the id of the task to save.
+     * @param ifMatch the {@code ETag} of the version of the task to update, if any.
      * @param task the task to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated task,
      * or with status {@code 400 (Bad Request)} if the task is not valid,
-     * or with status {@code 404 (Not Found)} if the task is not found,
+     * or with status {@code 409 (Conflict)} if the version of the task is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the task,
      * or with status {@code 500 (Internal Server Error)} if the task couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/tasks/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<Task> partialUpdateTask(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody Task task
     ) throws URISyntaxException {
         log.debug("REST request to partial update Task partially : {}, {}", id, task);
@@ -129,30 +197,134 @@ public class TaskResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!taskRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<Task> result = taskService.partialUpdate(task);
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(task::setVersion);
+        Task result = taskService
+            .partialUpdate(task)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, task.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
+            .body(result);
+    }
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, task.getId().toString())
-        );
+    /**
+     * {@code PATCH  /tasks/bulk} : Partial updates given fields of many tasks in one transaction, field will ignore if it is null
+     *
+     * <p>
+     * The body holds either the {@code updates} of tasks, each with its id and, to skip it if the task was updated since,
+     * its version; or one {@code patch} applied to all the tasks matching the criteria, which can't be empty.
+     *
+     * @param criteria the criteria which the tasks to patch should match.
+     * @param bulkPatch the updates, or the patch.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the outcome of every task,
+     * or with status {@code 400 (Bad Request)} if the request is not valid or holds or matches too many tasks.
+     */
+    @PatchMapping(value = "/tasks/bulk", consumes = "application/merge-patch+json")
+    public ResponseEntity<List<BulkUpdateResultDTO>> partialUpdateTasks(
+        TaskCriteria criteria,
+        @NotNull @RequestBody BulkPatchVM<Task> bulkPatch
+    ) {
+        log.debug("REST request to partial update Tasks in bulk : {}, {}", criteria, bulkPatch);
+        boolean filtered = !criteria.equals(new TaskCriteria());
+        List<BulkUpdateResultDTO> result;
+        if (bulkPatch.getUpdates() != null && bulkPatch.getPatch() == null && !filtered) {
+            if (bulkPatch.getUpdates().stream().anyMatch(task -> task == null || task.getId() == null)) {
+                throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
+            }
+            result = taskService.partialUpdateAll(bulkPatch.getUpdates());
+        } else if (bulkPatch.getPatch() != null && bulkPatch.getUpdates() == null && filtered) {
+            result = taskService.partialUpdateAll(criteria, bulkPatch.getPatch());
+        } else {
+            throw new BadRequestAlertException("Either updates, or a patch and criteria are required", ENTITY_NAME, "bulkpatchinvalid");
+        }
+        long updated = result.stream().filter(outcome -> outcome.getOutcome() == BulkUpdateResultDTO.Outcome.UPDATED).count();
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, Long.toString(updated)))
+            .body(result);
     }
 
     /**
      * {@code GET  /tasks} : get all the tasks.
      *
+     * <p>
+     * When the {@code after} parameter is present, even empty, keyset pagination is used instead of page numbers:
+     * the slice starts right after the given cursor and the {@code Link} header holds the cursor of the next slice.
+     *
+     * <p>
+     * The list has a weak {@code ETag}: a request with a matching {@code If-None-Match} header gets a
+     * {@code 304 (Not Modified)}, without the list in body.
+     *
      * @param pageable the pagination information.
      * @param criteria the criteria which the requested entities should match.
+     * @param after the keyset cursor to start after, empty for the first slice.
+     * @param count how to count the tasks: {@code none}, {@code estimate} or {@code exact} (the default).
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tasks in body.
      */
     @GetMapping("/tasks")
-    public ResponseEntity<List<Task>> getAllTasks(TaskCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<Task>> getAllTasks(
+        TaskCriteria criteria,
+        Pageable pageable,
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAM, required = false) String after,
+        @RequestParam(value = SlicePaginationUtil.COUNT_PARAM, required = false) String count
+    ) {
         log.debug("REST request to get Tasks by criteria: {}", criteria);
-        Page<Task> page = taskQueryService.findByCriteria(criteria, pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        if (after != null) {
+            KeysetCursor cursor = after.isEmpty() ? null : KeysetCursor.decode(after);
+            Slice<Task> slice = taskQueryService.findByCriteria(criteria, pageable.getSort(), pageable.getPageSize(), cursor);
+            HttpHeaders headers = KeysetPaginationUtil.generateKeysetHttpHeaders(
+                ServletUriComponentsBuilder.fromCurrentRequest(),
+                taskQueryService.nextCursor(slice)
+            );
+            return ResponseEntity
+                .ok()
+                .headers(headers)
+                .eTag(ETagUtil.toWeakETag(slice.getContent(), Task::getId, TaskResource::toETag, Task::getEdited))
+                .body(slice.getContent());
+        }
+        CountMode countMode = CountMode
+            .fromParameter(count)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid count mode", ENTITY_NAME, "countinvalid"));
+        Slice<Task> page = taskQueryService.findByCriteria(criteria, pageable, countMode);
+        HttpHeaders headers = SlicePaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity
+            .ok()
+            .headers(headers)
+            .eTag(ETagUtil.toWeakETag(page.getContent(), Task::getId, TaskResource::toETag, Task::getEdited))
+            .body(page.getContent());
+    }
+
+    /**
+     * {@code GET  /tasks?fields=:fields} : get the requested fields of all the tasks.
+     *
+     * <p>
+     * Only the columns of the requested fields are read from the database and written to the response.
+     *
+     * @param pageable the pagination information.
+     * @param criteria the criteria which the requested entities should match.
+     * @param fields the comma-separated fields to return, an attribute of a single-valued association being {@code association.attribute}.
+     * @param after not supported with sparse fieldsets.
+     * @param count how to count the tasks: {@code none}, {@code estimate} or {@code exact} (the default).
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tasks, restricted to the requested fields, in body.
+     */
+    @GetMapping(value = "/tasks", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllTaskFields(
+        TaskCriteria criteria,
+        Pageable pageable,
+        @RequestParam("fields") String fields,
+        @RequestParam(value = KeysetPaginationUtil.AFTER_PARAM, required = false) String after,
+        @RequestParam(value = SlicePaginationUtil.COUNT_PARAM, required = false) String count
+    ) {
+        log.debug("REST request to get fields {} of Tasks by criteria: {}", fields, criteria);
+        if (after != null) {
+            throw new BadRequestAlertException("Sparse fieldsets can't be used with keyset pagination", ENTITY_NAME, "fieldsinvalid");
+        }
+        CountMode countMode = CountMode
+            .fromParameter(count)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid count mode", ENTITY_NAME, "countinvalid"));
+        Slice<Map<String, Object>> page = taskQueryService.findByCriteria(criteria, Fieldset.parse(fields), pageable, countMode);
+        HttpHeaders headers = SlicePaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return ResponseEntity.ok().headers(headers).body(page.getContent());
     }
 
@@ -168,17 +340,65 @@ public class TaskResource {
         return ResponseEntity.ok().body(taskQueryService.countByCriteria(criteria));
     }
 
+    /**
+     * {@code GET  /tasks/export} : export all the tasks, streamed as they are read from the database.
+     *
+     * <p>
+     * The tasks are written as newline-delimited JSON, or as CSV with {@code format=csv} or an {@code Accept: text/csv} header.
+     *
+     * @param criteria the criteria which the exported entities should match.
+     * @param sort the sort order, by id by default.
+     * @param format the format of the export: {@code ndjson} (the default) or {@code csv}.
+     * @param accept the accepted media types, used when no format is given.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the tasks in body, as an attachment, or with status
+     * {@code 503 (Service Unavailable)} if too many exports are running.
+     */
+    @GetMapping("/tasks/export")
+    public ResponseEntity<ResponseBodyEmitter> exportTasks(
+        TaskCriteria criteria,
+        Sort sort,
+        @RequestParam(value = ExportUtil.FORMAT_PARAM, required = false) String format,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        log.debug("REST request to export Tasks by criteria: {}", criteria);
+        ExportUtil.Format exportFormat = ExportUtil
+            .resolveFormat(format, accept)
+            .orElseThrow(() -> new BadRequestAlertException("Invalid export format", ENTITY_NAME, "formatinvalid"));
+        return ExportUtil.generateExportResponse(
+            exportExecutor,
+            "tasks",
+            exportFormat,
+            objectMapper,
+            EXPORT_COLUMNS,
+            writer -> taskQueryService.exportByCriteria(criteria, sort, writer)
+        );
+    }
+
     /**
      * {@code GET  /tasks/:id} : get the "id" task.
      *
+     * <p>
+     * The {@code ETag} of the task holds its version and the version of its project, which is embedded in the task. A
+     * request with an {@code If-None-Match} header is answered from these versions when they didn't change, without
+     * loading the task. The edition date is set by the clients, so it is not a {@code Last-Modified} date.
+     *
      * @param id the id of the task to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the task, or with status {@code 404 (Not Found)}.
+     * @param requestHeaders the headers of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the task, or with status {@code 304 (Not Modified)},
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/tasks/{id}")
-    public ResponseEntity<Task> getTask(@PathVariable Long id) {
+    public ResponseEntity<Task> getTask(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
         log.debug("REST request to get Task : {}", id);
-        Optional<Task> task = taskService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(task);
+        return ETagUtil
+            .<Task>notModifiedWithETag(
+                requestHeaders,
+                () ->
+                    taskService
+                        .findVersion(id)
+                        .map(version -> ETagUtil.toETag(version.getVersion(), version.getProjectId(), version.getProjectVersion()))
+            )
+            .orElseGet(() -> ETagUtil.wrapOrNotFoundWithETag(taskService.findOne(id), TaskResource::toETag, new HttpHeaders()));
     }
 
     /**
@@ -196,4 +416,30 @@ public class TaskResource {
             .headers(HeaderUtil.createEntityDeletionAlert(applicationName, false, ENTITY_NAME, id.toString()))
             .build();
     }
+
+    /**
+     * {@code GET  /_search/tasks?q=:query} : search for the tasks matching the query, ranked by relevance.
+     *
+     * @param query the words to search for.
+     * @param pageable the pagination information.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of tasks in body.
+     */
+    @GetMapping("/_search/tasks")
+    public ResponseEntity<List<Task>> searchTasks(@RequestParam("q") String query, Pageable pageable) {
+        log.debug("REST request to search for a page of Tasks for query {}", query);
+        Page<Task> page = taskService.search(query, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
+        return ResponseEntity.ok().headers(headers).body(page.getContent());
+    }
+
+    /**
+     * @return the entity tag of the task, with the version of the project embedded in its body.
+     */
+    private static String toETag(Task task) {
+        Project project = task.getProject();
+        if (project == null) {
+            return ETagUtil.toETag(task.getVersion());
+        }
+        return ETagUtil.toETag(task.getVersion(), project.getId(), project.getVersion());
+    }
 }
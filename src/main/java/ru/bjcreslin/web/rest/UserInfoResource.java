@@ -3,23 +3,24 @@ package ru.bjcreslin.web.rest;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.bjcreslin.domain.UserInfo;
-import ru.bjcreslin.repository.UserInfoRepository;
 import ru.bjcreslin.service.UserInfoQueryService;
 import ru.bjcreslin.service.UserInfoService;
 import ru.bjcreslin.service.criteria.UserInfoCriteria;
+import ru.bjcreslin.service.dto.Fieldset;
 import ru.bjcreslin.web.rest.errors.BadRequestAlertException;
+import ru.bjcreslin.web.rest.util.ETagUtil;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link ru.bjcreslin.domain.UserInfo}.
@@ -37,17 +38,10 @@ public class UserInfoResource {
 
     private final UserInfoService userInfoService;
 
-    private final UserInfoRepository userInfoRepository;
-
     private final UserInfoQueryService userInfoQueryService;
 
-    public UserInfoResource(
-        UserInfoService userInfoService,
-        UserInfoRepository userInfoRepository,
-        UserInfoQueryService userInfoQueryService
-    ) {
+    public UserInfoResource(UserInfoService userInfoService, UserInfoQueryService userInfoQueryService) {
         this.userInfoService = userInfoService;
-        this.userInfoRepository = userInfoRepository;
         this.userInfoQueryService = userInfoQueryService;
     }
 
@@ -75,15 +69,19 @@ public class UserInfoResource {
      * {@code PUT  /user-infos/:id} : Updates an existing userInfo.
      *
      * @param id the id of the userInfo to save.
+     * @param ifMatch the {@code ETag} of the version of the userInfo to update, if any.
      * @param userInfo the userInfo to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated userInfo,
      * or with status {@code 400 (Bad Request)} if the userInfo is not valid,
+     * or with status {@code 409 (Conflict)} if the version of the userInfo is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the userInfo,
      * or with status {@code 500 (Internal Server Error)} if the userInfo couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/user-infos/{id}")
     public ResponseEntity<UserInfo> updateUserInfo(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @Valid @RequestBody UserInfo userInfo
     ) throws URISyntaxException {
         log.debug("REST request to update UserInfo : {}, {}", id, userInfo);
@@ -94,14 +92,14 @@ public class UserInfoResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!userInfoRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        UserInfo result = userInfoService.save(userInfo);
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(userInfo::setVersion);
+        UserInfo result = userInfoService
+            .update(userInfo)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, userInfo.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
             .body(result);
     }
 
@@ -109,16 +107,19 @@ public class UserInfoResource {
      * {@code PATCH  /user-infos/:id} : Partial updates given fields of an existing userInfo, field will ignore if it is null
      *
      * @param id the id of the userInfo to save.
+     * @param ifMatch the {@code ETag} of the version of the userInfo to update, if any.
      * @param userInfo the userInfo to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated userInfo,
      * or with status {@code 400 (Bad Request)} if the userInfo is not valid,
-     * or with status {@code 404 (Not Found)} if the userInfo is not found,
+     * or with status {@code 409 (Conflict)} if the version of the userInfo is not the current one,
+     * or with status {@code 412 (Precondition Failed)} if {@code ifMatch} is not the current version of the userInfo,
      * or with status {@code 500 (Internal Server Error)} if the userInfo couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/user-infos/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<UserInfo> partialUpdateUserInfo(
         @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
         @NotNull @RequestBody UserInfo userInfo
     ) throws URISyntaxException {
         log.debug("REST request to partial update UserInfo partially : {}, {}", id, userInfo);
@@ -129,21 +130,24 @@ public class UserInfoResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!userInfoRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
-        }
-
-        Optional<UserInfo> result = userInfoService.partialUpdate(userInfo);
-
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, userInfo.getId().toString())
-        );
+        ETagUtil.parseIfMatch(ifMatch).ifPresent(userInfo::setVersion);
+        UserInfo result = userInfoService
+            .partialUpdate(userInfo)
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, userInfo.getId().toString()))
+            .eTag(ETagUtil.toETag(result.getVersion()))
+            .body(result);
     }
 
     /**
      * {@code GET  /user-infos} : get all the userInfos.
      *
+     * <p>
+     * The list has a weak {@code ETag}: a request with a matching {@code If-None-Match} header gets a
+     * {@code 304 (Not Modified)}, without the list in body.
+     *
      * @param criteria the criteria which the requested entities should match.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userInfos in body.
      */
@@ -151,6 +155,29 @@ public class UserInfoResource {
     public ResponseEntity<List<UserInfo>> getAllUserInfos(UserInfoCriteria criteria) {
         log.debug("REST request to get UserInfos by criteria: {}", criteria);
         List<UserInfo> entityList = userInfoQueryService.findByCriteria(criteria);
+        return ResponseEntity
+            .ok()
+            .eTag(ETagUtil.toWeakETag(entityList, UserInfo::getId, UserInfo::getVersion, UserInfo::getEdited))
+            .body(entityList);
+    }
+
+    /**
+     * {@code GET  /user-infos?fields=:fields} : get the requested fields of all the userInfos.
+     *
+     * <p>
+     * Only the columns of the requested fields are read from the database and written to the response.
+     *
+     * @param criteria the criteria which the requested entities should match.
+     * @param fields the comma-separated fields to return.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of userInfos, restricted to the requested fields, in body.
+     */
+    @GetMapping(value = "/user-infos", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getAllUserInfoFields(
+        UserInfoCriteria criteria,
+        @RequestParam("fields") String fields
+    ) {
+        log.debug("REST request to get fields {} of UserInfos by criteria: {}", fields, criteria);
+        List<Map<String, Object>> entityList = userInfoQueryService.findByCriteria(criteria, Fieldset.parse(fields));
         return ResponseEntity.ok().body(entityList);
     }
 
@@ -169,14 +196,21 @@ public class UserInfoResource {
     /**
      * {@code GET  /user-infos/:id} : get the "id" userInfo.
      *
+     * <p>
+     * A request with an {@code If-None-Match} header is answered from the version of the userInfo when it didn't change,
+     * without loading it. The edition date is set by the clients, so it is not a {@code Last-Modified} date.
+     *
      * @param id the id of the userInfo to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the userInfo, or with status {@code 404 (Not Found)}.
+     * @param requestHeaders the headers of the request.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the userInfo, or with status {@code 304 (Not Modified)},
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/user-infos/{id}")
-    public ResponseEntity<UserInfo> getUserInfo(@PathVariable Long id) {
+    public ResponseEntity<UserInfo> getUserInfo(@PathVariable Long id, @RequestHeader HttpHeaders requestHeaders) {
         log.debug("REST request to get UserInfo : {}", id);
-        Optional<UserInfo> userInfo = userInfoService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(userInfo);
+        return ETagUtil
+            .<UserInfo>notModified(requestHeaders, () -> userInfoService.findVersion(id))
+            .orElseGet(() -> ETagUtil.wrapOrNotFound(userInfoService.findOne(id), UserInfo::getVersion, new HttpHeaders()));
     }
 
     /**
@@ -14,6 +14,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.validation.BindingResult;
@@ -150,6 +151,50 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         return create(new InvalidPasswordException(), request);
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidCursorException(ru.bjcreslin.service.InvalidCursorException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "keyset", "cursorinvalid"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleInvalidFieldsException(ru.bjcreslin.service.InvalidFieldsException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "fields", "fieldsinvalid"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleBulkImportException(ru.bjcreslin.service.BulkImportException ex, NativeWebRequest request) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.BAD_REQUEST)
+            .withTitle(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_BULK_IMPORT)
+            .with("row", ex.getRow())
+            .with("created", ex.getCreated())
+            .build();
+        return create(ex, problem, request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleBulkUpdateException(ru.bjcreslin.service.BulkUpdateException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "bulkUpdate", "bulkupdateinvalid"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePasswordHashingRejectedException(
+        ru.bjcreslin.security.PasswordHashingRejectedException ex,
+        NativeWebRequest request
+    ) {
+        Problem problem = Problem
+            .builder()
+            .withStatus(Status.SERVICE_UNAVAILABLE)
+            .withTitle(ex.getMessage())
+            .with(MESSAGE_KEY, ErrorConstants.ERR_PASSWORD_HASHING_REJECTED)
+            .build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, ru.bjcreslin.security.BoundedPasswordEncoder.RETRY_AFTER_SECONDS);
+        return create(ex, problem, request, headers);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleBadRequestAlertException(BadRequestAlertException ex, NativeWebRequest request) {
         return create(
@@ -161,6 +206,9 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
 
     @ExceptionHandler
     public ResponseEntity<Problem> handleConcurrencyFailure(ConcurrencyFailureException ex, NativeWebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_MATCH) != null) {
+            return create(new PreconditionFailedException(), request);
+        }
         Problem problem = Problem.builder().withStatus(Status.CONFLICT).with(MESSAGE_KEY, ErrorConstants.ERR_CONCURRENCY_FAILURE).build();
         return create(ex, problem, request);
     }
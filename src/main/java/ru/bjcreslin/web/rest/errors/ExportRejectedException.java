@@ -0,0 +1,25 @@
+package ru.bjcreslin.web.rest.errors;
+
+import java.util.Map;
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * Too many exports are being streamed or waiting for a thread to accept another one.
+ */
+public class ExportRejectedException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExportRejectedException() {
+        super(
+            ErrorConstants.DEFAULT_TYPE,
+            "Too many exports are running, please retry later",
+            Status.SERVICE_UNAVAILABLE,
+            null,
+            null,
+            null,
+            Map.of("message", ErrorConstants.ERR_EXPORT_REJECTED)
+        );
+    }
+}
@@ -0,0 +1,25 @@
+package ru.bjcreslin.web.rest.errors;
+
+import java.util.Map;
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+/**
+ * The {@code If-Match} precondition of a request doesn't hold: the entity was updated since the given version.
+ */
+public class PreconditionFailedException extends AbstractThrowableProblem {
+
+    private static final long serialVersionUID = 1L;
+
+    public PreconditionFailedException() {
+        super(
+            ErrorConstants.DEFAULT_TYPE,
+            "Precondition failed",
+            Status.PRECONDITION_FAILED,
+            null,
+            null,
+            null,
+            Map.of("message", ErrorConstants.ERR_PRECONDITION_FAILED)
+        );
+    }
+}
@@ -0,0 +1,187 @@
+package ru.bjcreslin.web.rest.util;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import ru.bjcreslin.repository.EntityVersion;
+import ru.bjcreslin.web.rest.errors.PreconditionFailedException;
+
+/**
+ * Utility class for the entity tags of the versioned entities.
+ *
+ * <p>
+ * The <a href="https://tools.ietf.org/html/rfc7232">{@code ETag}</a> of an entity is its version, as a strong entity
+ * tag. Sent back in an {@code If-Match} header, it makes an update conditional: the update only applies if the entity
+ * still has this version.
+ *
+ * <p>
+ * Sent back in an {@code If-None-Match} header, it makes a read conditional: the entity is only sent if its version
+ * changed, otherwise the response is a {@code 304 (Not Modified)}. The edition date of an entity is set by the clients
+ * and may stay the same through an update, so it is not sent as a {@code Last-Modified} date, and a request with an
+ * {@code If-Modified-Since} header alone gets the entity. A list of entities has a weak entity tag.
+ *
+ * <p>
+ * An entity embedding another one in its body, such as a task embedding its project, has the versions of both in its
+ * entity tag, so that the tag changes with either of them. Its update is only conditional on its own version.
+ */
+public final class ETagUtil {
+
+    private static final Pattern VERSION_TAG = Pattern.compile("\"(\\d{1,18})(?:-\\d{1,18}-\\d{1,18})?\"");
+
+    private ETagUtil() {}
+
+    /**
+     * @param version the version of an entity.
+     * @return the entity tag of this version.
+     */
+    public static String toETag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @param version the version of an entity.
+     * @param embeddedId the id of the entity embedded in its body, {@code null} if none.
+     * @param embeddedVersion the version of the embedded entity.
+     * @return the entity tag of these versions.
+     */
+    public static String toETag(Long version, Long embeddedId, Long embeddedVersion) {
+        if (embeddedId == null) {
+            return toETag(version);
+        }
+        return "\"" + version + "-" + embeddedId + "-" + embeddedVersion + "\"";
+    }
+
+    /**
+     * @param entities the entities of a list.
+     * @param id the getter of the id of an entity.
+     * @param version the getter of the version of an entity, or of its entity tag if it embeds another entity.
+     * @param edited the getter of the edition date of an entity.
+     * @param <X> the type of the entities.
+     * @return the weak entity tag of the list, from the number of entities, their latest edition date, and a hash of
+     * their ids and versions since the edition dates are set by the clients.
+     */
+    public static <X> String toWeakETag(
+        Collection<X> entities,
+        Function<X, Long> id,
+        Function<X, ?> version,
+        Function<X, ZonedDateTime> edited
+    ) {
+        long lastEdited = 0;
+        long hash = 1;
+        for (X entity : entities) {
+            ZonedDateTime entityEdited = edited.apply(entity);
+            if (entityEdited != null) {
+                lastEdited = Math.max(lastEdited, entityEdited.toInstant().toEpochMilli());
+            }
+            hash = 31 * hash + Long.hashCode(id.apply(entity));
+            hash = 31 * hash + version.apply(entity).hashCode();
+        }
+        return "W/\"" + entities.size() + "-" + lastEdited + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Parse the {@code If-Match} header of a request.
+     *
+     * @param ifMatch the header, {@code null} if missing.
+     * @return the version the entity must have, empty if any version does.
+     * @throws PreconditionFailedException if the header doesn't hold a single strong entity tag, which no entity could
+     * match.
+     */
+    public static Optional<Long> parseIfMatch(String ifMatch) {
+        if (ifMatch == null || "*".equals(ifMatch.trim())) {
+            return Optional.empty();
+        }
+        Matcher matcher = VERSION_TAG.matcher(ifMatch.trim());
+        if (!matcher.matches()) {
+            throw new PreconditionFailedException();
+        }
+        return Optional.of(Long.valueOf(matcher.group(1)));
+    }
+
+    /**
+     * Wrap an optional entity into a {@link ResponseEntity} with its {@code ETag}, or a {@code 404 (Not Found)}.
+     *
+     * @param maybeResponse the entity.
+     * @param version the getter of the version of the entity.
+     * @param headers the other headers of the response.
+     * @param <X> the type of the entity.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the entity in body.
+     * @throws ResponseStatusException with status {@code 404 (Not Found)} if the entity is empty.
+     */
+    public static <X> ResponseEntity<X> wrapOrNotFound(Optional<X> maybeResponse, Function<X, Long> version, HttpHeaders headers) {
+        return wrapOrNotFoundWithETag(maybeResponse, response -> toETag(version.apply(response)), headers);
+    }
+
+    /**
+     * Wrap an optional entity into a {@link ResponseEntity} with the given {@code ETag}, or a {@code 404 (Not Found)}.
+     *
+     * @param maybeResponse the entity.
+     * @param eTag the getter of the entity tag of the entity.
+     * @param headers the other headers of the response.
+     * @param <X> the type of the entity.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the entity in body.
+     * @throws ResponseStatusException with status {@code 404 (Not Found)} if the entity is empty.
+     */
+    public static <X> ResponseEntity<X> wrapOrNotFoundWithETag(Optional<X> maybeResponse, Function<X, String> eTag, HttpHeaders headers) {
+        return maybeResponse
+            .map(response -> ResponseEntity.ok().headers(headers).eTag(eTag.apply(response)).body(response))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Answer a conditional read of an entity from its version alone, without loading the entity.
+     *
+     * @param requestHeaders the headers of the request.
+     * @param version the lookup of the version of the entity, only called if the request is conditional.
+     * @param <X> the type of the entity.
+     * @return the {@link ResponseEntity} with status {@code 304 (Not Modified)} if the {@code If-None-Match} header holds
+     * the tag of the version, empty if the entity must be sent, or if it doesn't exist.
+     */
+    public static <X> Optional<ResponseEntity<X>> notModified(HttpHeaders requestHeaders, Supplier<Optional<EntityVersion>> version) {
+        return notModifiedWithETag(requestHeaders, () -> version.get().map(current -> toETag(current.getVersion())));
+    }
+
+    /**
+     * Answer a conditional read of an entity from its entity tag alone, without loading the entity.
+     *
+     * @param requestHeaders the headers of the request.
+     * @param eTag the lookup of the entity tag of the entity, only called if the request is conditional.
+     * @param <X> the type of the entity.
+     * @return the {@link ResponseEntity} with status {@code 304 (Not Modified)} if the {@code If-None-Match} header holds
+     * the entity tag, empty if the entity must be sent, or if it doesn't exist.
+     */
+    public static <X> Optional<ResponseEntity<X>> notModifiedWithETag(HttpHeaders requestHeaders, Supplier<Optional<String>> eTag) {
+        String ifNoneMatch = requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return Optional.empty();
+        }
+        return eTag
+            .get()
+            .filter(current -> matches(ifNoneMatch, current))
+            .map(current -> ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current).build());
+    }
+
+    /**
+     * @return whether the {@code If-None-Match} header holds the entity tag, compared weakly as for any read.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if ("*".equals(candidate) || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,140 @@
+package ru.bjcreslin.web.rest.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.bjcreslin.web.rest.errors.ExportRejectedException;
+
+/**
+ * Streams the exports on threads of their own and with a timeout of their own, rather than on the executor and with the
+ * timeout of all the asynchronous requests of Spring MVC.
+ * <p>
+ * The exports started while all the threads are busy wait in the bounded queue of the executor, and the ones which
+ * don't fit in it are rejected before their response is started. An export which times out is aborted on its next
+ * write.
+ */
+public class ExportExecutor {
+
+    /**
+     * Number of bytes sent to the client at a time.
+     */
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Logger log = LoggerFactory.getLogger(ExportExecutor.class);
+
+    private final AsyncTaskExecutor executor;
+
+    private final long timeoutMillis;
+
+    /**
+     * @param executor the executor running the exports, rejecting them when it is saturated.
+     * @param timeoutMillis the time after which an unfinished export is aborted.
+     */
+    public ExportExecutor(AsyncTaskExecutor executor, long timeoutMillis) {
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Start streaming the body of a response.
+     *
+     * @param body the writer of the body, run on a thread of the executor.
+     * @return the emitter of the body, completed once it is written.
+     * @throws ExportRejectedException if too many exports are running or waiting for a thread.
+     */
+    public ResponseBodyEmitter stream(StreamingResponseBody body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMillis);
+        EmitterOutputStream outputStream = new EmitterOutputStream(emitter);
+        emitter.onTimeout(outputStream::abort);
+        emitter.onError(error -> outputStream.abort());
+        try {
+            executor.execute(() -> write(body, outputStream, emitter));
+        } catch (TaskRejectedException e) {
+            throw new ExportRejectedException();
+        }
+        return emitter;
+    }
+
+    private void write(StreamingResponseBody body, EmitterOutputStream outputStream, ResponseBodyEmitter emitter) {
+        try {
+            body.writeTo(outputStream);
+            outputStream.flush();
+            emitter.complete();
+        } catch (IOException | RuntimeException e) {
+            if (outputStream.aborted) {
+                log.warn("Export aborted after {} ms", timeoutMillis);
+            } else {
+                log.warn("Export failed: {}", e.toString());
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    /**
+     * Sends what is written to the emitter in chunks, and fails once the response is aborted.
+     */
+    private static final class EmitterOutputStream extends OutputStream {
+
+        private final ResponseBodyEmitter emitter;
+
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+
+        private int count;
+
+        private volatile boolean aborted;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void abort() {
+            aborted = true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length - count) {
+                flush();
+            }
+            if (length >= buffer.length) {
+                send(Arrays.copyOfRange(bytes, offset, offset + length));
+            } else {
+                System.arraycopy(bytes, offset, buffer, count, length);
+                count += length;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                send(Arrays.copyOf(buffer, count));
+                count = 0;
+            }
+        }
+
+        private void send(byte[] chunk) throws IOException {
+            if (aborted) {
+                throw new IOException("The export was aborted");
+            }
+            try {
+                emitter.send(chunk);
+            } catch (IllegalStateException e) {
+                throw new IOException("The export was aborted", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package ru.bjcreslin.web.rest.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.bjcreslin.service.ExportWriter;
+
+/**
+ * Utility class for exporting all the entities of a listing as a file, streamed to the client as the entities are read
+ * from the database rather than held in memory.
+ *
+ * <p>
+ * The entities are written as newline-delimited JSON, one entity per line in the same JSON as the listing, or as CSV
+ * with the given columns. The text cells of a CSV export which a spreadsheet would take for a formula are prefixed with
+ * a {@code '}, so that they are shown as text.
+ */
+public final class ExportUtil {
+
+    public static final String FORMAT_PARAM = "format";
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private ExportUtil() {}
+
+    /**
+     * The formats of an export.
+     */
+    public enum Format {
+        NDJSON(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE), "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * A column of a CSV export.
+     *
+     * @param <T> the type of the exported entities.
+     */
+    public static final class Column<T> {
+
+        private final String name;
+
+        private final Function<T, ?> getter;
+
+        private Column(String name, Function<T, ?> getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+    }
+
+    /**
+     * Writes the matching entities to an {@link ExportWriter}.
+     *
+     * @param <T> the type of the exported entities.
+     */
+    @FunctionalInterface
+    public interface Exporter<T> {
+        void export(ExportWriter<T> writer) throws IOException;
+    }
+
+    /**
+     * @param name the header of the column.
+     * @param getter the value of the column for an entity, {@code null} for an empty cell.
+     * @param <T> the type of the exported entities.
+     * @return the column.
+     */
+    public static <T> Column<T> column(String name, Function<T, ?> getter) {
+        return new Column<>(name, getter);
+    }
+
+    /**
+     * Resolve the format of an export from the {@code format} request parameter, case-insensitively, or else from the
+     * {@code Accept} header, newline-delimited JSON being the default.
+     *
+     * @param parameter the {@code format} parameter, {@code null} if absent.
+     * @param accept the {@code Accept} header, {@code null} if absent.
+     * @return the format, or empty if the parameter is not a valid format.
+     */
+    public static Optional<Format> resolveFormat(String parameter, String accept) {
+        if (parameter != null) {
+            String extension = parameter.trim().toLowerCase(Locale.ENGLISH);
+            return Arrays.stream(Format.values()).filter(format -> format.extension.equals(extension)).findFirst();
+        }
+        if (accept != null) {
+            try {
+                if (MediaType.parseMediaTypes(accept).stream().anyMatch(Format.CSV.mediaType::equalsTypeAndSubtype)) {
+                    return Optional.of(Format.CSV);
+                }
+            } catch (IllegalArgumentException e) {
+                // an invalid Accept header gets the default format
+            }
+        }
+        return Optional.of(Format.NDJSON);
+    }
+
+    /**
+     * Generate the response streaming an export, as an attachment.
+     *
+     * @param exportExecutor the executor streaming the export.
+     * @param fileName the name of the attached file, without extension.
+     * @param format the format of the export.
+     * @param objectMapper the mapper writing the entities as JSON.
+     * @param columns the columns of a CSV export.
+     * @param exporter the exporter of the matching entities, run once the response is streamed.
+     * @param <T> the type of the exported entities.
+     * @return the response.
+     * @throws ru.bjcreslin.web.rest.errors.ExportRejectedException if too many exports are running.
+     */
+    public static <T> ResponseEntity<ResponseBodyEmitter> generateExportResponse(
+        ExportExecutor exportExecutor,
+        String fileName,
+        Format format,
+        ObjectMapper objectMapper,
+        List<Column<T>> columns,
+        Exporter<T> exporter
+    ) {
+        StreamingResponseBody body = outputStream -> {
+            StreamWriter<T> writer = format == Format.CSV
+                ? new CsvWriter<>(outputStream, columns)
+                : new NdjsonWriter<>(outputStream, objectMapper);
+            exporter.export(writer);
+            writer.finish();
+        };
+        ContentDisposition disposition = ContentDisposition.attachment().filename(fileName + "." + format.extension).build();
+        return ResponseEntity
+            .ok()
+            .contentType(format.mediaType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+            .body(exportExecutor.stream(body));
+    }
+
+    private interface StreamWriter<T> extends ExportWriter<T> {
+        /**
+         * Flush what is left to the output, without closing it.
+         */
+        void finish() throws IOException;
+    }
+
+    private static final class NdjsonWriter<T> implements StreamWriter<T> {
+
+        private final JsonGenerator generator;
+
+        private final ObjectWriter objectWriter;
+
+        private NdjsonWriter(OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(outputStream);
+            // the lines are separated below, rather than the root values with the default space
+            this.generator.setRootValueSeparator(null);
+            this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(T entity) throws IOException {
+            objectWriter.writeValue(generator, entity);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * CSV as specified by RFC 4180, with a header line. Dates are written in UTC.
+     */
+    private static final class CsvWriter<T> implements StreamWriter<T> {
+
+        /**
+         * The first characters of a cell which make a spreadsheet evaluate it as a formula.
+         */
+        private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+        private final Writer out;
+
+        private final List<Column<T>> columns;
+
+        private CsvWriter(OutputStream outputStream, List<Column<T>> columns) throws IOException {
+            this.out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            this.columns = columns;
+            for (int i = 0; i < columns.size(); i++) {
+                writeCell(i, columns.get(i).name);
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void write(T entity) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                writeCell(i, format(columns.get(i).getter.apply(entity)));
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+
+        private void writeCell(int index, String value) throws IOException {
+            if (index > 0) {
+                out.write(',');
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0) {
+                out.write('"');
+                out.write(value.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+
+        private static String format(Object value) {
+            if (value == null) {
+                return "";
+            }
+            if (value instanceof ZonedDateTime) {
+                return DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(((ZonedDateTime) value).withZoneSameInstant(ZoneOffset.UTC));
+            }
+            if (value instanceof CharSequence) {
+                return neutralizeFormula(value.toString());
+            }
+            return value.toString();
+        }
+
+        /**
+         * @return the text, prefixed with a {@code '} if it starts like a formula of a spreadsheet.
+         */
+        private static String neutralizeFormula(String text) {
+            if (!text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+                return "'" + text;
+            }
+            return text;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.bjcreslin.web.rest.util;
+
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.bjcreslin.service.dto.KeysetCursor;
+
+/**
+ * Utility class for handling keyset ("seek") pagination.
+ *
+ * <p>
+ * Unlike {@link tech.jhipster.web.util.PaginationUtil}, it only advertises the next slice, with a
+ * <a href="https://tools.ietf.org/html/rfc5988">{@code Link}</a> header carrying the cursor in the {@code after} parameter,
+ * and no {@code X-Total-Count} header, as counting the rows is what keyset pagination avoids.
+ */
+public final class KeysetPaginationUtil {
+
+    public static final String AFTER_PARAM = "after";
+
+    private KeysetPaginationUtil() {}
+
+    /**
+     * Generate keyset pagination headers.
+     *
+     * @param uriBuilder the URI of the current request.
+     * @param next the cursor of the next slice, empty if this is the last one.
+     * @return the {@link HttpHeaders}.
+     */
+    public static HttpHeaders generateKeysetHttpHeaders(UriComponentsBuilder uriBuilder, Optional<KeysetCursor> next) {
+        HttpHeaders headers = new HttpHeaders();
+        next.ifPresent(
+            cursor -> {
+                String link = uriBuilder
+                    .replaceQueryParam(AFTER_PARAM, cursor.encode())
+                    .replaceQueryParam("page")
+                    .toUriString()
+                    .replace(",", "%2C")
+                    .replace(";", "%3B");
+                headers.add(HttpHeaders.LINK, "<" + link + ">; rel=\"next\"");
+            }
+        );
+        return headers;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.bjcreslin.web.rest.vm;
+
+/**
+ * View Model object for the outcome of a bulk import.
+ */
+public class BulkImportVM {
+
+    private final long created;
+
+    public BulkImportVM(long created) {
+        this.created = created;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+}
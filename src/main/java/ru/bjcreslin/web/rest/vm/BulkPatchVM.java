@@ -0,0 +1,41 @@
+package ru.bjcreslin.web.rest.vm;
+
+import java.util.List;
+
+/**
+ * View Model object for a bulk partial update: either the updates of entities, each with its id, or one patch applied
+ * to all the entities matching some criteria.
+ *
+ * @param <T> the type of the entities.
+ */
+public class BulkPatchVM<T> {
+
+    private List<T> updates;
+
+    private T patch;
+
+    public List<T> getUpdates() {
+        return updates;
+    }
+
+    public void setUpdates(List<T> updates) {
+        this.updates = updates;
+    }
+
+    public T getPatch() {
+        return patch;
+    }
+
+    public void setPatch(T patch) {
+        this.patch = patch;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "BulkPatchVM{" +
+            "updates=" + (updates == null ? null : updates.size()) +
+            ", patch=" + patch +
+            "}";
+    }
+}
@@ -0,0 +1,118 @@
+package ru.bjcreslin.web.timing;
+
+/**
+ * Time spent by a request in each of its phases, added up on the thread handling it.
+ * <p>
+ * The timing of the current request is bound to the thread by the {@link ServerTimingFilter}. The controllers and the
+ * services add their time from the timing aspect, the serialization from the {@link TimedJacksonHttpMessageConverter}.
+ * The phases nest: the time of a controller includes the one of the services it calls, and so on, only the outermost
+ * call of each phase is added. It is not thread-safe.
+ */
+public final class RequestTiming {
+
+    /**
+     * A phase of a request, named as in the {@code Server-Timing} header.
+     */
+    public enum Phase {
+        SECURITY("security"),
+        CONTROLLER("controller"),
+        SERVICE("service"),
+        DB("db"),
+        SERIALIZATION("json");
+
+        private final String metricName;
+
+        Phase(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+
+    private final long[] nanos = new long[Phase.values().length];
+
+    private final int[] depths = new int[Phase.values().length];
+
+    /**
+     * End of the security filter chain, or 0 while the request has not passed it.
+     */
+    private long securityEnd;
+
+    /**
+     * Whether the phases are sent back in a {@code Server-Timing} header.
+     */
+    private boolean headerEnabled;
+
+    private RequestTiming(boolean headerEnabled) {
+        this.headerEnabled = headerEnabled;
+    }
+
+    /**
+     * @return the timing of the request handled by the current thread, or {@code null} if there is none.
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    static RequestTiming start(boolean headerEnabled) {
+        RequestTiming timing = new RequestTiming(headerEnabled);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Enter a phase, before a call which may nest other calls of the same phase.
+     */
+    public void enter(Phase phase) {
+        depths[phase.ordinal()]++;
+    }
+
+    /**
+     * Exit a phase entered by {@link #enter(Phase)}, adding the time of the call if it is the outermost one.
+     */
+    public void exit(Phase phase, long nanos) {
+        if (--depths[phase.ordinal()] == 0) {
+            this.nanos[phase.ordinal()] += nanos;
+        }
+    }
+
+    /**
+     * Add time to a phase, for calls which don't nest.
+     */
+    public void add(Phase phase, long nanos) {
+        this.nanos[phase.ordinal()] += nanos;
+    }
+
+    public boolean isHeaderEnabled() {
+        return headerEnabled;
+    }
+
+    void securityPassed(boolean enableHeader) {
+        securityEnd = System.nanoTime();
+        headerEnabled |= enableHeader;
+    }
+
+    /**
+     * @return the time of a phase so far, the security filter chain lasting the whole request if it was not passed.
+     */
+    long nanos(Phase phase, long now) {
+        if (phase == Phase.SECURITY) {
+            return (securityEnd != 0 ? securityEnd : now) - start;
+        }
+        return nanos[phase.ordinal()];
+    }
+
+    long elapsed(long now) {
+        return now - start;
+    }
+}
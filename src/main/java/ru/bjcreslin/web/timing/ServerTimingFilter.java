@@ -0,0 +1,196 @@
+package ru.bjcreslin.web.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.bjcreslin.security.AuthoritiesConstants;
+import ru.bjcreslin.security.SecurityUtils;
+import ru.bjcreslin.sql.SqlStatistics;
+import ru.bjcreslin.sql.SqlStatisticsFilter;
+
+/**
+ * Filter timing the phases of each request, recorded as {@value #METRIC_NAME} timers for the endpoint which handled it.
+ * <p>
+ * The phases are sent back in a {@value #HEADER} header to the administrators, and to a sample of the requests, see
+ * {@code application.server-timing.sample-rate}. The header is added when the response is committed, with the phases
+ * until then and the time of the request so far as {@code total}. The end of the security filter chain is marked by
+ * the {@link SecurityPassedFilter}, and the time of JDBC is the one counted in the {@link SqlStatistics} of the request.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    static final String METRIC_NAME = "http.server.phase";
+
+    private final MeterRegistry meterRegistry;
+
+    private final double sampleRate;
+
+    /**
+     * Timers of the phases, by HTTP method and URI pattern.
+     */
+    private final ConcurrentMap<String, Timer[]> timers = new ConcurrentHashMap<>();
+
+    public ServerTimingFilter(MeterRegistry meterRegistry, double sampleRate) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start(sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        ServerTimingResponse timedResponse = new ServerTimingResponse(request, response, timing);
+        try {
+            filterChain.doFilter(request, timedResponse);
+        } finally {
+            RequestTiming.end();
+            timedResponse.writeServerTiming();
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (uri != null) {
+                record(request.getMethod(), uri.toString(), timing, request, System.nanoTime());
+            }
+        }
+    }
+
+    private void record(String method, String uri, RequestTiming timing, HttpServletRequest request, long now) {
+        Timer[] endpointTimers = timers.get(method + " " + uri);
+        if (endpointTimers == null) {
+            endpointTimers = timers.computeIfAbsent(method + " " + uri, key -> timers(method, uri));
+        }
+        for (RequestTiming.Phase phase : RequestTiming.Phase.values()) {
+            long nanos = nanos(phase, timing, request, now);
+            if (nanos > 0) {
+                endpointTimers[phase.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timer[] timers(String method, String uri) {
+        RequestTiming.Phase[] phases = RequestTiming.Phase.values();
+        Timer[] endpointTimers = new Timer[phases.length];
+        for (RequestTiming.Phase phase : phases) {
+            endpointTimers[phase.ordinal()] =
+                Timer
+                    .builder(METRIC_NAME)
+                    .description("Time spent by the requests in each of their phases")
+                    .tag("method", method)
+                    .tag("uri", uri)
+                    .tag("phase", phase.getMetricName())
+                    .register(meterRegistry);
+        }
+        return endpointTimers;
+    }
+
+    private static long nanos(RequestTiming.Phase phase, RequestTiming timing, HttpServletRequest request, long now) {
+        if (phase == RequestTiming.Phase.DB) {
+            SqlStatistics statistics = (SqlStatistics) request.getAttribute(SqlStatisticsFilter.ATTRIBUTE);
+            return statistics != null ? statistics.getJdbcNanos() : 0;
+        }
+        return timing.nanos(phase, now);
+    }
+
+    static String header(RequestTiming timing, HttpServletRequest request, long now) {
+        StringBuilder header = new StringBuilder();
+        for (RequestTiming.Phase phase : RequestTiming.Phase.values()) {
+            header.append(phase.getMetricName()).append(";dur=").append(millis(nanos(phase, timing, request, now))).append(", ");
+        }
+        return header.append("total;dur=").append(millis(timing.elapsed(now))).toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Response adding the {@value #HEADER} header before it is committed.
+     */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        private final RequestTiming timing;
+
+        private boolean written;
+
+        private ServerTimingResponse(HttpServletRequest request, HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.request = request;
+            this.timing = timing;
+        }
+
+        private void writeServerTiming() {
+            if (!written && timing.isHeaderEnabled() && !isCommitted()) {
+                written = true;
+                setHeader(HEADER, header(timing, request, System.nanoTime()));
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+
+    /**
+     * Filter marking the end of the security filter chain, from which the {@value #HEADER} header is sent back to the
+     * administrators.
+     */
+    public static class SecurityPassedFilter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+            RequestTiming timing = RequestTiming.current();
+            if (timing != null) {
+                timing.securityPassed(SecurityUtils.hasCurrentUserThisAuthority(AuthoritiesConstants.ADMIN));
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.bjcreslin.web.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * Jackson converter adding the time spent writing the responses to the {@link RequestTiming} of the request.
+ * <p>
+ * When the phases of the request are sent back in a {@code Server-Timing} header, the response is serialized into a
+ * buffer first, so that the header, added as the body is written, holds the time of the serialization alone. Otherwise
+ * the response is written directly, and its time includes waiting for a slow client once the response buffer is full.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        if (!timing.isHeaderEnabled()) {
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                timing.add(RequestTiming.Phase.SERIALIZATION, System.nanoTime() - start);
+            }
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            super.writeInternal(object, type, new BufferedOutputMessage(outputMessage.getHeaders(), body));
+        } finally {
+            timing.add(RequestTiming.Phase.SERIALIZATION, System.nanoTime() - start);
+        }
+        body.writeTo(outputMessage.getBody());
+    }
+
+    /**
+     * Output message with the headers of the response, and a buffer as body.
+     */
+    private static final class BufferedOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers;
+
+        private final OutputStream body;
+
+        private BufferedOutputMessage(HttpHeaders headers, OutputStream body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package ru.bjcreslin;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import ru.bjcreslin.domain.Authority;
+import ru.bjcreslin.domain.Comment;
+import ru.bjcreslin.domain.Message;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.domain.User;
+import ru.bjcreslin.domain.enumeration.CommentStatus;
+import ru.bjcreslin.domain.enumeration.MessageStatus;
+import ru.bjcreslin.domain.enumeration.ProjectStatus;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+
+/**
+ * Entities for the benchmarks, built from the Liquibase CSV files loaded in the dev and test databases.
+ * <p>
+ * When more entities are asked for than the CSV file has rows, its rows are repeated with new IDs.
+ */
+public final class FakeDataFixtures {
+
+    private static final String FAKE_DATA = "config/liquibase/fake-data/";
+
+    private static final String DATA = "config/liquibase/data/";
+
+    private FakeDataFixtures() {}
+
+    /**
+     * @param count the number of projects.
+     * @return projects, without tasks.
+     */
+    public static List<Project> projects(int count) {
+        List<Map<String, String>> rows = read(FAKE_DATA + "project.csv");
+        List<Project> projects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> row = rows.get(i % rows.size());
+            projects.add(
+                new Project()
+                    .id((long) i + 1)
+                    .version(0L)
+                    .projectUrl(row.get("project_url"))
+                    .description(row.get("description"))
+                    .projectName(row.get("project_name"))
+                    .comment(row.get("comment"))
+                    .status(ProjectStatus.valueOf(row.get("status")))
+                    .created(dateTime(row.get("created")))
+                    .edited(dateTime(row.get("edited")))
+            );
+        }
+        return projects;
+    }
+
+    /**
+     * @param count the number of tasks.
+     * @param projects the projects of the tasks, assigned in turn.
+     * @return tasks, without comments.
+     */
+    public static List<Task> tasks(int count, List<Project> projects) {
+        List<Map<String, String>> rows = read(FAKE_DATA + "task.csv");
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> row = rows.get(i % rows.size());
+            tasks.add(
+                new Task()
+                    .id((long) i + 1)
+                    .version(0L)
+                    .author(row.get("author"))
+                    .implementer(row.get("implementer"))
+                    .name(row.get("name"))
+                    .text(row.get("text"))
+                    .comment(row.get("comment"))
+                    .status(TaskAndProjectStatus.valueOf(row.get("status")))
+                    .created(dateTime(row.get("created")))
+                    .edited(dateTime(row.get("edited")))
+                    .project(projects.isEmpty() ? null : projects.get(i % projects.size()))
+            );
+        }
+        return tasks;
+    }
+
+    /**
+     * @param count the number of comments.
+     * @param tasks the tasks of the comments, assigned in turn.
+     * @return comments.
+     */
+    public static List<Comment> comments(int count, List<Task> tasks) {
+        List<Map<String, String>> rows = read(FAKE_DATA + "comment.csv");
+        List<Comment> comments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> row = rows.get(i % rows.size());
+            comments.add(
+                new Comment()
+                    .id((long) i + 1)
+                    .version(0L)
+                    .author(row.get("author"))
+                    .text(row.get("text"))
+                    .status(CommentStatus.valueOf(row.get("status")))
+                    .created(dateTime(row.get("created")))
+                    .edited(dateTime(row.get("edited")))
+                    .task(tasks.isEmpty() ? null : tasks.get(i % tasks.size()))
+            );
+        }
+        return comments;
+    }
+
+    /**
+     * @param count the number of messages.
+     * @param recipients the logins of the recipients of the messages, assigned in turn.
+     * @return messages.
+     */
+    public static List<Message> messages(int count, List<String> recipients) {
+        List<Map<String, String>> rows = read(FAKE_DATA + "message.csv");
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> row = rows.get(i % rows.size());
+            messages.add(
+                new Message()
+                    .id((long) i + 1)
+                    .version(0L)
+                    .author(row.get("author"))
+                    .recepient(recipients.isEmpty() ? row.get("recepient") : recipients.get(i % recipients.size()))
+                    .text(row.get("text"))
+                    .status(MessageStatus.valueOf(row.get("status")))
+                    .created(dateTime(row.get("created")))
+                    .edited(dateTime(row.get("edited")))
+            );
+        }
+        return messages;
+    }
+
+    /**
+     * @param count the number of users.
+     * @return users with their authorities, the repeated ones with a new login and email.
+     */
+    public static List<User> users(int count) {
+        List<Map<String, String>> rows = read(DATA + "user.csv");
+        Map<String, Set<Authority>> authorities = new HashMap<>();
+        for (Map<String, String> row : read(DATA + "user_authority.csv")) {
+            Authority authority = new Authority();
+            authority.setName(row.get("authority_name"));
+            authorities.computeIfAbsent(row.get("user_id"), userId -> new HashSet<>()).add(authority);
+        }
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, String> row = rows.get(i % rows.size());
+            String suffix = i < rows.size() ? "" : Integer.toString(i);
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setLogin(row.get("login") + suffix);
+            user.setPassword(row.get("password_hash"));
+            user.setFirstName(row.get("first_name"));
+            user.setLastName(row.get("last_name"));
+            user.setEmail(row.get("login") + suffix + "@localhost");
+            user.setImageUrl(row.get("image_url"));
+            user.setActivated(Boolean.parseBoolean(row.get("activated")));
+            user.setLangKey(row.get("lang_key"));
+            user.setCreatedBy(row.get("created_by"));
+            user.setLastModifiedBy(row.get("last_modified_by"));
+            user.setAuthorities(new HashSet<>(authorities.getOrDefault(row.get("id"), Set.of())));
+            users.add(user);
+        }
+        return users;
+    }
+
+    private static ZonedDateTime dateTime(String value) {
+        return LocalDateTime.parse(value).atZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * Read a CSV file of the Liquibase changelogs, separated by semicolons and without quotes.
+     */
+    private static List<Map<String, String>> read(String resource) {
+        InputStream input = FakeDataFixtures.class.getClassLoader().getResourceAsStream(resource);
+        if (input == null) {
+            throw new IllegalStateException("Missing fixture " + resource);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String[] header = reader.readLine().split(";", -1);
+            List<Map<String, String>> rows = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] values = line.split(";", -1);
+                Map<String, String> row = new HashMap<>();
+                for (int i = 0; i < header.length; i++) {
+                    row.put(header[i], i < values.length && !values[i].isEmpty() ? values[i] : null);
+                }
+                rows.add(row);
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
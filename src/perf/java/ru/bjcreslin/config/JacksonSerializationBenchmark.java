@@ -0,0 +1,76 @@
+package ru.bjcreslin.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.bjcreslin.FakeDataFixtures;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+
+/**
+ * Measures the serialization of the pages of tasks and projects returned by the resources, with the modules of the
+ * {@link JacksonConfiguration}.
+ * <p>
+ * The {@link ObjectMapper} is built as Spring Boot builds it, without starting the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonSerializationBenchmark {
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<Project> projects;
+
+    private List<Task> tasks;
+
+    @Setup
+    public void setUp() {
+        JacksonConfiguration configuration = new JacksonConfiguration();
+        objectMapper =
+            Jackson2ObjectMapperBuilder
+                .json()
+                .modulesToInstall(
+                    configuration.javaTimeModule(),
+                    configuration.jdk8TimeModule(),
+                    configuration.hibernate5Module(),
+                    configuration.problemModule(),
+                    configuration.constraintViolationProblemModule()
+                )
+                // the defaults of Spring Boot
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .build();
+        projects = FakeDataFixtures.projects(pageSize);
+        tasks = FakeDataFixtures.tasks(pageSize, projects);
+    }
+
+    @Benchmark
+    public byte[] taskPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+
+    @Benchmark
+    public byte[] projectPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(projects);
+    }
+}
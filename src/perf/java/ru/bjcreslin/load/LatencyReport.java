@@ -0,0 +1,148 @@
+package ru.bjcreslin.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latencies of the requests of a {@link LoadTest} run, in an HdrHistogram per endpoint, and their failures.
+ */
+final class LatencyReport {
+
+    private final Map<String, EndpointLatencies> endpoints = new ConcurrentSkipListMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean success) {
+        EndpointLatencies latencies = endpoints.computeIfAbsent(endpoint, name -> new EndpointLatencies());
+        if (success) {
+            latencies.histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        } else {
+            latencies.errors.increment();
+        }
+    }
+
+    /**
+     * @return the budgets exceeded by the endpoints, empty if none was.
+     */
+    List<String> check(LoadTestSettings settings) {
+        List<String> violations = new ArrayList<>();
+        if (endpoints.isEmpty()) {
+            violations.add("no request was measured");
+        }
+        endpoints.forEach(
+            (endpoint, latencies) -> {
+                double p99 = latencies.percentileMillis(99);
+                if (p99 > settings.p99BudgetMillis(endpoint)) {
+                    violations.add(
+                        String.format(Locale.ROOT, "%s p99 %.1f ms > %.1f ms", endpoint, p99, settings.p99BudgetMillis(endpoint))
+                    );
+                }
+                double p999 = latencies.percentileMillis(99.9);
+                if (p999 > settings.p999BudgetMillis(endpoint)) {
+                    violations.add(
+                        String.format(Locale.ROOT, "%s p999 %.1f ms > %.1f ms", endpoint, p999, settings.p999BudgetMillis(endpoint))
+                    );
+                }
+                if (latencies.errorRate() > settings.maxErrorRate(endpoint)) {
+                    violations.add(
+                        String.format(
+                            Locale.ROOT,
+                            "%s errors %.4f > %.4f",
+                            endpoint,
+                            latencies.errorRate(),
+                            settings.maxErrorRate(endpoint)
+                        )
+                    );
+                }
+            }
+        );
+        return violations;
+    }
+
+    void print(PrintStream out) {
+        out.printf(
+            Locale.ROOT,
+            "%-24s %10s %8s %10s %10s %10s %10s%n",
+            "Endpoint",
+            "Requests",
+            "Errors",
+            "p50 ms",
+            "p99 ms",
+            "p999 ms",
+            "max ms"
+        );
+        endpoints.forEach(
+            (endpoint, latencies) ->
+                out.printf(
+                    Locale.ROOT,
+                    "%-24s %10d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    endpoint,
+                    latencies.histogram.getTotalCount(),
+                    latencies.errors.sum(),
+                    latencies.percentileMillis(50),
+                    latencies.percentileMillis(99),
+                    latencies.percentileMillis(99.9),
+                    latencies.histogram.getMaxValue() / 1000.0
+                )
+        );
+    }
+
+    /**
+     * Write the results as JSON, to compare the runs.
+     */
+    void write(LoadTestSettings settings, List<String> violations) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rate", settings.rate);
+        result.put("durationSeconds", settings.durationSeconds);
+        result.put("concurrency", settings.concurrency);
+        Map<String, Object> endpointResults = new LinkedHashMap<>();
+        endpoints.forEach(
+            (endpoint, latencies) -> {
+                Map<String, Object> endpointResult = new LinkedHashMap<>();
+                endpointResult.put("requests", latencies.histogram.getTotalCount());
+                endpointResult.put("errors", latencies.errors.sum());
+                endpointResult.put("p50Millis", latencies.percentileMillis(50));
+                endpointResult.put("p99Millis", latencies.percentileMillis(99));
+                endpointResult.put("p999Millis", latencies.percentileMillis(99.9));
+                endpointResult.put("maxMillis", latencies.histogram.getMaxValue() / 1000.0);
+                endpointResults.put(endpoint, endpointResult);
+            }
+        );
+        result.put("endpoints", endpointResults);
+        result.put("violations", violations);
+        if (settings.result.getParent() != null) {
+            Files.createDirectories(settings.result.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(settings.result.toFile(), result);
+    }
+
+    private static final class EndpointLatencies {
+
+        /**
+         * Latencies in microseconds, with 3 significant digits.
+         */
+        private final Histogram histogram = new ConcurrentHistogram(3);
+
+        private final LongAdder errors = new LongAdder();
+
+        private double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        private double errorRate() {
+            long requests = histogram.getTotalCount() + errors.sum();
+            return requests == 0 ? 0 : (double) errors.sum() / requests;
+        }
+    }
+}
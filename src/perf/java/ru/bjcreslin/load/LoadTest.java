@@ -0,0 +1,100 @@
+package ru.bjcreslin.load;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import ru.bjcreslin.HomeForYourProjectsApp;
+
+/**
+ * Load test of the REST API of an embedded instance, run with:
+ * <pre>
+ * ./mvnw -Pdev,perf test-compile exec:java@load-test -Dload.rate=50 -Dload.duration-seconds=120
+ * </pre>
+ * The application is started on the test configuration, with an in-memory H2 database filled with a generated
+ * {@link LoadTestDataset}. The {@link Scenario}s are started at a fixed rate, whether or not the previous ones are done,
+ * by users logged in beforehand. The latencies of the requests are recorded per endpoint, and the run fails when one
+ * exceeds its budget; see {@link LoadTestSettings} for the settings.
+ */
+public final class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        LatencyReport report = new LatencyReport();
+        try (
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(HomeForYourProjectsApp.class)
+                .properties("server.port=0")
+                .run(args)
+        ) {
+            URI baseUri = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort());
+            LoadTestDataset dataset = LoadTestDataset.generate(context, settings);
+            log.info(
+                "Generated {} projects, {} tasks and {} users",
+                dataset.projectIds.size(),
+                dataset.taskIds.size(),
+                dataset.logins.size()
+            );
+            List<VirtualUser> users = new ArrayList<>();
+            for (String login : dataset.logins) {
+                VirtualUser user = new VirtualUser(login, baseUri, report);
+                user.logIn(LoadTestDataset.PASSWORD);
+                users.add(user);
+            }
+            run(settings, dataset, users);
+        }
+        report.print(System.out);
+        List<String> violations = report.check(settings);
+        report.write(settings, violations);
+        if (!violations.isEmpty()) {
+            throw new IllegalStateException("Load test budget exceeded: " + String.join(", ", violations));
+        }
+    }
+
+    private static void run(LoadTestSettings settings, LoadTestDataset dataset, List<VirtualUser> users) throws InterruptedException {
+        log.info(
+            "Starting {} scenarios per second for {} s of warm-up and {} s of measurement",
+            settings.rate,
+            settings.warmupSeconds,
+            settings.durationSeconds
+        );
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("load-test-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(settings.concurrency, threadFactory);
+        Random random = new Random();
+        long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate);
+        long start = System.nanoTime();
+        long measuredFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+        long end = measuredFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+        for (long next = start; next < end; next += periodNanos) {
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = Scenario.pick(random);
+            VirtualUser user = users.get(random.nextInt(users.size()));
+            long scheduled = next;
+            boolean measured = next >= measuredFrom;
+            executor.execute(() -> scenario.run(user, dataset, ThreadLocalRandom.current(), scheduled, measured));
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Scenarios still running after the end of the run, they are not measured");
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.bjcreslin.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.FakeDataFixtures;
+import ru.bjcreslin.domain.Authority;
+import ru.bjcreslin.domain.Comment;
+import ru.bjcreslin.domain.Message;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.domain.User;
+import ru.bjcreslin.repository.AuthorityRepository;
+import ru.bjcreslin.repository.CommentRepository;
+import ru.bjcreslin.repository.MessageRepository;
+import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.repository.TaskRepository;
+import ru.bjcreslin.repository.UserRepository;
+import ru.bjcreslin.security.AuthoritiesConstants;
+import ru.bjcreslin.service.ProjectTaskCountService;
+
+/**
+ * Dataset of a {@link LoadTest} run, generated from the {@link FakeDataFixtures} into the database of the application.
+ * <p>
+ * The users get the {@link #PASSWORD} password and their own inbox, each project its tasks, and each task its
+ * comments. The IDs given by the fixtures are cleared so that the entities are inserted, and a project is written with
+ * its tasks and comments in one transaction.
+ */
+final class LoadTestDataset {
+
+    static final String PASSWORD = "load-test";
+
+    final List<String> logins;
+
+    final List<Long> projectIds = new ArrayList<>();
+
+    final List<Long> taskIds = new ArrayList<>();
+
+    /**
+     * Words of the names of the tasks, to filter them with.
+     */
+    final List<String> taskWords = new ArrayList<>();
+
+    private LoadTestDataset(List<String> logins) {
+        this.logins = logins;
+    }
+
+    static LoadTestDataset generate(ApplicationContext context, LoadTestSettings settings) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        AuthorityRepository authorityRepository = context.getBean(AuthorityRepository.class);
+        ProjectRepository projectRepository = context.getBean(ProjectRepository.class);
+        TaskRepository taskRepository = context.getBean(TaskRepository.class);
+        CommentRepository commentRepository = context.getBean(CommentRepository.class);
+        MessageRepository messageRepository = context.getBean(MessageRepository.class);
+        ProjectTaskCountService projectTaskCountService = context.getBean(ProjectTaskCountService.class);
+
+        List<String> logins = IntStream.range(0, settings.users).mapToObj(i -> "load-user-" + i).collect(Collectors.toList());
+        String passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                Authority authority = authorityRepository.findById(AuthoritiesConstants.USER).orElseThrow();
+                for (String login : logins) {
+                    User user = new User();
+                    user.setLogin(login);
+                    user.setEmail(login + "@localhost");
+                    user.setPassword(passwordHash);
+                    user.setActivated(true);
+                    user.setLangKey("en");
+                    user.setAuthorities(Set.of(authority));
+                    userRepository.save(user);
+                }
+                List<Message> messages = FakeDataFixtures.messages(settings.users * settings.messagesPerUser, logins);
+                messages.forEach(message -> message.id(null).version(null));
+                messageRepository.saveAll(messages);
+            }
+        );
+
+        Set<String> taskWords = new TreeSet<>();
+        LoadTestDataset dataset = new LoadTestDataset(logins);
+        for (Project project : FakeDataFixtures.projects(settings.projects)) {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    projectRepository.save(project.id(null).version(null));
+                    List<Task> tasks = FakeDataFixtures.tasks(settings.tasksPerProject, List.of(project));
+                    tasks.forEach(task -> task.id(null).version(null));
+                    taskRepository.saveAll(tasks);
+                    taskRepository.flush();
+                    projectTaskCountService.tasksCreated(tasks);
+                    List<Comment> comments = FakeDataFixtures.comments(settings.tasksPerProject * settings.commentsPerTask, tasks);
+                    comments.forEach(comment -> comment.id(null).version(null));
+                    commentRepository.saveAll(comments);
+                    dataset.projectIds.add(project.getId());
+                    for (Task task : tasks) {
+                        dataset.taskIds.add(task.getId());
+                        Arrays.stream(task.getName().split(" ")).map(word -> word.toLowerCase(Locale.ENGLISH)).forEach(taskWords::add);
+                    }
+                }
+            );
+        }
+        dataset.taskWords.addAll(taskWords);
+        return dataset;
+    }
+}
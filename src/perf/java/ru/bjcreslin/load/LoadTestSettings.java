@@ -0,0 +1,76 @@
+package ru.bjcreslin.load;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Settings of a {@link LoadTest} run, read from the {@code load.*} system properties.
+ */
+final class LoadTestSettings {
+
+    /**
+     * Scenarios started per second, whether or not the previous ones are done.
+     */
+    final double rate = doubleProperty("load.rate", 20);
+
+    /**
+     * Duration of the measured part of the run.
+     */
+    final long durationSeconds = longProperty("load.duration-seconds", 60);
+
+    /**
+     * Duration of the warm-up before it, whose requests are not measured.
+     */
+    final long warmupSeconds = longProperty("load.warmup-seconds", 10);
+
+    /**
+     * Number of scenarios run at the same time, the other started ones wait and their wait is measured.
+     */
+    final int concurrency = (int) longProperty("load.concurrency", 64);
+
+    final int users = (int) longProperty("load.users", 20);
+
+    final int projects = (int) longProperty("load.projects", 100);
+
+    final int tasksPerProject = (int) longProperty("load.tasks-per-project", 50);
+
+    final int commentsPerTask = (int) longProperty("load.comments-per-task", 2);
+
+    final int messagesPerUser = (int) longProperty("load.messages-per-user", 50);
+
+    /**
+     * File the results are written to, as JSON.
+     */
+    final Path result = Paths.get(System.getProperty("load.result", "target/load-test-result.json"));
+
+    /**
+     * Highest 99th percentile latency of an endpoint, overridden per endpoint with {@code load.budget.<endpoint>.p99-millis}.
+     */
+    double p99BudgetMillis(String endpoint) {
+        return doubleProperty("load.budget." + endpoint + ".p99-millis", doubleProperty("load.budget.p99-millis", 500));
+    }
+
+    /**
+     * Highest 99.9th percentile latency of an endpoint, overridden per endpoint with {@code load.budget.<endpoint>.p999-millis}.
+     */
+    double p999BudgetMillis(String endpoint) {
+        return doubleProperty("load.budget." + endpoint + ".p999-millis", doubleProperty("load.budget.p999-millis", 2000));
+    }
+
+    /**
+     * Highest share of failed requests of an endpoint.
+     */
+    double maxErrorRate(String endpoint) {
+        return doubleProperty("load.budget." + endpoint + ".max-error-rate", doubleProperty("load.budget.max-error-rate", 0.001));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.bjcreslin.load;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Scenarios of a {@link LoadTest} run, started in proportion to their weight.
+ * <p>
+ * A scenario stops at its first failed request. Its first request is measured from the time the scenario was meant to
+ * start, the next ones from the time they are sent.
+ */
+enum Scenario {
+    BROWSE_PROJECT_BOARD(30) {
+        @Override
+        boolean run(VirtualUser user, LoadTestDataset dataset, Random random, long startNanos, boolean measured) {
+            long projectId = any(dataset.projectIds, random);
+            String tasks = "/api/tasks?projectId.equals=" + projectId + "&sort=created,desc&size=50";
+            return (
+                user.get("project", "/api/projects/" + projectId, startNanos, measured) &&
+                user.get("project-tasks", tasks, System.nanoTime(), measured) &&
+                user.get("project-stats", "/api/projects/" + projectId + "/stats", System.nanoTime(), measured)
+            );
+        }
+    },
+
+    FILTER_TASKS(30) {
+        @Override
+        boolean run(VirtualUser user, LoadTestDataset dataset, Random random, long startNanos, boolean measured) {
+            String word = URLEncoder.encode(any(dataset.taskWords, random), StandardCharsets.UTF_8);
+            return user.get(
+                "task-filter",
+                "/api/tasks?name.contains=" + word + "&status.in=NEW,ACTIVE&sort=created,desc&page=" + random.nextInt(3) + "&size=20",
+                startNanos,
+                measured
+            );
+        }
+    },
+
+    POST_COMMENT(15) {
+        @Override
+        boolean run(VirtualUser user, LoadTestDataset dataset, Random random, long startNanos, boolean measured) {
+            long taskId = any(dataset.taskIds, random);
+            String comment = String.format(
+                "{\"author\":\"%s\",\"text\":\"Load test comment\",\"status\":\"NEW\",\"created\":\"%s\",\"task\":{\"id\":%d}}",
+                user.login,
+                Instant.now(),
+                taskId
+            );
+            return (
+                user.get("task", "/api/tasks/" + taskId, startNanos, measured) &&
+                user.postJson("comment-create", "/api/comments", comment, System.nanoTime(), measured)
+            );
+        }
+    },
+
+    READ_INBOX(20) {
+        @Override
+        boolean run(VirtualUser user, LoadTestDataset dataset, Random random, long startNanos, boolean measured) {
+            String recipient = "recepient.equals=" + URLEncoder.encode(user.login, StandardCharsets.UTF_8);
+            return (
+                user.get("inbox", "/api/messages?" + recipient + "&sort=created,desc&size=20", startNanos, measured) &&
+                user.get("inbox-count", "/api/messages/count?" + recipient + "&status.equals=NEW", System.nanoTime(), measured)
+            );
+        }
+    },
+
+    REMEMBER_ME_LOG_IN(5) {
+        @Override
+        boolean run(VirtualUser user, LoadTestDataset dataset, Random random, long startNanos, boolean measured) {
+            return user.autoLogIn("account-remember-me", startNanos, measured);
+        }
+    };
+
+    private static final int TOTAL_WEIGHT = 100;
+
+    private final int weight;
+
+    Scenario(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return {@code false} if a request failed.
+     */
+    abstract boolean run(VirtualUser user, LoadTestDataset dataset, Random random, long startNanos, boolean measured);
+
+    static Scenario pick(Random random) {
+        int value = random.nextInt(TOTAL_WEIGHT);
+        for (Scenario scenario : values()) {
+            value -= scenario.weight;
+            if (value < 0) {
+                return scenario;
+            }
+        }
+        throw new IllegalStateException("The weights of the scenarios don't add up to " + TOTAL_WEIGHT);
+    }
+
+    private static <T> T any(List<T> values, Random random) {
+        return values.get(random.nextInt(values.size()));
+    }
+}
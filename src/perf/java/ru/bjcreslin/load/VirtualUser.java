@@ -0,0 +1,144 @@
+package ru.bjcreslin.load;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.HttpCookie;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A user of a {@link LoadTest} run, logged in with its own session and remember-me token.
+ * <p>
+ * The latencies of its requests are recorded in the {@link LatencyReport} under the name of their endpoint, measured
+ * from the given start so that the time a scenario waited for a free thread is included.
+ */
+final class VirtualUser {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private static final String XSRF_COOKIE = "XSRF-TOKEN";
+
+    private static final String REMEMBER_ME_COOKIE = "remember-me";
+
+    final String login;
+
+    private final URI baseUri;
+
+    private final LatencyReport report;
+
+    private final CookieManager cookieManager = new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+
+    private final HttpClient sessionClient;
+
+    /**
+     * Sends the remember-me cookie only, as a browser whose session expired.
+     */
+    private final HttpClient rememberMeClient;
+
+    private volatile String rememberMe;
+
+    VirtualUser(String login, URI baseUri, LatencyReport report) {
+        this.login = login;
+        this.baseUri = baseUri;
+        this.report = report;
+        this.sessionClient =
+            HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(TIMEOUT).cookieHandler(cookieManager).build();
+        this.rememberMeClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(TIMEOUT).build();
+    }
+
+    /**
+     * Log in with a remember-me token, after a first request to get the CSRF token.
+     */
+    void logIn(String password) throws IOException, InterruptedException {
+        sessionClient.send(request("/api/account").GET().build(), HttpResponse.BodyHandlers.discarding());
+        String form =
+            "username=" +
+            URLEncoder.encode(login, StandardCharsets.UTF_8) +
+            "&password=" +
+            URLEncoder.encode(password, StandardCharsets.UTF_8) +
+            "&remember-me=true";
+        HttpResponse<Void> response = sessionClient.send(
+            request("/api/authentication")
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(),
+            HttpResponse.BodyHandlers.discarding()
+        );
+        rememberMe = cookie(REMEMBER_ME_COOKIE).orElse(null);
+        if (response.statusCode() != 200 || rememberMe == null) {
+            throw new IllegalStateException("Log in of " + login + " failed with status " + response.statusCode());
+        }
+    }
+
+    boolean get(String endpoint, String path, long startNanos, boolean measured) {
+        return send(sessionClient, endpoint, request(path).GET(), startNanos, measured) != null;
+    }
+
+    boolean postJson(String endpoint, String path, String json, long startNanos, boolean measured) {
+        HttpRequest.Builder request = request(path)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(json));
+        return send(sessionClient, endpoint, request, startNanos, measured) != null;
+    }
+
+    /**
+     * Get the account with the remember-me cookie only, keeping the new token if it was rotated.
+     */
+    boolean autoLogIn(String endpoint, long startNanos, boolean measured) {
+        HttpRequest.Builder request = request("/api/account").header("Cookie", REMEMBER_ME_COOKIE + "=" + rememberMe).GET();
+        HttpResponse<String> response = send(rememberMeClient, endpoint, request, startNanos, measured);
+        if (response == null) {
+            return false;
+        }
+        for (String setCookie : response.headers().allValues("Set-Cookie")) {
+            for (HttpCookie cookie : HttpCookie.parse(setCookie)) {
+                if (REMEMBER_ME_COOKIE.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    rememberMe = cookie.getValue();
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the response, or {@code null} if the request failed.
+     */
+    private HttpResponse<String> send(HttpClient client, String endpoint, HttpRequest.Builder request, long startNanos, boolean measured) {
+        HttpResponse<String> response = null;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            // counted as an error
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean success = response != null && response.statusCode() < 400;
+        if (measured) {
+            report.record(endpoint, System.nanoTime() - startNanos, success);
+        }
+        return success ? response : null;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(TIMEOUT).header("Accept", "application/json");
+        cookie(XSRF_COOKIE).ifPresent(token -> request.header("X-XSRF-TOKEN", token));
+        return request;
+    }
+
+    private Optional<String> cookie(String name) {
+        return cookieManager
+            .getCookieStore()
+            .get(baseUri)
+            .stream()
+            .filter(cookie -> name.equals(cookie.getName()))
+            .map(HttpCookie::getValue)
+            .findFirst();
+    }
+}
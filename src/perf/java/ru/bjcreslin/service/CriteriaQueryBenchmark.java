@@ -0,0 +1,122 @@
+package ru.bjcreslin.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.bjcreslin.HomeForYourProjectsApp;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+import ru.bjcreslin.repository.TableStatisticsRepository;
+import ru.bjcreslin.service.criteria.TaskCriteria;
+
+/**
+ * Compares preparing the {@link TaskQueryService} queries from the {@link CriteriaQueryCache} against rebuilding the
+ * {@link Specification} and the JPA criteria query on every request.
+ * <p>
+ * Only the preparation of the query is measured, nothing is executed against the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CriteriaQueryBenchmark {
+
+    @Param({ "name", "status-created", "associations" })
+    public String shape;
+
+    private final Sort sort = Sort.by("created").descending();
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private TaskQueryService compiledQueryService;
+
+    private TaskQueryService specificationQueryService;
+
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(HomeForYourProjectsApp.class).properties("server.port=0").run();
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        TableStatisticsRepository tableStatisticsRepository = context.getBean(TableStatisticsRepository.class);
+        compiledQueryService = new TaskQueryService(tableStatisticsRepository, entityManager, queryCache(true), new SimpleMeterRegistry());
+        specificationQueryService =
+            new TaskQueryService(tableStatisticsRepository, entityManager, queryCache(false), new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public TypedQuery<Task> compiledQuery() {
+        return compiledQueryService.prepareQuery(criteria(), sort).createQuery();
+    }
+
+    @Benchmark
+    public TypedQuery<Task> specificationQuery() {
+        return specificationQueryService.prepareQuery(criteria(), sort).createQuery();
+    }
+
+    /**
+     * Only the composition of the {@link Specification}, without the JPA criteria query it builds.
+     */
+    @Benchmark
+    public Specification<Task> specification() {
+        return specificationQueryService.createSpecification(criteria());
+    }
+
+    /**
+     * @return criteria of the benchmarked shape, with new values on every call.
+     */
+    private TaskCriteria criteria() {
+        long value = ++sequence;
+        TaskCriteria criteria = new TaskCriteria();
+        switch (shape) {
+            case "name":
+                criteria.name().setContains("task " + value);
+                break;
+            case "status-created":
+                criteria.status().setIn(Arrays.asList(TaskAndProjectStatus.NEW, TaskAndProjectStatus.ACTIVE));
+                criteria.created().setGreaterThan(ZonedDateTime.now().minusDays(value % 30));
+                break;
+            default:
+                criteria.projectId().setEquals(value);
+                criteria.commentId().setSpecified(true);
+        }
+        return criteria;
+    }
+
+    private static ApplicationProperties queryCache(boolean enabled) {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getQueryCache().setEnabled(enabled);
+        return properties;
+    }
+}
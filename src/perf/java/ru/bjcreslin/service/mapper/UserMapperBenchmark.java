@@ -0,0 +1,53 @@
+package ru.bjcreslin.service.mapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.bjcreslin.FakeDataFixtures;
+import ru.bjcreslin.domain.User;
+import ru.bjcreslin.service.dto.AdminUserDTO;
+import ru.bjcreslin.service.dto.UserDTO;
+
+/**
+ * Measures the mapping of the pages of users returned by the user resources to their DTOs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        users = FakeDataFixtures.users(pageSize);
+    }
+
+    @Benchmark
+    public List<UserDTO> usersToUserDTOs() {
+        return userMapper.usersToUserDTOs(users);
+    }
+
+    @Benchmark
+    public List<AdminUserDTO> usersToAdminUserDTOs() {
+        return userMapper.usersToAdminUserDTOs(users);
+    }
+}
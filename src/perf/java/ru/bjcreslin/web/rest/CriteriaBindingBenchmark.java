@@ -0,0 +1,80 @@
+package ru.bjcreslin.web.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import ru.bjcreslin.config.DateTimeFormatConfiguration;
+import ru.bjcreslin.service.criteria.TaskCriteria;
+
+/**
+ * Measures the binding of the query strings of {@code GET /api/tasks} to a {@link TaskCriteria}, from the parsing of
+ * the query string to the conversion of the filter values.
+ * <p>
+ * The binder is configured as Spring MVC configures it, with the formatters of the {@link DateTimeFormatConfiguration}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CriteriaBindingBenchmark {
+
+    @Param({ "name", "status-created", "associations" })
+    public String shape;
+
+    private final DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+
+    private String uri;
+
+    @Setup
+    public void setUp() {
+        new DateTimeFormatConfiguration().addFormatters(conversionService);
+        switch (shape) {
+            case "name":
+                uri = "/api/tasks?name.contains=optical%20Squares&page=0&size=20&sort=created,desc";
+                break;
+            case "status-created":
+                uri = "/api/tasks?status.in=NEW,ACTIVE&created.greaterThan=2021-03-30T05:46:29Z&page=0&size=20&sort=created,desc";
+                break;
+            default:
+                uri = "/api/tasks?projectId.equals=3&commentId.specified=true&page=0&size=20&sort=id,asc";
+        }
+    }
+
+    @Benchmark
+    public TaskCriteria bind() {
+        MultiValueMap<String, String> parameters = UriComponentsBuilder.fromUriString(uri).build().getQueryParams();
+        MutablePropertyValues values = new MutablePropertyValues();
+        parameters.forEach((name, parameterValues) -> values.add(name, decode(parameterValues)));
+        TaskCriteria criteria = new TaskCriteria();
+        WebDataBinder binder = new WebDataBinder(criteria, "taskCriteria");
+        binder.setConversionService(conversionService);
+        binder.bind(values);
+        return criteria;
+    }
+
+    private static Object decode(List<String> values) {
+        if (values.size() == 1) {
+            return UriUtils.decode(values.get(0), StandardCharsets.UTF_8);
+        }
+        return values.stream().map(value -> UriUtils.decode(value, StandardCharsets.UTF_8)).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,71 @@
+package ru.bjcreslin.web.rest.util;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+import ru.bjcreslin.FakeDataFixtures;
+import ru.bjcreslin.domain.Task;
+import tech.jhipster.web.util.HeaderUtil;
+import tech.jhipster.web.util.PaginationUtil;
+
+/**
+ * Measures the headers generated for the responses of the resources: the pagination links of a page in the middle of
+ * the results and the alert of an update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationHeadersBenchmark {
+
+    private static final String APPLICATION_NAME = "homeForYourProjectsApp";
+
+    private static final String REQUEST_URL = "http://localhost:8080/api/tasks?name.contains=optical&page=3&size=20&sort=created,desc";
+
+    private Page<Task> page;
+
+    private Slice<Task> slice;
+
+    @Setup
+    public void setUp() {
+        List<Task> tasks = FakeDataFixtures.tasks(20, Collections.emptyList());
+        PageRequest pageRequest = PageRequest.of(3, 20, Sort.by("created").descending());
+        page = new PageImpl<>(tasks, pageRequest, 1000);
+        slice = new SliceImpl<>(tasks, pageRequest, true);
+    }
+
+    @Benchmark
+    public HttpHeaders pagePaginationHeaders() {
+        return PaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpUrl(REQUEST_URL), page);
+    }
+
+    @Benchmark
+    public HttpHeaders slicePaginationHeaders() {
+        return SlicePaginationUtil.generatePaginationHttpHeaders(UriComponentsBuilder.fromHttpUrl(REQUEST_URL), slice);
+    }
+
+    @Benchmark
+    public HttpHeaders entityUpdateAlert() {
+        return HeaderUtil.createEntityUpdateAlert(APPLICATION_NAME, false, "task", "42");
+    }
+}
@@ -0,0 +1,175 @@
+package ru.bjcreslin.aop.timing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.env.MockEnvironment;
+import ru.bjcreslin.config.ApplicationProperties;
+import tech.jhipster.config.JHipsterConstants;
+
+/**
+ * Unit tests for the {@link TimingAspect}.
+ */
+class TimingAspectTest {
+
+    private final Logger log = (Logger) LoggerFactory.getLogger(SampleService.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private final SampleService target = new SampleService();
+
+    private MeterRegistry meterRegistry;
+
+    private ApplicationProperties.MethodTiming properties;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new ApplicationProperties.MethodTiming();
+        appender.start();
+        log.addAppender(appender);
+        log.setLevel(Level.DEBUG);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        log.detachAppender(appender);
+        log.setLevel(null);
+    }
+
+    @Test
+    void callsAreTimedPerMethodAndOutcome() throws Throwable {
+        TimingAspect aspect = new TimingAspect(new MockEnvironment(), meterRegistry, properties);
+
+        assertThat(aspect.timeAround(joinPoint("ping", 1L))).isEqualTo(1L);
+        assertThat(aspect.timeAround(joinPoint("ping", 2L))).isEqualTo(2L);
+        assertThatIllegalStateException().isThrownBy(() -> aspect.timeAround(joinPoint("fail")));
+
+        assertThat(timerCount("ping", "success")).isEqualTo(2);
+        assertThat(timerCount("ping", "error")).isZero();
+        assertThat(timerCount("fail", "error")).isEqualTo(1);
+    }
+
+    @Test
+    void overloadsShareTheTimerOfTheirMethod() throws Throwable {
+        TimingAspect aspect = new TimingAspect(new MockEnvironment(), meterRegistry, properties);
+
+        aspect.timeAround(joinPoint("ping", 1L));
+        aspect.timeAround(joinPoint("ping", 2L, 3L));
+        aspect.timeAround(joinPoint("ping", 4L, 5L));
+
+        assertThat(timerCount("ping", "success")).isEqualTo(3);
+    }
+
+    @Test
+    void argumentsAreNotLoggedOutsideOfTheSample() throws Throwable {
+        properties.setArgumentSampleRate(0);
+        TimingAspect aspect = new TimingAspect(new MockEnvironment(), meterRegistry, properties);
+
+        for (long i = 0; i < 10; i++) {
+            aspect.timeAround(joinPoint("ping", i));
+        }
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void argumentLogsAreLimitedPerSecond() throws Throwable {
+        properties.setArgumentSampleRate(1);
+        properties.setMaxArgumentLogsPerSecond(2);
+        TimingAspect aspect = new TimingAspect(new MockEnvironment(), meterRegistry, properties);
+
+        for (long i = 0; i < 10; i++) {
+            aspect.timeAround(joinPoint("ping", i));
+        }
+
+        assertThat(appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList()))
+            .hasSizeBetween(1, 2)
+            .allMatch(message -> message.startsWith("ping() with argument[s] = ["));
+    }
+
+    @Test
+    void argumentsAreNotLoggedWithoutTheDebugLevel() throws Throwable {
+        properties.setArgumentSampleRate(1);
+        log.setLevel(Level.INFO);
+        TimingAspect aspect = new TimingAspect(new MockEnvironment(), meterRegistry, properties);
+
+        aspect.timeAround(joinPoint("ping", 1L));
+
+        assertThat(appender.list).isEmpty();
+    }
+
+    @Test
+    void exceptionsAreLoggedAsErrorsInTheDevProfileOnly() throws Throwable {
+        properties.setArgumentSampleRate(0);
+        TimingAspect aspect = new TimingAspect(new MockEnvironment(), meterRegistry, properties);
+        MockEnvironment devEnvironment = new MockEnvironment();
+        devEnvironment.setActiveProfiles(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT);
+        TimingAspect devAspect = new TimingAspect(devEnvironment, meterRegistry, properties);
+
+        assertThatIllegalStateException().isThrownBy(() -> aspect.timeAround(joinPoint("fail")));
+        assertThat(appender.list).extracting(ILoggingEvent::getLevel).containsExactly(Level.DEBUG);
+
+        appender.list.clear();
+        assertThatIllegalStateException().isThrownBy(() -> devAspect.timeAround(joinPoint("fail")));
+        assertThat(appender.list).extracting(ILoggingEvent::getLevel).containsExactly(Level.ERROR);
+    }
+
+    private double timerCount(String method, String outcome) {
+        return meterRegistry
+            .get("method.timed")
+            .tag("class", "SampleService")
+            .tag("method", method)
+            .tag("outcome", outcome)
+            .functionTimer()
+            .count();
+    }
+
+    private ProceedingJoinPoint joinPoint(String method, Object... args) throws Throwable {
+        MethodSignature signature = mock(MethodSignature.class);
+        Class<?>[] parameterTypes = new Class<?>[args.length];
+        Arrays.fill(parameterTypes, Long.class);
+        when(signature.getMethod()).thenReturn(SampleService.class.getMethod(method, parameterTypes));
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getTarget()).thenReturn(target);
+        when(joinPoint.getArgs()).thenReturn(args);
+        if (args.length == 0) {
+            when(joinPoint.proceed()).thenAnswer(invocation -> target.fail());
+        } else {
+            when(joinPoint.proceed()).thenReturn(target.ping((Long) args[0]));
+        }
+        return joinPoint;
+    }
+
+    public static class SampleService {
+
+        public Long ping(Long id) {
+            return id;
+        }
+
+        public Long ping(Long id, Long otherId) {
+            return id + otherId;
+        }
+
+        public Long fail() {
+            throw new IllegalStateException("failed");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.bjcreslin.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.service.ProjectService;
+import ru.bjcreslin.service.TaskService;
+
+/**
+ * Integration tests for the Hibernate second-level cache set up by {@link CacheConfiguration}.
+ */
+@IntegrationTest
+@TestPropertySource(
+    properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+    }
+)
+class CacheConfigurationIT {
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+
+    private Project project;
+
+    @BeforeEach
+    public void initTest() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        project = projectService.save(new Project().projectName("cached"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        projectRepository.deleteById(project.getId());
+    }
+
+    @Test
+    void findOneIsCached() {
+        entityManagerFactory.getCache().evictAll();
+
+        assertThat(projectService.findOne(project.getId())).isPresent();
+
+        assertThat(entityManagerFactory.getCache().contains(Project.class, project.getId())).isTrue();
+    }
+
+    @Test
+    void projectTasksAreEvictedOnTaskWrites() {
+        assertThat(countTasks()).isZero();
+
+        Task task = taskService.save(new Task().name("first").project(project));
+        assertThat(countTasks()).isEqualTo(1);
+
+        taskService.delete(task.getId());
+        assertThat(countTasks()).isZero();
+    }
+
+    @Test
+    void hitRatioIsPublished() {
+        assertThat(meterRegistry.find("cache.hit.ratio").tag("cache", Project.class.getName()).gauge()).isNotNull();
+        assertThat(meterRegistry.find("cache.hit.ratio").tag("cache", Project.class.getName() + ".tasks").gauge()).isNotNull();
+    }
+
+    private int countTasks() {
+        return transactionTemplate.execute(status -> projectRepository.findById(project.getId()).orElseThrow().getTasks().size());
+    }
+}
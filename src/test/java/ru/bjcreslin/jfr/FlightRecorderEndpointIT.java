@@ -0,0 +1,108 @@
+package ru.bjcreslin.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.core.io.Resource;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.bjcreslin.IntegrationTest;
+
+/**
+ * Integration tests for the {@link FlightRecorderEndpoint}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class FlightRecorderEndpointIT {
+
+    @Autowired
+    private FlightRecorderEndpoint flightRecorderEndpoint;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @AfterEach
+    public void closeRecordings() {
+        flightRecorderEndpoint.recordings().forEach(recording -> flightRecorderEndpoint.close(recording.getId()));
+    }
+
+    @Test
+    void criteriaQueriesAreRecorded() throws Exception {
+        WebEndpointResponse<FlightRecorderEndpoint.RecordingDescriptor> started = flightRecorderEndpoint.start(60L, "default");
+        assertThat(started.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        long id = started.getBody().getId();
+        assertThat(started.getBody().getState()).isEqualTo(RecordingState.RUNNING);
+
+        mockMvc.perform(get("/api/tasks?name.contains=flight-recorder")).andExpect(status().isOk());
+
+        List<RecordedEvent> events = download(id);
+        assertThat(events)
+            .filteredOn(event -> event.getEventType().getName().equals("ru.bjcreslin.CriteriaQuery"))
+            .anySatisfy(event -> {
+                assertThat(event.getString("entity")).isEqualTo("Task");
+                assertThat(event.getString("criteria")).isEqualTo("name.contains");
+                assertThat(event.getLong("rows")).isZero();
+                assertThat(event.getDuration()).isPositive();
+            });
+    }
+
+    @Test
+    void recordingsAreStoppedAndClosed() {
+        long id = flightRecorderEndpoint.start(null, null).getBody().getId();
+
+        assertThat(flightRecorderEndpoint.stop(id).getBody().getState()).isEqualTo(RecordingState.STOPPED);
+        assertThat(flightRecorderEndpoint.close(id).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NO_CONTENT);
+
+        assertThat(flightRecorderEndpoint.recordings()).noneMatch(recording -> recording.getId() == id);
+        assertThat(flightRecorderEndpoint.stop(id).getStatus()).isEqualTo(WebEndpointResponse.STATUS_NOT_FOUND);
+    }
+
+    @Test
+    void oldestStoppedRecordingsAreClosed() {
+        long first = flightRecorderEndpoint.start(null, null).getBody().getId();
+        flightRecorderEndpoint.stop(first);
+        flightRecorderEndpoint.start(null, null);
+        flightRecorderEndpoint.start(null, null);
+
+        assertThat(flightRecorderEndpoint.start(null, null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        assertThat(flightRecorderEndpoint.recordings()).hasSize(3).noneMatch(recording -> recording.getId() == first);
+        assertThat(flightRecorderEndpoint.start(null, null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+    }
+
+    @Test
+    void invalidRecordingsAreNotStarted() {
+        assertThat(flightRecorderEndpoint.start(0L, null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(flightRecorderEndpoint.start(3600L, null).getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(flightRecorderEndpoint.start(null, "unknown").getStatus()).isEqualTo(WebEndpointResponse.STATUS_BAD_REQUEST);
+        assertThat(flightRecorderEndpoint.recordings()).isEmpty();
+    }
+
+    private List<RecordedEvent> download(long id) throws Exception {
+        WebEndpointResponse<Resource> response = flightRecorderEndpoint.download(id);
+        assertThat(response.getStatus()).isEqualTo(WebEndpointResponse.STATUS_OK);
+        Path file = Files.createTempFile("flight-recorder-it-", ".jfr");
+        try (InputStream recording = response.getBody().getInputStream()) {
+            Files.copy(recording, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
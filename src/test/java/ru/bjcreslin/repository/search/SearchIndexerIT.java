@@ -0,0 +1,131 @@
+package ru.bjcreslin.repository.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.domain.Message;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.repository.MessageRepository;
+import ru.bjcreslin.repository.TaskRepository;
+import ru.bjcreslin.service.MessageService;
+import ru.bjcreslin.service.TaskService;
+
+/**
+ * Integration tests for the {@link SearchIndexer} and the {@link SearchIndex}.
+ */
+@IntegrationTest
+class SearchIndexerIT {
+
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void cleanUp() throws Exception {
+        taskRepository.deleteAll();
+        messageRepository.deleteAll();
+        flush();
+    }
+
+    @Test
+    void searchIsStemmedAndCaseInsensitive() throws Exception {
+        Task russian = taskService.save(new Task().name("Исправить отчёты").text("Отчёт по задачам проекта"));
+        Task english = taskService.save(new Task().name("Deploy").text("Running the migrations of the DATABASE"));
+        flush();
+
+        assertThat(taskService.search("задача", PAGE)).containsExactly(russian);
+        assertThat(taskService.search("отчёт", PAGE)).containsExactly(russian);
+        assertThat(taskService.search("run migration", PAGE)).containsExactly(english);
+        assertThat(taskService.search("database deployed", PAGE)).containsExactly(english);
+        // every word must match
+        assertThat(taskService.search("migration отчёт", PAGE)).isEmpty();
+        // stop words alone match nothing
+        assertThat(taskService.search("the", PAGE)).isEmpty();
+    }
+
+    @Test
+    void searchIsRankedAndPaginated() throws Exception {
+        Task inText = taskService.save(new Task().name("Backend").text("release notes"));
+        Task inName = taskService.save(new Task().name("Release").text("notes"));
+        flush();
+
+        assertThat(taskService.search("release", PAGE)).containsExactly(inName, inText);
+        assertThat(taskService.search("release", PageRequest.of(1, 1)).getContent()).containsExactly(inText);
+        assertThat(taskService.search("release", PageRequest.of(1, 1)).getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void updatesAndDeletesAreIndexed() throws Exception {
+        Message message = messageService.save(new Message().text("first draft"));
+        flush();
+        assertThat(messageService.search("draft", PAGE)).containsExactly(message);
+
+        message.setText("final version");
+        messageService.save(message);
+        flush();
+        assertThat(messageService.search("draft", PAGE)).isEmpty();
+        assertThat(messageService.search("version", PAGE)).containsExactly(message);
+
+        messageService.delete(message.getId());
+        flush();
+        assertThat(messageService.search("version", PAGE)).isEmpty();
+    }
+
+    @Test
+    void indexIsRebuiltFromTheDatabase() throws Exception {
+        // native statements bypass the entity events
+        String insert = "insert into message (id, text) values (?, ?)";
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> jdbcTemplate.update(insert, 1_000_000L, "imported directly"));
+        flush();
+        assertThat(messageService.search("imported", PAGE)).isEmpty();
+
+        searchIndexer.rebuild().get(10, TimeUnit.SECONDS);
+
+        assertThat(messageService.search("imported", PAGE)).extracting(Message::getId).containsExactly(1_000_000L);
+    }
+
+    @Test
+    void lagIsPublished() throws Exception {
+        flush();
+
+        assertThat(meterRegistry.get("search.index.lag").timeGauge().value()).isZero();
+        assertThat(meterRegistry.get("search.index.pending").gauge().value()).isZero();
+    }
+
+    private void flush() throws Exception {
+        searchIndexer.flush().get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.bjcreslin.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Unit tests for the {@link BoundedPasswordEncoder}.
+ */
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private MeterRegistry meterRegistry;
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        // one thread and one queued password
+        passwordEncoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(), 1, 1, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    void passwordsAreHashedOnTheHashingThreads() {
+        release.countDown();
+
+        assertThat(passwordEncoder.encode("password")).startsWith("password-hashing-");
+        assertThat(passwordEncoder.matches("password", "encoded")).isTrue();
+        assertThat(meterRegistry.get("security.password.hashing").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.password.hashing").tag("operation", "matches").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void passwordsAreRejectedWhenSaturated() throws Exception {
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("running"));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("queued"));
+        while (meterRegistry.get("security.password.hashing.queued").gauge().value() < 1) {
+            Thread.sleep(10);
+        }
+
+        assertThatExceptionOfType(PasswordHashingRejectedException.class).isThrownBy(() -> passwordEncoder.encode("rejected"));
+        assertThat(meterRegistry.get("security.password.hashing.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isNotNull();
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void upgradeIsDelegated() {
+        BoundedPasswordEncoder bcrypt = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 1, meterRegistry);
+        try {
+            assertThat(bcrypt.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password"))).isTrue();
+            assertThat(bcrypt.upgradeEncoding(bcrypt.encode("password"))).isFalse();
+        } finally {
+            bcrypt.destroy();
+        }
+    }
+
+    /**
+     * Waits to be released, then encodes a password as the name of the thread encoding it.
+     */
+    private class BlockingPasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Thread.currentThread().getName();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return true;
+        }
+    }
+}
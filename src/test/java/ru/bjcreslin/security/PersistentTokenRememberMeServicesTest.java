@@ -0,0 +1,183 @@
+package ru.bjcreslin.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.domain.PersistentToken;
+import ru.bjcreslin.domain.User;
+import ru.bjcreslin.repository.PersistentTokenRepository;
+import ru.bjcreslin.repository.UserRepository;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Concurrency and rotation tests for the {@link PersistentTokenRememberMeServices}.
+ */
+class PersistentTokenRememberMeServicesTest {
+
+    private static final int THREADS = 8;
+
+    private PersistentTokenRepository persistentTokenRepository;
+
+    private PersistentTokenWriteBehind persistentTokenWriteBehind;
+
+    private MeterRegistry meterRegistry;
+
+    private PersistentTokenRememberMeServices rememberMeServices;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getRememberMe().setKey("test-key");
+        UserDetailsService userDetailsService = mock(UserDetailsService.class);
+        when(userDetailsService.loadUserByUsername(anyString())).thenReturn(mock(UserDetails.class));
+        persistentTokenRepository = mock(PersistentTokenRepository.class);
+        persistentTokenWriteBehind = mock(PersistentTokenWriteBehind.class);
+        meterRegistry = new SimpleMeterRegistry();
+        rememberMeServices =
+            new PersistentTokenRememberMeServices(
+                jHipsterProperties,
+                userDetailsService,
+                persistentTokenRepository,
+                mock(UserRepository.class),
+                persistentTokenWriteBehind,
+                new ApplicationProperties(),
+                meterRegistry
+            );
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sameSeriesIsRefreshedOnce() throws Exception {
+        PersistentToken token = token("series", "value");
+        when(persistentTokenRepository.findById("series")).thenReturn(Optional.of(token));
+        AtomicInteger refreshing = new AtomicInteger();
+        AtomicInteger maxRefreshing = new AtomicInteger();
+        when(persistentTokenRepository.saveAndFlush(any()))
+            .thenAnswer(
+                invocation -> {
+                    maxRefreshing.accumulateAndGet(refreshing.incrementAndGet(), Math::max);
+                    Thread.sleep(50);
+                    refreshing.decrementAndGet();
+                    return invocation.getArgument(0);
+                }
+            );
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UserDetails>> logins = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            logins.add(executor.submit(() -> autoLogin(start, "series", "value")));
+        }
+        start.countDown();
+        for (Future<UserDetails> login : logins) {
+            assertThat(login.get(10, TimeUnit.SECONDS)).isNotNull();
+        }
+
+        // the other requests were served by the upgraded token cache
+        verify(persistentTokenRepository, times(1)).saveAndFlush(any());
+        assertThat(maxRefreshing.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("security.remember-me.lock.wait").timer().count()).isPositive();
+    }
+
+    @Test
+    void differentSeriesAreRefreshedInParallel() throws Exception {
+        List<String> series = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            series.add("series-" + i);
+            when(persistentTokenRepository.findById("series-" + i)).thenReturn(Optional.of(token("series-" + i, "value")));
+        }
+        // every refresh waits for all the others, which would never happen if they were serialised
+        CountDownLatch allRefreshing = new CountDownLatch(THREADS);
+        when(persistentTokenRepository.saveAndFlush(any()))
+            .thenAnswer(
+                invocation -> {
+                    allRefreshing.countDown();
+                    assertThat(allRefreshing.await(10, TimeUnit.SECONDS)).isTrue();
+                    return invocation.getArgument(0);
+                }
+            );
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UserDetails>> logins = new ArrayList<>();
+        for (String s : series) {
+            logins.add(executor.submit(() -> autoLogin(start, s, "value")));
+        }
+        start.countDown();
+        for (Future<UserDetails> login : logins) {
+            assertThat(login.get(20, TimeUnit.SECONDS)).isNotNull();
+        }
+
+        verify(persistentTokenRepository, times(THREADS)).saveAndFlush(any());
+        assertThat(meterRegistry.get("security.remember-me.lock.uncontended").counter().count()).isEqualTo(THREADS);
+    }
+
+    @Test
+    void recentlyRotatedTokenIsWrittenBehind() throws Exception {
+        PersistentToken token = token("series", "value");
+        when(persistentTokenRepository.findById("series")).thenReturn(Optional.of(token));
+        when(persistentTokenRepository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        autoLogin(new CountDownLatch(0), "series", "value");
+        String rotatedValue = token.getTokenValue();
+        assertThat(rotatedValue).isNotEqualTo("value");
+
+        // the same browser, then another one, presenting the rotated value
+        autoLogin(new CountDownLatch(0), "series", rotatedValue);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("User-Agent", "other");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rememberMeServices.processAutoLoginCookie(new String[] { "series", rotatedValue }, request, response);
+
+        assertThat(token.getTokenValue()).isEqualTo(rotatedValue);
+        assertThat(token.getUserAgent()).isEqualTo("other");
+        assertThat(response.getCookies()).isEmpty();
+        verify(persistentTokenRepository, times(1)).saveAndFlush(any());
+        verify(persistentTokenWriteBehind, times(1)).record(token);
+    }
+
+    private UserDetails autoLogin(CountDownLatch start, String series, String value) throws InterruptedException {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("User-Agent", "test");
+        start.await();
+        return rememberMeServices.processAutoLoginCookie(new String[] { series, value }, request, new MockHttpServletResponse());
+    }
+
+    private static PersistentToken token(String series, String value) {
+        User user = new User();
+        user.setLogin("user-" + series);
+        PersistentToken token = new PersistentToken();
+        token.setSeries(series);
+        token.setTokenValue(value);
+        token.setTokenDate(LocalDate.now());
+        token.setUser(user);
+        return token;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.bjcreslin.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.domain.PersistentToken;
+import ru.bjcreslin.domain.User;
+import ru.bjcreslin.repository.PersistentTokenRepository;
+import ru.bjcreslin.repository.UserRepository;
+
+/**
+ * Integration tests for {@link PersistentTokenWriteBehind}.
+ */
+@IntegrationTest
+class PersistentTokenWriteBehindIT {
+
+    @Autowired
+    private PersistentTokenWriteBehind persistentTokenWriteBehind;
+
+    @Autowired
+    private PersistentTokenRepository persistentTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setPassword(RandomStringUtils.random(60));
+        user.setLogin("write-behind");
+        user.setEmail("write-behind@example.com");
+        user = userRepository.saveAndFlush(user);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        persistentTokenWriteBehind.flush();
+        persistentTokenRepository.deleteAll(persistentTokenRepository.findByUser(user));
+        userRepository.delete(user);
+    }
+
+    @Test
+    void latestUsesAreWrittenInOneFlush() {
+        PersistentToken first = persistentTokenRepository.saveAndFlush(token("write-behind-1"));
+        PersistentToken second = persistentTokenRepository.saveAndFlush(token("write-behind-2"));
+
+        first.setUserAgent("first agent");
+        persistentTokenWriteBehind.record(first);
+        first.setTokenDate(LocalDate.of(2026, 10, 17));
+        first.setIpAddress("10.0.0.1");
+        first.setUserAgent("second agent");
+        persistentTokenWriteBehind.record(first);
+        second.setIpAddress("10.0.0.2");
+        persistentTokenWriteBehind.record(second);
+        // the usage of a deleted token updates nothing
+        persistentTokenWriteBehind.record(token("write-behind-deleted"));
+
+        assertThat(persistentTokenWriteBehind.flush()).isEqualTo(3);
+        assertThat(persistentTokenWriteBehind.flush()).isZero();
+
+        PersistentToken stored = persistentTokenRepository.findById("write-behind-1").orElseThrow();
+        assertThat(stored.getTokenDate()).isEqualTo(LocalDate.of(2026, 10, 17));
+        assertThat(stored.getIpAddress()).isEqualTo("10.0.0.1");
+        assertThat(stored.getUserAgent()).isEqualTo("second agent");
+        assertThat(stored.getTokenValue()).isEqualTo("token-value");
+        assertThat(persistentTokenRepository.findById("write-behind-2").orElseThrow().getIpAddress()).isEqualTo("10.0.0.2");
+        assertThat(persistentTokenRepository.findById("write-behind-deleted")).isEmpty();
+    }
+
+    @Test
+    void discardedUsesAreNotWritten() {
+        PersistentToken token = persistentTokenRepository.saveAndFlush(token("write-behind-1"));
+
+        token.setIpAddress("10.0.0.1");
+        persistentTokenWriteBehind.record(token);
+        persistentTokenWriteBehind.discard(token.getSeries());
+
+        assertThat(persistentTokenWriteBehind.flush()).isZero();
+        assertThat(persistentTokenRepository.findById("write-behind-1").orElseThrow().getIpAddress()).isEqualTo("127.0.0.1");
+    }
+
+    @Test
+    void usesRecordedBeforeARotationAreNotWrittenOverIt() {
+        PersistentToken token = persistentTokenRepository.saveAndFlush(token("write-behind-1"));
+
+        token.setIpAddress("10.0.0.1");
+        persistentTokenWriteBehind.record(token);
+        // the token is rotated while its use is being flushed, after the flush took the buffered values
+        token.setTokenValue("rotated-value");
+        token.setIpAddress("10.0.0.2");
+        persistentTokenRepository.saveAndFlush(token);
+
+        persistentTokenWriteBehind.flush();
+
+        PersistentToken stored = persistentTokenRepository.findById("write-behind-1").orElseThrow();
+        assertThat(stored.getTokenValue()).isEqualTo("rotated-value");
+        assertThat(stored.getIpAddress()).isEqualTo("10.0.0.2");
+    }
+
+    private PersistentToken token(String series) {
+        PersistentToken token = new PersistentToken();
+        token.setSeries(series);
+        token.setUser(user);
+        token.setTokenValue("token-value");
+        token.setTokenDate(LocalDate.of(2017, 3, 23));
+        token.setIpAddress("127.0.0.1");
+        token.setUserAgent("Test agent");
+        return token;
+    }
+}
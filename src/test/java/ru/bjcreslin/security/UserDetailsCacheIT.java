@@ -0,0 +1,126 @@
+package ru.bjcreslin.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.domain.User;
+import ru.bjcreslin.repository.UserRepository;
+import ru.bjcreslin.service.UserService;
+import ru.bjcreslin.service.dto.AdminUserDTO;
+
+/**
+ * Integration tests for the {@link UserDetailsCache} used by the {@link DomainUserDetailsService}.
+ */
+@IntegrationTest
+class UserDetailsCacheIT {
+
+    private static final String LOGIN = "cached-user";
+
+    private static final String EMAIL = "cached-user@localhost";
+
+    @Autowired
+    private UserDetailsService domainUserDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setLogin(LOGIN);
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail(EMAIL);
+        user = userRepository.saveAndFlush(user);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        userService.deleteUser(LOGIN);
+    }
+
+    @Test
+    void usersAreCachedByLoginAndEmail() {
+        double hitsBefore = hits();
+
+        UserDetails byLogin = domainUserDetailsService.loadUserByUsername(LOGIN.toUpperCase());
+        // the authentication erases the credentials of the users it gets
+        ((CredentialsContainer) byLogin).eraseCredentials();
+        UserDetails cached = domainUserDetailsService.loadUserByUsername(LOGIN);
+        domainUserDetailsService.loadUserByUsername(EMAIL);
+        domainUserDetailsService.loadUserByUsername(EMAIL.toUpperCase());
+
+        assertThat(cached.getUsername()).isEqualTo(LOGIN);
+        assertThat(cached.getPassword()).isEqualTo(user.getPassword());
+        assertThat(hits()).isEqualTo(hitsBefore + 2);
+    }
+
+    @Test
+    void usersAreEvictedWhenUpdated() {
+        domainUserDetailsService.loadUserByUsername(LOGIN);
+        domainUserDetailsService.loadUserByUsername(EMAIL);
+
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setActivated(false);
+        userService.updateUser(userDTO);
+
+        assertThatExceptionOfType(UserNotActivatedException.class).isThrownBy(() -> domainUserDetailsService.loadUserByUsername(LOGIN));
+        assertThatExceptionOfType(UserNotActivatedException.class).isThrownBy(() -> domainUserDetailsService.loadUserByUsername(EMAIL));
+    }
+
+    @Test
+    void usersAreEvictedWhenDeleted() {
+        domainUserDetailsService.loadUserByUsername(LOGIN);
+
+        userService.deleteUser(LOGIN);
+
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() -> domainUserDetailsService.loadUserByUsername(LOGIN));
+    }
+
+    @Test
+    void usersReadByARolledBackTransactionAreNotCached() {
+        String login = "rolled-back-user";
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(
+                status -> {
+                    User rolledBack = new User();
+                    rolledBack.setLogin(login);
+                    rolledBack.setPassword(RandomStringUtils.random(60));
+                    rolledBack.setActivated(true);
+                    userRepository.saveAndFlush(rolledBack);
+                    assertThat(domainUserDetailsService.loadUserByUsername(login)).isNotNull();
+                    status.setRollbackOnly();
+                }
+            );
+
+        assertThatExceptionOfType(UsernameNotFoundException.class).isThrownBy(() -> domainUserDetailsService.loadUserByUsername(login));
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit").functionCounter().count();
+    }
+}
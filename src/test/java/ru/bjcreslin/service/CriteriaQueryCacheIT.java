@@ -0,0 +1,150 @@
+package ru.bjcreslin.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.config.ApplicationProperties;
+import ru.bjcreslin.domain.Comment;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+import ru.bjcreslin.repository.TableStatisticsRepository;
+import ru.bjcreslin.service.criteria.TaskCriteria;
+
+/**
+ * Integration tests for {@link CriteriaQueryCache}.
+ */
+@IntegrationTest
+@Transactional
+class CriteriaQueryCacheIT {
+
+    private static final ZonedDateTime NOW = ZonedDateTime.ofInstant(Instant.ofEpochMilli(0L), ZoneOffset.UTC);
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private TableStatisticsRepository tableStatisticsRepository;
+
+    @Autowired
+    private TaskQueryService taskQueryService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TaskQueryService specificationQueryService;
+
+    private Project project;
+
+    private Comment comment;
+
+    @BeforeEach
+    public void initTest() {
+        ApplicationProperties properties = new ApplicationProperties();
+        properties.getQueryCache().setEnabled(false);
+        specificationQueryService = new TaskQueryService(tableStatisticsRepository, em, properties, new SimpleMeterRegistry());
+
+        project = new Project().projectName("board");
+        em.persist(project);
+        comment = new Comment();
+        em.persist(comment);
+        em.persist(new Task().name("alpha").author("ann").status(TaskAndProjectStatus.NEW).created(NOW).project(project));
+        em.persist(new Task().name("Beta").author("bob").status(TaskAndProjectStatus.ACTIVE).created(NOW.plusDays(1)).project(project));
+        em.persist(new Task().name("gamma").status(TaskAndProjectStatus.CLOSED).created(NOW.plusDays(2)).addComment(comment));
+        em.persist(new Task().name("delta").author("ann").status(TaskAndProjectStatus.ACTIVE));
+        em.flush();
+    }
+
+    @Test
+    void compiledQueriesMatchSpecifications() {
+        assertSameResult(c -> {});
+        assertSameResult(c -> c.name().setContains("A"));
+        assertSameResult(c -> c.name().setDoesNotContain("et"));
+        assertSameResult(c -> c.name().setEquals("alpha"));
+        assertSameResult(c -> c.author().setSpecified(false));
+        assertSameResult(c -> c.author().setNotEquals("ann"));
+        assertSameResult(c -> c.author().setIn(Arrays.asList("ann", "bob")));
+        assertSameResult(c -> c.author().setNotIn(Collections.singletonList("ann")));
+        assertSameResult(c -> c.status().setIn(Collections.emptyList()));
+        assertSameResult(c -> c.status().setNotEquals(TaskAndProjectStatus.ACTIVE));
+        assertSameResult(c -> {
+            c.created().setGreaterThan(NOW);
+            c.created().setLessThanOrEqual(NOW.plusDays(2));
+            c.created().setNotIn(Collections.singletonList(NOW.plusDays(1)));
+        });
+        assertSameResult(c -> {
+            // equals takes precedence over the other operators of the filter
+            c.author().setEquals("bob");
+            c.author().setContains("ann");
+        });
+        assertSameResult(c -> c.projectId().setEquals(project.getId()));
+        assertSameResult(c -> c.commentId().setSpecified(true));
+        assertSameResult(c -> {
+            c.commentId().setGreaterThanOrEqual(comment.getId());
+            c.commentId().setLessThan(comment.getId() + 1);
+        });
+    }
+
+    @Test
+    void sameShapeIsCompiledOnce() {
+        TaskCriteria criteria = new TaskCriteria();
+        criteria.name().setContains("alpha");
+        criteria.created().setGreaterThanOrEqual(NOW.minusYears(1));
+        PageRequest page = PageRequest.of(0, 10, Sort.by("created").descending());
+        taskQueryService.findByCriteria(criteria, page);
+        double misses = count("miss");
+        double hits = count("hit");
+
+        criteria = new TaskCriteria();
+        criteria.name().setContains("beta");
+        criteria.created().setGreaterThanOrEqual(NOW);
+        assertThat(taskQueryService.findByCriteria(criteria, page).getContent()).extracting(Task::getName).containsExactly("Beta");
+
+        assertThat(count("miss")).isEqualTo(misses);
+        assertThat(count("hit")).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void sortOnAssociationBypassesTheCache() {
+        double bypasses = count("bypass");
+
+        List<Task> tasks = taskQueryService
+            .findByCriteria(new TaskCriteria(), PageRequest.of(0, 10, Sort.by("project.projectName")))
+            .getContent();
+
+        assertThat(tasks).hasSizeGreaterThanOrEqualTo(4);
+        assertThat(count("bypass")).isEqualTo(bypasses + 1);
+    }
+
+    private void assertSameResult(Consumer<TaskCriteria> filters) {
+        TaskCriteria criteria = new TaskCriteria();
+        filters.accept(criteria);
+        PageRequest page = PageRequest.of(0, 20, Sort.by("id"));
+        assertThat(taskQueryService.findByCriteria(criteria, page).getContent())
+            .as(criteria.toString())
+            .containsExactlyElementsOf(specificationQueryService.findByCriteria(criteria, page).getContent());
+        assertThat(taskQueryService.countByCriteria(criteria))
+            .as(criteria.toString())
+            .isEqualTo(specificationQueryService.countByCriteria(criteria));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("query.shape.cache.requests").tag("entity", "Task").tag("result", result).counter().count();
+    }
+}
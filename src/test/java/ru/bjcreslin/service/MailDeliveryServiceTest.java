@@ -0,0 +1,216 @@
+package ru.bjcreslin.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import ru.bjcreslin.config.ApplicationProperties;
+
+/**
+ * Unit tests for the {@link MailDeliveryService}, sending to an in-process {@link SmtpStandIn}.
+ */
+class MailDeliveryServiceTest {
+
+    private SmtpStandIn smtpServer;
+
+    private JavaMailSenderImpl javaMailSender;
+
+    private ApplicationProperties applicationProperties;
+
+    private MeterRegistry meterRegistry;
+
+    private MailDeliveryService mailDeliveryService;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        smtpServer = new SmtpStandIn();
+        javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("localhost");
+        javaMailSender.setPort(smtpServer.getPort());
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.MailDelivery properties = applicationProperties.getMailDelivery();
+        properties.setConnections(2);
+        properties.setBatchSize(10);
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoffMillis(10);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        if (mailDeliveryService != null) {
+            mailDeliveryService.stop();
+        }
+        smtpServer.close();
+    }
+
+    @Test
+    void emailsAreSentOverPersistentConnections() throws Exception {
+        start();
+
+        for (int i = 0; i < 30; i++) {
+            assertThat(mailDeliveryService.enqueue(message("Email " + i))).isTrue();
+        }
+        await(() -> smtpServer.getMessages().size() == 30);
+        for (int i = 30; i < 40; i++) {
+            assertThat(mailDeliveryService.enqueue(message("Email " + i))).isTrue();
+        }
+        await(() -> smtpServer.getMessages().size() == 40 && meterRegistry.get("mail.delivery.sent").timer().count() == 40);
+
+        assertThat(smtpServer.getMessages()).allMatch(content -> content.contains("Subject: Email "));
+        assertThat(smtpServer.getConnections()).isBetween(1, 2);
+        assertThat(meterRegistry.get("mail.delivery.connections").counter().count()).isEqualTo(smtpServer.getConnections());
+        assertThat(meterRegistry.get("mail.delivery.sent").timer().count()).isEqualTo(40);
+        assertThat(meterRegistry.get("mail.delivery.queued").gauge().value()).isZero();
+    }
+
+    @Test
+    void failedEmailsAreRetriedOverNewConnections() throws Exception {
+        applicationProperties.getMailDelivery().setConnections(1);
+        smtpServer.failNext(2);
+        start();
+
+        mailDeliveryService.enqueue(message("Retried"));
+        await(() -> smtpServer.getMessages().size() == 1);
+
+        assertThat(smtpServer.getConnections()).isEqualTo(3);
+        assertThat(meterRegistry.get("mail.delivery.retries").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("mail.delivery.failed").counter().count()).isZero();
+    }
+
+    @Test
+    void emailsAreGivenUpAfterTheirAttempts() throws Exception {
+        applicationProperties.getMailDelivery().setConnections(1);
+        smtpServer.failNext(3);
+        start();
+
+        mailDeliveryService.enqueue(message("Given up"));
+        await(() -> meterRegistry.get("mail.delivery.failed").counter().count() == 1);
+        assertThat(meterRegistry.get("mail.delivery.retries").counter().count()).isEqualTo(2);
+
+        mailDeliveryService.enqueue(message("Sent"));
+        // the stand-in has the email before the service is told it was sent
+        await(() -> smtpServer.getMessages().size() == 1 && meterRegistry.get("mail.delivery.sent").timer().count() == 1);
+
+        assertThat(smtpServer.getMessages().get(0)).contains("Subject: Sent");
+        assertThat(meterRegistry.get("mail.delivery.failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.delivery.sent").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesDoNotHoldTheOtherEmails() throws Exception {
+        applicationProperties.getMailDelivery().setConnections(1);
+        applicationProperties.getMailDelivery().setInitialBackoffMillis(60000);
+        smtpServer.failNext(1);
+        start();
+
+        mailDeliveryService.enqueue(message("Retried"));
+        mailDeliveryService.enqueue(message("Sent"));
+        await(() -> smtpServer.getMessages().size() == 1 && meterRegistry.get("mail.delivery.sent").timer().count() == 1);
+
+        assertThat(smtpServer.getMessages().get(0)).contains("Subject: Sent");
+        assertThat(meterRegistry.get("mail.delivery.retries").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.delivery.failed").counter().count()).isZero();
+    }
+
+    @Test
+    void emailsRefusedForGoodAreNotRetried() throws Exception {
+        applicationProperties.getMailDelivery().setConnections(1);
+        smtpServer.refuseRecipient("nobody@example.com");
+        start();
+
+        mailDeliveryService.enqueue(message("Refused", "nobody@example.com"));
+        mailDeliveryService.enqueue(message("Sent"));
+        await(() -> smtpServer.getMessages().size() == 1 && meterRegistry.get("mail.delivery.sent").timer().count() == 1);
+
+        assertThat(smtpServer.getMessages().get(0)).contains("Subject: Sent");
+        assertThat(meterRegistry.get("mail.delivery.failed").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mail.delivery.retries").counter().count()).isZero();
+    }
+
+    @Test
+    void unexpectedFailuresDoNotStopTheDelivery() throws Exception {
+        applicationProperties.getMailDelivery().setConnections(1);
+        start();
+
+        MimeMessage broken = new MimeMessage(javaMailSender.getSession()) {
+            @Override
+            public void saveChanges() {
+                throw new IllegalStateException("Broken email");
+            }
+        };
+        mailDeliveryService.enqueue(broken);
+        mailDeliveryService.enqueue(message("Sent"));
+        await(() -> smtpServer.getMessages().size() == 1 && meterRegistry.get("mail.delivery.sent").timer().count() == 1);
+
+        assertThat(meterRegistry.get("mail.delivery.failed").counter().count()).isEqualTo(1);
+        assertThat(mailDeliveryService.enqueue(message("Sent too"))).isTrue();
+        await(() -> smtpServer.getMessages().size() == 2);
+    }
+
+    @Test
+    void emailsAreRejectedWhenTheQueueIsFull() throws Exception {
+        applicationProperties.getMailDelivery().setConnections(1);
+        applicationProperties.getMailDelivery().setQueueCapacity(1);
+        smtpServer.hold();
+        start();
+
+        assertThat(mailDeliveryService.enqueue(message("Sending"))).isTrue();
+        assertThat(smtpServer.awaitReceived(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(mailDeliveryService.enqueue(message("Queued"))).isTrue();
+        assertThat(mailDeliveryService.enqueue(message("Rejected"))).isFalse();
+        assertThat(meterRegistry.get("mail.delivery.rejected").counter().count()).isEqualTo(1);
+
+        smtpServer.release();
+        await(() -> smtpServer.getMessages().size() == 2);
+    }
+
+    @Test
+    void queuedEmailsAreSentOnStop() throws Exception {
+        start();
+        for (int i = 0; i < 5; i++) {
+            mailDeliveryService.enqueue(message("Email " + i));
+        }
+
+        mailDeliveryService.stop();
+
+        assertThat(smtpServer.getMessages()).hasSize(5);
+        assertThat(mailDeliveryService.enqueue(message("Too late"))).isFalse();
+    }
+
+    private void start() {
+        mailDeliveryService = new MailDeliveryService(javaMailSender, applicationProperties, meterRegistry);
+        mailDeliveryService.start();
+    }
+
+    private MimeMessage message(String subject) throws MessagingException {
+        return message(subject, "john.doe@example.com");
+    }
+
+    private MimeMessage message(String subject, String to) throws MessagingException {
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        MimeMessageHelper message = new MimeMessageHelper(mimeMessage, "UTF-8");
+        message.setTo(to);
+        message.setFrom("test@localhost");
+        message.setSubject(subject);
+        message.setText("testContent");
+        return mimeMessage;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.bjcreslin.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.repository.TaskRepository;
+import ru.bjcreslin.service.dto.ProjectStatsDTO;
+
+/**
+ * Integration tests for {@link ProjectTaskCountService}.
+ */
+@IntegrationTest
+class ProjectTaskCountServiceIT {
+
+    @Autowired
+    private ProjectTaskCountService projectTaskCountService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Project first;
+
+    private Project second;
+
+    @BeforeEach
+    public void init() {
+        first = projectRepository.save(new Project().projectName("first"));
+        second = projectRepository.save(new Project().projectName("second"));
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        taskRepository.deleteAll();
+        projectRepository.deleteAll(List.of(first, second));
+    }
+
+    @Test
+    void taskChangesAreCounted() {
+        Task task = taskService.save(new Task().name("task").status(TaskAndProjectStatus.NEW).project(first));
+        taskService.save(new Task().name("other").status(TaskAndProjectStatus.NEW).project(first));
+        taskService.save(new Task().name("without status").project(first));
+        assertThat(count(first, TaskAndProjectStatus.NEW)).isEqualTo(2);
+        assertThat(stats(first).getTotal()).isEqualTo(2);
+
+        taskService.save(task.status(TaskAndProjectStatus.ACTIVE));
+        assertThat(count(first, TaskAndProjectStatus.NEW)).isEqualTo(1);
+        assertThat(count(first, TaskAndProjectStatus.ACTIVE)).isEqualTo(1);
+
+        taskService.partialUpdate(new Task().id(task.getId()).status(TaskAndProjectStatus.CLOSED));
+        assertThat(count(first, TaskAndProjectStatus.ACTIVE)).isZero();
+        assertThat(count(first, TaskAndProjectStatus.CLOSED)).isEqualTo(1);
+
+        taskService.save(taskRepository.findById(task.getId()).orElseThrow().project(second));
+        assertThat(count(first, TaskAndProjectStatus.CLOSED)).isZero();
+        assertThat(count(second, TaskAndProjectStatus.CLOSED)).isEqualTo(1);
+
+        taskService.delete(task.getId());
+        assertThat(stats(second).getTotal()).isZero();
+        assertThat(projectTaskCountService.repair()).isZero();
+    }
+
+    @Test
+    void bulkCreatedTasksAreCounted() {
+        List<Task> tasks = List.of(
+            new Task().name("1").status(TaskAndProjectStatus.NEW).project(new Project().id(first.getId())),
+            new Task().name("2").status(TaskAndProjectStatus.NEW).project(new Project().id(first.getId())),
+            new Task().name("3").status(TaskAndProjectStatus.ENDED).project(new Project().id(second.getId()))
+        );
+
+        assertThat(taskService.saveAll(tasks.iterator())).isEqualTo(3);
+
+        assertThat(projectTaskCountService.findStats(List.of(second.getId(), first.getId())))
+            .extracting(ProjectStatsDTO::getProjectId, stats -> stats.getTasks().get(TaskAndProjectStatus.NEW))
+            .containsExactly(tuple(first.getId(), 2L), tuple(second.getId(), 0L));
+    }
+
+    @Test
+    void driftIsRepaired() {
+        taskService.save(new Task().name("counted").status(TaskAndProjectStatus.NEW).project(first));
+        // native statements bypass the counts
+        String insert = "insert into task (id, name, status, project_id) values (?, ?, ?, ?)";
+        new TransactionTemplate(transactionManager)
+            .executeWithoutResult(status -> jdbcTemplate.update(insert, 1_000_000L, "imported", "NEW", first.getId()));
+        assertThat(count(first, TaskAndProjectStatus.NEW)).isEqualTo(1);
+
+        assertThat(projectTaskCountService.repair()).isEqualTo(1);
+
+        assertThat(count(first, TaskAndProjectStatus.NEW)).isEqualTo(2);
+        assertThat(projectTaskCountService.repair()).isZero();
+    }
+
+    private long count(Project project, TaskAndProjectStatus status) {
+        return stats(project).getTasks().get(status);
+    }
+
+    private ProjectStatsDTO stats(Project project) {
+        return projectTaskCountService.findStats(List.of(project.getId())).get(0);
+    }
+}
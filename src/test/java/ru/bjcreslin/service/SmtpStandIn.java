@@ -0,0 +1,177 @@
+package ru.bjcreslin.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server for the tests, which accepts every email and keeps its content.
+ * <p>
+ * It can refuse the next emails with a temporary failure, refuse a recipient for good, and hold its answer to the
+ * emails until released.
+ */
+class SmtpStandIn implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private volatile String refusedRecipient;
+
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    SmtpStandIn() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::accept);
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * The content of the emails received, in the order they were received.
+     */
+    List<String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * The number of connections opened so far.
+     */
+    int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Refuse the next emails with a temporary failure.
+     */
+    void failNext(int count) {
+        failures.set(count);
+    }
+
+    /**
+     * Refuse the emails to this address with a permanent failure.
+     */
+    void refuseRecipient(String address) {
+        refusedRecipient = address;
+    }
+
+    /**
+     * Hold the answers to the emails until {@link #release()}.
+     */
+    void hold() {
+        release = new CountDownLatch(1);
+    }
+
+    void release() {
+        release.countDown();
+    }
+
+    /**
+     * Wait until an email is received.
+     */
+    boolean awaitReceived(long timeout, TimeUnit unit) throws InterruptedException {
+        return received.await(timeout, unit);
+    }
+
+    @Override
+    public void close() throws IOException {
+        release();
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                executor.execute(() -> converse(socket));
+            } catch (IOException e) {
+                // closed
+            }
+        }
+    }
+
+    private void converse(Socket socket) {
+        try (
+            socket;
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII)
+        ) {
+            reply(out, "220 localhost SMTP stand-in");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase();
+                switch (command) {
+                    case "MAIL":
+                        if (failures.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+                            reply(out, "451 4.3.0 Try again later");
+                        } else {
+                            reply(out, "250 OK");
+                        }
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        StringBuilder data = new StringBuilder();
+                        while ((line = in.readLine()) != null && !".".equals(line)) {
+                            data.append(line).append('\n');
+                        }
+                        received.countDown();
+                        release.await();
+                        messages.add(data.toString());
+                        reply(out, "250 OK");
+                        break;
+                    case "RCPT":
+                        if (refusedRecipient != null && line.contains("<" + refusedRecipient + ">")) {
+                            reply(out, "550 5.1.1 No such user");
+                        } else {
+                            reply(out, "250 OK");
+                        }
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    case "EHLO":
+                    case "HELO":
+                    case "RSET":
+                    case "NOOP":
+                        reply(out, "250 OK");
+                        break;
+                    default:
+                        reply(out, "500 Unknown command");
+                }
+            }
+        } catch (IOException e) {
+            // the connection was closed
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(PrintWriter out, String reply) {
+        out.print(reply + "\r\n");
+        out.flush();
+    }
+}
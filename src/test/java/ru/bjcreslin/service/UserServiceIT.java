@@ -3,10 +3,12 @@ package ru.bjcreslin.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -23,6 +25,7 @@ import ru.bjcreslin.IntegrationTest;
 import ru.bjcreslin.config.Constants;
 import ru.bjcreslin.domain.PersistentToken;
 import ru.bjcreslin.domain.User;
+import ru.bjcreslin.repository.AuthorityRepository;
 import ru.bjcreslin.repository.PersistentTokenRepository;
 import ru.bjcreslin.repository.UserRepository;
 import ru.bjcreslin.service.dto.AdminUserDTO;
@@ -56,9 +59,15 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
     @Autowired
     private AuditingHandler auditingHandler;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private DateTimeProvider dateTimeProvider;
 
@@ -94,6 +103,25 @@ class UserServiceIT {
         assertThat(persistentTokenRepository.findByUser(user)).hasSize(existingCount + 1);
     }
 
+    @Test
+    @Transactional
+    void testRemoveOldPersistentTokensInChunks() {
+        userRepository.saveAndFlush(user);
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < 5; i++) {
+            generateUserToken(user, "old-" + i, today.minusDays(32));
+        }
+        generateUserToken(user, "recent", today);
+        double deletedBefore = meterRegistry.get("cleanup.deleted").tag("job", "persistent-tokens").counter().count();
+
+        // the chunks of the tests hold 2 rows
+        assertThat(userService.removeOldPersistentTokens()).isEqualTo(5);
+
+        assertThat(persistentTokenRepository.findByUser(user)).extracting(PersistentToken::getSeries).containsExactly("recent");
+        assertThat(meterRegistry.get("cleanup.deleted").tag("job", "persistent-tokens").counter().count()).isEqualTo(deletedBefore + 5);
+        assertThat(meterRegistry.get("cleanup.run").tag("job", "persistent-tokens").timer().count()).isPositive();
+    }
+
     @Test
     @Transactional
     void assertThatUserMustExistToResetPassword() {
@@ -186,6 +214,29 @@ class UserServiceIT {
         assertThat(users).isEmpty();
     }
 
+    @Test
+    @Transactional
+    void assertThatNotActivatedUsersAreDeletedWithTheirAuthoritiesAndTokens() {
+        Instant now = Instant.now();
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(now.minus(4, ChronoUnit.DAYS)));
+        for (int i = 0; i < 3; i++) {
+            User notActivated = new User();
+            notActivated.setLogin("not-activated-" + i);
+            notActivated.setPassword(RandomStringUtils.random(60));
+            notActivated.setActivationKey(RandomStringUtils.random(20));
+            notActivated.setAuthorities(new HashSet<>(authorityRepository.findAll()));
+            userRepository.saveAndFlush(notActivated);
+            generateUserToken(notActivated, "not-activated-" + i, LocalDate.now());
+        }
+        Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
+
+        assertThat(userService.removeNotActivatedUsers()).isEqualTo(3);
+
+        assertThat(userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo)).isEmpty();
+        assertThat(persistentTokenRepository.findAll()).extracting(PersistentToken::getSeries).doesNotContain("not-activated-0");
+        assertThat(userRepository.findOneByLogin("not-activated-0")).isEmpty();
+    }
+
     @Test
     @Transactional
     void assertThatNotActivatedUsersWithNullActivationKeyCreatedBefore3DaysAreNotDeleted() {
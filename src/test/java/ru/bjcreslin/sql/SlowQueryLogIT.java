@@ -0,0 +1,89 @@
+package ru.bjcreslin.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.bjcreslin.IntegrationTest;
+
+/**
+ * Integration tests for the {@link SlowQueryLog}, with every statement slow and explained.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestPropertySource(
+    properties = {
+        "application.slow-query.threshold-millis=0",
+        "application.slow-query.max-entries=5",
+        "application.slow-query.explain-sample-rate=1",
+    }
+)
+class SlowQueryLogIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SlowQueryEndpoint slowQueryEndpoint;
+
+    @BeforeEach
+    public void initTest() {
+        slowQueryEndpoint.clear();
+    }
+
+    @Test
+    void slowStatementsAreKeptWithTheirRequest() throws Exception {
+        mockMvc.perform(get("/api/tasks?name.contains=slow-query")).andExpect(status().isOk());
+
+        assertThat(slowQueryEndpoint.slowQueries())
+            .anySatisfy(slowQuery -> {
+                assertThat(slowQuery.getSql()).containsIgnoringCase("from task");
+                assertThat(slowQuery.getEndpoint()).isEqualTo("GET /api/tasks");
+                assertThat(slowQuery.getCriteria()).contains("slow-query");
+                assertThat(slowQuery.getParameters()).contains("String");
+                assertThat(slowQuery.getParameters()).doesNotContain("slow-query");
+            });
+    }
+
+    @Test
+    void slowSelectsAreExplained() throws Exception {
+        mockMvc.perform(get("/api/tasks?name.contains=slow-query")).andExpect(status().isOk());
+
+        await(() -> slowQueryEndpoint.slowQueries().stream().anyMatch(slowQuery -> slowQuery.getPlan() != null));
+        assertThat(slowQueryEndpoint.slowQueries())
+            .filteredOn(slowQuery -> slowQuery.getPlan() != null)
+            .allSatisfy(slowQuery -> assertThat(slowQuery.getPlan()).containsIgnoringCase("select"));
+    }
+
+    @Test
+    void onlyTheSlowestStatementsAreKept() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            mockMvc.perform(get("/api/tasks?name.contains=slow-query")).andExpect(status().isOk());
+        }
+
+        List<SlowQueryLog.SlowQuery> slowQueries = slowQueryEndpoint.slowQueries();
+        assertThat(slowQueries).hasSize(5);
+        assertThat(slowQueries)
+            .extracting(SlowQueryLog.SlowQuery::getMillis)
+            .isSortedAccordingTo((first, second) -> Double.compare(second, first));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
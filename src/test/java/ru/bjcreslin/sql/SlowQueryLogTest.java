@@ -0,0 +1,36 @@
+package ru.bjcreslin.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the {@link SlowQueryLog}.
+ */
+class SlowQueryLogTest {
+
+    @Test
+    void plainSelectsAreAnalyzed() {
+        assertThat(
+            SlowQueryLog.isAnalyzable(
+                "select task0_.id as id1_6_, task0_.name as name2_6_ from task task0_ where lower(task0_.name) like ? " +
+                "and task0_.id in (select comments1_.task_id from comment comments1_) order by task0_.id limit ?"
+            )
+        )
+            .isTrue();
+        assertThat(SlowQueryLog.isAnalyzable("select count(distinct task0_.id) as col_0_0_ from task task0_")).isTrue();
+    }
+
+    @Test
+    void lockingSelectsAreOnlyPlanned() {
+        assertThat(SlowQueryLog.isAnalyzable("select task0_.id from task task0_ where task0_.id=? for update")).isFalse();
+        assertThat(SlowQueryLog.isAnalyzable("select task0_.id from task task0_ where task0_.id=? FOR NO KEY UPDATE")).isFalse();
+        assertThat(SlowQueryLog.isAnalyzable("select task0_.id from task task0_ for share skip locked")).isFalse();
+    }
+
+    @Test
+    void selectsCallingOtherFunctionsAreOnlyPlanned() {
+        assertThat(SlowQueryLog.isAnalyzable("select nextval ('sequence_generator')")).isFalse();
+        assertThat(SlowQueryLog.isAnalyzable("select pg_advisory_lock(?)")).isFalse();
+    }
+}
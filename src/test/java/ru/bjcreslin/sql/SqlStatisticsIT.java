@@ -0,0 +1,109 @@
+package ru.bjcreslin.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.bjcreslin.sql.SqlStatisticsResultMatchers.maxEntityLoads;
+import static ru.bjcreslin.sql.SqlStatisticsResultMatchers.maxExecutionsPerStatement;
+import static ru.bjcreslin.sql.SqlStatisticsResultMatchers.maxStatements;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.domain.Project;
+import ru.bjcreslin.domain.Task;
+
+/**
+ * Integration tests for the SQL statistics of the requests, see {@link SqlStatisticsRegistry}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class SqlStatisticsIT {
+
+    private static final String TASKS_URL = "/api/tasks?name.contains=sql-statistics&sort=id,desc";
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatisticsEndpoint sqlStatisticsEndpoint;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void initTest() {
+        sqlStatisticsEndpoint.reset();
+    }
+
+    @Test
+    @Transactional
+    void statementsAreCountedPerEndpoint() throws Exception {
+        createTasksOfThreeProjects();
+
+        getTasks().andExpect(maxStatements(5)).andExpect(maxEntityLoads(6));
+
+        SqlStatisticsRegistry.EndpointSqlStatistics statistics = sqlStatisticsEndpoint.sqlStatistics().get("GET /api/tasks");
+        assertThat(statistics.getRequests()).isEqualTo(1);
+        assertThat(statistics.getStatements()).isBetween(2L, 5L);
+        assertThat(statistics.getMaxStatements()).isEqualTo(statistics.getStatements());
+        assertThat(statistics.getRows()).isGreaterThanOrEqualTo(6);
+        assertThat(statistics.getEntityLoads()).isEqualTo(6);
+        assertThat(statistics.getJdbcMillis()).isPositive();
+        assertThat(meterRegistry.get("sql.request.statements").tag("method", "GET").tag("uri", "/api/tasks").summary().count())
+            .isPositive();
+    }
+
+    @Test
+    @Transactional
+    void repeatedStatementsAreReported() throws Exception {
+        createTasksOfThreeProjects();
+
+        // the project of each task is selected on its own
+        ResultActions result = getTasks();
+
+        assertThat(sqlStatisticsEndpoint.sqlStatistics().get("GET /api/tasks").getRepeatedStatements())
+            .hasSize(1)
+            .allSatisfy((sql, executions) -> assertThat(executions).isEqualTo(3));
+        result.andExpect(maxExecutionsPerStatement(3));
+        assertThatExceptionOfType(AssertionError.class).isThrownBy(() -> result.andExpect(maxExecutionsPerStatement(2)));
+    }
+
+    @Test
+    @Transactional
+    void statisticsAreReset() throws Exception {
+        getTasks().andExpect(maxExecutionsPerStatement(1));
+
+        sqlStatisticsEndpoint.reset();
+
+        assertThat(sqlStatisticsEndpoint.sqlStatistics().get("GET /api/tasks").getRequests()).isZero();
+    }
+
+    private void createTasksOfThreeProjects() {
+        for (int i = 0; i < 3; i++) {
+            Project project = new Project().projectName("sql-statistics " + i);
+            em.persist(project);
+            em.persist(new Task().name("sql-statistics " + i).project(project));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    private ResultActions getTasks() throws Exception {
+        return mockMvc.perform(get(TASKS_URL)).andExpect(status().isOk()).andExpect(jsonPath("$").isArray());
+    }
+}
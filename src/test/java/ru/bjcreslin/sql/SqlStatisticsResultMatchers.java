@@ -0,0 +1,48 @@
+package ru.bjcreslin.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+/**
+ * Matchers of the SQL statements executed by a request performed with MockMvc, counted by the {@link SqlStatisticsFilter}.
+ */
+public final class SqlStatisticsResultMatchers {
+
+    private SqlStatisticsResultMatchers() {}
+
+    /**
+     * Assert that the request executed at most the given number of SQL statements.
+     */
+    public static ResultMatcher maxStatements(int max) {
+        return result ->
+            assertThat(statistics(result).getStatements()).as("SQL statements executed by the request").isLessThanOrEqualTo(max);
+    }
+
+    /**
+     * Assert that the request executed no SQL statement more than the given number of times, as an N+1 select would.
+     */
+    public static ResultMatcher maxExecutionsPerStatement(int max) {
+        return result -> {
+            Map.Entry<String, Integer> repeated = statistics(result).getMostRepeatedStatement();
+            if (repeated != null) {
+                assertThat(repeated.getValue()).as("executions of %s", repeated.getKey()).isLessThanOrEqualTo(max);
+            }
+        };
+    }
+
+    /**
+     * Assert that the request loaded at most the given number of entities.
+     */
+    public static ResultMatcher maxEntityLoads(int max) {
+        return result -> assertThat(statistics(result).getEntityLoads()).as("entities loaded by the request").isLessThanOrEqualTo(max);
+    }
+
+    private static SqlStatistics statistics(MvcResult result) {
+        SqlStatistics statistics = (SqlStatistics) result.getRequest().getAttribute(SqlStatisticsFilter.ATTRIBUTE);
+        assertThat(statistics).as("SQL statistics of the request").isNotNull();
+        return statistics;
+    }
+}
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -672,6 +673,28 @@ class AccountResourceIT {
         assertThat(passwordEncoder.matches("new password", updatedUser.getPassword())).isTrue();
     }
 
+    @Test
+    @Transactional
+    @WithUnauthenticatedMockUser
+    void testAuthenticationRehashesPasswordWithLowerCost() throws Exception {
+        User user = new User();
+        user.setPassword(new BCryptPasswordEncoder(4).encode("rehashed password"));
+        user.setLogin("rehash-password");
+        user.setEmail("rehash-password@example.com");
+        user.setActivated(true);
+        userRepository.saveAndFlush(user);
+
+        restAccountMockMvc
+            .perform(
+                post("/api/authentication").param("username", "rehash-password").param("password", "rehashed password").with(csrf())
+            )
+            .andExpect(status().isOk());
+
+        User updatedUser = userRepository.findOneByLogin("rehash-password").orElse(null);
+        assertThat(updatedUser.getPassword()).startsWith("$2a$10$");
+        assertThat(passwordEncoder.matches("rehashed password", updatedUser.getPassword())).isTrue();
+    }
+
     @Test
     @Transactional
     @WithMockUser("change-password-too-small")
@@ -1,6 +1,8 @@
 package ru.bjcreslin.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -19,6 +21,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -172,6 +175,38 @@ class CommentResourceIT {
             .andExpect(jsonPath("$.[*].edited").value(hasItem(sameInstant(DEFAULT_EDITED))));
     }
 
+    @Test
+    @Transactional
+    void getAllCommentsWithoutCount() throws Exception {
+        // Initialize the database
+        commentRepository.saveAndFlush(comment);
+        Comment latest = commentRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page, without counting
+        restCommentMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&size=1&count=none"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.[*].id").value(contains(latest.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllCommentsWithEstimatedCount() throws Exception {
+        // Initialize the database
+        commentRepository.saveAndFlush(comment);
+
+        // No planner statistics on H2, so the count falls back to an exact one
+        restCommentMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&count=estimate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", String.valueOf(commentRepository.count())))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(comment.getId().intValue())));
+
+        restCommentMockMvc.perform(get(ENTITY_API_URL + "?count=sometimes")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getComment() throws Exception {
@@ -445,4 +480,49 @@ class CommentResourceIT {
         List<Comment> commentList = commentRepository.findAll();
         assertThat(commentList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void bulkCreateComments() throws Exception {
+        int databaseSizeBeforeCreate = commentRepository.findAll().size();
+        String body = "{\"text\":\"Bulk 1\",\"status\":\"POSTED\"} {\"text\":\"Bulk 2\"} {\"text\":\"Bulk 3\"}";
+        try {
+            // Create the comments, spanning two chunks
+            restCommentMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").with(csrf()).contentType("application/x-ndjson").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(3));
+
+            // Validate the Comments in the database
+            List<Comment> commentList = commentRepository.findAll();
+            assertThat(commentList).hasSize(databaseSizeBeforeCreate + 3);
+            assertThat(commentList).extracting(Comment::getText).contains("Bulk 1", "Bulk 2", "Bulk 3");
+        } finally {
+            commentRepository
+                .findAll()
+                .stream()
+                .filter(created -> created.getText() != null && created.getText().startsWith("Bulk "))
+                .forEach(commentRepository::delete);
+        }
+    }
+
+    @Test
+    @Transactional
+    void bulkCreateCommentsWithAnId() throws Exception {
+        int databaseSizeBeforeCreate = commentRepository.findAll().size();
+
+        // A new comment cannot already have an ID
+        restCommentMockMvc
+            .perform(
+                post(ENTITY_API_URL + "/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[{\"id\":1,\"text\":\"Bulk\"}]")
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.title").value("Row 1 already has an ID"))
+            .andExpect(jsonPath("$.created").value(0));
+
+        // Validate the Comment in the database
+        assertThat(commentRepository.findAll()).hasSize(databaseSizeBeforeCreate);
+    }
 }
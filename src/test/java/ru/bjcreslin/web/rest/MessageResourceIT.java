@@ -1,6 +1,8 @@
 package ru.bjcreslin.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -19,6 +21,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -182,6 +185,38 @@ class MessageResourceIT {
             .andExpect(jsonPath("$.[*].edited").value(hasItem(sameInstant(DEFAULT_EDITED))));
     }
 
+    @Test
+    @Transactional
+    void getAllMessagesWithoutCount() throws Exception {
+        // Initialize the database
+        messageRepository.saveAndFlush(message);
+        Message latest = messageRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page, without counting
+        restMessageMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&size=1&count=none"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.[*].id").value(contains(latest.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllMessagesWithEstimatedCount() throws Exception {
+        // Initialize the database
+        messageRepository.saveAndFlush(message);
+
+        // No planner statistics on H2, so the count falls back to an exact one
+        restMessageMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&count=estimate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", String.valueOf(messageRepository.count())))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(message.getId().intValue())));
+
+        restMessageMockMvc.perform(get(ENTITY_API_URL + "?count=sometimes")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getMessage() throws Exception {
@@ -1,12 +1,14 @@
 package ru.bjcreslin.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static ru.bjcreslin.web.rest.TestUtil.sameInstant;
 
+import java.net.URI;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
@@ -19,15 +21,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bjcreslin.IntegrationTest;
 import ru.bjcreslin.domain.Project;
 import ru.bjcreslin.domain.Task;
 import ru.bjcreslin.domain.enumeration.ProjectStatus;
+import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
 import ru.bjcreslin.repository.ProjectRepository;
+import ru.bjcreslin.service.TaskService;
 import ru.bjcreslin.service.criteria.ProjectCriteria;
 
 /**
@@ -70,6 +76,9 @@ class ProjectResourceIT {
     @Autowired
     private ProjectRepository projectRepository;
 
+    @Autowired
+    private TaskService taskService;
+
     @Autowired
     private EntityManager em;
 
@@ -842,6 +851,30 @@ class ProjectResourceIT {
         defaultProjectShouldNotBeFound("taskId.equals=" + (taskId + 1));
     }
 
+    @Test
+    @Transactional
+    void getAllProjectsWithKeysetPagination() throws Exception {
+        // Initialize the database
+        Project first = projectRepository.saveAndFlush(createEntity(em).projectName("keyset"));
+        Project second = projectRepository.saveAndFlush(createEntity(em).projectName("keyset"));
+
+        // Get the first slice, which must link to the next one
+        MvcResult result = restProjectMockMvc
+            .perform(get(ENTITY_API_URL + "?projectName.equals=keyset&sort=id,asc&size=1&after="))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue())))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(link).contains("rel=\"next\"");
+
+        // Follow the link
+        restProjectMockMvc
+            .perform(get(URI.create(link.substring(link.indexOf('<') + 1, link.indexOf('>')))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId().intValue())));
+    }
+
     /**
      * Executes the search, and checks that the default entity is returned.
      */
@@ -1155,4 +1188,76 @@ class ProjectResourceIT {
         List<Project> projectList = projectRepository.findAll();
         assertThat(projectList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void exportProjectsAsCsv() throws Exception {
+        // Initialize the database, committed so that the export streamed on another thread sees it
+        projectRepository.saveAndFlush(project.description(null));
+        try {
+            // Export the projects matching the criteria
+            MvcResult result = restProjectMockMvc
+                .perform(get(ENTITY_API_URL + "/export?format=CSV&id.equals=" + project.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restProjectMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"projects.csv\""));
+            assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(
+                    "id,projectUrl,description,projectName,comment,status,created,edited\r\n" +
+                    project.getId() +
+                    ",AAAAAAAAAA,,AAAAAAAAAA,AAAAAAAAAA," +
+                    DEFAULT_STATUS +
+                    ",1970-01-01T00:00:00Z,1970-01-01T00:00:00Z\r\n"
+                );
+        } finally {
+            projectRepository.deleteById(project.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void getProjectStats() throws Exception {
+        // Initialize the database
+        projectRepository.saveAndFlush(project);
+        taskService.save(TaskResourceIT.createEntity(em).status(TaskAndProjectStatus.NEW).project(project));
+        taskService.save(TaskResourceIT.createEntity(em).status(TaskAndProjectStatus.NEW).project(project));
+        taskService.save(TaskResourceIT.createEntity(em).status(TaskAndProjectStatus.ACTIVE).project(project));
+
+        // Get the stats of the project
+        restProjectMockMvc
+            .perform(get(ENTITY_API_URL_ID + "/stats", project.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.projectId").value(project.getId().intValue()))
+            .andExpect(jsonPath("$.tasks.NEW").value(2))
+            .andExpect(jsonPath("$.tasks.ACTIVE").value(1))
+            .andExpect(jsonPath("$.tasks.CLOSED").value(0))
+            .andExpect(jsonPath("$.total").value(3));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingProjectStats() throws Exception {
+        // Get the stats of the project
+        restProjectMockMvc.perform(get(ENTITY_API_URL_ID + "/stats", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getProjectsStats() throws Exception {
+        // Initialize the database
+        projectRepository.saveAndFlush(project);
+        Project other = projectRepository.saveAndFlush(createEntity(em));
+        taskService.save(TaskResourceIT.createEntity(em).status(TaskAndProjectStatus.ENDED).project(other));
+
+        // Get the stats of the existing projects
+        restProjectMockMvc
+            .perform(get(ENTITY_API_URL + "/stats?ids=" + other.getId() + "," + project.getId() + "," + Long.MAX_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].projectId").value(contains(project.getId().intValue(), other.getId().intValue())))
+            .andExpect(jsonPath("$.[*].tasks.ENDED").value(contains(0, 1)));
+    }
 }
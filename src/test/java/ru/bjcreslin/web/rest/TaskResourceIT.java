@@ -1,35 +1,50 @@
 package ru.bjcreslin.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ru.bjcreslin.sql.SqlStatisticsResultMatchers.maxStatements;
 import static ru.bjcreslin.web.rest.TestUtil.sameInstant;
 
+import java.net.URI;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bjcreslin.IntegrationTest;
 import ru.bjcreslin.domain.Comment;
 import ru.bjcreslin.domain.Project;
 import ru.bjcreslin.domain.Task;
 import ru.bjcreslin.domain.enumeration.TaskAndProjectStatus;
+import ru.bjcreslin.repository.ProjectRepository;
 import ru.bjcreslin.repository.TaskRepository;
+import ru.bjcreslin.repository.search.SearchIndexer;
 import ru.bjcreslin.service.criteria.TaskCriteria;
+import ru.bjcreslin.web.rest.vm.BulkPatchVM;
 
 /**
  * Integration tests for the {@link TaskResource} REST controller.
@@ -67,6 +82,7 @@ class TaskResourceIT {
 
     private static final String ENTITY_API_URL = "/api/tasks";
     private static final String ENTITY_API_URL_ID = ENTITY_API_URL + "/{id}";
+    private static final String ENTITY_SEARCH_API_URL = "/api/_search/tasks";
 
     private static Random random = new Random();
     private static AtomicLong count = new AtomicLong(random.nextInt() + (2 * Integer.MAX_VALUE));
@@ -74,9 +90,15 @@ class TaskResourceIT {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private ProjectRepository projectRepository;
+
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private MockMvc restTaskMockMvc;
 
@@ -150,6 +172,29 @@ class TaskResourceIT {
         assertThat(testTask.getEdited()).isEqualTo(DEFAULT_EDITED);
     }
 
+    @Test
+    @Transactional
+    void createTaskWithProjectReference() throws Exception {
+        Project project = ProjectResourceIT.createEntity(em);
+        projectRepository.saveAndFlush(project);
+        // the project is only referenced, not loaded, by the request
+        em.detach(project);
+
+        restTaskMockMvc
+            .perform(
+                post(ENTITY_API_URL)
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\": \"referenced\", \"project\": {\"id\": " + project.getId() + "}}")
+            )
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.project.id").value(project.getId().intValue()));
+
+        assertThat(taskRepository.findAll())
+            .extracting(Task::getName, t -> t.getProject().getId())
+            .contains(tuple("referenced", project.getId()));
+    }
+
     @Test
     @Transactional
     void createTaskWithExistingId() throws Exception {
@@ -199,6 +244,7 @@ class TaskResourceIT {
         restTaskMockMvc
             .perform(get(ENTITY_API_URL + "?sort=id,desc"))
             .andExpect(status().isOk())
+            .andExpect(maxStatements(2))
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(task.getId().intValue())))
             .andExpect(jsonPath("$.[*].author").value(hasItem(DEFAULT_AUTHOR)))
@@ -211,6 +257,105 @@ class TaskResourceIT {
             .andExpect(jsonPath("$.[*].edited").value(hasItem(sameInstant(DEFAULT_EDITED))));
     }
 
+    @Test
+    @Transactional
+    void getAllTasksWithoutCount() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+        Task latest = taskRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page, without counting
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&size=1&count=none"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andExpect(jsonPath("$.[*].id").value(contains(latest.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksWithEstimatedCount() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        // No planner statistics on H2, so the count falls back to an exact one
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&count=estimate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", String.valueOf(taskRepository.count())))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(task.getId().intValue())));
+
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?count=sometimes")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksWithSparseFieldset() throws Exception {
+        // Initialize the database
+        Project project = ProjectResourceIT.createEntity(em);
+        em.persist(project);
+        taskRepository.saveAndFlush(task.project(project));
+        Task orphan = taskRepository.saveAndFlush(createEntity(em).name("orphan"));
+
+        // Get only the requested fields
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc&fields=id,name,status,project.id,project.projectName"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().string("X-Total-Count", String.valueOf(taskRepository.count())))
+            .andExpect(jsonPath("$.[0].id").value(orphan.getId().intValue()))
+            .andExpect(jsonPath("$.[0].name").value("orphan"))
+            .andExpect(jsonPath("$.[0].project").value(nullValue()))
+            .andExpect(jsonPath("$.[1].id").value(task.getId().intValue()))
+            .andExpect(jsonPath("$.[1].status").value(DEFAULT_STATUS.toString()))
+            .andExpect(jsonPath("$.[1].project.id").value(project.getId().intValue()))
+            .andExpect(jsonPath("$.[1].project.projectName").value(project.getProjectName()))
+            .andExpect(jsonPath("$.[1].project.description").doesNotExist())
+            .andExpect(jsonPath("$.[1].author").doesNotExist())
+            .andExpect(jsonPath("$.[1].comments").doesNotExist());
+
+        // Filters apply as without a fieldset
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=id&projectId.equals=" + project.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(task.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksWithSparseFieldsetByCommentIds() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+        Comment comment = CommentResourceIT.createEntity(em);
+        Comment otherComment = CommentResourceIT.createEntity(em);
+        em.persist(comment);
+        em.persist(otherComment);
+        em.flush();
+        task.addComment(comment);
+        task.addComment(otherComment);
+        taskRepository.saveAndFlush(task);
+
+        // the task matches through both of its comments, but is returned once
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=name,asc&fields=id,name&commentId.in=" + comment.getId() + "," + otherComment.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(task.getId().intValue())))
+            .andExpect(jsonPath("$.[*].name").value(contains(DEFAULT_NAME)));
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksWithInvalidSparseFieldset() throws Exception {
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?fields=id,unknown")).andExpect(status().isBadRequest());
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?fields=comments")).andExpect(status().isBadRequest());
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?fields=project.tasks")).andExpect(status().isBadRequest());
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?fields=project.id.id")).andExpect(status().isBadRequest());
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?fields=,")).andExpect(status().isBadRequest());
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?fields=id&after=")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getTask() throws Exception {
@@ -221,6 +366,7 @@ class TaskResourceIT {
         restTaskMockMvc
             .perform(get(ENTITY_API_URL_ID, task.getId()))
             .andExpect(status().isOk())
+            .andExpect(maxStatements(1))
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
             .andExpect(jsonPath("$.id").value(task.getId().intValue()))
             .andExpect(jsonPath("$.author").value(DEFAULT_AUTHOR))
@@ -939,6 +1085,65 @@ class TaskResourceIT {
         defaultTaskShouldNotBeFound("projectId.equals=" + (projectId + 1));
     }
 
+    @Test
+    @Transactional
+    void getAllTasksWithKeysetPagination() throws Exception {
+        // Initialize the database
+        Task latest = taskRepository.saveAndFlush(createEntity(em).name("keyset").edited(UPDATED_EDITED));
+        Task oldest = taskRepository.saveAndFlush(createEntity(em).name("keyset").edited(DEFAULT_EDITED));
+        Task undated = taskRepository.saveAndFlush(createEntity(em).name("keyset").edited(null));
+
+        // Get the first slice, which must link to the next one
+        MvcResult result = restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?name.equals=keyset&sort=edited,desc&size=2&after="))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(contains(latest.getId().intValue(), oldest.getId().intValue())))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(link).contains("rel=\"next\"").contains("name.equals=keyset");
+
+        // Follow the link, null values come last
+        restTaskMockMvc
+            .perform(get(URI.create(link.substring(link.indexOf('<') + 1, link.indexOf('>')))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.[*].id").value(contains(undated.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksWithKeysetPaginationOnARequiredProperty() throws Exception {
+        // Initialize the database
+        Task second = taskRepository.saveAndFlush(createEntity(em).name("keyset-b"));
+        Task first = taskRepository.saveAndFlush(createEntity(em).name("keyset-a"));
+        Task firstTie = taskRepository.saveAndFlush(createEntity(em).name("keyset-a"));
+
+        // The name is never null, so a slice is read by a single query
+        MvcResult result = restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?name.contains=keyset-&sort=name,asc&size=2&after="))
+            .andExpect(status().isOk())
+            .andExpect(maxStatements(1))
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), firstTie.getId().intValue())))
+            .andReturn();
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+
+        restTaskMockMvc
+            .perform(get(URI.create(link.substring(link.indexOf('<') + 1, link.indexOf('>')))))
+            .andExpect(status().isOk())
+            .andExpect(maxStatements(1))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksWithInvalidKeysetCursor() throws Exception {
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?after=not-a-cursor")).andExpect(status().isBadRequest());
+
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "?sort=text,asc&after=")).andExpect(status().isBadRequest());
+    }
+
     /**
      * Executes the search, and checks that the default entity is returned.
      */
@@ -1036,6 +1241,227 @@ class TaskResourceIT {
         assertThat(testTask.getEdited()).isEqualTo(UPDATED_EDITED);
     }
 
+    @Test
+    @Transactional
+    void getTaskWithETag() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, task.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    @Transactional
+    void getTaskWithIfNoneMatch() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, task.getId()).header(HttpHeaders.IF_NONE_MATCH, "W/\"0\""))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andExpect(content().string(""));
+
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, task.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andExpect(jsonPath("$.id").value(task.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getTaskWithIfNoneMatchAfterItsProjectChanged() throws Exception {
+        // Initialize the database
+        Project project = ProjectResourceIT.createEntity(em);
+        em.persist(project);
+        taskRepository.saveAndFlush(task.project(project));
+
+        String eTag = "\"0-" + project.getId() + "-0\"";
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, task.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, task.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+        String listETag = restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?id.equals=" + task.getId()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        // the project is embedded in the task, a new version of the project changes the entity tag of the task
+        projectRepository.saveAndFlush(project.projectName("renamed"));
+
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, task.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0-" + project.getId() + "-1\""))
+            .andExpect(jsonPath("$.project.projectName").value("renamed"));
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?id.equals=" + task.getId()).header(HttpHeaders.IF_NONE_MATCH, listETag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].project.projectName").value("renamed"));
+
+        // the update of the task is only conditional on the version of the task
+        Task updatedTask = taskRepository.findById(task.getId()).get();
+        em.detach(updatedTask);
+        updatedTask.name(UPDATED_NAME).version(null);
+
+        restTaskMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTask.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, eTag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedTask))
+            )
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @Transactional
+    void getTaskWithIfModifiedSince() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task.edited(UPDATED_EDITED));
+        taskRepository.saveAndFlush(task.name(UPDATED_NAME));
+
+        // the edition date is set by the clients, an update may keep it
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, task.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(UPDATED_EDITED)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+    }
+
+    @Test
+    @Transactional
+    void getNonExistingTaskWithIfNoneMatch() throws Exception {
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, "*"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    void getAllTasksWithIfNoneMatch() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        String eTag = restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/\"")))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.ETAG);
+
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        // a new version of a task of the list changes its entity tag
+        taskRepository.saveAndFlush(task.name(UPDATED_NAME));
+
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "?sort=id,desc").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    private static String httpDate(ZonedDateTime date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(date.withZoneSameInstant(ZoneOffset.UTC));
+    }
+
+    @Test
+    @Transactional
+    void putTaskWithIfMatch() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        Task updatedTask = taskRepository.findById(task.getId()).get();
+        em.detach(updatedTask);
+        updatedTask.name(UPDATED_NAME).version(null);
+
+        restTaskMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTask.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"0\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedTask))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+            .andExpect(jsonPath("$.version").value(1));
+
+        Task testTask = taskRepository.findById(task.getId()).get();
+        assertThat(testTask.getName()).isEqualTo(UPDATED_NAME);
+        assertThat(testTask.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @Transactional
+    void putTaskWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        Task updatedTask = taskRepository.findById(task.getId()).get();
+        em.detach(updatedTask);
+        updatedTask.name(UPDATED_NAME);
+
+        // a weak entity tag never matches
+        restTaskMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTask.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "W/\"0\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedTask))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.message").value("error.preconditionFailed"));
+
+        restTaskMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTask.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedTask))
+            )
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.message").value("error.preconditionFailed"));
+    }
+
+    @Test
+    @Transactional
+    void putTaskWithStaleVersion() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        Task updatedTask = taskRepository.findById(task.getId()).get();
+        em.detach(updatedTask);
+        updatedTask.name(UPDATED_NAME).version(3L);
+
+        restTaskMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, updatedTask.getId())
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedTask))
+            )
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.message").value("error.concurrencyFailure"));
+    }
+
     @Test
     @Transactional
     void putNonExistingTask() throws Exception {
@@ -1178,6 +1604,186 @@ class TaskResourceIT {
         assertThat(testTask.getEdited()).isEqualTo(UPDATED_EDITED);
     }
 
+    @Test
+    @Transactional
+    void patchTaskWithStaleIfMatch() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        Task partialUpdatedTask = new Task();
+        partialUpdatedTask.setId(task.getId());
+        partialUpdatedTask.name(UPDATED_NAME);
+
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedTask.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"3\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedTask))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, partialUpdatedTask.getId())
+                    .with(csrf())
+                    .header(HttpHeaders.IF_MATCH, "\"0\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedTask))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    @Test
+    @Transactional
+    void bulkPatchTasks() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+        Task otherTask = taskRepository.saveAndFlush(createEntity(em));
+
+        BulkPatchVM<Task> bulkPatch = new BulkPatchVM<>();
+        bulkPatch.setUpdates(
+            List.of(
+                new Task().id(task.getId()).status(UPDATED_STATUS),
+                new Task().id(otherTask.getId()).version(3L).implementer(UPDATED_IMPLEMENTER),
+                new Task().id(count.incrementAndGet()).name(UPDATED_NAME)
+            )
+        );
+
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(bulkPatch))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].outcome").value(contains("UPDATED", "CONFLICT", "NOT_FOUND")))
+            .andExpect(jsonPath("$.[0].version").value(1))
+            .andExpect(jsonPath("$.[1].version").value(0));
+
+        // Validate the Tasks in the database
+        assertThat(taskRepository.findById(task.getId()).get().getStatus()).isEqualTo(UPDATED_STATUS);
+        assertThat(taskRepository.findById(otherTask.getId()).get().getImplementer()).isEqualTo(DEFAULT_IMPLEMENTER);
+    }
+
+    @Test
+    @Transactional
+    void bulkPatchTasksByCriteria() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task.author("triage"));
+        taskRepository.saveAndFlush(createEntity(em).author("triage"));
+        Task otherTask = taskRepository.saveAndFlush(createEntity(em));
+
+        BulkPatchVM<Task> bulkPatch = new BulkPatchVM<>();
+        bulkPatch.setPatch(new Task().implementer(UPDATED_IMPLEMENTER).status(UPDATED_STATUS));
+
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk?author.equals=triage")
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(bulkPatch))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].outcome").value(contains("UPDATED", "UPDATED")));
+
+        // Validate the Tasks in the database
+        assertThat(taskRepository.findAll())
+            .extracting(Task::getAuthor, Task::getImplementer, Task::getStatus)
+            .contains(
+                tuple("triage", UPDATED_IMPLEMENTER, UPDATED_STATUS),
+                tuple("triage", UPDATED_IMPLEMENTER, UPDATED_STATUS),
+                tuple(otherTask.getAuthor(), DEFAULT_IMPLEMENTER, DEFAULT_STATUS)
+            );
+    }
+
+    @Test
+    @Transactional
+    void bulkPatchTasksByCommentIds() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+        Comment comment = CommentResourceIT.createEntity(em);
+        Comment otherComment = CommentResourceIT.createEntity(em);
+        em.persist(comment);
+        em.persist(otherComment);
+        em.flush();
+        task.addComment(comment);
+        task.addComment(otherComment);
+        taskRepository.saveAndFlush(task);
+        String commentIds = comment.getId() + "," + otherComment.getId();
+
+        // the task matches through both of its comments, but is counted once
+        restTaskMockMvc
+            .perform(get(ENTITY_API_URL + "/count?commentId.in=" + commentIds))
+            .andExpect(status().isOk())
+            .andExpect(content().string("1"));
+
+        BulkPatchVM<Task> bulkPatch = new BulkPatchVM<>();
+        bulkPatch.setPatch(new Task().implementer(UPDATED_IMPLEMENTER));
+
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk?commentId.in=" + commentIds)
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(bulkPatch))
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(task.getId().intValue())))
+            .andExpect(jsonPath("$.[*].outcome").value(contains("UPDATED")));
+
+        assertThat(taskRepository.findById(task.getId()).get().getImplementer()).isEqualTo(UPDATED_IMPLEMENTER);
+    }
+
+    @Test
+    @Transactional
+    void bulkPatchTasksWithInvalidRequest() throws Exception {
+        // Initialize the database
+        taskRepository.saveAndFlush(task);
+
+        BulkPatchVM<Task> bulkPatch = new BulkPatchVM<>();
+        bulkPatch.setUpdates(List.of(new Task().id(task.getId()).name(UPDATED_NAME)));
+
+        // updates can't be filtered
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk?author.equals=triage")
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(bulkPatch))
+            )
+            .andExpect(status().isBadRequest());
+
+        // more rows than allowed by the test configuration
+        bulkPatch.setUpdates(List.of(task, task, task, task));
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(bulkPatch))
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.bulkupdateinvalid"));
+
+        // a patch needs criteria
+        bulkPatch.setUpdates(null);
+        bulkPatch.setPatch(new Task().name(UPDATED_NAME));
+        restTaskMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .with(csrf())
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(bulkPatch))
+            )
+            .andExpect(status().isBadRequest());
+
+        assertThat(taskRepository.findById(task.getId()).get().getName()).isEqualTo(DEFAULT_NAME);
+    }
+
     @Test
     @Transactional
     void patchNonExistingTask() throws Exception {
@@ -1258,4 +1864,184 @@ class TaskResourceIT {
         List<Task> taskList = taskRepository.findAll();
         assertThat(taskList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    void searchTask() throws Exception {
+        // Initialize the database, committed so that the task gets indexed
+        task.setName("Searchable tasks");
+        taskRepository.saveAndFlush(task);
+        try {
+            searchIndexer.flush().get(10, TimeUnit.SECONDS);
+
+            // Search the task
+            restTaskMockMvc
+                .perform(get(ENTITY_SEARCH_API_URL + "?q=searchable task"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(header().string("X-Total-Count", "1"))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(task.getId().intValue())))
+                .andExpect(jsonPath("$.[*].name").value(hasItem("Searchable tasks")));
+        } finally {
+            taskRepository.deleteById(task.getId());
+        }
+    }
+
+    @Test
+    void exportTasksAsNdjson() throws Exception {
+        // Initialize the database, committed so that the export streamed on another thread sees it
+        Project project = projectRepository.saveAndFlush(ProjectResourceIT.createEntity(em));
+        taskRepository.saveAndFlush(task.project(project));
+        Task other = taskRepository.saveAndFlush(createUpdatedEntity(em));
+        try {
+            // Export the tasks matching the criteria
+            MvcResult result = restTaskMockMvc
+                .perform(get(ENTITY_API_URL + "/export?name.equals=" + DEFAULT_NAME + "&id.in=" + task.getId() + "," + other.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restTaskMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks.ndjson\""))
+                .andExpect(jsonPath("$.id").value(task.getId().intValue()))
+                .andExpect(jsonPath("$.name").value(DEFAULT_NAME))
+                .andExpect(jsonPath("$.created").value(sameInstant(DEFAULT_CREATED)))
+                .andExpect(jsonPath("$.project.id").value(project.getId().intValue()));
+            assertThat(result.getResponse().getContentAsString()).endsWith("}\n").containsOnlyOnce("\n");
+        } finally {
+            taskRepository.deleteById(task.getId());
+            taskRepository.deleteById(other.getId());
+            projectRepository.deleteById(project.getId());
+        }
+    }
+
+    @Test
+    void exportTasksAsCsv() throws Exception {
+        // Initialize the database, committed so that the export streamed on another thread sees it
+        taskRepository.saveAndFlush(task.text("first line\nsecond, \"quoted\""));
+        Task other = taskRepository.saveAndFlush(createUpdatedEntity(em));
+        try {
+            // Export the tasks, sorted, as requested by the Accept header
+            MvcResult result = restTaskMockMvc
+                .perform(get(ENTITY_API_URL + "/export?sort=id,desc&id.in=" + task.getId() + "," + other.getId()).accept("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restTaskMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks.csv\""));
+            assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(
+                    "id,author,implementer,name,text,comment,status,created,edited,project.id\r\n" +
+                    other.getId() +
+                    "," +
+                    UPDATED_AUTHOR +
+                    "," +
+                    UPDATED_IMPLEMENTER +
+                    "," +
+                    UPDATED_NAME +
+                    "," +
+                    UPDATED_TEXT +
+                    "," +
+                    UPDATED_COMMENT +
+                    "," +
+                    UPDATED_STATUS +
+                    "," +
+                    DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(UPDATED_CREATED.withZoneSameInstant(ZoneOffset.UTC)) +
+                    "," +
+                    DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(UPDATED_EDITED.withZoneSameInstant(ZoneOffset.UTC)) +
+                    ",\r\n" +
+                    task.getId() +
+                    ",AAAAAAAAAA,AAAAAAAAAA,AAAAAAAAAA,\"first line\nsecond, \"\"quoted\"\"\",AAAAAAAAAA,NEW,1970-01-01T00:00:00Z,1970-01-01T00:00:00Z,\r\n"
+                );
+        } finally {
+            taskRepository.deleteById(task.getId());
+            taskRepository.deleteById(other.getId());
+        }
+    }
+
+    @Test
+    void exportTasksAsCsvNeutralizesFormulas() throws Exception {
+        // Initialize the database, committed so that the export streamed on another thread sees it
+        taskRepository.saveAndFlush(task.author("+author").implementer("-implementer").name("=HYPERLINK(\"http://x\")").text("@SUM(A1)"));
+        try {
+            // Export the task as CSV
+            MvcResult result = restTaskMockMvc
+                .perform(get(ENTITY_API_URL + "/export?id.equals=" + task.getId()).accept("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restTaskMockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+            assertThat(result.getResponse().getContentAsString())
+                .isEqualTo(
+                    "id,author,implementer,name,text,comment,status,created,edited,project.id\r\n" +
+                    task.getId() +
+                    ",'+author,'-implementer,\"'=HYPERLINK(\"\"http://x\"\")\",'@SUM(A1),AAAAAAAAAA,NEW,1970-01-01T00:00:00Z,1970-01-01T00:00:00Z,\r\n"
+                );
+        } finally {
+            taskRepository.deleteById(task.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void exportTasksWithInvalidFormat() throws Exception {
+        restTaskMockMvc.perform(get(ENTITY_API_URL + "/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bulkCreateTasks() throws Exception {
+        // Initialize the database, committed as the bulk import runs in transactions of its own
+        Project project = projectRepository.saveAndFlush(ProjectResourceIT.createEntity(em));
+        int databaseSizeBeforeCreate = taskRepository.findAll().size();
+        String body =
+            "{\"name\":\"Bulk 1\",\"status\":\"NEW\",\"project\":{\"id\":" +
+            project.getId() +
+            "}}\n" +
+            "{\"name\":\"Bulk 2\",\"created\":\"1970-01-01T00:00:00Z\"}\n" +
+            "{\"name\":\"Bulk 3\"}\n";
+        try {
+            // Create the tasks, spanning two chunks
+            restTaskMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").with(csrf()).contentType("application/x-ndjson").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(3));
+
+            // Validate the Tasks in the database
+            List<Task> taskList = taskRepository.findAll();
+            assertThat(taskList).hasSize(databaseSizeBeforeCreate + 3);
+            assertThat(taskList)
+                .filteredOn(created -> created.getName().startsWith("Bulk "))
+                .extracting(Task::getName, Task::getStatus, created -> created.getProject() == null ? null : created.getProject().getId())
+                .containsExactlyInAnyOrder(
+                    tuple("Bulk 1", TaskAndProjectStatus.NEW, project.getId()),
+                    tuple("Bulk 2", null, null),
+                    tuple("Bulk 3", null, null)
+                );
+        } finally {
+            taskRepository.findAll().stream().filter(created -> created.getName().startsWith("Bulk ")).forEach(taskRepository::delete);
+            projectRepository.deleteById(project.getId());
+        }
+    }
+
+    @Test
+    void bulkCreateTasksStopsAtTheFirstInvalidRow() throws Exception {
+        int databaseSizeBeforeCreate = taskRepository.findAll().size();
+        String body = "[{\"name\":\"Bulk 1\"},{\"name\":\"Bulk 2\"},{\"name\":\"Bulk 3\"},{\"text\":\"no name\"},{\"name\":\"Bulk 5\"}]";
+        try {
+            // The chunk of the invalid row is not created, the chunks before it are
+            restTaskMockMvc
+                .perform(post(ENTITY_API_URL + "/bulk").with(csrf()).contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("error.bulkImport"))
+                .andExpect(jsonPath("$.title").value("Row 4 is not valid: name must not be null"))
+                .andExpect(jsonPath("$.row").value(4))
+                .andExpect(jsonPath("$.created").value(2));
+
+            // Validate the Tasks in the database
+            assertThat(taskRepository.findAll()).hasSize(databaseSizeBeforeCreate + 2);
+        } finally {
+            taskRepository.findAll().stream().filter(created -> created.getName().startsWith("Bulk ")).forEach(taskRepository::delete);
+        }
+    }
 }
@@ -250,6 +250,25 @@ class UserInfoResourceIT {
             .andExpect(jsonPath("$.[*].edited").value(hasItem(sameInstant(DEFAULT_EDITED))));
     }
 
+    @Test
+    @Transactional
+    void getAllUserInfosWithSparseFieldset() throws Exception {
+        // Initialize the database
+        userInfoRepository.saveAndFlush(userInfo);
+
+        // Get only the requested fields
+        restUserInfoMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=id,name,birthday&id.equals=" + userInfo.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[0].id").value(userInfo.getId().intValue()))
+            .andExpect(jsonPath("$.[0].name").value(DEFAULT_NAME))
+            .andExpect(jsonPath("$.[0].birthday").value(DEFAULT_BIRTHDAY.toString()))
+            .andExpect(jsonPath("$.[0].email").doesNotExist());
+
+        restUserInfoMockMvc.perform(get(ENTITY_API_URL + "?fields=id,password")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getUserInfo() throws Exception {
@@ -0,0 +1,64 @@
+package ru.bjcreslin.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import ru.bjcreslin.web.rest.errors.ExportRejectedException;
+
+/**
+ * Unit tests for the {@link ExportExecutor}.
+ */
+class ExportExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor taskExecutor;
+
+    private ExportExecutor exportExecutor;
+
+    @BeforeEach
+    public void setup() {
+        taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(1);
+        taskExecutor.setMaxPoolSize(1);
+        taskExecutor.setQueueCapacity(1);
+        taskExecutor.initialize();
+        exportExecutor = new ExportExecutor(taskExecutor, TimeUnit.MINUTES.toMillis(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        taskExecutor.shutdown();
+    }
+
+    @Test
+    void exportsBeyondTheQueueAreRejected() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        exportExecutor.stream(
+            outputStream -> {
+                started.countDown();
+                await(release);
+            }
+        );
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        // the second export waits in the queue, the third one doesn't fit in it
+        exportExecutor.stream(outputStream -> await(release));
+
+        assertThatThrownBy(() -> exportExecutor.stream(outputStream -> {})).isInstanceOf(ExportRejectedException.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package ru.bjcreslin.web.timing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.bjcreslin.IntegrationTest;
+import ru.bjcreslin.security.AuthoritiesConstants;
+
+/**
+ * Integration tests for the {@link ServerTimingFilter}.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+class ServerTimingIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @WithMockUser(authorities = AuthoritiesConstants.ADMIN)
+    void phasesAreSentBackToTheAdministrators() throws Exception {
+        String serverTiming = mockMvc
+            .perform(get("/api/tasks?name.contains=server-timing"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader(ServerTimingFilter.HEADER);
+
+        assertThat(serverTiming)
+            .matches("security;dur=\\d+\\.\\d{3}, controller;dur=.+, service;dur=.+, db;dur=.+, json;dur=.+, total;dur=.+");
+        assertThat(serverTiming).doesNotContain("controller;dur=0.000", "service;dur=0.000", "db;dur=0.000", "json;dur=0.000");
+    }
+
+    @Test
+    @WithMockUser
+    void phasesAreNotSentBackToTheUsers() throws Exception {
+        mockMvc
+            .perform(get("/api/tasks?name.contains=server-timing"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(ServerTimingFilter.HEADER));
+    }
+
+    @Test
+    @WithMockUser
+    void phasesAreRecordedPerEndpoint() throws Exception {
+        mockMvc.perform(get("/api/tasks?name.contains=server-timing")).andExpect(status().isOk());
+
+        for (String phase : new String[] { "security", "controller", "service", "db", "json" }) {
+            Timer timer = meterRegistry
+                .get(ServerTimingFilter.METRIC_NAME)
+                .tags("method", "GET", "uri", "/api/tasks", "phase", phase)
+                .timer();
+            assertThat(timer.count()).as("requests timed in the %s phase", phase).isPositive();
+        }
+    }
+}